@@ -42,6 +42,35 @@ public class TrekCraftConfig {
             .comment("Track tricorders in player inventory as signals")
             .define("transport.trackHeldTricorders", true);
 
+    private static final ModConfigSpec.IntValue SIGNAL_EXPIRY_TICKS = BUILDER
+            .comment("Ticks without an update before a signal is verified (dropped) or pruned (held by an offline player)")
+            .defineInRange("transport.signalExpiryTicks", 12000, 200, 1728000);
+
+    private static final ModConfigSpec.IntValue SIGNAL_PRUNE_BATCH_SIZE = BUILDER
+            .comment("Maximum number of expired signals verified per server tick")
+            .defineInRange("transport.signalPruneBatchSize", 16, 1, 1024);
+
+    // Wormhole settings
+    private static final ModConfigSpec.IntValue WORMHOLE_COOLDOWN_TICKS = BUILDER
+            .comment("Default ticks an entity must wait after arriving through a wormhole before travelling again")
+            .defineInRange("wormhole.cooldownTicks", 100, 20, 6000);
+
+    private static final ModConfigSpec.BooleanValue WORMHOLE_BATCH_ITEMS = BUILDER
+            .comment("Move dropped items through wormholes in merged batches with one sound per tick")
+            .define("wormhole.batchItems", true);
+
+    private static final ModConfigSpec.IntValue WORMHOLE_MAX_ITEMS_PER_TICK = BUILDER
+            .comment("Maximum number of items a single wormhole transfers per tick when batching")
+            .defineInRange("wormhole.maxItemsPerTick", 256, 64, 4096);
+
+    private static final ModConfigSpec.IntValue WORMHOLE_TICKET_IDLE_TICKS = BUILDER
+            .comment("Ticks without traffic before a wormhole destination chunk is released (0 disables destination tickets)")
+            .defineInRange("wormhole.ticketIdleTicks", 600, 0, 72000);
+
+    private static final ModConfigSpec.IntValue WORMHOLE_WARMUP_RADIUS = BUILDER
+            .comment("Players within this many blocks of a linked wormhole pre-load its destination (0 disables warm-up)")
+            .defineInRange("wormhole.warmupRadius", 16, 0, 64);
+
     // Scan settings
     private static final ModConfigSpec.IntValue SCAN_COST = BUILDER
             .comment("Number of Latinum Slips consumed per scan")
@@ -77,6 +106,31 @@ public class TrekCraftConfig {
             .comment("Maximum Y height for mobile emitter holo-area (from emitter to world height)")
             .defineInRange("mobileEmitter.maxY", 128, 16, 384);
 
+    // Holodeck settings
+    private static final ModConfigSpec.IntValue HOLODECK_CLEAR_BLOCKS_PER_TICK = BUILDER
+            .comment("Maximum blocks a holodeck or mobile emitter area examines per tick while clearing")
+            .defineInRange("holodeck.clearBlocksPerTick", 32768, 4096, 1048576);
+
+    private static final ModConfigSpec.IntValue HOLODECK_PLACE_BLOCKS_PER_TICK = BUILDER
+            .comment("Maximum holoprogram blocks placed per tick while loading")
+            .defineInRange("holodeck.placeBlocksPerTick", 4096, 256, 262144);
+
+    private static final ModConfigSpec.IntValue HOLODECK_PROGRAM_CACHE_MEGABYTES = BUILDER
+            .comment("Memory kept for recently loaded holoprograms, so reloading them skips the disk (0 to disable)")
+            .defineInRange("holodeck.programCacheMegabytes", 64, 0, 1024);
+
+    private static final ModConfigSpec.IntValue HOLODECK_UNDO_STEPS = BUILDER
+            .comment("Undo steps kept per holodeck or mobile emitter area (0 to disable undo)")
+            .defineInRange("holodeck.undoSteps", 32, 0, 256);
+
+    private static final ModConfigSpec.IntValue HOLODECK_PROGRAM_VERSIONS = BUILDER
+            .comment("Saved versions kept per holoprogram, oldest pruned first (0 to keep every version)")
+            .defineInRange("holodeck.programVersions", 64, 0, 4096);
+
+    private static final ModConfigSpec.BooleanValue HOLODECK_EXPORT_NBT_ON_SAVE = BUILDER
+            .comment("Keep a Create-compatible .nbt of each saved holoprogram in the schematics folder")
+            .define("holodeck.exportNbtOnSave", true);
+
     public static final ModConfigSpec SPEC = BUILDER.build();
 
     // Runtime config values
@@ -88,6 +142,13 @@ public class TrekCraftConfig {
     public static int transportBaseRange;
     public static int transportPadRange;
     public static boolean trackHeldTricorders;
+    public static int signalExpiryTicks;
+    public static int signalPruneBatchSize;
+    public static int wormholeCooldownTicks;
+    public static boolean wormholeBatchItems;
+    public static int wormholeMaxItemsPerTick;
+    public static int wormholeTicketIdleTicks;
+    public static int wormholeWarmupRadius;
     public static int scanCost;
     public static int scanCooldownTicks;
     public static int scanRange;
@@ -96,6 +157,12 @@ public class TrekCraftConfig {
     public static int mobileEmitterMaxX;
     public static int mobileEmitterMaxZ;
     public static int mobileEmitterMaxY;
+    public static int holodeckClearBlocksPerTick;
+    public static int holodeckPlaceBlocksPerTick;
+    public static int holodeckProgramCacheMegabytes;
+    public static int holodeckUndoSteps;
+    public static int holodeckProgramVersions;
+    public static boolean holodeckExportNbtOnSave;
 
     @SubscribeEvent
     static void onLoad(final ModConfigEvent event) {
@@ -107,6 +174,13 @@ public class TrekCraftConfig {
         transportBaseRange = TRANSPORT_BASE_RANGE.get();
         transportPadRange = TRANSPORT_PAD_RANGE.get();
         trackHeldTricorders = TRACK_HELD_TRICORDERS.get();
+        signalExpiryTicks = SIGNAL_EXPIRY_TICKS.get();
+        signalPruneBatchSize = SIGNAL_PRUNE_BATCH_SIZE.get();
+        wormholeCooldownTicks = WORMHOLE_COOLDOWN_TICKS.get();
+        wormholeBatchItems = WORMHOLE_BATCH_ITEMS.get();
+        wormholeMaxItemsPerTick = WORMHOLE_MAX_ITEMS_PER_TICK.get();
+        wormholeTicketIdleTicks = WORMHOLE_TICKET_IDLE_TICKS.get();
+        wormholeWarmupRadius = WORMHOLE_WARMUP_RADIUS.get();
         scanCost = SCAN_COST.get();
         scanCooldownTicks = SCAN_COOLDOWN.get();
         scanRange = SCAN_RANGE.get();
@@ -115,5 +189,11 @@ public class TrekCraftConfig {
         mobileEmitterMaxX = MOBILE_EMITTER_MAX_X.get();
         mobileEmitterMaxZ = MOBILE_EMITTER_MAX_Z.get();
         mobileEmitterMaxY = MOBILE_EMITTER_MAX_Y.get();
+        holodeckClearBlocksPerTick = HOLODECK_CLEAR_BLOCKS_PER_TICK.get();
+        holodeckPlaceBlocksPerTick = HOLODECK_PLACE_BLOCKS_PER_TICK.get();
+        holodeckProgramCacheMegabytes = HOLODECK_PROGRAM_CACHE_MEGABYTES.get();
+        holodeckUndoSteps = HOLODECK_UNDO_STEPS.get();
+        holodeckProgramVersions = HOLODECK_PROGRAM_VERSIONS.get();
+        holodeckExportNbtOnSave = HOLODECK_EXPORT_NBT_ON_SAVE.get();
     }
 }
@@ -9,11 +9,18 @@ import com.csquared.trekcraft.registry.ModBlocks;
 import com.csquared.trekcraft.registry.ModDataComponents;
 import com.csquared.trekcraft.registry.ModItems;
 import com.csquared.trekcraft.service.MissionService;
+import com.csquared.trekcraft.service.SignalExpiryService;
 import com.csquared.trekcraft.service.StarfleetService;
+import com.csquared.trekcraft.service.WormholeChunkTickets;
+import com.csquared.trekcraft.service.WormholeCooldowns;
+import com.csquared.trekcraft.service.WormholeFrameRevalidator;
+import com.csquared.trekcraft.service.WormholeTeleportQueue;
+import com.csquared.trekcraft.service.WormholeTrafficController;
 import net.minecraft.core.Holder;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.LivingEntity;
 import net.minecraft.world.entity.item.ItemEntity;
 import net.minecraft.world.entity.monster.Monster;
@@ -28,7 +35,10 @@ import net.neoforged.neoforge.event.entity.EntityLeaveLevelEvent;
 import net.neoforged.neoforge.event.entity.living.LivingDeathEvent;
 import net.neoforged.neoforge.event.entity.player.ItemEntityPickupEvent;
 import net.neoforged.neoforge.event.level.BlockEvent;
+import net.neoforged.neoforge.event.level.ChunkEvent;
 import net.neoforged.neoforge.event.server.ServerStartedEvent;
+import net.neoforged.neoforge.event.server.ServerStoppingEvent;
+import net.neoforged.neoforge.event.tick.LevelTickEvent;
 import net.neoforged.neoforge.event.tick.PlayerTickEvent;
 import net.neoforged.neoforge.event.tick.ServerTickEvent;
 
@@ -51,6 +61,11 @@ public class TrekCraftEvents {
 
     @SubscribeEvent
     public static void onServerStarted(ServerStartedEvent event) {
+        // Cooldowns are keyed by entity id, which doesn't survive a restart
+        WormholeCooldowns.clear();
+        WormholeChunkTickets.clear();
+        WormholeFrameRevalidator.clear();
+
         // Generate tutorial missions if needed
         ServerLevel overworld = event.getServer().getLevel(net.minecraft.world.level.Level.OVERWORLD);
         if (overworld != null) {
@@ -59,6 +74,14 @@ public class TrekCraftEvents {
         }
     }
 
+    @SubscribeEvent
+    public static void onServerStopping(ServerStoppingEvent event) {
+        // Drop per-level wormhole state so nothing outlives the server
+        WormholeTrafficController.clear();
+        WormholeTeleportQueue.clear();
+        WormholeFrameRevalidator.clear();
+    }
+
     @SubscribeEvent
     public static void onPlayerTick(PlayerTickEvent.Post event) {
         // Track held tricorders as signals
@@ -126,8 +149,12 @@ public class TrekCraftEvents {
 
     @SubscribeEvent
     public static void onEntityJoinLevel(EntityJoinLevelEvent event) {
-        // Track dropped tricorders as signals
         if (event.getLevel().isClientSide()) return;
+
+        // Cooldowns are no longer saved with the entity
+        WormholeCooldowns.dropLegacyTag(event.getEntity());
+
+        // Track dropped tricorders as signals
         if (!(event.getEntity() instanceof ItemEntity itemEntity)) return;
 
         ItemStack stack = itemEntity.getItem();
@@ -156,8 +183,15 @@ public class TrekCraftEvents {
 
     @SubscribeEvent
     public static void onEntityLeaveLevel(EntityLeaveLevelEvent event) {
-        // Remove dropped tricorder signals when picked up or despawned
         if (event.getLevel().isClientSide()) return;
+
+        // Drop wormhole cooldowns for unloaded/removed entities; players changing
+        // dimension keep their id and must keep their cooldown
+        if (event.getEntity().getRemovalReason() != Entity.RemovalReason.CHANGED_DIMENSION) {
+            WormholeCooldowns.forget(event.getEntity());
+        }
+
+        // Remove dropped tricorder signals when picked up or despawned
         if (!(event.getEntity() instanceof ItemEntity itemEntity)) return;
 
         ItemStack stack = itemEntity.getItem();
@@ -177,6 +211,15 @@ public class TrekCraftEvents {
         }
     }
 
+    @SubscribeEvent
+    public static void onChunkLoad(ChunkEvent.Load event) {
+        // Dropped signals parked on this chunk can be verified again
+        if (event.isNewChunk()) return;
+        if (!(event.getLevel() instanceof ServerLevel serverLevel)) return;
+
+        SignalExpiryService.onChunkLoad(serverLevel, event.getChunk().getPos());
+    }
+
     @SubscribeEvent
     public static void onBlockBreak(BlockEvent.BreakEvent event) {
         BlockState state = event.getState();
@@ -228,6 +271,13 @@ public class TrekCraftEvents {
 
     @SubscribeEvent
     public static void onServerTick(ServerTickEvent.Post event) {
+        // Run wormhole travel collected during the level ticks
+        WormholeTeleportQueue.flush(event.getServer());
+        WormholeChunkTickets.tick(event.getServer());
+
+        // Age out stale tricorder signals (bounded batch every tick)
+        SignalExpiryService.tick(event.getServer());
+
         // Tick defend missions and check biome exploration
         ServerLevel overworld = event.getServer().getLevel(net.minecraft.world.level.Level.OVERWORLD);
         if (overworld == null) return;
@@ -244,6 +294,16 @@ public class TrekCraftEvents {
         }
     }
 
+    @SubscribeEvent
+    public static void onLevelTick(LevelTickEvent.Post event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel) {
+            // Revalidate frames touched this tick, once per portal
+            WormholeFrameRevalidator.tick(serverLevel);
+            // Detect wormhole traffic once per portal (interior blocks don't tick)
+            WormholeTrafficController.tick(serverLevel);
+        }
+    }
+
     /**
      * Track player exploring biomes for exploration missions.
      * Only triggers when player enters a NEW biome.
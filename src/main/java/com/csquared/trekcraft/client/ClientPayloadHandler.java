@@ -99,6 +99,14 @@ public class ClientPayloadHandler {
         });
     }
 
+    public static void receiveWormholeDirectoryPage(com.csquared.trekcraft.network.WormholeDirectoryPagePayload payload) {
+        Minecraft.getInstance().execute(() -> {
+            if (Minecraft.getInstance().screen instanceof com.csquared.trekcraft.client.screen.WormholeLinkScreen screen) {
+                screen.acceptPage(payload.sourcePortalId(), payload.page());
+            }
+        });
+    }
+
     public static void openContributionScreen(com.csquared.trekcraft.network.OpenContributionScreenPayload payload) {
         Minecraft.getInstance().execute(() -> {
             Minecraft.getInstance().setScreen(
@@ -115,6 +123,15 @@ public class ClientPayloadHandler {
         });
     }
 
+    public static void updateHolodeckStatus(com.csquared.trekcraft.network.HolodeckStatusPayload payload) {
+        Minecraft.getInstance().execute(() -> {
+            if (Minecraft.getInstance().screen instanceof HolodeckControllerScreen screen
+                    && screen.getControllerPos().equals(payload.controllerPos())) {
+                screen.setStatus(payload.status(), payload.progressPercent());
+            }
+        });
+    }
+
     // ===== Mission System Handlers =====
 
     public static void openStarfleetCommand(com.csquared.trekcraft.network.mission.OpenStarfleetCommandPayload payload) {
@@ -24,6 +24,8 @@ public class ContributionScreen extends Screen {
     private final int freeTransportsUsed;
     private final int totalFreeTransportsEarned;
     private final ContributorRank highestRank;
+    private final int rankPosition;
+    private final int totalContributors;
     private final List<LeaderboardEntry> leaderboard;
 
     private int panelLeft;
@@ -38,6 +40,8 @@ public class ContributionScreen extends Screen {
         this.freeTransportsUsed = payload.freeTransportsUsed();
         this.totalFreeTransportsEarned = payload.getTotalFreeTransportsEarned();
         this.highestRank = payload.getHighestRank();
+        this.rankPosition = payload.rankPosition();
+        this.totalContributors = payload.totalContributors();
         this.leaderboard = payload.leaderboard();
     }
 
@@ -96,6 +100,15 @@ public class ContributionScreen extends Screen {
         // Rank with star decoration
         String rankTitle = highestRank.getTitle().toUpperCase();
         drawCenteredText(g, "* " + rankTitle + " *", contentX, contentW, y, LCARSRenderer.PEACH);
+        y += lineHeight;
+
+        // Leaderboard position
+        if (rankPosition > 0) {
+            drawCenteredText(g, "Position #" + rankPosition + " of " + totalContributors,
+                    contentX, contentW, y, LCARSRenderer.LAVENDER);
+        } else {
+            drawCenteredText(g, "Not yet ranked", contentX, contentW, y, 0xFF888888);
+        }
         y += lineHeight + 6;
 
         // Stats in two columns
@@ -38,6 +38,10 @@ public class HolodeckControllerScreen extends Screen {
 
     private EditBox nameInput;
 
+    // Progress of a running clear/load on the server; empty when idle
+    private String status = "";
+    private int statusProgress = 0;
+
     private enum ScreenState {
         MAIN_MENU,
         SAVE_DIALOG
@@ -213,6 +217,18 @@ public class HolodeckControllerScreen extends Screen {
                 .build());
     }
 
+    public BlockPos getControllerPos() {
+        return controllerPos;
+    }
+
+    /**
+     * Update the progress display for a long-running holodeck operation.
+     */
+    public void setStatus(String status, int progressPercent) {
+        this.status = status;
+        this.statusProgress = progressPercent;
+    }
+
     private void selectItem(int index) {
         selectedIndex = index;
         setupWidgets();
@@ -347,6 +363,18 @@ public class HolodeckControllerScreen extends Screen {
                 guiGraphics.drawString(this.font, "Build something and", contentX + 20, emptyY + 12, LCARSRenderer.LAVENDER);
                 guiGraphics.drawString(this.font, "click SAVE to store it.", contentX + 20, emptyY + 24, LCARSRenderer.LAVENDER);
             }
+
+            // Progress bar above the bottom buttons while the server is working
+            if (!status.isEmpty()) {
+                int contentW = contentBounds[2];
+                int contentH = contentBounds[3];
+                int barY = contentY + contentH - BUTTON_HEIGHT - 18;
+                int barX = contentX + 120;
+                int barW = contentW - 120;
+                guiGraphics.drawString(this.font, status + " " + statusProgress + "%", contentX, barY, LCARSRenderer.ORANGE);
+                guiGraphics.fill(barX, barY, barX + barW, barY + 8, 0xFF333333);
+                guiGraphics.fill(barX, barY, barX + barW * statusProgress / 100, barY + 8, LCARSRenderer.PEACH);
+            }
         } else if (currentState == ScreenState.SAVE_DIALOG) {
             // Draw instruction
             guiGraphics.drawString(this.font, "Enter holoprogram name:", contentX + 10, contentY + 12, LCARSRenderer.ORANGE);
@@ -2,38 +2,93 @@ package com.csquared.trekcraft.client.screen;
 
 import com.csquared.trekcraft.network.LinkWormholesPayload;
 import com.csquared.trekcraft.network.OpenWormholeLinkScreenPayload;
+import com.csquared.trekcraft.network.RequestWormholeDirectoryPayload;
 import net.minecraft.client.gui.GuiGraphics;
+import net.minecraft.client.gui.components.EditBox;
 import net.minecraft.client.gui.screens.Screen;
 import net.minecraft.network.chat.Component;
 import net.neoforged.neoforge.network.PacketDistributor;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
 
 /**
  * LCARS-styled screen for selecting a wormhole portal to link to.
+ * The directory is paged on the server; pages are requested as the player
+ * scrolls or searches and cached until the filter changes.
  */
 public class WormholeLinkScreen extends Screen {
 
     private static final int PANEL_WIDTH = 280;
-    private static final int PANEL_HEIGHT = 260;
+    private static final int PANEL_HEIGHT = 290;
     private static final int BUTTON_HEIGHT = 22;
     private static final int BUTTON_SPACING = 4;
-    private static final int MAX_VISIBLE_PORTALS = 6;
+    private static final int SEARCH_DEBOUNCE_TICKS = 6;
 
     private final UUID sourcePortalId;
     private final String sourcePortalName;
-    private final List<OpenWormholeLinkScreenPayload.PortalEntry> availablePortals;
+
+    // Pages received for the current filter, keyed by page index
+    private final Map<Integer, List<OpenWormholeLinkScreenPayload.PortalEntry>> pages = new HashMap<>();
+    private String filter;
+    private int totalCount;
+    private int currentPage;
+
+    private EditBox searchInput;
+    private String pendingFilter;
+    private int debounceTicks = 0;
 
     private int panelLeft;
     private int panelTop;
-    private int scrollOffset = 0;
 
     public WormholeLinkScreen(OpenWormholeLinkScreenPayload payload) {
         super(Component.translatable("screen.trekcraft.wormhole_link"));
-        this.sourcePortalId = payload.getSourcePortalId();
+        this.sourcePortalId = payload.sourcePortalId();
         this.sourcePortalName = payload.sourcePortalName();
-        this.availablePortals = payload.availablePortals();
+        this.filter = payload.page().filter();
+        this.pendingFilter = filter;
+        this.currentPage = payload.page().pageIndex();
+        storePage(payload.page());
+    }
+
+    /**
+     * Called when a directory page arrives from the server.
+     */
+    public void acceptPage(UUID portalId, OpenWormholeLinkScreenPayload.DirectoryPage page) {
+        // Drop pages for another portal or for a filter the player has since changed
+        if (!sourcePortalId.equals(portalId) || !page.filter().equals(filter)) {
+            return;
+        }
+        storePage(page);
+        // The result set may have shrunk since the player paged past its end
+        if (currentPage >= pageCount()) {
+            currentPage = page.pageIndex();
+        }
+        rebuildPortalButtons();
+    }
+
+    private void storePage(OpenWormholeLinkScreenPayload.DirectoryPage page) {
+        pages.put(page.pageIndex(), page.entries());
+        totalCount = page.totalCount();
+    }
+
+    private int pageCount() {
+        return Math.max(1, (totalCount + RequestWormholeDirectoryPayload.PAGE_SIZE - 1) / RequestWormholeDirectoryPayload.PAGE_SIZE);
+    }
+
+    private void showPage(int page) {
+        currentPage = Math.max(0, Math.min(page, pageCount() - 1));
+        if (!pages.containsKey(currentPage)) {
+            requestPage(currentPage);
+        }
+        rebuildPortalButtons();
+    }
+
+    private void requestPage(int page) {
+        PacketDistributor.sendToServer(new RequestWormholeDirectoryPayload(sourcePortalId, filter, page));
     }
 
     @Override
@@ -42,27 +97,38 @@ public class WormholeLinkScreen extends Screen {
         panelLeft = (this.width - PANEL_WIDTH) / 2;
         panelTop = (this.height - PANEL_HEIGHT) / 2;
 
-        rebuildPortalButtons();
-
-        // Add close button
         int[] contentBounds = LCARSRenderer.getContentBounds(panelLeft, panelTop, PANEL_WIDTH, PANEL_HEIGHT);
         int contentX = contentBounds[0];
         int contentY = contentBounds[1];
         int contentW = contentBounds[2];
-        int contentH = contentBounds[3];
 
-        int closeButtonY = contentY + contentH - BUTTON_HEIGHT - 5;
-        addRenderableWidget(LCARSButton.lcarsBuilder(
-                Component.literal("CANCEL"),
-                button -> this.onClose()
-        ).bounds(contentX + (contentW - 80) / 2, closeButtonY, 80, BUTTON_HEIGHT)
-                .colors(LCARSRenderer.BLUE, LCARSRenderer.LAVENDER)
-                .build());
+        searchInput = new EditBox(this.font, contentX + 5, contentY + 22, contentW - 10, 18, Component.literal("Search"));
+        searchInput.setMaxLength(RequestWormholeDirectoryPayload.MAX_FILTER_LENGTH);
+        searchInput.setValue(pendingFilter);
+        searchInput.setResponder(s -> {
+            pendingFilter = s.trim().toLowerCase(Locale.ROOT);
+            debounceTicks = SEARCH_DEBOUNCE_TICKS;
+        });
+
+        rebuildPortalButtons();
+    }
+
+    @Override
+    public void tick() {
+        super.tick();
+        // Wait for typing to settle before asking the server for a new result set
+        if (debounceTicks > 0 && --debounceTicks == 0 && !pendingFilter.equals(filter)) {
+            filter = pendingFilter;
+            pages.clear();
+            currentPage = 0;
+            requestPage(0);
+            rebuildPortalButtons();
+        }
     }
 
     private void rebuildPortalButtons() {
-        // Remove existing portal buttons but keep the close button
         this.clearWidgets();
+        addRenderableWidget(searchInput);
 
         int[] contentBounds = LCARSRenderer.getContentBounds(panelLeft, panelTop, PANEL_WIDTH, PANEL_HEIGHT);
         int contentX = contentBounds[0];
@@ -70,56 +136,46 @@ public class WormholeLinkScreen extends Screen {
         int contentW = contentBounds[2];
         int contentH = contentBounds[3];
 
-        // Starting Y position for portal buttons (after header text)
-        int buttonY = contentY + 35;
+        // Starting Y position for portal buttons (after header text and search box)
+        int buttonY = contentY + 48;
         int buttonWidth = contentW - 10;
 
-        // Calculate visible range
-        int maxVisible = Math.min(MAX_VISIBLE_PORTALS, availablePortals.size() - scrollOffset);
+        List<OpenWormholeLinkScreenPayload.PortalEntry> entries = pages.get(currentPage);
+        if (entries != null) {
+            for (int i = 0; i < entries.size(); i++) {
+                OpenWormholeLinkScreenPayload.PortalEntry portal = entries.get(i);
+                // Show distance for same-dimension portals, dimension name for the rest
+                String location = portal.distance() >= 0 ? portal.distance() + "m" : portal.getDimensionDisplayName();
+                String buttonText = portal.name() + " [" + location + "]";
 
-        for (int i = 0; i < maxVisible; i++) {
-            int portalIndex = i + scrollOffset;
-            if (portalIndex >= availablePortals.size()) break;
-
-            OpenWormholeLinkScreenPayload.PortalEntry portal = availablePortals.get(portalIndex);
-            // Show dimension name alongside portal info for cross-dimensional linking
-            String buttonText = portal.name() + " [" + portal.getDimensionDisplayName() + "]";
-
-            final UUID targetId = portal.getPortalId();
-            addRenderableWidget(LCARSButton.lcarsBuilder(
-                    Component.literal(buttonText),
-                    button -> linkToPortal(targetId)
-            ).bounds(contentX + 5, buttonY + i * (BUTTON_HEIGHT + BUTTON_SPACING), buttonWidth, BUTTON_HEIGHT)
-                    .colors(LCARSRenderer.LAVENDER, LCARSRenderer.PURPLE)
-                    .build());
+                final UUID targetId = portal.portalId();
+                addRenderableWidget(LCARSButton.lcarsBuilder(
+                        Component.literal(buttonText),
+                        button -> linkToPortal(targetId)
+                ).bounds(contentX + 5, buttonY + i * (BUTTON_HEIGHT + BUTTON_SPACING), buttonWidth, BUTTON_HEIGHT)
+                        .colors(LCARSRenderer.LAVENDER, LCARSRenderer.PURPLE)
+                        .build());
+            }
         }
 
-        // Add scroll buttons if needed
-        if (availablePortals.size() > MAX_VISIBLE_PORTALS) {
+        // Add page buttons if needed
+        if (pageCount() > 1) {
             int scrollButtonY = contentY + contentH - BUTTON_HEIGHT * 2 - 15;
 
-            // Scroll up button
-            if (scrollOffset > 0) {
+            if (currentPage > 0) {
                 addRenderableWidget(LCARSButton.lcarsBuilder(
                         Component.literal("^"),
-                        button -> {
-                            scrollOffset = Math.max(0, scrollOffset - 1);
-                            rebuildPortalButtons();
-                        }
+                        button -> showPage(currentPage - 1)
                 ).bounds(contentX + 5, scrollButtonY, 30, BUTTON_HEIGHT)
                         .colors(LCARSRenderer.PEACH, LCARSRenderer.ORANGE)
                         .centerAligned()
                         .build());
             }
 
-            // Scroll down button
-            if (scrollOffset < availablePortals.size() - MAX_VISIBLE_PORTALS) {
+            if (currentPage < pageCount() - 1) {
                 addRenderableWidget(LCARSButton.lcarsBuilder(
                         Component.literal("v"),
-                        button -> {
-                            scrollOffset = Math.min(availablePortals.size() - MAX_VISIBLE_PORTALS, scrollOffset + 1);
-                            rebuildPortalButtons();
-                        }
+                        button -> showPage(currentPage + 1)
                 ).bounds(contentX + 40, scrollButtonY, 30, BUTTON_HEIGHT)
                         .colors(LCARSRenderer.PEACH, LCARSRenderer.ORANGE)
                         .centerAligned()
@@ -127,7 +183,7 @@ public class WormholeLinkScreen extends Screen {
             }
         }
 
-        // Re-add close button
+        // Close button
         int closeButtonY = contentY + contentH - BUTTON_HEIGHT - 5;
         addRenderableWidget(LCARSButton.lcarsBuilder(
                 Component.literal("CANCEL"),
@@ -165,29 +221,40 @@ public class WormholeLinkScreen extends Screen {
         int contentX = contentBounds[0];
         int contentY = contentBounds[1];
         int contentW = contentBounds[2];
+        int contentH = contentBounds[3];
 
         // Draw source portal info
         String sourceText = "Link from: " + sourcePortalName;
         int textWidth = this.font.width(sourceText);
         guiGraphics.drawString(this.font, sourceText, contentX + (contentW - textWidth) / 2, contentY + 8, LCARSRenderer.ORANGE);
 
-        // Draw instruction
-        String instruction = availablePortals.isEmpty() ?
-                "No unlinked wormholes available" :
-                "Select a destination:";
-        textWidth = this.font.width(instruction);
-        guiGraphics.drawString(this.font, instruction, contentX + (contentW - textWidth) / 2, contentY + 22, 0xFFCCCCCC);
+        // Draw status when there is nothing to list yet
+        String status = null;
+        if (!pages.containsKey(currentPage)) {
+            status = "Scanning...";
+        } else if (totalCount == 0) {
+            status = filter.isEmpty() ? "No unlinked wormholes available" : "No matching wormholes";
+        }
+        if (status != null) {
+            textWidth = this.font.width(status);
+            guiGraphics.drawString(this.font, status, contentX + (contentW - textWidth) / 2, contentY + 54, 0xFFCCCCCC);
+        }
+
+        // Page indicator
+        if (pageCount() > 1) {
+            String pageText = (currentPage + 1) + "/" + pageCount();
+            int scrollButtonY = contentY + contentH - BUTTON_HEIGHT * 2 - 15;
+            guiGraphics.drawString(this.font, pageText, contentX + 78, scrollButtonY + 7, 0xFFCCCCCC);
+        }
     }
 
     @Override
     public boolean mouseScrolled(double mouseX, double mouseY, double scrollX, double scrollY) {
-        if (availablePortals.size() > MAX_VISIBLE_PORTALS) {
-            if (scrollY > 0) {
-                scrollOffset = Math.max(0, scrollOffset - 1);
-                rebuildPortalButtons();
-            } else if (scrollY < 0) {
-                scrollOffset = Math.min(availablePortals.size() - MAX_VISIBLE_PORTALS, scrollOffset + 1);
-                rebuildPortalButtons();
+        if (pageCount() > 1) {
+            if (scrollY > 0 && currentPage > 0) {
+                showPage(currentPage - 1);
+            } else if (scrollY < 0 && currentPage < pageCount() - 1) {
+                showPage(currentPage + 1);
             }
             return true;
         }
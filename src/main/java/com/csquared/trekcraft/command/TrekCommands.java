@@ -1,7 +1,10 @@
 package com.csquared.trekcraft.command;
 
 import com.csquared.trekcraft.TrekCraftConfig;
+import com.csquared.trekcraft.content.blockentity.HolodeckControllerBlockEntity;
+import com.csquared.trekcraft.content.blockentity.MobileEmitterBlockEntity;
 import com.csquared.trekcraft.content.item.TricorderItem;
+import com.csquared.trekcraft.data.ContributionHistory;
 import com.csquared.trekcraft.data.ContributorRank;
 import com.csquared.trekcraft.data.StarfleetSavedData;
 import com.csquared.trekcraft.data.TransporterNetworkSavedData;
@@ -9,6 +12,13 @@ import com.csquared.trekcraft.data.TransporterNetworkSavedData.ContributorRecord
 import com.csquared.trekcraft.data.TransporterNetworkSavedData.RoomRecord;
 import com.csquared.trekcraft.data.TransporterNetworkSavedData.SignalType;
 import com.csquared.trekcraft.data.TricorderData;
+import com.csquared.trekcraft.data.WormholeRecord;
+import com.csquared.trekcraft.holodeck.HoloAreaHistory;
+import com.csquared.trekcraft.holodeck.HoloAreaJournal;
+import com.csquared.trekcraft.holodeck.HoloAreaRestoreJob;
+import com.csquared.trekcraft.holodeck.HoloprogramCache;
+import com.csquared.trekcraft.holodeck.HoloprogramManager;
+import com.csquared.trekcraft.holodeck.HoloprogramVersions;
 import com.csquared.trekcraft.mission.Mission;
 import com.csquared.trekcraft.mission.objectives.DefendObjective;
 import com.csquared.trekcraft.network.OpenContributionScreenPayload;
@@ -22,6 +32,7 @@ import com.csquared.trekcraft.service.MissionService;
 import com.csquared.trekcraft.service.ScanService;
 import com.csquared.trekcraft.service.StarfleetService;
 import com.csquared.trekcraft.service.TransportService;
+import com.csquared.trekcraft.service.WormholeService;
 import com.csquared.trekcraft.starfleet.StarfleetRank;
 import com.csquared.trekcraft.util.ChatUi;
 import com.mojang.brigadier.CommandDispatcher;
@@ -41,14 +52,21 @@ import net.minecraft.network.chat.HoverEvent;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.block.entity.BlockEntity;
 import net.neoforged.neoforge.network.PacketDistributor;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 public class TrekCommands {
 
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
     public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
         dispatcher.register(
                 Commands.literal("trek")
@@ -89,13 +107,27 @@ public class TrekCommands {
                         .then(Commands.literal("scan")
                                 .executes(TrekCommands::scan))
 
+                        // Holodeck undo, for builders inside a holo-area
+                        .then(Commands.literal("holodeck")
+                                .then(Commands.literal("checkpoint")
+                                        .executes(TrekCommands::holodeckCheckpoint))
+                                .then(Commands.literal("undo")
+                                        .executes(ctx -> holodeckRestore(ctx, true)))
+                                .then(Commands.literal("redo")
+                                        .executes(ctx -> holodeckRestore(ctx, false))))
+
                         // Contribution commands
                         .then(Commands.literal("contribution")
                                 .executes(TrekCommands::openContributionScreen)
                                 .then(Commands.literal("status")
                                         .executes(TrekCommands::openContributionScreen))
                                 .then(Commands.literal("leaderboard")
-                                        .executes(TrekCommands::openContributionScreen)))
+                                        .executes(TrekCommands::openContributionScreen))
+                                .then(Commands.literal("trends")
+                                        .executes(TrekCommands::contributionTrends)
+                                        .then(Commands.argument("player", EntityArgument.player())
+                                                .requires(source -> source.hasPermission(2))
+                                                .executes(TrekCommands::contributionTrendsOther))))
 
                         // Starfleet commands
                         .then(Commands.literal("starfleet")
@@ -134,6 +166,17 @@ public class TrekCommands {
                                 .then(Commands.literal("log")
                                         .executes(TrekCommands::missionLog)))
 
+                        // Wormhole commands
+                        .then(Commands.literal("wormhole")
+                                .requires(source -> source.hasPermission(2))
+                                .then(Commands.literal("cooldown")
+                                        .then(Commands.argument("name", StringArgumentType.string())
+                                                .executes(TrekCommands::wormholeCooldownShow)
+                                                .then(Commands.literal("default")
+                                                        .executes(TrekCommands::wormholeCooldownReset))
+                                                .then(Commands.argument("ticks", IntegerArgumentType.integer(20, 6000))
+                                                        .executes(TrekCommands::wormholeCooldownSet)))))
+
                         // Admin commands
                         .then(Commands.literal("admin")
                                 .requires(source -> source.hasPermission(2))
@@ -145,7 +188,19 @@ public class TrekCommands {
                                                 .then(Commands.argument("player", EntityArgument.player())
                                                         .executes(TrekCommands::admiralRevoke)))
                                         .then(Commands.literal("list")
-                                                .executes(TrekCommands::admiralList))))
+                                                .executes(TrekCommands::admiralList)))
+                                .then(Commands.literal("holocache")
+                                        .executes(TrekCommands::holoprogramCacheStats))
+                                .then(Commands.literal("holoversions")
+                                        .then(Commands.argument("program", StringArgumentType.string())
+                                                .executes(TrekCommands::holoprogramVersions)))
+                                .then(Commands.literal("holorollback")
+                                        .then(Commands.argument("program", StringArgumentType.string())
+                                                .then(Commands.argument("version", IntegerArgumentType.integer(1))
+                                                        .executes(TrekCommands::holoprogramRollback))))
+                                .then(Commands.literal("holoexport")
+                                        .then(Commands.argument("program", StringArgumentType.string())
+                                                .executes(TrekCommands::holoprogramExport))))
         );
     }
 
@@ -454,6 +509,80 @@ public class TrekCommands {
         return result == ScanService.ScanResult.SUCCESS ? 1 : 0;
     }
 
+    // Holodeck undo commands
+    private static int holodeckCheckpoint(CommandContext<CommandSourceStack> ctx) {
+        ServerPlayer player = ctx.getSource().getPlayer();
+        if (player == null) return 0;
+
+        BlockEntity owner = holoAreaAt(player);
+        if (owner == null) {
+            player.sendSystemMessage(Component.literal("You must be inside an active holo-area.")
+                    .withStyle(ChatFormatting.RED));
+            return 0;
+        }
+
+        boolean ended = owner instanceof HolodeckControllerBlockEntity controller
+                ? controller.checkpoint()
+                : ((MobileEmitterBlockEntity) owner).checkpoint();
+        player.sendSystemMessage(Component.literal((ended ? "Checkpoint saved." : "Nothing changed since the last checkpoint.")
+                        + historySteps(owner))
+                .withStyle(ended ? ChatFormatting.GREEN : ChatFormatting.GRAY));
+        return ended ? 1 : 0;
+    }
+
+    private static int holodeckRestore(CommandContext<CommandSourceStack> ctx, boolean undo) {
+        ServerPlayer player = ctx.getSource().getPlayer();
+        if (player == null) return 0;
+
+        BlockEntity owner = holoAreaAt(player);
+        if (owner == null) {
+            player.sendSystemMessage(Component.literal("You must be inside an active holo-area.")
+                    .withStyle(ChatFormatting.RED));
+            return 0;
+        }
+
+        HoloAreaRestoreJob.Result result;
+        if (owner instanceof HolodeckControllerBlockEntity controller) {
+            result = undo ? controller.undo() : controller.redo();
+        } else {
+            MobileEmitterBlockEntity emitter = (MobileEmitterBlockEntity) owner;
+            result = undo ? emitter.undo() : emitter.redo();
+        }
+
+        switch (result) {
+            case STARTED -> player.sendSystemMessage(Component.literal((undo ? "Undoing..." : "Redoing...")
+                            + historySteps(owner))
+                    .withStyle(ChatFormatting.GREEN));
+            case NOTHING_TO_RESTORE -> player.sendSystemMessage(Component.literal(undo ? "Nothing to undo." : "Nothing to redo.")
+                    .withStyle(ChatFormatting.GRAY));
+            case BUSY -> player.sendSystemMessage(Component.literal("The holo-area is busy. Try again shortly.")
+                    .withStyle(ChatFormatting.RED));
+        }
+        return result == HoloAreaRestoreJob.Result.STARTED ? 1 : 0;
+    }
+
+    /**
+     * How many undo and redo steps an area has left, for command feedback.
+     */
+    private static String historySteps(BlockEntity owner) {
+        HoloAreaHistory history = owner instanceof HolodeckControllerBlockEntity controller
+                ? controller.getHistory()
+                : ((MobileEmitterBlockEntity) owner).getHistory();
+        return " (" + history.getUndoSteps() + " to undo, " + history.getRedoSteps() + " to redo)";
+    }
+
+    /**
+     * The holodeck controller or primary mobile emitter whose area the player is in, if any.
+     */
+    private static BlockEntity holoAreaAt(ServerPlayer player) {
+        ServerLevel level = player.serverLevel();
+        BlockPos ownerPos = HoloAreaJournal.ownerAt(level, player.blockPosition());
+        if (ownerPos == null) return null;
+
+        BlockEntity owner = level.getBlockEntity(ownerPos);
+        return owner instanceof HolodeckControllerBlockEntity || owner instanceof MobileEmitterBlockEntity ? owner : null;
+    }
+
     // Contribution command - opens GUI screen
     private static int openContributionScreen(CommandContext<CommandSourceStack> ctx) {
         ServerPlayer player = ctx.getSource().getPlayer();
@@ -497,6 +626,8 @@ public class TrekCommands {
                 totalWithdrawn,
                 freeTransportsUsed,
                 highestRankName,
+                data.getContributorRankPosition(player.getUUID()),
+                data.getContributorCount(),
                 leaderboard
         );
 
@@ -504,6 +635,74 @@ public class TrekCommands {
         return 1;
     }
 
+    // Contribution trends - daily/weekly rollups read straight from the ring buffers
+    private static int contributionTrends(CommandContext<CommandSourceStack> ctx) {
+        ServerPlayer player = ctx.getSource().getPlayer();
+        if (player == null) return 0;
+
+        sendContributionTrends(player, player.getUUID(), player.getName().getString());
+        return 1;
+    }
+
+    private static int contributionTrendsOther(CommandContext<CommandSourceStack> ctx) throws com.mojang.brigadier.exceptions.CommandSyntaxException {
+        ServerPlayer requestor = ctx.getSource().getPlayer();
+        ServerPlayer target = EntityArgument.getPlayer(ctx, "player");
+        if (requestor == null) return 0;
+
+        sendContributionTrends(requestor, target.getUUID(), target.getName().getString());
+        return 1;
+    }
+
+    private static void sendContributionTrends(ServerPlayer viewer, UUID playerId, String playerName) {
+        TransporterNetworkSavedData data = TransporterNetworkSavedData.get(viewer.serverLevel());
+        long now = System.currentTimeMillis();
+
+        viewer.sendSystemMessage(Component.literal("=== CONTRIBUTION TRENDS ===").withStyle(ChatFormatting.GOLD, ChatFormatting.BOLD));
+
+        var history = data.getContributionHistory(playerId);
+        if (history.isEmpty()) {
+            viewer.sendSystemMessage(Component.literal("No recent activity for " + playerName + ".")
+                    .withStyle(ChatFormatting.YELLOW));
+        } else {
+            sendTrendSection(viewer, playerName, history.get(), now);
+        }
+        sendTrendSection(viewer, "Network", data.getNetworkHistory(), now);
+    }
+
+    private static void sendTrendSection(ServerPlayer viewer, String title, ContributionHistory history, long now) {
+        viewer.sendSystemMessage(Component.literal(title).withStyle(ChatFormatting.AQUA, ChatFormatting.BOLD));
+
+        // Last 7 days
+        for (int day = 0; day < 7; day++) {
+            String label = day == 0 ? "Today" : day + "d ago";
+            sendTrendLine(viewer, label,
+                    history.daily().deposited(day, now), history.daily().withdrawn(day, now));
+        }
+
+        // Last 4 weeks
+        for (int week = 0; week < 4; week++) {
+            String label = week == 0 ? "This week" : week + "w ago";
+            sendTrendLine(viewer, label,
+                    history.weekly().deposited(week, now), history.weekly().withdrawn(week, now));
+        }
+    }
+
+    private static void sendTrendLine(ServerPlayer viewer, String label, int deposited, int withdrawn) {
+        long net = (long) deposited - withdrawn;
+        viewer.sendSystemMessage(
+                Component.literal("  " + label + ": ")
+                        .withStyle(ChatFormatting.GRAY)
+                        .append(Component.literal("+" + deposited)
+                                .withStyle(ChatFormatting.GREEN))
+                        .append(Component.literal(" / ")
+                                .withStyle(ChatFormatting.GRAY))
+                        .append(Component.literal("-" + withdrawn)
+                                .withStyle(ChatFormatting.RED))
+                        .append(Component.literal(" (net " + net + ")")
+                                .withStyle(net >= 0 ? ChatFormatting.WHITE : ChatFormatting.YELLOW))
+        );
+    }
+
     // ===== Starfleet Commands =====
 
     private static int starfleetRank(CommandContext<CommandSourceStack> ctx) {
@@ -804,6 +1003,53 @@ public class TrekCommands {
         };
     }
 
+    // ===== Wormhole Commands =====
+
+    private static int wormholeCooldownShow(CommandContext<CommandSourceStack> ctx) {
+        WormholeRecord wormhole = findWormholeByName(ctx);
+        if (wormhole == null) return 0;
+
+        String source = wormhole.cooldownTicks() == WormholeRecord.DEFAULT_COOLDOWN ? " (default)" : "";
+        ctx.getSource().sendSuccess(() -> Component.literal(wormhole.name() + " cooldown: ")
+                .withStyle(ChatFormatting.GRAY)
+                .append(Component.literal(wormhole.getEffectiveCooldownTicks() + " ticks" + source)
+                        .withStyle(ChatFormatting.WHITE)), false);
+        return 1;
+    }
+
+    private static int wormholeCooldownSet(CommandContext<CommandSourceStack> ctx) {
+        return applyWormholeCooldown(ctx, IntegerArgumentType.getInteger(ctx, "ticks"));
+    }
+
+    private static int wormholeCooldownReset(CommandContext<CommandSourceStack> ctx) {
+        return applyWormholeCooldown(ctx, WormholeRecord.DEFAULT_COOLDOWN);
+    }
+
+    private static int applyWormholeCooldown(CommandContext<CommandSourceStack> ctx, int ticks) {
+        WormholeRecord wormhole = findWormholeByName(ctx);
+        if (wormhole == null) return 0;
+
+        WormholeService.setCooldown(ctx.getSource().getLevel(), wormhole.portalId(), ticks);
+        String value = ticks == WormholeRecord.DEFAULT_COOLDOWN
+                ? "default (" + TrekCraftConfig.wormholeCooldownTicks + " ticks)"
+                : ticks + " ticks";
+        ctx.getSource().sendSuccess(() -> Component.literal("Set " + wormhole.name() + " cooldown to " + value)
+                .withStyle(ChatFormatting.GREEN), true);
+        return 1;
+    }
+
+    private static WormholeRecord findWormholeByName(CommandContext<CommandSourceStack> ctx) {
+        String name = StringArgumentType.getString(ctx, "name");
+        TransporterNetworkSavedData data = TransporterNetworkSavedData.get(ctx.getSource().getLevel());
+        for (WormholeRecord wormhole : data.getWormholes().values()) {
+            if (wormhole.name().equalsIgnoreCase(name)) {
+                return wormhole;
+            }
+        }
+        ctx.getSource().sendFailure(Component.literal("No wormhole named: " + name));
+        return null;
+    }
+
     // ===== Admin Commands =====
 
     private static int admiralGrant(CommandContext<CommandSourceStack> ctx) throws com.mojang.brigadier.exceptions.CommandSyntaxException {
@@ -870,4 +1116,84 @@ public class TrekCommands {
 
         return 1;
     }
+
+    private static int holoprogramCacheStats(CommandContext<CommandSourceStack> ctx) {
+        CommandSourceStack source = ctx.getSource();
+        HoloprogramCache.Stats stats = HoloprogramCache.getStats();
+
+        source.sendSystemMessage(Component.literal("=== HOLOPROGRAM CACHE ===")
+                .withStyle(ChatFormatting.GOLD, ChatFormatting.BOLD));
+        source.sendSystemMessage(Component.literal("Entries: ")
+                .withStyle(ChatFormatting.GRAY)
+                .append(Component.literal(stats.entries() + String.format(" (%.1f / %d MB)",
+                                stats.bytes() / (1024.0 * 1024.0), stats.capacityBytes() / (1024 * 1024)))
+                        .withStyle(ChatFormatting.WHITE)));
+        source.sendSystemMessage(Component.literal("Hits / misses: ")
+                .withStyle(ChatFormatting.GRAY)
+                .append(Component.literal(stats.hits() + " / " + stats.misses()
+                                + String.format(" (%.0f%% hit rate)", stats.hitRate() * 100))
+                        .withStyle(ChatFormatting.WHITE)));
+        source.sendSystemMessage(Component.literal("Evictions: ")
+                .withStyle(ChatFormatting.GRAY)
+                .append(Component.literal(String.valueOf(stats.evictions()))
+                        .withStyle(ChatFormatting.WHITE)));
+        return 1;
+    }
+
+    private static int holoprogramVersions(CommandContext<CommandSourceStack> ctx) {
+        CommandSourceStack source = ctx.getSource();
+        String program = StringArgumentType.getString(ctx, "program");
+
+        HoloprogramManager.listVersions(program).thenAcceptAsync(versions -> {
+            if (versions.isEmpty()) {
+                source.sendSystemMessage(Component.literal("No saved versions of " + program)
+                        .withStyle(ChatFormatting.GRAY));
+                return;
+            }
+            source.sendSystemMessage(Component.literal("=== VERSIONS OF " + program.toUpperCase() + " ===")
+                    .withStyle(ChatFormatting.GOLD, ChatFormatting.BOLD));
+            for (HoloprogramVersions.VersionInfo version : versions) {
+                String kind = version.isSnapshot() ? "snapshot"
+                        : "delta of v" + version.parent() + ", " + version.sectionsListed() + " sections";
+                source.sendSystemMessage(Component.literal("v" + version.version() + ": ")
+                        .withStyle(ChatFormatting.GRAY)
+                        .append(Component.literal(TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(version.created())))
+                                .withStyle(ChatFormatting.WHITE))
+                        .append(Component.literal(" (" + kind + ")")
+                                .withStyle(ChatFormatting.DARK_GRAY)));
+            }
+        }, source.getServer());
+        return 1;
+    }
+
+    private static int holoprogramRollback(CommandContext<CommandSourceStack> ctx) {
+        CommandSourceStack source = ctx.getSource();
+        String program = StringArgumentType.getString(ctx, "program");
+        int version = IntegerArgumentType.getInteger(ctx, "version");
+
+        HoloprogramManager.rollback(program, version).thenAcceptAsync(restored -> {
+            if (restored > 0) {
+                source.sendSuccess(() -> Component.literal("Rolled " + program + " back to v" + version
+                        + " (saved as v" + restored + ")").withStyle(ChatFormatting.GREEN), true);
+            } else {
+                source.sendFailure(Component.literal("Could not roll " + program + " back to v" + version));
+            }
+        }, source.getServer());
+        return 1;
+    }
+
+    private static int holoprogramExport(CommandContext<CommandSourceStack> ctx) {
+        CommandSourceStack source = ctx.getSource();
+        String program = StringArgumentType.getString(ctx, "program");
+
+        HoloprogramManager.export(program).thenAcceptAsync(file -> {
+            if (file != null) {
+                source.sendSuccess(() -> Component.literal("Exported " + program + " to " + file.getFileName())
+                        .withStyle(ChatFormatting.GREEN), true);
+            } else {
+                source.sendFailure(Component.literal("Could not export " + program));
+            }
+        }, source.getServer());
+        return 1;
+    }
 }
@@ -1,28 +1,20 @@
 package com.csquared.trekcraft.content.block;
 
-import com.csquared.trekcraft.content.blockentity.WormholePortalBlockEntity;
-import com.csquared.trekcraft.data.TransporterNetworkSavedData;
-import com.csquared.trekcraft.data.WormholeRecord;
-import com.csquared.trekcraft.service.WormholeService;
-import com.csquared.trekcraft.util.WormholeFrameDetector;
+import com.csquared.trekcraft.service.WormholeFrameRevalidator;
+import com.csquared.trekcraft.service.WormholeTrafficController;
 import com.mojang.serialization.MapCodec;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
 import net.minecraft.world.item.context.BlockPlaceContext;
 import net.minecraft.world.level.BlockGetter;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.LevelAccessor;
 import net.minecraft.world.level.LevelReader;
-import net.minecraft.world.level.block.BaseEntityBlock;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.Blocks;
-import net.minecraft.world.level.block.RenderShape;
-import net.minecraft.world.level.block.entity.BlockEntity;
-import net.minecraft.world.level.block.entity.BlockEntityTicker;
-import net.minecraft.world.level.block.entity.BlockEntityType;
 import net.minecraft.world.level.block.state.BlockState;
-import com.csquared.trekcraft.registry.ModBlockEntities;
 import net.minecraft.world.level.block.state.StateDefinition;
 import net.minecraft.world.level.block.state.properties.BlockStateProperties;
 import net.minecraft.world.level.block.state.properties.EnumProperty;
@@ -30,9 +22,11 @@ import net.minecraft.world.phys.shapes.CollisionContext;
 import net.minecraft.world.phys.shapes.VoxelShape;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.UUID;
-
-public class WormholePortalBlock extends BaseEntityBlock {
+/**
+ * Interior block of a wormhole portal. Carries no block entity - which portal a block
+ * belongs to is looked up from the wormhole index in TransporterNetworkSavedData.
+ */
+public class WormholePortalBlock extends Block {
     public static final MapCodec<WormholePortalBlock> CODEC = simpleCodec(WormholePortalBlock::new);
     public static final EnumProperty<Direction.Axis> AXIS = BlockStateProperties.HORIZONTAL_AXIS;
 
@@ -40,17 +34,13 @@ public class WormholePortalBlock extends BaseEntityBlock {
     protected static final VoxelShape X_AXIS_SHAPE = Block.box(0.0, 0.0, 6.0, 16.0, 16.0, 10.0);
     protected static final VoxelShape Z_AXIS_SHAPE = Block.box(6.0, 0.0, 0.0, 10.0, 16.0, 16.0);
 
-    // Cooldown key for entity persistent data
-    public static final String WORMHOLE_COOLDOWN_KEY = "trekcraft_wormhole_cooldown";
-    public static final int COOLDOWN_TICKS = 100; // 5 seconds
-
     public WormholePortalBlock(Properties properties) {
         super(properties);
         this.registerDefaultState(this.stateDefinition.any().setValue(AXIS, Direction.Axis.X));
     }
 
     @Override
-    protected MapCodec<? extends BaseEntityBlock> codec() {
+    protected MapCodec<? extends Block> codec() {
         return CODEC;
     }
 
@@ -64,92 +54,30 @@ public class WormholePortalBlock extends BaseEntityBlock {
         return state.getValue(AXIS) == Direction.Axis.Z ? Z_AXIS_SHAPE : X_AXIS_SHAPE;
     }
 
-    @Override
-    public RenderShape getRenderShape(BlockState state) {
-        return RenderShape.MODEL;
-    }
-
     @Nullable
     @Override
-    public BlockEntity newBlockEntity(BlockPos pos, BlockState state) {
-        return new WormholePortalBlockEntity(pos, state);
+    public BlockState getStateForPlacement(BlockPlaceContext context) {
+        return this.defaultBlockState().setValue(AXIS, context.getHorizontalDirection().getAxis());
     }
 
-    @Nullable
     @Override
-    public <T extends BlockEntity> BlockEntityTicker<T> getTicker(Level level, BlockState state, BlockEntityType<T> type) {
-        // Only tick on server side
-        if (level.isClientSide) {
-            return null;
+    protected void entityInside(BlockState state, Level level, BlockPos pos, Entity entity) {
+        // Only flag the portal here; WormholeTrafficController queries it once per tick
+        // while it has traffic, so interior blocks don't need to tick
+        if (level instanceof ServerLevel serverLevel) {
+            WormholeTrafficController.onEntityInside(serverLevel, pos);
         }
-        return createTickerHelper(type, ModBlockEntities.WORMHOLE_PORTAL.get(), WormholePortalBlockEntity::serverTick);
     }
 
-    @Nullable
-    @Override
-    public BlockState getStateForPlacement(BlockPlaceContext context) {
-        return this.defaultBlockState().setValue(AXIS, context.getHorizontalDirection().getAxis());
-    }
-
-    // Note: Entity detection is handled by WormholePortalBlockEntity.serverTick()
-    // which is more reliable on lagging servers than entityInside()
-
     @Override
     public BlockState updateShape(BlockState state, Direction direction, BlockState neighborState,
                                    LevelAccessor level, BlockPos pos, BlockPos neighborPos) {
-        // Check if frame is still valid when a neighbor changes
+        // Report the changed neighbor; the frame is checked once per portal at end of tick
+        // to avoid modification during update and to merge bursts of updates
         if (!level.isClientSide() && level instanceof ServerLevel serverLevel) {
-            BlockEntity be = level.getBlockEntity(pos);
-            if (be instanceof WormholePortalBlockEntity portalBE) {
-                UUID portalId = portalBE.getPortalId();
-                if (portalId != null) {
-                    TransporterNetworkSavedData data = TransporterNetworkSavedData.get(serverLevel);
-                    WormholeRecord wormhole = data.getWormhole(portalId).orElse(null);
-                    if (wormhole != null) {
-                        // Schedule a check for next tick to avoid modification during update
-                        serverLevel.scheduleTick(pos, this, 1);
-                    }
-                }
-            }
+            WormholeFrameRevalidator.onNeighborChanged(serverLevel, neighborPos);
         }
         return super.updateShape(state, direction, neighborState, level, pos, neighborPos);
     }
 
-    @Override
-    public void tick(BlockState state, ServerLevel level, BlockPos pos, net.minecraft.util.RandomSource random) {
-        // Validate the portal frame
-        BlockEntity be = level.getBlockEntity(pos);
-        if (be instanceof WormholePortalBlockEntity portalBE) {
-            UUID portalId = portalBE.getPortalId();
-            if (portalId != null) {
-                TransporterNetworkSavedData data = TransporterNetworkSavedData.get(level);
-                WormholeRecord wormhole = data.getWormhole(portalId).orElse(null);
-                if (wormhole != null) {
-                    boolean frameValid = WormholeFrameDetector.isFrameStillValid(
-                            level, wormhole.anchorPos(), wormhole.axis(), wormhole.width(), wormhole.height());
-                    if (!frameValid) {
-                        WormholeService.destroyPortal(level, portalId);
-                    }
-                }
-            }
-        }
-    }
-
-    @Override
-    public void onRemove(BlockState state, Level level, BlockPos pos, BlockState newState, boolean isMoving) {
-        if (!state.is(newState.getBlock())) {
-            if (!level.isClientSide && level instanceof ServerLevel serverLevel) {
-                BlockEntity be = level.getBlockEntity(pos);
-                if (be instanceof WormholePortalBlockEntity portalBE) {
-                    UUID portalId = portalBE.getPortalId();
-                    if (portalId != null) {
-                        // Mark the portal as needing destruction but don't cascade here
-                        // The frame destruction will be handled by neighborChanged
-                    }
-                }
-            }
-        }
-        super.onRemove(state, level, pos, newState, isMoving);
-    }
-
 }
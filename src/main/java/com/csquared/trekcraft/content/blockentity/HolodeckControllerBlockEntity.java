@@ -3,7 +3,12 @@ package com.csquared.trekcraft.content.blockentity;
 import com.csquared.trekcraft.TrekCraftMod;
 import com.csquared.trekcraft.content.block.HolodeckControllerBlock;
 import com.csquared.trekcraft.content.block.HolodeckEmitterBlock;
+import com.csquared.trekcraft.holodeck.HoloAreaClearJob;
+import com.csquared.trekcraft.holodeck.HoloAreaHistory;
+import com.csquared.trekcraft.holodeck.HoloAreaJournal;
+import com.csquared.trekcraft.holodeck.HoloAreaRestoreJob;
 import com.csquared.trekcraft.holodeck.HoloprogramManager;
+import com.csquared.trekcraft.holodeck.HoloprogramPlacementJob;
 import com.csquared.trekcraft.registry.ModBlockEntities;
 import com.csquared.trekcraft.registry.ModBlocks;
 import net.minecraft.core.BlockPos;
@@ -19,7 +24,6 @@ import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.level.GameType;
 import net.minecraft.world.level.Level;
-import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.DoorBlock;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
@@ -27,6 +31,7 @@ import net.minecraft.world.phys.AABB;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Block entity for the Holodeck Controller.
@@ -34,6 +39,9 @@ import java.util.*;
  */
 public class HolodeckControllerBlockEntity extends BlockEntity {
 
+    // Players held out during clearing are placed this far past the interior edge (beyond the wall)
+    private static final double WALL_MARGIN = 1.5;
+
     // Frame structure data
     private Set<BlockPos> framePositions = new HashSet<>();
     private BlockPos interiorMin = null;
@@ -45,6 +53,9 @@ public class HolodeckControllerBlockEntity extends BlockEntity {
     private final Map<UUID, ListTag> originalInventories = new HashMap<>();
     private final Set<UUID> playersInside = new HashSet<>();
 
+    // Blocks changed inside the interior since it was last clean
+    private final HoloAreaJournal journal = new HoloAreaJournal(this::setChanged);
+
     public HolodeckControllerBlockEntity(BlockPos pos, BlockState state) {
         super(ModBlockEntities.HOLODECK_CONTROLLER.get(), pos, state);
     }
@@ -70,6 +81,8 @@ public class HolodeckControllerBlockEntity extends BlockEntity {
             interiorMax.getX() + 1, interiorMax.getY() + 1, interiorMax.getZ() + 1
         );
         Set<UUID> currentPlayersInside = new HashSet<>();
+        HoloAreaClearJob clearing = HoloAreaClearJob.get(level, worldPosition);
+        HoloprogramPlacementJob loading = HoloprogramPlacementJob.get(level, worldPosition);
 
         // Check all players on the server
         for (ServerPlayer player : level.getServer().getPlayerList().getPlayers()) {
@@ -77,6 +90,17 @@ public class HolodeckControllerBlockEntity extends BlockEntity {
             if (!player.level().dimension().equals(level.dimension())) continue;
 
             if (bounds.contains(player.getX(), player.getY(), player.getZ())) {
+                // No entry until the area has been cleared or the new program fully placed
+                if (!playersInside.contains(player.getUUID()) && (clearing != null || loading != null)) {
+                    int progress = loading != null ? loading.getProgressPercent() : clearing.getProgressPercent();
+                    HoloAreaClearJob.holdOutside(player, bounds, WALL_MARGIN, progress);
+                    continue;
+                }
+                // Occupants wait where they are while a program materializes around them
+                if (loading != null) {
+                    loading.holdInPlace(player);
+                }
+
                 currentPlayersInside.add(player.getUUID());
 
                 // Player just entered
@@ -158,30 +182,24 @@ public class HolodeckControllerBlockEntity extends BlockEntity {
     }
 
     /**
-     * Clear all blocks inside the holodeck interior (except structure blocks).
+     * Start clearing all blocks inside the holodeck interior (except structure blocks).
+     * The work is spread over several ticks; entry is blocked until it finishes.
      */
     private void clearInterior(ServerLevel level) {
         if (interiorMin == null || interiorMax == null) return;
 
-        for (int x = interiorMin.getX(); x <= interiorMax.getX(); x++) {
-            for (int y = interiorMin.getY(); y <= interiorMax.getY(); y++) {
-                for (int z = interiorMin.getZ(); z <= interiorMax.getZ(); z++) {
-                    BlockPos pos = new BlockPos(x, y, z);
-                    BlockState state = level.getBlockState(pos);
-
-                    // Skip holodeck structure blocks
-                    if (state.is(ModBlocks.HOLODECK_EMITTER.get()) ||
-                        state.is(ModBlocks.HOLODECK_CONTROLLER.get())) {
-                        continue;
-                    }
-
-                    // Replace with air
-                    level.setBlock(pos, Blocks.AIR.defaultBlockState(), 3);
-                }
-            }
-        }
+        // A clear supersedes any load or undo still in progress
+        HoloprogramPlacementJob.cancel(level, worldPosition);
+        HoloAreaRestoreJob.cancel(level, worldPosition);
+        HoloAreaClearJob.start(level, worldPosition, interiorMin, interiorMax, journal,
+                HolodeckControllerBlockEntity::isStructureBlock);
+    }
 
-        TrekCraftMod.LOGGER.debug("Cleared holodeck interior at {}", worldPosition);
+    /**
+     * Holodeck structure blocks survive interior clearing.
+     */
+    private static boolean isStructureBlock(BlockState state) {
+        return state.is(ModBlocks.HOLODECK_EMITTER.get()) || state.is(ModBlocks.HOLODECK_CONTROLLER.get());
     }
 
     /**
@@ -426,6 +444,10 @@ public class HolodeckControllerBlockEntity extends BlockEntity {
         this.framePositions = emitters;
         this.active = true;
 
+        // Whatever is already inside wasn't journaled; the first clear sweeps it
+        journal.reset(false);
+        HoloAreaJournal.register(level, worldPosition, interiorMin, interiorMax, journal);
+
         // Update controller block state
         level.setBlock(worldPosition, getBlockState().setValue(HolodeckControllerBlock.ACTIVE, true), 3);
 
@@ -455,6 +477,7 @@ public class HolodeckControllerBlockEntity extends BlockEntity {
 
             // Clear interior blocks BEFORE nulling bounds to prevent item exploitation
             clearInterior(serverLevel);
+            HoloAreaJournal.unregister(serverLevel, worldPosition);
         }
 
         // Update controller block state (only if the block still exists)
@@ -487,23 +510,28 @@ public class HolodeckControllerBlockEntity extends BlockEntity {
     }
 
     /**
-     * Save a holoprogram from the current interior.
-     * @return SaveResult with success status and NBT data for client sync
+     * Save a holoprogram from the current interior. The interior is captured now and written in the background.
+     * @return Future SaveResult with success status and the version saved
      */
-    public HoloprogramManager.SaveResult saveHoloprogram(String name) {
-        if (!active || level == null || level.isClientSide) return HoloprogramManager.SaveResult.failure();
-        if (interiorMin == null || interiorMax == null) return HoloprogramManager.SaveResult.failure();
+    public CompletableFuture<HoloprogramManager.SaveResult> saveHoloprogram(String name) {
+        if (!active || level == null || level.isClientSide || interiorMin == null || interiorMax == null) {
+            return CompletableFuture.completedFuture(HoloprogramManager.SaveResult.failure());
+        }
 
-        return HoloprogramManager.save((ServerLevel) level, name, interiorMin, interiorMax);
+        return HoloprogramManager.save((ServerLevel) level, name, interiorMin, interiorMax, journal);
     }
 
     /**
-     * Load a holoprogram into the interior.
-     * @return LoadResultDetails with status and size information, or null if holodeck is not active
+     * Load a holoprogram into the interior. The file is read in the background; on success the
+     * interior is cleared and the program placed over the following ticks, and the requesting
+     * player is told when it's done.
+     * @return Future LoadResultDetails with status and size information (null if holodeck is not active),
+     *         completed on the server thread
      */
-    public HoloprogramManager.LoadResultDetails loadHoloprogram(String name) {
-        if (!active || level == null || level.isClientSide) return null;
-        if (interiorMin == null || interiorMax == null) return null;
+    public CompletableFuture<HoloprogramManager.LoadResultDetails> loadHoloprogram(String name, @Nullable UUID requestedBy) {
+        if (!active || level == null || level.isClientSide) return CompletableFuture.completedFuture(null);
+        if (interiorMin == null || interiorMax == null) return CompletableFuture.completedFuture(null);
+        ServerLevel serverLevel = (ServerLevel) level;
 
         // Calculate interior size
         Vec3i interiorSize = new Vec3i(
@@ -512,11 +540,33 @@ public class HolodeckControllerBlockEntity extends BlockEntity {
                 interiorMax.getZ() - interiorMin.getZ() + 1
         );
 
-        // First clear the interior
-        clearInterior((ServerLevel) level);
+        // Can't load over a clear or load that is still in progress
+        if (HoloprogramPlacementJob.isBusy(level, worldPosition)) {
+            return CompletableFuture.completedFuture(HoloprogramManager.LoadResultDetails.busy());
+        }
 
-        // Then load the holoprogram with size validation
-        return HoloprogramManager.load((ServerLevel) level, name, interiorMin, interiorSize);
+        // Read the holoprogram with size validation, then clear and place over the next ticks
+        return HoloprogramManager.prepare(name, interiorSize).thenApplyAsync(result -> {
+            if (result.result() != HoloprogramManager.LoadResult.SUCCESS) {
+                return result;
+            }
+            // The holodeck may have been shut down or rebuilt while the file was read
+            if (isRemoved() || !active || interiorMin == null || interiorMax == null) {
+                return null;
+            }
+            if (!HoloprogramPlacementJob.start(serverLevel, worldPosition, interiorMin, interiorMax, journal,
+                    HolodeckControllerBlockEntity::isStructureBlock, result.placement(), name, result.version(),
+                    requestedBy)) {
+                return HoloprogramManager.LoadResultDetails.busy();
+            }
+            return result;
+        }, serverLevel.getServer()).exceptionallyAsync(error -> {
+            // Don't leave a half-started load behind; the journal may already have been handed over
+            TrekCraftMod.LOGGER.error("Failed to start loading holoprogram '{}' at {}", name, worldPosition, error);
+            HoloprogramPlacementJob.cancel(serverLevel, worldPosition);
+            journal.markIncomplete();
+            return HoloprogramManager.LoadResultDetails.readError();
+        }, serverLevel.getServer());
     }
 
     /**
@@ -527,9 +577,9 @@ public class HolodeckControllerBlockEntity extends BlockEntity {
     }
 
     /**
-     * Delete a holoprogram.
+     * Delete a holoprogram (in the background).
      */
-    public boolean deleteHoloprogram(String name) {
+    public CompletableFuture<Boolean> deleteHoloprogram(String name) {
         return HoloprogramManager.delete(name);
     }
 
@@ -542,10 +592,60 @@ public class HolodeckControllerBlockEntity extends BlockEntity {
         clearInterior((ServerLevel) level);
     }
 
+    /**
+     * End the current undo step.
+     * @return false if nothing changed since the last checkpoint
+     */
+    public boolean checkpoint() {
+        return active && journal.getHistory().checkpoint();
+    }
+
+    public HoloAreaHistory getHistory() {
+        return journal.getHistory();
+    }
+
+    /**
+     * Undo the latest changes to the interior over the next ticks.
+     */
+    public HoloAreaRestoreJob.Result undo() {
+        if (!active || level == null || level.isClientSide || interiorMin == null || interiorMax == null) {
+            return HoloAreaRestoreJob.Result.NOTHING_TO_RESTORE;
+        }
+        return HoloAreaRestoreJob.undo((ServerLevel) level, worldPosition, interiorMin, interiorMax, journal,
+                HolodeckControllerBlockEntity::isStructureBlock);
+    }
+
+    /**
+     * Redo the latest undone changes over the next ticks.
+     */
+    public HoloAreaRestoreJob.Result redo() {
+        if (!active || level == null || level.isClientSide || interiorMin == null || interiorMax == null) {
+            return HoloAreaRestoreJob.Result.NOTHING_TO_RESTORE;
+        }
+        return HoloAreaRestoreJob.redo((ServerLevel) level, worldPosition, interiorMin, interiorMax, journal,
+                HolodeckControllerBlockEntity::isStructureBlock);
+    }
+
     public boolean isActive() {
         return active;
     }
 
+    @Override
+    public void onLoad() {
+        super.onLoad();
+        if (level != null && !level.isClientSide && active && interiorMin != null && interiorMax != null) {
+            HoloAreaJournal.register(level, worldPosition, interiorMin, interiorMax, journal);
+        }
+    }
+
+    @Override
+    public void onChunkUnloaded() {
+        super.onChunkUnloaded();
+        if (level != null && !level.isClientSide) {
+            HoloAreaJournal.unload(level, worldPosition);
+        }
+    }
+
     public BlockPos getInteriorMin() {
         return interiorMin;
     }
@@ -615,6 +715,8 @@ public class HolodeckControllerBlockEntity extends BlockEntity {
             playersTag.add(playerTag);
         }
         tag.put("PlayersInside", playersTag);
+
+        journal.save(tag);
     }
 
     @Override
@@ -686,6 +788,8 @@ public class HolodeckControllerBlockEntity extends BlockEntity {
                 playersInside.add(playerTag.getUUID("Player"));
             }
         }
+
+        journal.load(tag);
     }
 
     @Override
@@ -2,7 +2,12 @@ package com.csquared.trekcraft.content.blockentity;
 
 import com.csquared.trekcraft.TrekCraftMod;
 import com.csquared.trekcraft.content.block.MobileEmitterBlock;
+import com.csquared.trekcraft.holodeck.HoloAreaClearJob;
+import com.csquared.trekcraft.holodeck.HoloAreaHistory;
+import com.csquared.trekcraft.holodeck.HoloAreaJournal;
+import com.csquared.trekcraft.holodeck.HoloAreaRestoreJob;
 import com.csquared.trekcraft.holodeck.HoloprogramManager;
+import com.csquared.trekcraft.holodeck.HoloprogramPlacementJob;
 import com.csquared.trekcraft.registry.ModBlockEntities;
 import com.csquared.trekcraft.registry.ModBlocks;
 import com.csquared.trekcraft.service.MobileEmitterService;
@@ -19,13 +24,13 @@ import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.level.GameType;
 import net.minecraft.world.level.Level;
-import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.phys.AABB;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Block entity for Mobile Emitters.
@@ -34,6 +39,9 @@ import java.util.*;
  */
 public class MobileEmitterBlockEntity extends BlockEntity {
 
+    // Players held out during clearing are placed this far past the area edge
+    private static final double EDGE_MARGIN = 0.6;
+
     // Network identity
     private UUID networkId = null;
     private boolean isPrimary = false;
@@ -49,6 +57,9 @@ public class MobileEmitterBlockEntity extends BlockEntity {
     private final Map<UUID, ListTag> originalInventories = new HashMap<>();
     private final Set<UUID> playersInside = new HashSet<>();
 
+    // Blocks changed inside the holo-area since it was last clean (only used by primary)
+    private final HoloAreaJournal journal = new HoloAreaJournal(this::setChanged);
+
     public MobileEmitterBlockEntity(BlockPos pos, BlockState state) {
         super(ModBlockEntities.MOBILE_EMITTER.get(), pos, state);
     }
@@ -74,6 +85,8 @@ public class MobileEmitterBlockEntity extends BlockEntity {
             interiorMax.getX() + 1, interiorMax.getY() + 1, interiorMax.getZ() + 1
         );
         Set<UUID> currentPlayersInside = new HashSet<>();
+        HoloAreaClearJob clearing = HoloAreaClearJob.get(level, worldPosition);
+        HoloprogramPlacementJob loading = HoloprogramPlacementJob.get(level, worldPosition);
 
         // Check all players on the server
         for (ServerPlayer player : level.getServer().getPlayerList().getPlayers()) {
@@ -81,6 +94,17 @@ public class MobileEmitterBlockEntity extends BlockEntity {
             if (!player.level().dimension().equals(level.dimension())) continue;
 
             if (bounds.contains(player.getX(), player.getY(), player.getZ())) {
+                // No entry until the area has been cleared or the new program fully placed
+                if (!playersInside.contains(player.getUUID()) && (clearing != null || loading != null)) {
+                    int progress = loading != null ? loading.getProgressPercent() : clearing.getProgressPercent();
+                    HoloAreaClearJob.holdOutside(player, bounds, EDGE_MARGIN, progress);
+                    continue;
+                }
+                // Occupants wait where they are while a program materializes around them
+                if (loading != null) {
+                    loading.holdInPlace(player);
+                }
+
                 currentPlayersInside.add(player.getUUID());
 
                 // Player just entered
@@ -162,29 +186,21 @@ public class MobileEmitterBlockEntity extends BlockEntity {
     }
 
     /**
-     * Clear all blocks inside the holo-area (except mobile emitters).
+     * Start clearing all blocks inside the holo-area (except mobile emitters).
+     * The work is spread over several ticks and keeps running if the network is taken down.
      */
     private void clearInterior(ServerLevel level) {
         if (interiorMin == null || interiorMax == null) return;
 
-        for (int x = interiorMin.getX(); x <= interiorMax.getX(); x++) {
-            for (int y = interiorMin.getY(); y <= interiorMax.getY(); y++) {
-                for (int z = interiorMin.getZ(); z <= interiorMax.getZ(); z++) {
-                    BlockPos pos = new BlockPos(x, y, z);
-                    BlockState state = level.getBlockState(pos);
-
-                    // Skip mobile emitter blocks
-                    if (state.is(ModBlocks.MOBILE_EMITTER.get())) {
-                        continue;
-                    }
-
-                    // Replace with air
-                    level.setBlock(pos, Blocks.AIR.defaultBlockState(), 3);
-                }
-            }
-        }
+        // A clear supersedes any load or undo still in progress
+        HoloprogramPlacementJob.cancel(level, worldPosition);
+        HoloAreaRestoreJob.cancel(level, worldPosition);
+        HoloAreaClearJob.start(level, worldPosition, interiorMin, interiorMax, journal,
+                MobileEmitterBlockEntity::isEmitterBlock);
+    }
 
-        TrekCraftMod.LOGGER.debug("Cleared mobile emitter area at {}", worldPosition);
+    private static boolean isEmitterBlock(BlockState state) {
+        return state.is(ModBlocks.MOBILE_EMITTER.get());
     }
 
     /**
@@ -282,6 +298,10 @@ public class MobileEmitterBlockEntity extends BlockEntity {
         interiorMax = bounds[1];
         active = true;
 
+        // Whatever is already inside wasn't journaled; the first clear sweeps it
+        journal.reset(false);
+        HoloAreaJournal.register(level, worldPosition, interiorMin, interiorMax, journal);
+
         // Activate all emitters in the network
         for (BlockPos pos : linkedPositions) {
             BlockState state = level.getBlockState(pos);
@@ -333,6 +353,7 @@ public class MobileEmitterBlockEntity extends BlockEntity {
 
         // Clear interior blocks
         clearInterior(serverLevel);
+        HoloAreaJournal.unregister(serverLevel, worldPosition);
 
         // Deactivate all emitters
         for (BlockPos pos : linkedPositions) {
@@ -396,29 +417,32 @@ public class MobileEmitterBlockEntity extends BlockEntity {
     }
 
     /**
-     * Save a holoprogram from the current holo-area.
+     * Save a holoprogram from the current holo-area. The area is captured now and written in the background.
      */
-    public HoloprogramManager.SaveResult saveHoloprogram(String name) {
+    public CompletableFuture<HoloprogramManager.SaveResult> saveHoloprogram(String name) {
         if (!active || !isPrimary || level == null || level.isClientSide) {
-            return HoloprogramManager.SaveResult.failure();
+            return CompletableFuture.completedFuture(HoloprogramManager.SaveResult.failure());
         }
         if (interiorMin == null || interiorMax == null) {
-            return HoloprogramManager.SaveResult.failure();
+            return CompletableFuture.completedFuture(HoloprogramManager.SaveResult.failure());
         }
 
-        return HoloprogramManager.save((ServerLevel) level, name, interiorMin, interiorMax);
+        return HoloprogramManager.save((ServerLevel) level, name, interiorMin, interiorMax, journal);
     }
 
     /**
-     * Load a holoprogram into the holo-area.
+     * Load a holoprogram into the holo-area. The file is read in the background; on success
+     * the area is cleared and the program placed over the following ticks.
+     * Completes on the server thread, with null if the emitter is not active.
      */
-    public HoloprogramManager.LoadResultDetails loadHoloprogram(String name) {
+    public CompletableFuture<HoloprogramManager.LoadResultDetails> loadHoloprogram(String name, @Nullable UUID requestedBy) {
         if (!active || !isPrimary || level == null || level.isClientSide) {
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
         if (interiorMin == null || interiorMax == null) {
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
+        ServerLevel serverLevel = (ServerLevel) level;
 
         // Calculate interior size
         Vec3i interiorSize = new Vec3i(
@@ -427,11 +451,33 @@ public class MobileEmitterBlockEntity extends BlockEntity {
             interiorMax.getZ() - interiorMin.getZ() + 1
         );
 
-        // First clear the interior
-        clearInterior((ServerLevel) level);
+        // Can't load over a clear or load that is still in progress
+        if (HoloprogramPlacementJob.isBusy(level, worldPosition)) {
+            return CompletableFuture.completedFuture(HoloprogramManager.LoadResultDetails.busy());
+        }
 
-        // Then load the holoprogram
-        return HoloprogramManager.load((ServerLevel) level, name, interiorMin, interiorSize);
+        // Read the holoprogram with size validation, then clear and place over the next ticks
+        return HoloprogramManager.prepare(name, interiorSize).thenApplyAsync(result -> {
+            if (result.result() != HoloprogramManager.LoadResult.SUCCESS) {
+                return result;
+            }
+            // The network may have been shut down while the file was read
+            if (isRemoved() || !active || interiorMin == null || interiorMax == null) {
+                return null;
+            }
+            if (!HoloprogramPlacementJob.start(serverLevel, worldPosition, interiorMin, interiorMax, journal,
+                    MobileEmitterBlockEntity::isEmitterBlock, result.placement(), name, result.version(),
+                    requestedBy)) {
+                return HoloprogramManager.LoadResultDetails.busy();
+            }
+            return result;
+        }, serverLevel.getServer()).exceptionallyAsync(error -> {
+            // Don't leave a half-started load behind; the journal may already have been handed over
+            TrekCraftMod.LOGGER.error("Failed to start loading holoprogram '{}' at {}", name, worldPosition, error);
+            HoloprogramPlacementJob.cancel(serverLevel, worldPosition);
+            journal.markIncomplete();
+            return HoloprogramManager.LoadResultDetails.readError();
+        }, serverLevel.getServer());
     }
 
     /**
@@ -443,6 +489,56 @@ public class MobileEmitterBlockEntity extends BlockEntity {
         clearInterior((ServerLevel) level);
     }
 
+    /**
+     * End the current undo step.
+     * @return false if nothing changed since the last checkpoint
+     */
+    public boolean checkpoint() {
+        return active && isPrimary && journal.getHistory().checkpoint();
+    }
+
+    public HoloAreaHistory getHistory() {
+        return journal.getHistory();
+    }
+
+    /**
+     * Undo the latest changes to the holo-area over the next ticks.
+     */
+    public HoloAreaRestoreJob.Result undo() {
+        if (!active || !isPrimary || level == null || level.isClientSide || interiorMin == null || interiorMax == null) {
+            return HoloAreaRestoreJob.Result.NOTHING_TO_RESTORE;
+        }
+        return HoloAreaRestoreJob.undo((ServerLevel) level, worldPosition, interiorMin, interiorMax, journal,
+                MobileEmitterBlockEntity::isEmitterBlock);
+    }
+
+    /**
+     * Redo the latest undone changes over the next ticks.
+     */
+    public HoloAreaRestoreJob.Result redo() {
+        if (!active || !isPrimary || level == null || level.isClientSide || interiorMin == null || interiorMax == null) {
+            return HoloAreaRestoreJob.Result.NOTHING_TO_RESTORE;
+        }
+        return HoloAreaRestoreJob.redo((ServerLevel) level, worldPosition, interiorMin, interiorMax, journal,
+                MobileEmitterBlockEntity::isEmitterBlock);
+    }
+
+    @Override
+    public void onLoad() {
+        super.onLoad();
+        if (level != null && !level.isClientSide && isPrimary && active && interiorMin != null && interiorMax != null) {
+            HoloAreaJournal.register(level, worldPosition, interiorMin, interiorMax, journal);
+        }
+    }
+
+    @Override
+    public void onChunkUnloaded() {
+        super.onChunkUnloaded();
+        if (level != null && !level.isClientSide) {
+            HoloAreaJournal.unload(level, worldPosition);
+        }
+    }
+
     // Getters
     public UUID getNetworkId() { return networkId; }
     public boolean isPrimary() { return isPrimary; }
@@ -512,6 +608,8 @@ public class MobileEmitterBlockEntity extends BlockEntity {
                 playersTag.add(playerTag);
             }
             tag.put("PlayersInside", playersTag);
+
+            journal.save(tag);
         }
     }
 
@@ -587,6 +685,8 @@ public class MobileEmitterBlockEntity extends BlockEntity {
                     playersInside.add(playerTag.getUUID("Player"));
                 }
             }
+
+            journal.load(tag);
         }
     }
 
@@ -1,6 +1,5 @@
 package com.csquared.trekcraft.content.item;
 
-import com.csquared.trekcraft.content.blockentity.WormholePortalBlockEntity;
 import com.csquared.trekcraft.data.TransporterNetworkSavedData;
 import com.csquared.trekcraft.data.TransporterNetworkSavedData.SignalType;
 import com.csquared.trekcraft.data.TricorderData;
@@ -12,9 +11,10 @@ import com.csquared.trekcraft.registry.ModBlocks;
 import com.csquared.trekcraft.registry.ModDataComponents;
 import com.csquared.trekcraft.registry.ModItems;
 import com.csquared.trekcraft.service.StarfleetService;
+import com.csquared.trekcraft.service.WormholeDirectory;
 import com.csquared.trekcraft.service.WormholeService;
+import com.csquared.trekcraft.util.WormholeFrameDetector;
 import net.minecraft.core.BlockPos;
-import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.network.chat.Component;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
@@ -61,64 +61,42 @@ public class TricorderItem extends Item {
         if (level.getBlockState(clickedPos).is(ModBlocks.WORMHOLE_PORTAL.get())) {
             if (isCleoTricorder && !level.isClientSide && level instanceof ServerLevel serverLevel
                     && player instanceof ServerPlayer serverPlayer) {
-                BlockEntity be = level.getBlockEntity(clickedPos);
-                if (be instanceof WormholePortalBlockEntity portalBE) {
-                    java.util.UUID portalId = portalBE.getPortalId();
-                    if (portalId != null) {
-                        TransporterNetworkSavedData data = TransporterNetworkSavedData.get(serverLevel);
-                        WormholeRecord wormhole = data.getWormhole(portalId).orElse(null);
-
-                        if (wormhole != null && !wormhole.isLinked()) {
-                            // Get unlinked portals from ALL dimensions (pass null for dimension key)
-                            List<WormholeRecord> unlinked = data.getUnlinkedWormholes(null, portalId);
-
-                            if (unlinked.isEmpty()) {
-                                player.displayClientMessage(
-                                        Component.literal("No other unlinked wormholes available."), true);
-                            } else {
-                                // Convert to payload entries (include dimension info)
-                                List<OpenWormholeLinkScreenPayload.PortalEntry> entries = new ArrayList<>();
-                                for (WormholeRecord w : unlinked) {
-                                    entries.add(new OpenWormholeLinkScreenPayload.PortalEntry(
-                                            w.portalId().toString(),
-                                            w.name(),
-                                            w.anchorPos().getX(),
-                                            w.anchorPos().getY(),
-                                            w.anchorPos().getZ(),
-                                            w.dimensionKey()
-                                    ));
-                                }
-
-                                // Send packet to open link screen
-                                PacketDistributor.sendToPlayer(serverPlayer,
-                                        new OpenWormholeLinkScreenPayload(
-                                                portalId.toString(),
-                                                wormhole.name(),
-                                                entries
-                                        ));
-                            }
-                            return InteractionResult.SUCCESS;
-                        } else if (wormhole != null && wormhole.isLinked()) {
-                            // Already linked - show linked portal info
-                            data.getWormhole(wormhole.linkedPortalId()).ifPresent(linked -> {
-                                player.displayClientMessage(
-                                        Component.literal("Linked to: " + linked.name() +
-                                                " at " + linked.anchorPos().toShortString()), true);
-                            });
-                            return InteractionResult.SUCCESS;
-                        }
+                TransporterNetworkSavedData data = TransporterNetworkSavedData.get(serverLevel);
+                String dimensionKey = serverLevel.dimension().location().toString();
+                WormholeRecord wormhole = data.getWormholeByInteriorPosition(dimensionKey, clickedPos).orElse(null);
+
+                if (wormhole != null && !wormhole.isLinked()) {
+                    // First page of unlinked portals from ALL dimensions, nearest first
+                    OpenWormholeLinkScreenPayload.DirectoryPage page = WormholeDirectory.query(data, wormhole, "", 0);
+
+                    if (page.totalCount() == 0) {
+                        player.displayClientMessage(
+                                Component.literal("No other unlinked wormholes available."), true);
+                    } else {
+                        // Send packet to open link screen; further pages are requested by the screen
+                        PacketDistributor.sendToPlayer(serverPlayer,
+                                new OpenWormholeLinkScreenPayload(wormhole.portalId(), wormhole.name(), page));
                     }
+                    return InteractionResult.SUCCESS;
+                } else if (wormhole != null && wormhole.isLinked()) {
+                    // Already linked - show linked portal info
+                    data.getWormhole(wormhole.linkedPortalId()).ifPresent(linked -> {
+                        player.displayClientMessage(
+                                Component.literal("Linked to: " + linked.name() +
+                                        " at " + linked.anchorPos().toShortString()), true);
+                    });
+                    return InteractionResult.SUCCESS;
                 }
             }
             // For non-Cleo tricorders clicking on portal, consume the interaction but do nothing
             return InteractionResult.SUCCESS;
         }
 
-        // Handle clicking on cobblestone (for creating new wormholes)
+        // Handle clicking on a frame block (for creating new wormholes)
         if (isCleoTricorder) {
-            // Check if this is cobblestone - if so, consume the interaction on both sides
+            // Check if this is a frame block - if so, consume the interaction on both sides
             // to prevent use() from being called (which would open the tricorder menu)
-            if (level.getBlockState(clickedPos).is(net.minecraft.world.level.block.Blocks.COBBLESTONE)) {
+            if (level.getBlockState(clickedPos).is(WormholeFrameDetector.FRAME_BLOCKS)) {
                 if (!level.isClientSide && player instanceof ServerPlayer serverPlayer) {
                     WormholeService.ActivationAttempt attempt = WormholeService.tryActivate(player, clickedPos);
 
@@ -130,14 +108,14 @@ public class TricorderItem extends Item {
                         }
                         case INVALID_FRAME -> {
                             player.displayClientMessage(
-                                    Component.literal("Invalid wormhole frame. Build a rectangular cobblestone frame with air inside."), true);
+                                    Component.literal("Invalid wormhole frame. Build a rectangular frame of wormhole frame blocks (cobblestone by default) with air inside."), true);
                         }
                         case PORTAL_EXISTS_HERE -> {
                             player.displayClientMessage(
                                     Component.literal("A wormhole portal already exists here."), true);
                         }
-                        case NOT_COBBLESTONE -> {
-                            // This shouldn't happen since we checked for cobblestone above
+                        case NOT_FRAME_BLOCK -> {
+                            // This shouldn't happen since we checked for a frame block above
                         }
                     }
                 }
@@ -0,0 +1,162 @@
+package com.csquared.trekcraft.data;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.Tag;
+
+/**
+ * Rolling deposit/withdrawal totals in fixed-size ring buffers of daily and weekly buckets.
+ * Each bucket packs deposits (high 32 bits) and withdrawals (low 32 bits) into one long,
+ * so recording is O(1) and the whole history persists as two small long arrays.
+ * Periods are measured in wall-clock time, matching ContributorRecord.lastActivityTime.
+ */
+public class ContributionHistory {
+    public static final int DAILY_BUCKETS = 14;
+    public static final int WEEKLY_BUCKETS = 12;
+    public static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    public static final long WEEK_MILLIS = DAY_MILLIS * 7;
+
+    private final BucketRing daily = new BucketRing(DAILY_BUCKETS, DAY_MILLIS);
+    private final BucketRing weekly = new BucketRing(WEEKLY_BUCKETS, WEEK_MILLIS);
+
+    public void recordDeposit(long timeMillis, int amount) {
+        daily.add(timeMillis, amount, 0);
+        weekly.add(timeMillis, amount, 0);
+    }
+
+    public void recordWithdrawal(long timeMillis, int amount) {
+        daily.add(timeMillis, 0, amount);
+        weekly.add(timeMillis, 0, amount);
+    }
+
+    public BucketRing daily() {
+        return daily;
+    }
+
+    public BucketRing weekly() {
+        return weekly;
+    }
+
+    public void save(CompoundTag tag) {
+        tag.putLongArray("DailyBuckets", daily.toLongArray());
+        tag.putLongArray("WeeklyBuckets", weekly.toLongArray());
+    }
+
+    public static ContributionHistory load(CompoundTag tag) {
+        ContributionHistory history = new ContributionHistory();
+        if (tag.contains("DailyBuckets", Tag.TAG_LONG_ARRAY)) {
+            history.daily.fromLongArray(tag.getLongArray("DailyBuckets"));
+        }
+        if (tag.contains("WeeklyBuckets", Tag.TAG_LONG_ARRAY)) {
+            history.weekly.fromLongArray(tag.getLongArray("WeeklyBuckets"));
+        }
+        return history;
+    }
+
+    /**
+     * Ring buffer of per-period totals. Slot {@code period % size} holds the bucket for
+     * {@code period}; buckets older than {@code size} periods are overwritten as time advances.
+     */
+    public static class BucketRing {
+        private final long[] buckets;
+        private final long periodMillis;
+        private long headPeriod = Long.MIN_VALUE; // Newest period written, MIN_VALUE if empty
+
+        BucketRing(int size, long periodMillis) {
+            this.buckets = new long[size];
+            this.periodMillis = periodMillis;
+        }
+
+        public int size() {
+            return buckets.length;
+        }
+
+        void add(long timeMillis, int deposited, int withdrawn) {
+            long period = Math.floorDiv(timeMillis, periodMillis);
+            advanceTo(period);
+            // Late writes (clock went backwards) land in the newest bucket
+            int slot = slotOf(Math.min(period, headPeriod));
+            long packed = buckets[slot];
+            buckets[slot] = pack(
+                    saturatedAdd(unpackDeposited(packed), deposited),
+                    saturatedAdd(unpackWithdrawn(packed), withdrawn));
+        }
+
+        /**
+         * Deposits in the bucket {@code periodsAgo} periods before the one containing {@code nowMillis}.
+         */
+        public int deposited(int periodsAgo, long nowMillis) {
+            return unpackDeposited(bucketAt(periodsAgo, nowMillis));
+        }
+
+        /**
+         * Withdrawals in the bucket {@code periodsAgo} periods before the one containing {@code nowMillis}.
+         */
+        public int withdrawn(int periodsAgo, long nowMillis) {
+            return unpackWithdrawn(bucketAt(periodsAgo, nowMillis));
+        }
+
+        private long bucketAt(int periodsAgo, long nowMillis) {
+            if (headPeriod == Long.MIN_VALUE || periodsAgo < 0 || periodsAgo >= buckets.length) {
+                return 0;
+            }
+            long period = Math.floorDiv(nowMillis, periodMillis) - periodsAgo;
+            // Outside the window still held in the ring
+            if (period > headPeriod || period <= headPeriod - buckets.length) {
+                return 0;
+            }
+            return buckets[slotOf(period)];
+        }
+
+        private void advanceTo(long period) {
+            if (headPeriod == Long.MIN_VALUE) {
+                headPeriod = period;
+                return;
+            }
+            if (period <= headPeriod) {
+                return;
+            }
+            // Clear every bucket skipped over - at most one full revolution
+            long steps = Math.min(period - headPeriod, buckets.length);
+            for (long i = 1; i <= steps; i++) {
+                buckets[slotOf(headPeriod + i)] = 0;
+            }
+            headPeriod = period;
+        }
+
+        private int slotOf(long period) {
+            return (int) Math.floorMod(period, (long) buckets.length);
+        }
+
+        long[] toLongArray() {
+            long[] out = new long[buckets.length + 1];
+            out[0] = headPeriod;
+            System.arraycopy(buckets, 0, out, 1, buckets.length);
+            return out;
+        }
+
+        void fromLongArray(long[] data) {
+            if (data.length != buckets.length + 1) {
+                return; // Ring size changed - start fresh rather than misplace buckets
+            }
+            headPeriod = data[0];
+            System.arraycopy(data, 1, buckets, 0, buckets.length);
+        }
+
+        private static long pack(int deposited, int withdrawn) {
+            return ((long) deposited << 32) | (withdrawn & 0xFFFFFFFFL);
+        }
+
+        private static int unpackDeposited(long packed) {
+            return (int) (packed >>> 32);
+        }
+
+        private static int unpackWithdrawn(long packed) {
+            return (int) packed;
+        }
+
+        private static int saturatedAdd(int a, int b) {
+            long sum = (long) a + b;
+            return sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) sum;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.csquared.trekcraft.data;
+
+import com.csquared.trekcraft.util.TimingWheel;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Transient expiry bookkeeping for tricorder signals.
+ * Signals are aged on a timing wheel by their last seen game time. Dropped signals
+ * whose chunk is unloaded when they come due are parked by chunk until it loads again,
+ * so they cost nothing while they cannot be verified.
+ * Rebuilt from the saved signals on load; never persisted.
+ */
+public class SignalExpiryTracker {
+    private static final int WHEEL_RESOLUTION_TICKS = 20;
+
+    private final TimingWheel<UUID> wheel = new TimingWheel<>(WHEEL_RESOLUTION_TICKS);
+
+    // Signals whose deadline passed and are waiting for verification
+    private final ArrayDeque<UUID> pending = new ArrayDeque<>();
+    private final Set<UUID> pendingIds = new HashSet<>();
+
+    // Dropped signals waiting for their chunk to load: dimension -> chunk -> tricorder IDs
+    private final Map<String, Map<Long, Set<UUID>>> parkedByChunk = new HashMap<>();
+    private final Map<UUID, ParkedSignal> parked = new HashMap<>();
+
+    /**
+     * Start tracking a signal if it isn't already. Deadlines are extended lazily:
+     * when an entry comes due, the verifier reschedules it if the signal was seen since.
+     */
+    public void track(UUID tricorderId, long deadline) {
+        unpark(tricorderId);
+        if (!wheel.contains(tricorderId) && !pendingIds.contains(tricorderId)) {
+            wheel.schedule(tricorderId, deadline);
+        }
+    }
+
+    /**
+     * Schedule the next check for a signal, replacing any existing deadline.
+     */
+    public void reschedule(UUID tricorderId, long deadline) {
+        unpark(tricorderId);
+        wheel.schedule(tricorderId, deadline);
+    }
+
+    /**
+     * Stop tracking a signal entirely.
+     */
+    public void forget(UUID tricorderId) {
+        wheel.cancel(tricorderId);
+        unpark(tricorderId);
+        if (pendingIds.remove(tricorderId)) {
+            pending.remove(tricorderId);
+        }
+    }
+
+    /**
+     * Advance the wheel, moving every signal that came due into the pending queue.
+     */
+    public void advance(long gameTime) {
+        wheel.advance(gameTime, tricorderId -> {
+            if (pendingIds.add(tricorderId)) {
+                pending.add(tricorderId);
+            }
+        });
+    }
+
+    /**
+     * Take the next signal waiting for verification, or null if none.
+     */
+    public UUID pollPending() {
+        UUID tricorderId = pending.poll();
+        if (tricorderId != null) {
+            pendingIds.remove(tricorderId);
+        }
+        return tricorderId;
+    }
+
+    /**
+     * Park a dropped signal until the given chunk loads.
+     */
+    public void park(UUID tricorderId, String dimensionKey, long chunkPos) {
+        wheel.cancel(tricorderId);
+        unpark(tricorderId);
+        parked.put(tricorderId, new ParkedSignal(dimensionKey, chunkPos));
+        parkedByChunk.computeIfAbsent(dimensionKey, k -> new HashMap<>())
+                .computeIfAbsent(chunkPos, k -> new HashSet<>())
+                .add(tricorderId);
+    }
+
+    /**
+     * Release every signal parked on a chunk that just loaded.
+     * @return The released tricorder IDs, empty if none were parked there
+     */
+    public Set<UUID> releaseChunk(String dimensionKey, long chunkPos) {
+        Map<Long, Set<UUID>> byChunk = parkedByChunk.get(dimensionKey);
+        if (byChunk == null) {
+            return Set.of();
+        }
+        Set<UUID> released = byChunk.remove(chunkPos);
+        if (released == null) {
+            return Set.of();
+        }
+        if (byChunk.isEmpty()) {
+            parkedByChunk.remove(dimensionKey);
+        }
+        for (UUID tricorderId : released) {
+            parked.remove(tricorderId);
+        }
+        return released;
+    }
+
+    public boolean hasParked() {
+        return !parked.isEmpty();
+    }
+
+    public int getScheduledCount() {
+        return wheel.size();
+    }
+
+    public int getParkedCount() {
+        return parked.size();
+    }
+
+    private void unpark(UUID tricorderId) {
+        ParkedSignal previous = parked.remove(tricorderId);
+        if (previous == null) {
+            return;
+        }
+        Map<Long, Set<UUID>> byChunk = parkedByChunk.get(previous.dimensionKey());
+        if (byChunk == null) {
+            return;
+        }
+        Set<UUID> ids = byChunk.get(previous.chunkPos());
+        if (ids != null) {
+            ids.remove(tricorderId);
+            if (ids.isEmpty()) {
+                byChunk.remove(previous.chunkPos());
+            }
+        }
+        if (byChunk.isEmpty()) {
+            parkedByChunk.remove(previous.dimensionKey());
+        }
+    }
+
+    private record ParkedSignal(String dimensionKey, long chunkPos) {}
+}
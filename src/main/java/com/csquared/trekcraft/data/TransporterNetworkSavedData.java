@@ -1,5 +1,6 @@
 package com.csquared.trekcraft.data;
 
+import com.csquared.trekcraft.TrekCraftConfig;
 import com.csquared.trekcraft.TrekCraftMod;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
@@ -10,6 +11,7 @@ import net.minecraft.nbt.Tag;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.saveddata.SavedData;
+import com.csquared.trekcraft.util.OrderStatisticTree;
 import org.jetbrains.annotations.Nullable;
 
 import net.minecraft.server.level.ServerPlayer;
@@ -20,7 +22,6 @@ import net.minecraft.network.chat.Component;
 import net.minecraft.ChatFormatting;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class TransporterNetworkSavedData extends SavedData {
     private static final String DATA_NAME = TrekCraftMod.MODID + "_transporter_network";
@@ -34,12 +35,29 @@ public class TransporterNetworkSavedData extends SavedData {
     // Tricorder signals (both held and dropped)
     private final Map<UUID, SignalRecord> signals = new HashMap<>();
 
+    // Transient expiry scheduling for signals (rebuilt on load)
+    private final SignalExpiryTracker signalExpiry = new SignalExpiryTracker();
+
     // Wormhole portals
     private final Map<UUID, WormholeRecord> wormholes = new HashMap<>();
 
+    // Anchor, interior and frame-block lookups for wormholes (rebuilt on load)
+    private final WormholeSpatialIndex wormholeIndex = new WormholeSpatialIndex();
+
+    // Wormholes with no link - the candidates offered by the link directory (rebuilt on load)
+    private final UnlinkedWormholeIndex unlinkedWormholes = new UnlinkedWormholeIndex();
+
     // Player contribution tracking
     private final Map<UUID, ContributorRecord> contributors = new HashMap<>();
 
+    // Contributors ordered by net contribution (highest first), maintained alongside the map
+    private final OrderStatisticTree<ContributorRecord> contributorRanking =
+            new OrderStatisticTree<>(ContributorRecord.BY_NET_CONTRIBUTION);
+
+    // Daily/weekly deposit and withdrawal rollups, per player and network-wide
+    private final Map<UUID, ContributionHistory> contributionHistory = new HashMap<>();
+    private ContributionHistory networkHistory = new ContributionHistory();
+
     public TransporterNetworkSavedData() {
     }
 
@@ -130,6 +148,7 @@ public class TransporterNetworkSavedData extends SavedData {
                     signalTag.getString("DimensionKey") : "minecraft:overworld";
 
             data.signals.put(tricorderId, new SignalRecord(tricorderId, displayName, pos, lastSeen, type, holderId, dimensionKey));
+            data.signalExpiry.track(tricorderId, getSignalDeadline(lastSeen));
         }
 
         // Load wormholes
@@ -149,10 +168,16 @@ public class TransporterNetworkSavedData extends SavedData {
                         wormholeTag.getUUID("LinkedPortalId") : null;
                 long createdTime = wormholeTag.getLong("CreatedTime");
                 String dimensionKey = wormholeTag.getString("DimensionKey");
+                int cooldownTicks = wormholeTag.contains("CooldownTicks") ?
+                        wormholeTag.getInt("CooldownTicks") : WormholeRecord.DEFAULT_COOLDOWN;
 
-                data.wormholes.put(portalId, new WormholeRecord(
-                        portalId, name, anchorPos, axis, width, height, linkedPortalId, createdTime, dimensionKey
-                ));
+                WormholeRecord wormhole = new WormholeRecord(
+                        portalId, name, anchorPos, axis, width, height, linkedPortalId, createdTime, dimensionKey,
+                        cooldownTicks
+                );
+                data.wormholes.put(portalId, wormhole);
+                data.wormholeIndex.add(wormhole);
+                data.unlinkedWormholes.update(wormhole);
             }
         }
 
@@ -173,13 +198,20 @@ public class TransporterNetworkSavedData extends SavedData {
                         highestRank = ContributorRank.valueOf(contribTag.getString("HighestRank"));
                     } catch (IllegalArgumentException ignored) {}
                 }
-                data.contributors.put(playerId, new ContributorRecord(
+                data.putContributor(new ContributorRecord(
                         playerId, lastKnownName, totalDeposited, totalWithdrawn,
                         lastActivityTime, freeTransportsUsed, highestRank
                 ));
+                if (contribTag.contains("DailyBuckets")) {
+                    data.contributionHistory.put(playerId, ContributionHistory.load(contribTag));
+                }
             }
         }
 
+        if (tag.contains("NetworkHistory", Tag.TAG_COMPOUND)) {
+            data.networkHistory = ContributionHistory.load(tag.getCompound("NetworkHistory"));
+        }
+
         return data;
     }
 
@@ -249,6 +281,9 @@ public class TransporterNetworkSavedData extends SavedData {
             }
             wormholeTag.putLong("CreatedTime", wormhole.createdTime());
             wormholeTag.putString("DimensionKey", wormhole.dimensionKey());
+            if (wormhole.cooldownTicks() != WormholeRecord.DEFAULT_COOLDOWN) {
+                wormholeTag.putInt("CooldownTicks", wormhole.cooldownTicks());
+            }
             wormholesTag.add(wormholeTag);
         }
         tag.put("Wormholes", wormholesTag);
@@ -264,10 +299,18 @@ public class TransporterNetworkSavedData extends SavedData {
             contribTag.putLong("LastActivityTime", contrib.lastActivityTime());
             contribTag.putInt("FreeTransportsUsed", contrib.freeTransportsUsed());
             contribTag.putString("HighestRank", contrib.highestRankAchieved().name());
+            ContributionHistory history = contributionHistory.get(contrib.playerId());
+            if (history != null) {
+                history.save(contribTag);
+            }
             contributorsTag.add(contribTag);
         }
         tag.put("Contributors", contributorsTag);
 
+        CompoundTag networkHistoryTag = new CompoundTag();
+        networkHistory.save(networkHistoryTag);
+        tag.put("NetworkHistory", networkHistoryTag);
+
         return tag;
     }
 
@@ -411,6 +454,7 @@ public class TransporterNetworkSavedData extends SavedData {
      */
     public void registerDroppedSignal(UUID tricorderId, String displayName, BlockPos pos, long gameTime, String dimensionKey) {
         signals.put(tricorderId, new SignalRecord(tricorderId, displayName, pos, gameTime, SignalType.DROPPED, null, dimensionKey));
+        signalExpiry.track(tricorderId, getSignalDeadline(gameTime));
         setDirty();
     }
 
@@ -419,6 +463,7 @@ public class TransporterNetworkSavedData extends SavedData {
      */
     public void registerHeldSignal(UUID tricorderId, String displayName, BlockPos pos, long gameTime, UUID holderId, String dimensionKey) {
         signals.put(tricorderId, new SignalRecord(tricorderId, displayName, pos, gameTime, SignalType.HELD, holderId, dimensionKey));
+        signalExpiry.track(tricorderId, getSignalDeadline(gameTime));
         setDirty();
     }
 
@@ -437,12 +482,14 @@ public class TransporterNetworkSavedData extends SavedData {
                     existing.holderId(),
                     dimensionKey
             ));
+            signalExpiry.track(tricorderId, getSignalDeadline(gameTime));
             setDirty();
         }
     }
 
     public void unregisterSignal(UUID tricorderId) {
         signals.remove(tricorderId);
+        signalExpiry.forget(tricorderId);
         setDirty();
     }
 
@@ -467,13 +514,32 @@ public class TransporterNetworkSavedData extends SavedData {
         return Optional.ofNullable(signals.get(tricorderId));
     }
 
+    /**
+     * Expiry scheduler for signals, driven by SignalExpiryService.
+     */
+    public SignalExpiryTracker getSignalExpiry() {
+        return signalExpiry;
+    }
+
+    /**
+     * Game time at which a signal last seen at the given time should be checked.
+     */
+    public static long getSignalDeadline(long lastSeenGameTime) {
+        return lastSeenGameTime + TrekCraftConfig.signalExpiryTicks;
+    }
+
     // ===== Wormhole methods =====
 
     /**
      * Register a new wormhole portal.
      */
     public void registerWormhole(WormholeRecord wormhole) {
-        wormholes.put(wormhole.portalId(), wormhole);
+        WormholeRecord previous = wormholes.put(wormhole.portalId(), wormhole);
+        if (previous != null) {
+            wormholeIndex.remove(previous);
+        }
+        wormholeIndex.add(wormhole);
+        unlinkedWormholes.update(wormhole);
         setDirty();
     }
 
@@ -481,7 +547,11 @@ public class TransporterNetworkSavedData extends SavedData {
      * Unregister a wormhole portal.
      */
     public void unregisterWormhole(UUID portalId) {
-        wormholes.remove(portalId);
+        WormholeRecord removed = wormholes.remove(portalId);
+        if (removed != null) {
+            wormholeIndex.remove(removed);
+        }
+        unlinkedWormholes.remove(portalId);
         setDirty();
     }
 
@@ -506,92 +576,95 @@ public class TransporterNetworkSavedData extends SavedData {
      */
     public List<WormholeRecord> getUnlinkedWormholes(@Nullable String dimensionKey, UUID excludePortalId) {
         List<WormholeRecord> unlinked = new ArrayList<>();
-        for (WormholeRecord wormhole : wormholes.values()) {
-            if (!wormhole.isLinked()
-                    && !wormhole.portalId().equals(excludePortalId)
-                    && (dimensionKey == null || wormhole.dimensionKey().equals(dimensionKey))) {
-                unlinked.add(wormhole);
+        Collection<NavigableSet<UnlinkedWormholeIndex.Entry>> groups = dimensionKey == null
+                ? unlinkedWormholes.byDimension().values()
+                : List.of(unlinkedWormholes.inDimension(dimensionKey));
+        for (NavigableSet<UnlinkedWormholeIndex.Entry> group : groups) {
+            for (UnlinkedWormholeIndex.Entry entry : group) {
+                if (!entry.wormhole().portalId().equals(excludePortalId)) {
+                    unlinked.add(entry.wormhole());
+                }
             }
         }
         return unlinked;
     }
 
+    /**
+     * The link directory's index of unlinked wormholes.
+     */
+    public UnlinkedWormholeIndex getUnlinkedIndex() {
+        return unlinkedWormholes;
+    }
+
     /**
      * Update a wormhole record (e.g., after linking or renaming).
      */
     public void updateWormhole(WormholeRecord wormhole) {
-        wormholes.put(wormhole.portalId(), wormhole);
+        WormholeRecord previous = wormholes.put(wormhole.portalId(), wormhole);
+        // Renames and link changes keep the same geometry, so the index only moves on resize
+        if (previous == null) {
+            wormholeIndex.add(wormhole);
+        } else if (!WormholeSpatialIndex.sameGeometry(previous, wormhole)) {
+            wormholeIndex.remove(previous);
+            wormholeIndex.add(wormhole);
+        }
+        unlinkedWormholes.update(wormhole);
         setDirty();
     }
 
     /**
-     * Find a wormhole by its anchor position.
+     * Find a wormhole by its anchor position in a dimension.
      */
-    public Optional<WormholeRecord> getWormholeByAnchor(BlockPos anchorPos) {
-        for (WormholeRecord wormhole : wormholes.values()) {
-            if (wormhole.anchorPos().equals(anchorPos)) {
-                return Optional.of(wormhole);
-            }
-        }
-        return Optional.empty();
+    public Optional<WormholeRecord> getWormholeByAnchor(String dimensionKey, BlockPos anchorPos) {
+        UUID portalId = wormholeIndex.getByAnchor(dimensionKey, anchorPos);
+        return portalId == null ? Optional.empty() : Optional.ofNullable(wormholes.get(portalId));
     }
 
     /**
-     * Find a wormhole by a position that is part of its cobblestone frame.
-     * The frame surrounds the portal interior (anchorPos is bottom-left interior block).
+     * Find the wormhole whose interior (portal blocks) contains a position in a dimension.
      */
-    public Optional<WormholeRecord> getWormholeByFramePosition(BlockPos framePos) {
-        for (WormholeRecord wormhole : wormholes.values()) {
-            if (isPositionInFrame(framePos, wormhole)) {
-                return Optional.of(wormhole);
-            }
-        }
-        return Optional.empty();
+    public Optional<WormholeRecord> getWormholeByInteriorPosition(String dimensionKey, BlockPos interiorPos) {
+        UUID portalId = wormholeIndex.getByInterior(dimensionKey, interiorPos);
+        return portalId == null ? Optional.empty() : Optional.ofNullable(wormholes.get(portalId));
     }
 
     /**
-     * Check if a position is part of a wormhole's frame.
+     * Get the wormholes whose anchor chunk is within a block radius of a position.
+     * May include wormholes slightly farther away than the radius.
      */
-    private boolean isPositionInFrame(BlockPos pos, WormholeRecord wormhole) {
-        BlockPos anchor = wormhole.anchorPos();
-        Direction horizontal = wormhole.axis() == Direction.Axis.X ? Direction.EAST : Direction.SOUTH;
-        int width = wormhole.width();
-        int height = wormhole.height();
-
-        // Frame bottom-left corner is one below and one back from anchor
-        BlockPos bottomLeft = anchor.below().relative(horizontal.getOpposite());
-
-        // Check bottom row
-        for (int i = 0; i < width + 2; i++) {
-            if (pos.equals(bottomLeft.relative(horizontal, i))) {
-                return true;
-            }
-        }
-
-        // Check top row
-        BlockPos topLeft = bottomLeft.above(height + 1);
-        for (int i = 0; i < width + 2; i++) {
-            if (pos.equals(topLeft.relative(horizontal, i))) {
-                return true;
+    public List<WormholeRecord> getWormholesNear(String dimensionKey, BlockPos center, int radius) {
+        List<WormholeRecord> result = new ArrayList<>();
+        wormholeIndex.forEachNear(dimensionKey, center, radius, portalId -> {
+            WormholeRecord wormhole = wormholes.get(portalId);
+            if (wormhole != null) {
+                result.add(wormhole);
             }
-        }
+        });
+        return result;
+    }
 
-        // Check left side (excluding corners)
-        for (int i = 1; i <= height; i++) {
-            if (pos.equals(bottomLeft.above(i))) {
-                return true;
-            }
-        }
+    /**
+     * Find a wormhole by a position that is part of its frame in a dimension.
+     * The frame surrounds the portal interior (anchorPos is bottom-left interior block).
+     * If adjacent portals share the block, the first registered one is returned.
+     */
+    public Optional<WormholeRecord> getWormholeByFramePosition(String dimensionKey, BlockPos framePos) {
+        List<UUID> portalIds = wormholeIndex.getByFrame(dimensionKey, framePos);
+        return portalIds.isEmpty() ? Optional.empty() : Optional.ofNullable(wormholes.get(portalIds.get(0)));
+    }
 
-        // Check right side (excluding corners)
-        BlockPos bottomRight = bottomLeft.relative(horizontal, width + 1);
-        for (int i = 1; i <= height; i++) {
-            if (pos.equals(bottomRight.above(i))) {
-                return true;
+    /**
+     * Get every wormhole whose frame includes the given position.
+     */
+    public List<WormholeRecord> getWormholesByFramePosition(String dimensionKey, BlockPos framePos) {
+        List<WormholeRecord> result = new ArrayList<>();
+        for (UUID portalId : wormholeIndex.getByFrame(dimensionKey, framePos)) {
+            WormholeRecord wormhole = wormholes.get(portalId);
+            if (wormhole != null) {
+                result.add(wormhole);
             }
         }
-
-        return false;
+        return result;
     }
 
     // ===== Record types =====
@@ -624,6 +697,13 @@ public class TransporterNetworkSavedData extends SavedData {
             int freeTransportsUsed,
             ContributorRank highestRankAchieved
     ) {
+        /**
+         * Leaderboard order: highest net contribution first, ties broken by player ID.
+         */
+        public static final Comparator<ContributorRecord> BY_NET_CONTRIBUTION =
+                Comparator.comparingLong(ContributorRecord::getNetContribution).reversed()
+                        .thenComparing(ContributorRecord::playerId);
+
         /**
          * Net contribution = deposited - withdrawn
          */
@@ -648,26 +728,40 @@ public class TransporterNetworkSavedData extends SavedData {
 
     // ===== Contributor methods =====
 
+    /**
+     * Store a contributor record, keeping the ranking index in step with the map.
+     */
+    private void putContributor(ContributorRecord record) {
+        ContributorRecord previous = contributors.put(record.playerId(), record);
+        if (previous != null) {
+            contributorRanking.remove(previous);
+        }
+        contributorRanking.add(record);
+    }
+
     /**
      * Record a deposit of latinum strips by a player.
      */
     public void recordDeposit(UUID playerId, String playerName, int amount) {
+        long now = System.currentTimeMillis();
         ContributorRecord existing = contributors.get(playerId);
         if (existing == null) {
-            contributors.put(playerId, new ContributorRecord(
+            putContributor(new ContributorRecord(
                     playerId, playerName, amount, 0,
-                    System.currentTimeMillis(), 0, ContributorRank.CREWMAN
+                    now, 0, ContributorRank.CREWMAN
             ));
         } else {
-            contributors.put(playerId, new ContributorRecord(
+            putContributor(new ContributorRecord(
                     playerId, playerName,
                     existing.totalDeposited() + amount,
                     existing.totalWithdrawn(),
-                    System.currentTimeMillis(),
+                    now,
                     existing.freeTransportsUsed(),
                     existing.highestRankAchieved()
             ));
         }
+        contributionHistory.computeIfAbsent(playerId, id -> new ContributionHistory()).recordDeposit(now, amount);
+        networkHistory.recordDeposit(now, amount);
         setDirty();
     }
 
@@ -675,22 +769,25 @@ public class TransporterNetworkSavedData extends SavedData {
      * Record a withdrawal of latinum strips by a player.
      */
     public void recordWithdrawal(UUID playerId, String playerName, int amount) {
+        long now = System.currentTimeMillis();
         ContributorRecord existing = contributors.get(playerId);
         if (existing == null) {
-            contributors.put(playerId, new ContributorRecord(
+            putContributor(new ContributorRecord(
                     playerId, playerName, 0, amount,
-                    System.currentTimeMillis(), 0, ContributorRank.CREWMAN
+                    now, 0, ContributorRank.CREWMAN
             ));
         } else {
-            contributors.put(playerId, new ContributorRecord(
+            putContributor(new ContributorRecord(
                     playerId, playerName,
                     existing.totalDeposited(),
                     existing.totalWithdrawn() + amount,
-                    System.currentTimeMillis(),
+                    now,
                     existing.freeTransportsUsed(),
                     existing.highestRankAchieved()
             ));
         }
+        contributionHistory.computeIfAbsent(playerId, id -> new ContributionHistory()).recordWithdrawal(now, amount);
+        networkHistory.recordWithdrawal(now, amount);
         setDirty();
     }
 
@@ -711,7 +808,7 @@ public class TransporterNetworkSavedData extends SavedData {
             return false;
         }
 
-        contributors.put(playerId, new ContributorRecord(
+        putContributor(new ContributorRecord(
                 existing.playerId(),
                 existing.lastKnownName(),
                 existing.totalDeposited(),
@@ -728,10 +825,25 @@ public class TransporterNetworkSavedData extends SavedData {
      * Get top contributors sorted by net contribution.
      */
     public List<ContributorRecord> getTopContributors(int limit) {
-        return contributors.values().stream()
-                .sorted((a, b) -> Long.compare(b.getNetContribution(), a.getNetContribution()))
-                .limit(limit)
-                .collect(Collectors.toList());
+        return contributorRanking.head(limit);
+    }
+
+    /**
+     * Get a player's 1-based leaderboard position, or 0 if they have no contributor record.
+     */
+    public int getContributorRankPosition(UUID playerId) {
+        ContributorRecord record = contributors.get(playerId);
+        if (record == null) {
+            return 0;
+        }
+        return contributorRanking.rankOf(record) + 1;
+    }
+
+    /**
+     * Get the number of players on the leaderboard.
+     */
+    public int getContributorCount() {
+        return contributorRanking.size();
     }
 
     /**
@@ -751,7 +863,7 @@ public class TransporterNetworkSavedData extends SavedData {
         // Check if we've achieved a new highest rank
         if (currentRank.ordinal() > previousHighest.ordinal()) {
             // Update the highest rank achieved
-            contributors.put(playerId, new ContributorRecord(
+            putContributor(new ContributorRecord(
                     record.playerId(),
                     record.lastKnownName(),
                     record.totalDeposited(),
@@ -801,6 +913,20 @@ public class TransporterNetworkSavedData extends SavedData {
         return null;
     }
 
+    /**
+     * Get a player's daily/weekly contribution rollups, if they have any.
+     */
+    public Optional<ContributionHistory> getContributionHistory(UUID playerId) {
+        return Optional.ofNullable(contributionHistory.get(playerId));
+    }
+
+    /**
+     * Get network-wide daily/weekly contribution rollups.
+     */
+    public ContributionHistory getNetworkHistory() {
+        return networkHistory;
+    }
+
     /**
      * Get all contributors.
      */
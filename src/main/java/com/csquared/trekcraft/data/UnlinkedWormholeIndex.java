@@ -0,0 +1,89 @@
+package com.csquared.trekcraft.data;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Wormholes with no link - the candidates offered by the link directory - grouped by
+ * dimension and kept in (dimension, name) order. Names are lower-cased once on insert
+ * so searches don't redo it per query. Updated on register, link, unlink and rename.
+ * Transient - rebuilt from the wormhole records on load.
+ */
+public class UnlinkedWormholeIndex {
+
+    /**
+     * An unlinked portal as indexed.
+     *
+     * @param searchName The portal name, lower-cased for matching
+     */
+    public record Entry(WormholeRecord wormhole, String searchName) {}
+
+    private static final Comparator<Entry> BY_NAME = Comparator
+            .comparing(Entry::searchName)
+            .thenComparing(e -> e.wormhole().portalId());
+
+    private final NavigableMap<String, NavigableSet<Entry>> dimensions = new TreeMap<>();
+    private final Map<UUID, Entry> entries = new HashMap<>();
+
+    /**
+     * Track a wormhole's current record: indexed while unlinked, dropped once linked.
+     */
+    public void update(WormholeRecord wormhole) {
+        remove(wormhole.portalId());
+        if (wormhole.isLinked()) {
+            return;
+        }
+        Entry entry = new Entry(wormhole, wormhole.name().toLowerCase(Locale.ROOT));
+        entries.put(wormhole.portalId(), entry);
+        dimensions.computeIfAbsent(wormhole.dimensionKey(), k -> new TreeSet<>(BY_NAME)).add(entry);
+    }
+
+    public void remove(UUID portalId) {
+        Entry entry = entries.remove(portalId);
+        if (entry == null) {
+            return;
+        }
+        String dimensionKey = entry.wormhole().dimensionKey();
+        NavigableSet<Entry> set = dimensions.get(dimensionKey);
+        if (set != null) {
+            set.remove(entry);
+            if (set.isEmpty()) {
+                dimensions.remove(dimensionKey);
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Unlinked portals in one dimension, by name.
+     */
+    public NavigableSet<Entry> inDimension(String dimensionKey) {
+        NavigableSet<Entry> set = dimensions.get(dimensionKey);
+        return set == null ? Collections.emptyNavigableSet() : Collections.unmodifiableNavigableSet(set);
+    }
+
+    /**
+     * Unlinked portals by dimension key, each dimension by name.
+     */
+    public NavigableMap<String, NavigableSet<Entry>> byDimension() {
+        return Collections.unmodifiableNavigableMap(dimensions);
+    }
+
+    @Nullable
+    public Entry get(UUID portalId) {
+        return entries.get(portalId);
+    }
+}
@@ -1,5 +1,6 @@
 package com.csquared.trekcraft.data;
 
+import com.csquared.trekcraft.TrekCraftConfig;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import org.jetbrains.annotations.Nullable;
@@ -18,35 +19,53 @@ public record WormholeRecord(
         int height,
         @Nullable UUID linkedPortalId,
         long createdTime,
-        String dimensionKey
+        String dimensionKey,
+        int cooldownTicks
 ) {
+    /** Cooldown value meaning "use the configured default". */
+    public static final int DEFAULT_COOLDOWN = -1;
+
     /**
      * Create a new unlinked wormhole record.
      */
     public static WormholeRecord create(UUID portalId, String name, BlockPos anchorPos,
                                          Direction.Axis axis, int width, int height, String dimensionKey) {
-        return new WormholeRecord(portalId, name, anchorPos, axis, width, height, null, System.currentTimeMillis(), dimensionKey);
+        return new WormholeRecord(portalId, name, anchorPos, axis, width, height, null, System.currentTimeMillis(), dimensionKey, DEFAULT_COOLDOWN);
     }
 
     /**
      * Returns a new record with the specified linked portal.
      */
     public WormholeRecord withLink(UUID linkedId) {
-        return new WormholeRecord(portalId, name, anchorPos, axis, width, height, linkedId, createdTime, dimensionKey);
+        return new WormholeRecord(portalId, name, anchorPos, axis, width, height, linkedId, createdTime, dimensionKey, cooldownTicks);
     }
 
     /**
      * Returns a new record with no link.
      */
     public WormholeRecord withoutLink() {
-        return new WormholeRecord(portalId, name, anchorPos, axis, width, height, null, createdTime, dimensionKey);
+        return new WormholeRecord(portalId, name, anchorPos, axis, width, height, null, createdTime, dimensionKey, cooldownTicks);
     }
 
     /**
      * Returns a new record with the specified name.
      */
     public WormholeRecord withName(String newName) {
-        return new WormholeRecord(portalId, newName, anchorPos, axis, width, height, linkedPortalId, createdTime, dimensionKey);
+        return new WormholeRecord(portalId, newName, anchorPos, axis, width, height, linkedPortalId, createdTime, dimensionKey, cooldownTicks);
+    }
+
+    /**
+     * Returns a new record with the specified cooldown override (DEFAULT_COOLDOWN to clear it).
+     */
+    public WormholeRecord withCooldown(int ticks) {
+        return new WormholeRecord(portalId, name, anchorPos, axis, width, height, linkedPortalId, createdTime, dimensionKey, ticks);
+    }
+
+    /**
+     * Ticks an entity arriving at this portal must wait before travelling again.
+     */
+    public int getEffectiveCooldownTicks() {
+        return cooldownTicks >= 0 ? cooldownTicks : TrekCraftConfig.wormholeCooldownTicks;
     }
 
     /**
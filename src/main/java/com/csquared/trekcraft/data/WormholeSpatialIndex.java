@@ -0,0 +1,192 @@
+package com.csquared.trekcraft.data;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.ChunkPos;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Position lookups for wormholes, keyed by dimension and packed BlockPos longs.
+ * Indexes every anchor, interior and frame block so lookups are O(1) regardless of
+ * how many wormholes exist, plus the chunk of each anchor for area queries. Frame blocks may be shared by adjacent portals; interiors
+ * never overlap. This is the only record of which portal a portal block belongs to.
+ * Transient - rebuilt from the wormhole records on load.
+ */
+public class WormholeSpatialIndex {
+    private final Map<String, DimensionIndex> dimensions = new HashMap<>();
+
+    public void add(WormholeRecord wormhole) {
+        DimensionIndex index = dimensions.computeIfAbsent(wormhole.dimensionKey(), k -> new DimensionIndex());
+        index.anchors.put(wormhole.anchorPos().asLong(), wormhole.portalId());
+        index.anchorChunks.computeIfAbsent(ChunkPos.asLong(wormhole.anchorPos()), k -> new ArrayList<>(1))
+                .add(wormhole.portalId());
+        forEachInteriorPosition(wormhole, packedPos -> index.interiors.put(packedPos, wormhole.portalId()));
+        forEachFramePosition(wormhole, packedPos -> {
+            List<UUID> portals = index.frames.get(packedPos);
+            if (portals == null) {
+                portals = new ArrayList<>(1);
+                index.frames.put(packedPos, portals);
+            }
+            portals.add(wormhole.portalId());
+        });
+    }
+
+    public void remove(WormholeRecord wormhole) {
+        DimensionIndex index = dimensions.get(wormhole.dimensionKey());
+        if (index == null) {
+            return;
+        }
+        long anchor = wormhole.anchorPos().asLong();
+        if (wormhole.portalId().equals(index.anchors.get(anchor))) {
+            index.anchors.remove(anchor);
+        }
+        long chunk = ChunkPos.asLong(wormhole.anchorPos());
+        List<UUID> inChunk = index.anchorChunks.get(chunk);
+        if (inChunk != null) {
+            inChunk.remove(wormhole.portalId());
+            if (inChunk.isEmpty()) {
+                index.anchorChunks.remove(chunk);
+            }
+        }
+        forEachInteriorPosition(wormhole, packedPos -> {
+            if (wormhole.portalId().equals(index.interiors.get(packedPos))) {
+                index.interiors.remove(packedPos);
+            }
+        });
+        forEachFramePosition(wormhole, packedPos -> {
+            List<UUID> portals = index.frames.get(packedPos);
+            if (portals != null) {
+                portals.remove(wormhole.portalId());
+                if (portals.isEmpty()) {
+                    index.frames.remove(packedPos);
+                }
+            }
+        });
+        if (index.anchors.isEmpty() && index.interiors.isEmpty() && index.frames.isEmpty()
+                && index.anchorChunks.isEmpty()) {
+            dimensions.remove(wormhole.dimensionKey());
+        }
+    }
+
+    /**
+     * Check whether two versions of a record occupy the same indexed positions.
+     */
+    public static boolean sameGeometry(WormholeRecord a, WormholeRecord b) {
+        return a.anchorPos().equals(b.anchorPos())
+                && a.axis() == b.axis()
+                && a.width() == b.width()
+                && a.height() == b.height()
+                && a.dimensionKey().equals(b.dimensionKey());
+    }
+
+    @Nullable
+    public UUID getByAnchor(String dimensionKey, BlockPos anchorPos) {
+        DimensionIndex index = dimensions.get(dimensionKey);
+        return index == null ? null : index.anchors.get(anchorPos.asLong());
+    }
+
+    @Nullable
+    public UUID getByInterior(String dimensionKey, BlockPos interiorPos) {
+        DimensionIndex index = dimensions.get(dimensionKey);
+        return index == null ? null : index.interiors.get(interiorPos.asLong());
+    }
+
+    /**
+     * Visit every portal whose anchor lies in a chunk within the given block radius of a
+     * position. Callers still check the exact distance; this only narrows the candidates.
+     */
+    public void forEachNear(String dimensionKey, BlockPos center, int radius, Consumer<UUID> consumer) {
+        DimensionIndex index = dimensions.get(dimensionKey);
+        if (index == null) {
+            return;
+        }
+        int minX = SectionPos.blockToSectionCoord(center.getX() - radius);
+        int maxX = SectionPos.blockToSectionCoord(center.getX() + radius);
+        int minZ = SectionPos.blockToSectionCoord(center.getZ() - radius);
+        int maxZ = SectionPos.blockToSectionCoord(center.getZ() + radius);
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                List<UUID> portals = index.anchorChunks.get(ChunkPos.asLong(x, z));
+                if (portals != null) {
+                    portals.forEach(consumer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the portals whose frame contains the given position (usually zero or one).
+     */
+    public List<UUID> getByFrame(String dimensionKey, BlockPos framePos) {
+        DimensionIndex index = dimensions.get(dimensionKey);
+        if (index == null) {
+            return List.of();
+        }
+        List<UUID> portals = index.frames.get(framePos.asLong());
+        return portals == null ? List.of() : portals;
+    }
+
+    /**
+     * Visit the packed position of every interior (portal) block, row by row from the anchor.
+     */
+    public static void forEachInteriorPosition(WormholeRecord wormhole, LongConsumer consumer) {
+        Direction horizontal = wormhole.axis() == Direction.Axis.X ? Direction.EAST : Direction.SOUTH;
+        int stepX = horizontal.getStepX();
+        int stepZ = horizontal.getStepZ();
+
+        BlockPos anchor = wormhole.anchorPos();
+        for (int y = 0; y < wormhole.height(); y++) {
+            for (int i = 0; i < wormhole.width(); i++) {
+                consumer.accept(BlockPos.asLong(anchor.getX() + stepX * i, anchor.getY() + y, anchor.getZ() + stepZ * i));
+            }
+        }
+    }
+
+    /**
+     * Visit the packed position of every frame block around a wormhole's interior.
+     * The anchor is the bottom-left interior block, so the frame starts one below and one back from it.
+     */
+    public static void forEachFramePosition(WormholeRecord wormhole, LongConsumer consumer) {
+        Direction horizontal = wormhole.axis() == Direction.Axis.X ? Direction.EAST : Direction.SOUTH;
+        int stepX = horizontal.getStepX();
+        int stepZ = horizontal.getStepZ();
+        int width = wormhole.width();
+        int height = wormhole.height();
+
+        BlockPos anchor = wormhole.anchorPos();
+        int baseX = anchor.getX() - stepX;
+        int baseY = anchor.getY() - 1;
+        int baseZ = anchor.getZ() - stepZ;
+
+        // Bottom and top rows, including corners
+        for (int i = 0; i < width + 2; i++) {
+            consumer.accept(BlockPos.asLong(baseX + stepX * i, baseY, baseZ + stepZ * i));
+            consumer.accept(BlockPos.asLong(baseX + stepX * i, baseY + height + 1, baseZ + stepZ * i));
+        }
+
+        // Left and right sides, excluding corners
+        int rightX = baseX + stepX * (width + 1);
+        int rightZ = baseZ + stepZ * (width + 1);
+        for (int i = 1; i <= height; i++) {
+            consumer.accept(BlockPos.asLong(baseX, baseY + i, baseZ));
+            consumer.accept(BlockPos.asLong(rightX, baseY + i, rightZ));
+        }
+    }
+
+    private static class DimensionIndex {
+        final Long2ObjectOpenHashMap<UUID> anchors = new Long2ObjectOpenHashMap<>();
+        final Long2ObjectOpenHashMap<UUID> interiors = new Long2ObjectOpenHashMap<>();
+        final Long2ObjectOpenHashMap<List<UUID>> frames = new Long2ObjectOpenHashMap<>();
+        final Long2ObjectOpenHashMap<List<UUID>> anchorChunks = new Long2ObjectOpenHashMap<>();
+    }
+}
@@ -0,0 +1,181 @@
+package com.csquared.trekcraft.holodeck;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.LongArrayTag;
+import net.minecraft.nbt.Tag;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+
+/**
+ * The saved holoprogram version a holo-area last matched (after loading or saving it),
+ * and what has changed since.
+ *
+ * Changes are tracked per section, in program section coordinates relative to the area's
+ * minimum corner, along with a checksum of each section's block states at the baseline.
+ * Saving over the baseline program only needs to capture sections that were reported
+ * as changed, whose checksum no longer matches, or that hold block entities, which
+ * catches changes no event reports (see HoloAreaJournal for what isn't observed, and
+ * HoloprogramManager.save). Checksums are worked out on the I/O thread from a
+ * HoloAreaSnapshot, so they arrive a little after the area starts matching.
+ *
+ * Owned by the area's HoloAreaJournal, which reports changes to it. Clearing the area
+ * drops the baseline.
+ */
+public class HoloAreaBaseline {
+
+    private final Runnable onChanged;
+
+    // Program (sanitized name) and version the area last matched; version 0 while a save is pending
+    @Nullable
+    private String program;
+    private int version = 0;
+    // Sections changed since, in program section coordinates relative to min
+    private final LongOpenHashSet changedSections = new LongOpenHashSet();
+    // Section checksums at the baseline (see HoloAreaSnapshot.checksumSections), or null
+    // if not worked out yet (a load or save still running, or the area was read from disk)
+    @Nullable
+    private long[] checksums;
+    // Identifies the latest save, so an older save finishing late can't claim the baseline
+    private int ticket = 0;
+
+    HoloAreaBaseline(Runnable onChanged) {
+        this.onChanged = onChanged;
+    }
+
+    /**
+     * Record a change at a position in the area with the given minimum corner.
+     */
+    void recordChange(BlockPos min, BlockPos pos) {
+        if (program == null) return;
+
+        if (changedSections.add(SectionPos.asLong((pos.getX() - min.getX()) >> 4,
+                (pos.getY() - min.getY()) >> 4, (pos.getZ() - min.getZ()) >> 4))) {
+            onChanged.run();
+        }
+    }
+
+    /**
+     * The area is being made to match a saved version of a program (a load is starting).
+     * Changes from here on, other than the load's own writes, count against it.
+     *
+     * @return Ticket to hand to setChecksums() once the area matches
+     */
+    int set(String program, int version) {
+        this.program = program;
+        this.version = version;
+        changedSections.clear();
+        checksums = null;
+        ticket++;
+        onChanged.run();
+        return ticket;
+    }
+
+    /**
+     * The area's section checksums now that it matches its baseline. Ignored if the area
+     * was saved, loaded or cleared again in the meantime.
+     */
+    void setChecksums(int ticket, long[] checksums) {
+        if (ticket == this.ticket && program != null) {
+            this.checksums = checksums;
+        }
+    }
+
+    void clear() {
+        ticket++;
+        checksums = null;
+        if (program != null || !changedSections.isEmpty()) {
+            program = null;
+            version = 0;
+            changedSections.clear();
+            onChanged.run();
+        }
+    }
+
+    /**
+     * Carry the baseline of a journal this one replaces (its owner was reloaded) over,
+     * if both describe the same version.
+     */
+    void takeOver(HoloAreaBaseline previous) {
+        if (Objects.equals(program, previous.program) && version == previous.version) {
+            changedSections.addAll(previous.changedSections);
+            checksums = previous.checksums;
+        } else {
+            clear();
+        }
+    }
+
+    /**
+     * The version of a program the area matches apart from getChangedSections() and sections
+     * whose checksum differs from getChecksums(), or 0.
+     */
+    int getVersion(String program) {
+        return program.equals(this.program) ? version : 0;
+    }
+
+    LongSet getChangedSections() {
+        return LongSets.unmodifiable(changedSections);
+    }
+
+    /**
+     * Section checksums at the baseline, or null if every section must be compared.
+     */
+    @Nullable
+    long[] getChecksums() {
+        return checksums;
+    }
+
+    /**
+     * The area is being captured as a program: changes from now on are against that save.
+     *
+     * @return Ticket to hand to finishSave()
+     */
+    int beginSave(String program) {
+        return set(program, 0);
+    }
+
+    /**
+     * A save has been written as the given version (or failed, with version 0). Ignored if
+     * the area was saved, loaded or cleared again in the meantime.
+     *
+     * @param checksums The area's section checksums as captured, or null if unknown
+     */
+    void finishSave(int ticket, int version, @Nullable long[] checksums) {
+        if (ticket != this.ticket) return;
+        if (version > 0) {
+            this.version = version;
+            this.checksums = checksums;
+            onChanged.run();
+        } else {
+            clear();
+        }
+    }
+
+    void save(CompoundTag tag) {
+        // A pending save's version isn't known yet, so it can't serve as a baseline after a restart
+        if (program != null && version > 0) {
+            tag.putString("BaselineProgram", program);
+            tag.putInt("BaselineVersion", version);
+            tag.put("BaselineChanges", new LongArrayTag(changedSections.toLongArray()));
+        }
+    }
+
+    void load(CompoundTag tag) {
+        program = null;
+        version = 0;
+        changedSections.clear();
+        checksums = null;
+        if (tag.contains("BaselineProgram", Tag.TAG_STRING)) {
+            program = tag.getString("BaselineProgram");
+            version = tag.getInt("BaselineVersion");
+            for (long packed : tag.getLongArray("BaselineChanges")) {
+                changedSections.add(packed);
+            }
+        }
+    }
+}
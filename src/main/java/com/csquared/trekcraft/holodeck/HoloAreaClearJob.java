@@ -0,0 +1,306 @@
+package com.csquared.trekcraft.holodeck;
+
+import com.csquared.trekcraft.TrekCraftConfig;
+import com.csquared.trekcraft.TrekCraftMod;
+import com.csquared.trekcraft.network.HolodeckStatusPayload;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.phys.AABB;
+import net.neoforged.neoforge.network.PacketDistributor;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Clears a holodeck or mobile emitter interior over several ticks.
+ *
+ * The volume is walked one chunk section at a time within a per-tick block budget.
+ * Sections that are already all air are skipped without touching their blocks.
+ * Blocks are removed without neighbor updates; only cells on the edge of the volume
+ * notify their neighbors, once per section, since everything inside becomes air anyway.
+ * Light changes are queued by the level's light engine as usual.
+ * Sections in chunks that aren't loaded are never loaded on the spot; the chunk is
+ * requested through HoloChunkTickets and the job picks up there on a later tick.
+ *
+ * When the area's HoloAreaJournal is complete, a job visits only the journaled
+ * positions instead, notifying neighbors of each one since there are few of them.
+ */
+public class HoloAreaClearJob {
+
+    private static final BlockState AIR = Blocks.AIR.defaultBlockState();
+    private static final int SET_FLAGS = Block.UPDATE_CLIENTS | Block.UPDATE_KNOWN_SHAPE;
+    private static final int STATUS_INTERVAL_TICKS = 10;
+    private static final double STATUS_RADIUS = 16.0;
+
+    // dimension -> owner (controller or primary emitter) -> running job
+    private static final Map<ResourceKey<Level>, Map<BlockPos, HoloAreaClearJob>> jobs = new HashMap<>();
+
+    private final BlockPos owner;
+    private final BlockPos min;
+    private final BlockPos max;
+    private final Predicate<BlockState> keep;
+
+    // Journaled positions to clear, or null to sweep the whole volume
+    @Nullable
+    private final long[] positions;
+    private int nextPosition = 0;
+
+    // Section bounds and cursor, in section coordinates
+    private final int minSecX, minSecY, minSecZ;
+    private final int sizeSecX, sizeSecY, sizeSecZ;
+    private final int totalSections;
+    private int nextSection = 0;
+    private int ticks = 0;
+
+    private HoloAreaClearJob(ServerLevel level, BlockPos owner, BlockPos min, BlockPos max,
+                             Predicate<BlockState> keep, @Nullable long[] positions) {
+        this.owner = owner.immutable();
+        this.positions = positions;
+        this.min = new BlockPos(min.getX(), Math.max(min.getY(), level.getMinBuildHeight()), min.getZ());
+        this.max = new BlockPos(max.getX(), Math.min(max.getY(), level.getMaxBuildHeight() - 1), max.getZ());
+        this.keep = keep;
+
+        this.minSecX = SectionPos.blockToSectionCoord(this.min.getX());
+        this.minSecY = SectionPos.blockToSectionCoord(this.min.getY());
+        this.minSecZ = SectionPos.blockToSectionCoord(this.min.getZ());
+        this.sizeSecX = SectionPos.blockToSectionCoord(this.max.getX()) - minSecX + 1;
+        this.sizeSecY = Math.max(0, SectionPos.blockToSectionCoord(this.max.getY()) - minSecY + 1);
+        this.sizeSecZ = SectionPos.blockToSectionCoord(this.max.getZ()) - minSecZ + 1;
+        this.totalSections = positions != null ? 0 : sizeSecX * sizeSecY * sizeSecZ;
+    }
+
+    /**
+     * Start clearing an interior, or return the job already clearing it.
+     *
+     * @param owner   The controller or primary emitter position, used as the job key
+     * @param journal The area's journal; if complete, only journaled positions are cleared
+     * @param keep    Blocks that must survive the clear (e.g. the holodeck structure)
+     */
+    public static HoloAreaClearJob start(ServerLevel level, BlockPos owner, BlockPos min, BlockPos max,
+                                         HoloAreaJournal journal, Predicate<BlockState> keep) {
+        Map<BlockPos, HoloAreaClearJob> levelJobs = jobs.computeIfAbsent(level.dimension(), k -> new HashMap<>());
+        HoloAreaClearJob existing = levelJobs.get(owner);
+        if (existing != null) {
+            return existing;
+        }
+
+        HoloAreaClearJob job = create(level, owner, min, max, journal, keep);
+        levelJobs.put(job.owner, job);
+        TrekCraftMod.LOGGER.debug("Started clearing holo-area at {} ({})", owner,
+                job.positions != null ? job.positions.length + " journaled blocks" : job.totalSections + " sections");
+        return job;
+    }
+
+    private static HoloAreaClearJob create(ServerLevel level, BlockPos owner, BlockPos min, BlockPos max,
+                                           HoloAreaJournal journal, Predicate<BlockState> keep) {
+        if (journal.isComplete()) {
+            return new HoloAreaClearJob(level, owner, min, max, keep, journal.drain());
+        }
+        // Everything from here on is journaled; the sweep takes care of what came before
+        journal.reset(true);
+        return new HoloAreaClearJob(level, owner, min, max, keep, null);
+    }
+
+    @Nullable
+    public static HoloAreaClearJob get(Level level, BlockPos owner) {
+        Map<BlockPos, HoloAreaClearJob> levelJobs = jobs.get(level.dimension());
+        return levelJobs != null ? levelJobs.get(owner) : null;
+    }
+
+    public static boolean isClearing(Level level, BlockPos owner) {
+        return get(level, owner) != null;
+    }
+
+    /**
+     * Advance every job in this level by one tick's budget.
+     */
+    public static void tick(ServerLevel level) {
+        if (jobs.isEmpty()) return;
+
+        Map<BlockPos, HoloAreaClearJob> levelJobs = jobs.get(level.dimension());
+        if (levelJobs == null) return;
+
+        // Jobs share the budget so several holodecks clearing at once don't multiply the cost
+        int budget = Math.max(1, TrekCraftConfig.holodeckClearBlocksPerTick / levelJobs.size());
+        Iterator<HoloAreaClearJob> it = levelJobs.values().iterator();
+        while (it.hasNext()) {
+            HoloAreaClearJob job = it.next();
+            boolean done = job.step(level, budget, false);
+            job.ticks++;
+            if (done) {
+                it.remove();
+                job.sendStatus(level, "", 100);
+                TrekCraftMod.LOGGER.debug("Cleared holo-area at {} in {} ticks", job.owner, job.ticks);
+            } else if (job.ticks % STATUS_INTERVAL_TICKS == 0) {
+                job.sendStatus(level, "CLEARING", job.getProgressPercent());
+            }
+        }
+        if (levelJobs.isEmpty()) {
+            jobs.remove(level.dimension());
+        }
+    }
+
+    /**
+     * Run every outstanding job to completion (server stopping), so no holo-blocks
+     * outlive their holodeck.
+     */
+    public static void finishAll(MinecraftServer server) {
+        for (ServerLevel level : server.getAllLevels()) {
+            Map<BlockPos, HoloAreaClearJob> levelJobs = jobs.get(level.dimension());
+            if (levelJobs == null) continue;
+            for (HoloAreaClearJob job : levelJobs.values()) {
+                job.step(level, Integer.MAX_VALUE, true);
+            }
+        }
+        jobs.clear();
+    }
+
+    /**
+     * Keep a player out of an area that is still being cleared by moving them back
+     * across the nearest side wall.
+     *
+     * @param margin Distance to place the player beyond the interior edge (wall thickness)
+     */
+    public static void holdOutside(ServerPlayer player, AABB interior, double margin, int progressPercent) {
+        double x = player.getX();
+        double z = player.getZ();
+
+        double toMinX = x - interior.minX;
+        double toMaxX = interior.maxX - x;
+        double toMinZ = z - interior.minZ;
+        double toMaxZ = interior.maxZ - z;
+        double nearest = Math.min(Math.min(toMinX, toMaxX), Math.min(toMinZ, toMaxZ));
+
+        if (nearest == toMinX) x = interior.minX - margin;
+        else if (nearest == toMaxX) x = interior.maxX + margin;
+        else if (nearest == toMinZ) z = interior.minZ - margin;
+        else z = interior.maxZ + margin;
+
+        player.teleportTo(x, player.getY(), z);
+        player.displayClientMessage(
+                Component.literal("Holo-area reinitializing... " + progressPercent + "%"), true);
+    }
+
+    public int getProgressPercent() {
+        if (positions != null) {
+            return positions.length == 0 ? 100 : nextPosition * 100 / positions.length;
+        }
+        return totalSections == 0 ? 100 : nextSection * 100 / totalSections;
+    }
+
+    /**
+     * Clear sections until the budget is spent or an unloaded chunk is reached.
+     *
+     * @param load Whether unloaded chunks may be loaded synchronously (server stopping)
+     * @return true when the whole volume has been cleared
+     */
+    private boolean step(ServerLevel level, int budget, boolean load) {
+        if (positions != null) {
+            return stepJournaled(level, budget, load);
+        }
+
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        LongArrayList edges = new LongArrayList();
+        int spent = 0;
+
+        while (nextSection < totalSections && spent < budget) {
+            int index = nextSection;
+            int secX = minSecX + index % sizeSecX;
+            int secZ = minSecZ + (index / sizeSecX) % sizeSecZ;
+            int secY = minSecY + index / (sizeSecX * sizeSecZ);
+
+            LevelChunk chunk = load ? level.getChunk(secX, secZ) : HoloChunkTickets.getOrRequest(level, secX, secZ);
+            if (chunk == null) {
+                break; // Resume here once the chunk has loaded
+            }
+            nextSection++;
+            LevelChunkSection section = chunk.getSection(level.getSectionIndexFromSectionY(secY));
+            if (section.hasOnlyAir()) {
+                spent++;
+                continue;
+            }
+
+            int x0 = Math.max(min.getX(), SectionPos.sectionToBlockCoord(secX));
+            int y0 = Math.max(min.getY(), SectionPos.sectionToBlockCoord(secY));
+            int z0 = Math.max(min.getZ(), SectionPos.sectionToBlockCoord(secZ));
+            int x1 = Math.min(max.getX(), SectionPos.sectionToBlockCoord(secX, 15));
+            int y1 = Math.min(max.getY(), SectionPos.sectionToBlockCoord(secY, 15));
+            int z1 = Math.min(max.getZ(), SectionPos.sectionToBlockCoord(secZ, 15));
+
+            for (int y = y0; y <= y1; y++) {
+                for (int z = z0; z <= z1; z++) {
+                    for (int x = x0; x <= x1; x++) {
+                        BlockState state = section.getBlockState(x & 15, y & 15, z & 15);
+                        if (state.isAir() || keep.test(state)) {
+                            continue;
+                        }
+                        pos.set(x, y, z);
+                        level.setBlock(pos, AIR, SET_FLAGS);
+                        if (isEdge(x, y, z)) {
+                            edges.add(pos.asLong());
+                        }
+                    }
+                }
+            }
+            spent += (x1 - x0 + 1) * (y1 - y0 + 1) * (z1 - z0 + 1);
+
+            // Only blocks outside the volume can care about these removals
+            for (int i = 0; i < edges.size(); i++) {
+                pos.set(edges.getLong(i));
+                HoloAreaJournal.updateNeighborsAt(level, pos);
+            }
+            edges.clear();
+        }
+
+        return nextSection >= totalSections;
+    }
+
+    private boolean stepJournaled(ServerLevel level, int budget, boolean load) {
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        int end = (int) Math.min(positions.length, (long) nextPosition + budget);
+
+        for (; nextPosition < end; nextPosition++) {
+            pos.set(positions[nextPosition]);
+            if (!load && HoloChunkTickets.getOrRequest(level,
+                    SectionPos.blockToSectionCoord(pos.getX()), SectionPos.blockToSectionCoord(pos.getZ())) == null) {
+                break; // Resume here once the chunk has loaded
+            }
+            BlockState state = level.getBlockState(pos);
+            if (state.isAir() || keep.test(state)) {
+                continue;
+            }
+            // Notify neighbors through the journal so the removal isn't journaled as a new change
+            level.setBlock(pos, AIR, Block.UPDATE_CLIENTS);
+            HoloAreaJournal.updateNeighborsAt(level, pos);
+        }
+
+        return nextPosition >= positions.length;
+    }
+
+    private boolean isEdge(int x, int y, int z) {
+        return x == min.getX() || x == max.getX()
+                || y == min.getY() || y == max.getY()
+                || z == min.getZ() || z == max.getZ();
+    }
+
+    private void sendStatus(ServerLevel level, String status, int progressPercent) {
+        PacketDistributor.sendToPlayersNear(level, null,
+                owner.getX() + 0.5, owner.getY() + 0.5, owner.getZ() + 0.5, STATUS_RADIUS,
+                new HolodeckStatusPayload(owner, status, progressPercent));
+    }
+}
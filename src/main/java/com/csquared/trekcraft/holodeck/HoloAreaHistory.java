@@ -0,0 +1,238 @@
+package com.csquared.trekcraft.holodeck;
+
+import com.csquared.trekcraft.TrekCraftConfig;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongCollection;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Undo and redo for a holo-area, kept as copy-on-write snapshots of chunk sections.
+ *
+ * Taking a checkpoint copies nothing. The first change to a section after a checkpoint
+ * copies that section (block states and the data of block entities inside the area)
+ * before the change lands; later changes to it are free until the next checkpoint. An
+ * undo step therefore holds only the sections changed in it, and undoing or redoing it
+ * replays only those sections (see HoloAreaRestoreJob).
+ *
+ * World-driven changes (flowing fluids, fire, ...) are only reported after the fact, so
+ * when one is the first change to a section, that cell is copied as already changed.
+ * They never fork the history: only a change someone made clears the redo steps. For
+ * IDLE_CHECKPOINT_TICKS after a restore they aren't recorded at all, so the fluid,
+ * redstone and falling-block ticks its writes schedule don't open a step of their own.
+ *
+ * Checkpoints are taken on request and whenever changes resume after IDLE_CHECKPOINT_TICKS
+ * without any. At most TrekCraftConfig.holodeckUndoSteps steps are kept, oldest dropped
+ * first. Clearing the area or loading a program starts a fresh history; history is kept
+ * in memory only.
+ */
+public class HoloAreaHistory {
+
+    // A pause this long between changes ends the current step
+    public static final int IDLE_CHECKPOINT_TICKS = 20;
+
+    /**
+     * A section as it was at a checkpoint.
+     *
+     * @param blockEntities Block entity data by cell index, for cells inside the area
+     */
+    record SectionCopy(PalettedContainer<BlockState> states, Int2ObjectMap<CompoundTag> blockEntities) {}
+
+    private final Deque<Long2ObjectMap<SectionCopy>> undo = new ArrayDeque<>();
+    private final Deque<Long2ObjectMap<SectionCopy>> redo = new ArrayDeque<>();
+
+    // Sections changed since the last checkpoint (absolute section key), as they were at it
+    private Long2ObjectMap<SectionCopy> open = new Long2ObjectOpenHashMap<>();
+    private long lastChange = 0;
+    // World-driven changes before this game time are settling after a restore
+    private long settleUntil = 0;
+
+    // ===== Recording =====
+
+    /**
+     * Copy a position's section before its first change since the last checkpoint.
+     *
+     * @param worldDriven Whether the world made the change by itself rather than someone in it
+     * @return true if the section was copied now, so patch() may correct cells already changed
+     */
+    boolean beforeChange(Level level, BlockPos min, BlockPos max, BlockPos pos, boolean worldDriven) {
+        if (TrekCraftConfig.holodeckUndoSteps <= 0) return false;
+
+        long now = level.getGameTime();
+        if (worldDriven && now < settleUntil) return false;
+
+        if (now - lastChange >= IDLE_CHECKPOINT_TICKS) {
+            checkpoint();
+        }
+        lastChange = now;
+
+        // New changes after an undo fork the history
+        if (!worldDriven) {
+            redo.clear();
+        }
+
+        long key = SectionPos.asLong(pos);
+        if (open.containsKey(key)) return false;
+
+        open.put(key, capture(level, min, max, key));
+        return true;
+    }
+
+    /**
+     * A restore has just finished; let what its writes set off settle outside the history.
+     */
+    void restored(long gameTime) {
+        settleUntil = gameTime + IDLE_CHECKPOINT_TICKS;
+    }
+
+    /**
+     * Put back a cell's state from before a change that had already been made when the
+     * section was copied (block placements are reported after the fact).
+     */
+    void patch(BlockPos pos, BlockState previous, @Nullable CompoundTag previousBlockEntity) {
+        SectionCopy copy = open.get(SectionPos.asLong(pos));
+        if (copy == null) return;
+
+        copy.states().set(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15, previous);
+        int cell = cellIndex(pos.getX(), pos.getY(), pos.getZ());
+        if (previousBlockEntity != null) {
+            copy.blockEntities().put(cell, stripPosition(previousBlockEntity.copy()));
+        } else {
+            copy.blockEntities().remove(cell);
+        }
+    }
+
+    /**
+     * End the current step, if anything changed in it.
+     *
+     * @return false if there was nothing to end
+     */
+    public boolean checkpoint() {
+        if (open.isEmpty()) return false;
+
+        undo.addLast(open);
+        while (undo.size() > Math.max(0, TrekCraftConfig.holodeckUndoSteps)) {
+            undo.removeFirst();
+        }
+        open = new Long2ObjectOpenHashMap<>();
+        return true;
+    }
+
+    public void clear() {
+        undo.clear();
+        redo.clear();
+        open = new Long2ObjectOpenHashMap<>();
+        lastChange = 0;
+        settleUntil = 0;
+    }
+
+    public int getUndoSteps() {
+        return undo.size() + (open.isEmpty() ? 0 : 1);
+    }
+
+    public int getRedoSteps() {
+        return redo.size();
+    }
+
+    // ===== Stepping =====
+
+    /**
+     * Take the latest step for undoing, moving the current contents of its sections onto
+     * the redo stack. Changes since the last checkpoint count as the latest step.
+     *
+     * @return The sections to restore, or null if there is nothing to undo
+     */
+    @Nullable
+    Long2ObjectMap<SectionCopy> takeUndo(Level level, BlockPos min, BlockPos max) {
+        checkpoint();
+        Long2ObjectMap<SectionCopy> step = undo.pollLast();
+        if (step == null) return null;
+
+        redo.addLast(capture(level, min, max, step.keySet()));
+        return step;
+    }
+
+    /**
+     * Take the latest undone step for redoing, moving the current contents of its sections
+     * back onto the undo stack.
+     *
+     * @return The sections to restore, or null if there is nothing to redo
+     */
+    @Nullable
+    Long2ObjectMap<SectionCopy> takeRedo(Level level, BlockPos min, BlockPos max) {
+        Long2ObjectMap<SectionCopy> step = redo.pollLast();
+        if (step == null) return null;
+
+        undo.addLast(capture(level, min, max, step.keySet()));
+        return step;
+    }
+
+    /**
+     * Start from the same steps as another history (the area's owner was reloaded).
+     */
+    void takeOver(HoloAreaHistory previous) {
+        undo.addAll(previous.undo);
+        redo.addAll(previous.redo);
+        open = previous.open;
+        lastChange = previous.lastChange;
+        settleUntil = previous.settleUntil;
+    }
+
+    // ===== Copies =====
+
+    private static Long2ObjectMap<SectionCopy> capture(Level level, BlockPos min, BlockPos max, LongCollection keys) {
+        Long2ObjectMap<SectionCopy> copies = new Long2ObjectOpenHashMap<>(keys.size());
+        for (LongIterator it = keys.iterator(); it.hasNext(); ) {
+            long key = it.nextLong();
+            copies.put(key, capture(level, min, max, key));
+        }
+        return copies;
+    }
+
+    private static SectionCopy capture(Level level, BlockPos min, BlockPos max, long key) {
+        int secY = SectionPos.y(key);
+        LevelChunk chunk = level.getChunk(SectionPos.x(key), SectionPos.z(key));
+        PalettedContainer<BlockState> states =
+                chunk.getSection(level.getSectionIndexFromSectionY(secY)).getStates().copy();
+
+        Int2ObjectMap<CompoundTag> blockEntities = new Int2ObjectOpenHashMap<>();
+        for (BlockEntity blockEntity : chunk.getBlockEntities().values()) {
+            BlockPos pos = blockEntity.getBlockPos();
+            if (SectionPos.blockToSectionCoord(pos.getY()) != secY || !contains(min, max, pos)) continue;
+            blockEntities.put(cellIndex(pos.getX(), pos.getY(), pos.getZ()),
+                    stripPosition(blockEntity.saveWithId(level.registryAccess())));
+        }
+        return new SectionCopy(states, blockEntities);
+    }
+
+    private static CompoundTag stripPosition(CompoundTag data) {
+        data.remove("x");
+        data.remove("y");
+        data.remove("z");
+        return data;
+    }
+
+    private static boolean contains(BlockPos min, BlockPos max, BlockPos pos) {
+        return pos.getX() >= min.getX() && pos.getX() <= max.getX()
+                && pos.getY() >= min.getY() && pos.getY() <= max.getY()
+                && pos.getZ() >= min.getZ() && pos.getZ() <= max.getZ();
+    }
+
+    static int cellIndex(int x, int y, int z) {
+        return ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+    }
+}
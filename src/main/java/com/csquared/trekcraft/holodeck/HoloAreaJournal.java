@@ -0,0 +1,418 @@
+package com.csquared.trekcraft.holodeck;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.LongArrayTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.LevelAccessor;
+import net.minecraft.world.level.block.Blocks;
+import net.neoforged.neoforge.common.util.BlockSnapshot;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Journal of block positions changed inside an active holodeck or mobile emitter area.
+ *
+ * While the journal is complete, clearing the area only has to visit the journaled
+ * positions. Anything the journal can't account for (activation over existing blocks,
+ * a loaded holoprogram, an overflowing journal, an old save) marks it incomplete, and
+ * the next clear falls back to sweeping the whole volume.
+ *
+ * Changes are also reported to the area's HoloAreaBaseline, for delta saves, and to its
+ * undo history (see HoloAreaHistory), except while the area is clearing, loading or
+ * restoring.
+ *
+ * Active journals are indexed per dimension so block events can find the area they
+ * fall in; see HolodeckService for the event feeds. Only changes that fire an event or
+ * notify neighbors are observed. Changes made with Block.UPDATE_CLIENTS alone and no
+ * event (vine spread, coral dying, state-only changes such as doors toggled by redstone,
+ * and block entity contents) are not: delta saves find them by checksum, or by always
+ * capturing sections with block entities, but a journaled clear won't visit a block that
+ * appeared this way.
+ *
+ * A journal is unregistered when its owner's chunk unloads. Until the owner is loaded
+ * again, the area is remembered as unloaded, and any change observed in it then (its
+ * chunks need not unload together) makes the reloaded journal incomplete. Undo history
+ * and baseline checksums don't survive the unload.
+ */
+public class HoloAreaJournal {
+
+    // Beyond this many positions a full sweep is cheaper than the journal (and its NBT)
+    public static final int MAX_ENTRIES = 16384;
+
+    // dimension -> owner (controller or primary emitter) -> journal
+    private static final Map<ResourceKey<Level>, Map<BlockPos, HoloAreaJournal>> active = new HashMap<>();
+    // dimension -> owner -> area whose owner is unloaded
+    private static final Map<ResourceKey<Level>, Map<BlockPos, UnloadedArea>> unloaded = new HashMap<>();
+
+    // Position a holo-area job is notifying neighbors from (packed), while it does
+    private static long quietPos;
+    private static boolean quiet = false;
+
+    private final LongOpenHashSet positions = new LongOpenHashSet();
+    private final Runnable onChanged;
+    private boolean complete = false;
+
+    private final HoloAreaBaseline baseline;
+    private final HoloAreaHistory history = new HoloAreaHistory();
+
+    // Bounds of the area, set while registered
+    private BlockPos min;
+    private BlockPos max;
+
+    /**
+     * @param onChanged Called when the journal changes, so the owner can mark itself for saving
+     */
+    public HoloAreaJournal(Runnable onChanged) {
+        this.onChanged = onChanged;
+        this.baseline = new HoloAreaBaseline(onChanged);
+    }
+
+    // ===== Registry =====
+
+    /**
+     * Start routing block changes in this area to the journal. If a journal is already
+     * registered for the owner (e.g. its block entity was replaced), its entries are
+     * carried over. If the area changed while its owner was unloaded, the journal no
+     * longer accounts for everything and is marked incomplete.
+     */
+    public static void register(Level level, BlockPos owner, BlockPos min, BlockPos max, HoloAreaJournal journal) {
+        journal.min = min;
+        journal.max = max;
+
+        Map<BlockPos, HoloAreaJournal> levelJournals = active.computeIfAbsent(level.dimension(), k -> new HashMap<>());
+        HoloAreaJournal previous = levelJournals.put(owner.immutable(), journal);
+        if (previous != null && previous != journal) {
+            journal.positions.addAll(previous.positions);
+            journal.complete &= previous.complete;
+            journal.baseline.takeOver(previous.baseline);
+            if (min.equals(previous.min) && max.equals(previous.max)) {
+                journal.history.takeOver(previous.history);
+            }
+        }
+
+        Map<BlockPos, UnloadedArea> levelUnloaded = unloaded.get(level.dimension());
+        if (levelUnloaded != null) {
+            UnloadedArea area = levelUnloaded.remove(owner);
+            if (levelUnloaded.isEmpty()) {
+                unloaded.remove(level.dimension());
+            }
+            if (area != null && area.changed) {
+                journal.markIncomplete();
+                journal.baseline.clear();
+            }
+        }
+    }
+
+    /**
+     * Stop routing block changes to the owner's journal: the area was taken down.
+     */
+    public static void unregister(Level level, BlockPos owner) {
+        Map<BlockPos, HoloAreaJournal> levelJournals = active.get(level.dimension());
+        if (levelJournals != null) {
+            levelJournals.remove(owner);
+            if (levelJournals.isEmpty()) {
+                active.remove(level.dimension());
+            }
+        }
+    }
+
+    /**
+     * The owner's chunk is unloading (its journal has been saved with it). Unregister the
+     * journal, but keep watching the area for changes until the owner is loaded again.
+     */
+    public static void unload(Level level, BlockPos owner) {
+        Map<BlockPos, HoloAreaJournal> levelJournals = active.get(level.dimension());
+        if (levelJournals == null) return;
+
+        HoloAreaJournal journal = levelJournals.get(owner);
+        if (journal == null) return;
+
+        unregister(level, owner);
+        unloaded.computeIfAbsent(level.dimension(), k -> new HashMap<>())
+                .put(owner.immutable(), new UnloadedArea(journal.min, journal.max));
+    }
+
+    /**
+     * Forget every area in a level that is unloading.
+     */
+    public static void unloadLevel(Level level) {
+        active.remove(level.dimension());
+        unloaded.remove(level.dimension());
+    }
+
+    public static void clearAll() {
+        active.clear();
+        unloaded.clear();
+    }
+
+    /**
+     * Record a change at a position, in whichever area contains it. Called before the
+     * change is made where possible, so the undo history can copy what was there.
+     */
+    public static void recordChange(LevelAccessor level, BlockPos pos) {
+        recordChange(level, pos, false);
+    }
+
+    /**
+     * Record a change the world made by itself (fluids, fire, growth, ...). It is journaled
+     * like any other, but never forks the undo history (see HoloAreaHistory.beforeChange).
+     */
+    public static void recordWorldChange(LevelAccessor level, BlockPos pos) {
+        recordChange(level, pos, true);
+    }
+
+    private static void recordChange(LevelAccessor level, BlockPos pos, boolean worldDriven) {
+        if (!(level instanceof Level l)) return;
+        markUnloadedChanged(l, pos);
+        if (active.isEmpty()) return;
+
+        Map<BlockPos, HoloAreaJournal> levelJournals = active.get(l.dimension());
+        if (levelJournals == null) return;
+
+        for (Map.Entry<BlockPos, HoloAreaJournal> entry : levelJournals.entrySet()) {
+            HoloAreaJournal journal = entry.getValue();
+            if (journal.contains(pos)) {
+                if (!HoloprogramPlacementJob.isBusy(l, entry.getKey())) {
+                    journal.history.beforeChange(l, journal.min, journal.max, pos, worldDriven);
+                }
+                journal.record(pos);
+            }
+        }
+    }
+
+    /**
+     * Record a position that notified its neighbors (see HolodeckService.onNeighborNotify),
+     * as a world-driven change. A holo-area job's own notifications are skipped: it has
+     * already accounted for them.
+     */
+    public static void recordNotified(LevelAccessor level, BlockPos pos) {
+        if (quiet && pos.asLong() == quietPos) return;
+        recordWorldChange(level, pos);
+    }
+
+    /**
+     * Notify a position's neighbors of a change a holo-area job has already accounted for,
+     * without it coming back through recordNotified(). Changes the neighbors make in
+     * response are still recorded.
+     */
+    static void updateNeighborsAt(Level level, BlockPos pos) {
+        quietPos = pos.asLong();
+        quiet = true;
+        try {
+            level.updateNeighborsAt(pos, Blocks.AIR);
+        } finally {
+            quiet = false;
+        }
+    }
+
+    /**
+     * Record blocks that have already been placed together (e.g. both halves of a door),
+     * with the snapshots of what they replaced.
+     */
+    public static void recordPlaced(LevelAccessor level, List<BlockSnapshot> replaced) {
+        if (!(level instanceof Level l)) return;
+        for (BlockSnapshot snapshot : replaced) {
+            markUnloadedChanged(l, snapshot.getPos());
+        }
+        if (active.isEmpty()) return;
+
+        Map<BlockPos, HoloAreaJournal> levelJournals = active.get(l.dimension());
+        if (levelJournals == null) return;
+
+        for (Map.Entry<BlockPos, HoloAreaJournal> entry : levelJournals.entrySet()) {
+            HoloAreaJournal journal = entry.getValue();
+            boolean historyOpen = !HoloprogramPlacementJob.isBusy(l, entry.getKey());
+            // Sections copied for this placement already hold every placed block
+            LongOpenHashSet copied = new LongOpenHashSet();
+            for (BlockSnapshot snapshot : replaced) {
+                BlockPos pos = snapshot.getPos();
+                if (!journal.contains(pos)) continue;
+
+                if (historyOpen) {
+                    long section = SectionPos.asLong(pos);
+                    if (journal.history.beforeChange(l, journal.min, journal.max, pos, false)) {
+                        copied.add(section);
+                    }
+                    if (copied.contains(section)) {
+                        journal.history.patch(pos, snapshot.getState(), snapshot.getTag());
+                    }
+                }
+                journal.record(pos);
+            }
+        }
+    }
+
+    /**
+     * The owner of the area containing a position, if any.
+     */
+    @Nullable
+    public static BlockPos ownerAt(Level level, BlockPos pos) {
+        Map<BlockPos, HoloAreaJournal> levelJournals = active.get(level.dimension());
+        if (levelJournals == null) return null;
+
+        for (Map.Entry<BlockPos, HoloAreaJournal> entry : levelJournals.entrySet()) {
+            if (entry.getValue().contains(pos)) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Give up on journaling whichever area contains the position; its next clear sweeps the volume.
+     */
+    public static void markIncompleteAt(LevelAccessor level, BlockPos pos) {
+        if (!(level instanceof Level l)) return;
+        markUnloadedChanged(l, pos);
+        if (active.isEmpty()) return;
+
+        Map<BlockPos, HoloAreaJournal> levelJournals = active.get(l.dimension());
+        if (levelJournals == null) return;
+
+        for (HoloAreaJournal journal : levelJournals.values()) {
+            if (journal.contains(pos)) {
+                journal.markIncomplete();
+                journal.baseline.clear();
+            }
+        }
+    }
+
+    private static void markUnloadedChanged(Level level, BlockPos pos) {
+        if (unloaded.isEmpty()) return;
+
+        Map<BlockPos, UnloadedArea> levelUnloaded = unloaded.get(level.dimension());
+        if (levelUnloaded == null) return;
+
+        for (UnloadedArea area : levelUnloaded.values()) {
+            if (!area.changed && contains(area.min, area.max, pos)) {
+                area.changed = true;
+            }
+        }
+    }
+
+    // ===== Journal =====
+
+    private boolean contains(BlockPos pos) {
+        return min != null && contains(min, max, pos);
+    }
+
+    private static boolean contains(BlockPos min, BlockPos max, BlockPos pos) {
+        return pos.getX() >= min.getX() && pos.getX() <= max.getX()
+                && pos.getY() >= min.getY() && pos.getY() <= max.getY()
+                && pos.getZ() >= min.getZ() && pos.getZ() <= max.getZ();
+    }
+
+    public void record(BlockPos pos) {
+        if (min != null) {
+            baseline.recordChange(min, pos);
+        }
+        recordWritten(pos);
+    }
+
+    /**
+     * Record a position a load wrote: journaled for clearing, but not a change against the
+     * baseline, since the write is what makes the area match it.
+     */
+    void recordWritten(BlockPos pos) {
+        if (!complete) return; // Next clear sweeps everything anyway
+
+        if (positions.add(pos.asLong())) {
+            if (positions.size() > MAX_ENTRIES) {
+                markIncomplete();
+            } else {
+                onChanged.run();
+            }
+        }
+    }
+
+    public void markIncomplete() {
+        if (complete || !positions.isEmpty()) {
+            complete = false;
+            positions.clear();
+            onChanged.run();
+        }
+    }
+
+    /**
+     * Whether the journal accounts for every change since the area was last clean.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Hand over the journaled positions for clearing and start a fresh, complete journal.
+     */
+    public long[] drain() {
+        long[] drained = positions.toLongArray();
+        positions.clear();
+        complete = true;
+        baseline.clear();
+        history.clear();
+        onChanged.run();
+        return drained;
+    }
+
+    /**
+     * Forget everything: the area is about to be swept or has been taken down.
+     */
+    public void reset(boolean complete) {
+        positions.clear();
+        this.complete = complete;
+        baseline.clear();
+        history.clear();
+        onChanged.run();
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    public HoloAreaBaseline getBaseline() {
+        return baseline;
+    }
+
+    public HoloAreaHistory getHistory() {
+        return history;
+    }
+
+    public void save(CompoundTag tag) {
+        tag.putBoolean("JournalComplete", complete);
+        if (!positions.isEmpty()) {
+            tag.put("Journal", new LongArrayTag(positions.toLongArray()));
+        }
+        baseline.save(tag);
+    }
+
+    public void load(CompoundTag tag) {
+        positions.clear();
+        // Saves from before the journal existed have no record of what was built
+        complete = tag.getBoolean("JournalComplete");
+        if (complete && tag.contains("Journal", Tag.TAG_LONG_ARRAY)) {
+            for (long packed : tag.getLongArray("Journal")) {
+                positions.add(packed);
+            }
+        }
+        baseline.load(tag);
+    }
+
+    // Bounds of an area whose owner is unloaded, and whether anything in it changed since
+    private static class UnloadedArea {
+        final BlockPos min;
+        final BlockPos max;
+        boolean changed = false;
+
+        UnloadedArea(BlockPos min, BlockPos max) {
+            this.min = min;
+            this.max = max;
+        }
+    }
+}
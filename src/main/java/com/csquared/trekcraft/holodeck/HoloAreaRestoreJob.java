@@ -0,0 +1,273 @@
+package com.csquared.trekcraft.holodeck;
+
+import com.csquared.trekcraft.TrekCraftConfig;
+import com.csquared.trekcraft.TrekCraftMod;
+import com.csquared.trekcraft.network.HolodeckStatusPayload;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.neoforged.neoforge.network.PacketDistributor;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Undoes or redoes a step of a holo-area's history (see HoloAreaHistory) over several ticks.
+ *
+ * Only the sections the step copied are visited, and within them only cells that differ
+ * from the copy are written, within the same per-tick budgets as loading a program. Writes
+ * are journaled like a load's, so the area's next clear still finds them.
+ *
+ * The area counts as busy while a step is restored: programs can't be loaded over it, and
+ * changes made meanwhile aren't added to the history. World-driven changes the restore
+ * sets off are kept out of the history for a moment after it (see HoloAreaHistory).
+ */
+public class HoloAreaRestoreJob {
+
+    public enum Result {
+        STARTED,
+        NOTHING_TO_RESTORE,
+        BUSY
+    }
+
+    private static final int STATUS_INTERVAL_TICKS = 10;
+    private static final double STATUS_RADIUS = 16.0;
+
+    // dimension -> owner (controller or primary emitter) -> running restore
+    private static final Map<ResourceKey<Level>, Map<BlockPos, HoloAreaRestoreJob>> jobs = new HashMap<>();
+
+    private final BlockPos owner;
+    private final BlockPos min;
+    private final BlockPos max;
+    private final Predicate<BlockState> keep;
+    private final HoloAreaJournal journal;
+    private final boolean undo;
+
+    private final Long2ObjectMap<HoloAreaHistory.SectionCopy> copies;
+    // Section keys in walk order (bottom up, so supports go back before what rests on them)
+    private final long[] sections;
+    private int nextSection = 0;
+    private int blocksWritten = 0;
+    private int ticks = 0;
+
+    private HoloAreaRestoreJob(ServerLevel level, BlockPos owner, BlockPos min, BlockPos max,
+                               Predicate<BlockState> keep, HoloAreaJournal journal, boolean undo,
+                               Long2ObjectMap<HoloAreaHistory.SectionCopy> step) {
+        this.owner = owner.immutable();
+        this.min = new BlockPos(min.getX(), Math.max(min.getY(), level.getMinBuildHeight()), min.getZ());
+        this.max = new BlockPos(max.getX(), Math.min(max.getY(), level.getMaxBuildHeight() - 1), max.getZ());
+        this.keep = keep;
+        this.journal = journal;
+        this.undo = undo;
+        this.copies = step;
+
+        this.sections = step.keySet().toLongArray();
+        LongArrays.quickSort(sections, (a, b) -> Integer.compare(SectionPos.y(a), SectionPos.y(b)));
+    }
+
+    /**
+     * Start undoing the area's latest step: everything changed since the last checkpoint,
+     * or else the step before it.
+     *
+     * @param owner The controller or primary emitter position, used as the job key
+     * @param keep  Blocks that must not be touched (e.g. the holodeck structure)
+     */
+    public static Result undo(ServerLevel level, BlockPos owner, BlockPos min, BlockPos max,
+                              HoloAreaJournal journal, Predicate<BlockState> keep) {
+        return start(level, owner, min, max, journal, keep, true);
+    }
+
+    /**
+     * Start redoing the area's latest undone step.
+     */
+    public static Result redo(ServerLevel level, BlockPos owner, BlockPos min, BlockPos max,
+                              HoloAreaJournal journal, Predicate<BlockState> keep) {
+        return start(level, owner, min, max, journal, keep, false);
+    }
+
+    private static Result start(ServerLevel level, BlockPos owner, BlockPos min, BlockPos max,
+                                HoloAreaJournal journal, Predicate<BlockState> keep, boolean undo) {
+        if (HoloprogramPlacementJob.isBusy(level, owner)) {
+            return Result.BUSY;
+        }
+
+        HoloAreaHistory history = journal.getHistory();
+        Long2ObjectMap<HoloAreaHistory.SectionCopy> step = undo
+                ? history.takeUndo(level, min, max)
+                : history.takeRedo(level, min, max);
+        if (step == null) {
+            return Result.NOTHING_TO_RESTORE;
+        }
+
+        HoloAreaRestoreJob job = new HoloAreaRestoreJob(level, owner, min, max, keep, journal, undo, step);
+        jobs.computeIfAbsent(level.dimension(), k -> new HashMap<>()).put(job.owner, job);
+        TrekCraftMod.LOGGER.debug("Started {} at {} ({} sections)", undo ? "undo" : "redo", owner, step.size());
+        return Result.STARTED;
+    }
+
+    /**
+     * Abandon a restore in progress (the area is being cleared or taken down).
+     */
+    public static void cancel(Level level, BlockPos owner) {
+        Map<BlockPos, HoloAreaRestoreJob> levelJobs = jobs.get(level.dimension());
+        if (levelJobs != null && levelJobs.remove(owner) != null) {
+            TrekCraftMod.LOGGER.debug("Cancelled undo/redo at {}", owner);
+            if (levelJobs.isEmpty()) {
+                jobs.remove(level.dimension());
+            }
+        }
+    }
+
+    public static boolean isRestoring(Level level, BlockPos owner) {
+        Map<BlockPos, HoloAreaRestoreJob> levelJobs = jobs.get(level.dimension());
+        return levelJobs != null && levelJobs.containsKey(owner);
+    }
+
+    /**
+     * Advance every restore in this level by one tick's budget.
+     */
+    public static void tick(ServerLevel level) {
+        if (jobs.isEmpty()) return;
+
+        Map<BlockPos, HoloAreaRestoreJob> levelJobs = jobs.get(level.dimension());
+        if (levelJobs == null) return;
+
+        int writeBudget = Math.max(1, TrekCraftConfig.holodeckPlaceBlocksPerTick / levelJobs.size());
+        int readBudget = Math.max(1, TrekCraftConfig.holodeckClearBlocksPerTick / levelJobs.size());
+        Iterator<HoloAreaRestoreJob> it = levelJobs.values().iterator();
+        while (it.hasNext()) {
+            HoloAreaRestoreJob job = it.next();
+            boolean done = job.step(level, readBudget, writeBudget);
+            job.ticks++;
+            if (done) {
+                it.remove();
+                job.journal.getHistory().restored(level.getGameTime());
+                job.sendStatus(level, "", 100);
+                TrekCraftMod.LOGGER.debug("Finished {} at {} in {} ticks ({} blocks written over {} sections)",
+                        job.undo ? "undo" : "redo", job.owner, job.ticks, job.blocksWritten, job.sections.length);
+            } else if (job.ticks % STATUS_INTERVAL_TICKS == 0) {
+                job.sendStatus(level, job.undo ? "UNDOING" : "REDOING", job.getProgressPercent());
+            }
+        }
+        if (levelJobs.isEmpty()) {
+            jobs.remove(level.dimension());
+        }
+    }
+
+    /**
+     * Complete every outstanding restore (server stopping) so no step is left half-applied.
+     */
+    public static void finishAll(MinecraftServer server) {
+        for (ServerLevel level : server.getAllLevels()) {
+            Map<BlockPos, HoloAreaRestoreJob> levelJobs = jobs.get(level.dimension());
+            if (levelJobs == null) continue;
+            for (HoloAreaRestoreJob job : levelJobs.values()) {
+                job.step(level, Integer.MAX_VALUE, Integer.MAX_VALUE);
+            }
+        }
+        jobs.clear();
+    }
+
+    public int getProgressPercent() {
+        return sections.length == 0 ? 100 : nextSection * 100 / sections.length;
+    }
+
+    /**
+     * Restore sections until either budget is spent.
+     *
+     * @return true when every section matches the step's copy
+     */
+    private boolean step(ServerLevel level, int readBudget, int writeBudget) {
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        LongArrayList edges = new LongArrayList();
+        int read = 0;
+        int writtenBefore = blocksWritten;
+
+        while (nextSection < sections.length && read < readBudget && blocksWritten - writtenBefore < writeBudget) {
+            long key = sections[nextSection++];
+            int secY = SectionPos.y(key);
+            if (secY < level.getMinSection() || secY >= level.getMaxSection()) continue;
+
+            LevelChunkSection section = level.getChunk(SectionPos.x(key), SectionPos.z(key))
+                    .getSection(level.getSectionIndexFromSectionY(secY));
+            read += restoreSection(level, section, key, copies.get(key), pos, edges);
+
+            // Only blocks outside the volume can care about changes in it; notified through
+            // the journal so the restore's own writes don't come back as new changes
+            for (int i = 0; i < edges.size(); i++) {
+                pos.set(edges.getLong(i));
+                HoloAreaJournal.updateNeighborsAt(level, pos);
+            }
+            edges.clear();
+        }
+
+        return nextSection >= sections.length;
+    }
+
+    /**
+     * @return Cells compared
+     */
+    private int restoreSection(ServerLevel level, LevelChunkSection section, long key,
+                               HoloAreaHistory.SectionCopy copy, BlockPos.MutableBlockPos pos, LongArrayList edges) {
+        int x0 = Math.max(min.getX(), SectionPos.sectionToBlockCoord(SectionPos.x(key)));
+        int y0 = Math.max(min.getY(), SectionPos.sectionToBlockCoord(SectionPos.y(key)));
+        int z0 = Math.max(min.getZ(), SectionPos.sectionToBlockCoord(SectionPos.z(key)));
+        int x1 = Math.min(max.getX(), SectionPos.sectionToBlockCoord(SectionPos.x(key), 15));
+        int y1 = Math.min(max.getY(), SectionPos.sectionToBlockCoord(SectionPos.y(key), 15));
+        int z1 = Math.min(max.getZ(), SectionPos.sectionToBlockCoord(SectionPos.z(key), 15));
+        if (x0 > x1 || y0 > y1 || z0 > z1) return 0;
+
+        for (int y = y0; y <= y1; y++) {
+            for (int z = z0; z <= z1; z++) {
+                for (int x = x0; x <= x1; x++) {
+                    BlockState target = copy.states().get(x & 15, y & 15, z & 15);
+                    BlockState current = section.getBlockState(x & 15, y & 15, z & 15);
+                    if (keep.test(current) || keep.test(target)) continue;
+
+                    CompoundTag data = copy.blockEntities().get(HoloAreaHistory.cellIndex(x, y, z));
+                    pos.set(x, y, z);
+                    if (current != target) {
+                        journal.record(pos);
+                        // Clients only, so the write doesn't come back through the journal feeds
+                        level.setBlock(pos, target, Block.UPDATE_CLIENTS);
+                        blocksWritten++;
+                        if (data != null) {
+                            HoloprogramDiff.loadBlockEntity(level, pos, data);
+                        }
+                        if (isEdge(x, y, z)) {
+                            edges.add(pos.asLong());
+                        }
+                    } else if (data != null && HoloprogramDiff.replaceBlockEntityIfChanged(level, pos, target, data)) {
+                        journal.record(pos);
+                        blocksWritten++;
+                    }
+                }
+            }
+        }
+        return (x1 - x0 + 1) * (y1 - y0 + 1) * (z1 - z0 + 1);
+    }
+
+    private boolean isEdge(int x, int y, int z) {
+        return x == min.getX() || x == max.getX()
+                || y == min.getY() || y == max.getY()
+                || z == min.getZ() || z == max.getZ();
+    }
+
+    private void sendStatus(ServerLevel level, String status, int progressPercent) {
+        PacketDistributor.sendToPlayersNear(level, null,
+                owner.getX() + 0.5, owner.getY() + 0.5, owner.getZ() + 0.5, STATUS_RADIUS,
+                new HolodeckStatusPayload(owner, status, progressPercent));
+    }
+}
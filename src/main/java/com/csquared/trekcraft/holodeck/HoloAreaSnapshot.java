@@ -0,0 +1,140 @@
+package com.csquared.trekcraft.holodeck;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.core.Vec3i;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A detached copy of a holo-area's blocks, so saves and baselines can read the whole
+ * area off the server thread.
+ *
+ * Taking one copies the block states of each chunk section the area overlaps (no
+ * per-block reads) and, if asked for, the data of block entities inside the area. Block
+ * entity data can change without a block update or any event (chest contents, sign
+ * text), so nothing compares it: sections holding block entities are always captured.
+ */
+class HoloAreaSnapshot {
+
+    private static final BlockState OUTSIDE_WORLD = Blocks.VOID_AIR.defaultBlockState();
+
+    private final BlockPos min;
+    private final Vec3i size;
+    // Absolute section key -> block states
+    private final Long2ObjectMap<PalettedContainer<BlockState>> sections = new Long2ObjectOpenHashMap<>();
+    // Program section index -> cell index -> block entity data
+    private final Int2ObjectMap<Int2ObjectMap<CompoundTag>> blockEntities = new Int2ObjectOpenHashMap<>();
+
+    // Section last read from, as getBlockState() usually stays within one
+    private long cachedKey;
+    @Nullable
+    private PalettedContainer<BlockState> cachedStates;
+
+    private HoloAreaSnapshot(BlockPos min, Vec3i size) {
+        this.min = min.immutable();
+        this.size = size;
+    }
+
+    /**
+     * Copy an area. Must be called on the server thread.
+     *
+     * @param withBlockEntities Whether to copy block entity data as well as block states
+     */
+    static HoloAreaSnapshot take(ServerLevel level, BlockPos min, Vec3i size, boolean withBlockEntities) {
+        HoloAreaSnapshot snapshot = new HoloAreaSnapshot(min, size);
+        BlockPos max = min.offset(size.getX() - 1, size.getY() - 1, size.getZ() - 1);
+        int minSecY = Math.max(SectionPos.blockToSectionCoord(min.getY()), level.getMinSection());
+        int maxSecY = Math.min(SectionPos.blockToSectionCoord(max.getY()), level.getMaxSection() - 1);
+
+        for (int chunkX = SectionPos.blockToSectionCoord(min.getX()); chunkX <= SectionPos.blockToSectionCoord(max.getX()); chunkX++) {
+            for (int chunkZ = SectionPos.blockToSectionCoord(min.getZ()); chunkZ <= SectionPos.blockToSectionCoord(max.getZ()); chunkZ++) {
+                LevelChunk chunk = level.getChunk(chunkX, chunkZ);
+                for (int secY = minSecY; secY <= maxSecY; secY++) {
+                    snapshot.sections.put(SectionPos.asLong(chunkX, secY, chunkZ),
+                            chunk.getSection(level.getSectionIndexFromSectionY(secY)).getStates().copy());
+                }
+                if (!withBlockEntities) continue;
+
+                for (BlockEntity blockEntity : chunk.getBlockEntities().values()) {
+                    BlockPos pos = blockEntity.getBlockPos();
+                    int x = pos.getX() - min.getX(), y = pos.getY() - min.getY(), z = pos.getZ() - min.getZ();
+                    if (x < 0 || y < 0 || z < 0 || x >= size.getX() || y >= size.getY() || z >= size.getZ()) {
+                        continue;
+                    }
+                    snapshot.blockEntities
+                            .computeIfAbsent(HoloprogramFormat.SectionTable.sectionIndex(size, x >> 4, y >> 4, z >> 4),
+                                    k -> new Int2ObjectOpenHashMap<>())
+                            .put(HoloprogramFormat.cellIndex(x, y, z), blockEntity.saveWithId(level.registryAccess()));
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    Vec3i getSize() {
+        return size;
+    }
+
+    /**
+     * The block state at a position relative to the area's minimum corner.
+     */
+    BlockState getBlockState(int x, int y, int z) {
+        int worldX = min.getX() + x, worldY = min.getY() + y, worldZ = min.getZ() + z;
+        long key = SectionPos.asLong(SectionPos.blockToSectionCoord(worldX),
+                SectionPos.blockToSectionCoord(worldY), SectionPos.blockToSectionCoord(worldZ));
+        if (cachedStates == null || key != cachedKey) {
+            cachedKey = key;
+            cachedStates = sections.get(key);
+            if (cachedStates == null) return OUTSIDE_WORLD;
+        }
+        return cachedStates.get(worldX & 15, worldY & 15, worldZ & 15);
+    }
+
+    /**
+     * Block entity data in a program section, by cell index, or null if it has none.
+     */
+    @Nullable
+    Int2ObjectMap<CompoundTag> getBlockEntities(int sectionIndex) {
+        return blockEntities.get(sectionIndex);
+    }
+
+    /**
+     * Program sections holding block entities, by section index.
+     */
+    int[] getBlockEntitySections() {
+        return blockEntities.keySet().toIntArray();
+    }
+
+    /**
+     * Fingerprint each program section from its block states. Comparing these finds
+     * sections changed without any journaled event (a door toggled, a crop grown).
+     * Block entity data isn't included (see the class comment).
+     *
+     * @return Checksums by section index (see HoloprogramFormat.SectionTable.sectionIndex)
+     */
+    long[] checksumSections() {
+        long[] checksums = new long[HoloprogramFormat.sectionTotal(size)];
+        for (int y = 0; y < size.getY(); y++) {
+            for (int z = 0; z < size.getZ(); z++) {
+                for (int x = 0; x < size.getX(); x++) {
+                    int index = HoloprogramFormat.SectionTable.sectionIndex(size, x >> 4, y >> 4, z >> 4);
+                    checksums[index] = HashCommon.mix(checksums[index] + Block.getId(getBlockState(x, y, z)) + 1);
+                }
+            }
+        }
+        return checksums;
+    }
+}
@@ -0,0 +1,37 @@
+package com.csquared.trekcraft.holodeck;
+
+import com.csquared.trekcraft.TrekCraftMod;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.TicketType;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.chunk.LevelChunk;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Comparator;
+
+/**
+ * Chunk access for holodeck jobs that run over many ticks. A job never loads a chunk
+ * on the server thread: if the chunk it needs isn't loaded, a short-lived ticket asks
+ * for it to be loaded in the background and the job defers that part of its work.
+ * Tickets time out on their own, so a job that is cancelled leaves nothing behind.
+ */
+public class HoloChunkTickets {
+
+    private static final int TICKET_LIFESPAN_TICKS = 100;
+
+    public static final TicketType<ChunkPos> HOLO_TICKET = TicketType.create(
+            TrekCraftMod.MODID + ":holo_area", Comparator.comparingLong(ChunkPos::toLong), TICKET_LIFESPAN_TICKS);
+
+    /**
+     * Get a loaded chunk, or request it and return null if it isn't loaded yet.
+     */
+    @Nullable
+    public static LevelChunk getOrRequest(ServerLevel level, int chunkX, int chunkZ) {
+        LevelChunk chunk = level.getChunkSource().getChunkNow(chunkX, chunkZ);
+        if (chunk == null) {
+            ChunkPos pos = new ChunkPos(chunkX, chunkZ);
+            level.getChunkSource().addRegionTicket(HOLO_TICKET, pos, 0, pos);
+        }
+        return chunk;
+    }
+}
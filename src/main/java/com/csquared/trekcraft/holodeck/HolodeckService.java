@@ -10,7 +10,11 @@ import net.minecraft.world.level.block.entity.BlockEntity;
 import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.common.EventBusSubscriber;
 import net.neoforged.neoforge.event.entity.player.PlayerEvent;
+import net.neoforged.neoforge.event.level.BlockEvent;
+import net.neoforged.neoforge.event.level.ExplosionEvent;
+import net.neoforged.neoforge.event.level.LevelEvent;
 import net.neoforged.neoforge.event.server.ServerStoppingEvent;
+import net.neoforged.neoforge.event.tick.LevelTickEvent;
 
 import java.util.*;
 
@@ -52,6 +56,8 @@ public class HolodeckService {
     public static void onPlayerLogout(PlayerEvent.PlayerLoggedOutEvent event) {
         if (!(event.getEntity() instanceof ServerPlayer player)) return;
 
+        HoloprogramSync.onLogout(player);
+
         UUID playerId = player.getUUID();
         BlockPos controllerPos = playerHolodeckMap.get(playerId);
 
@@ -96,6 +102,97 @@ public class HolodeckService {
         }
 
         playerHolodeckMap.clear();
+
+        // Don't leave half-cleared holo-areas behind
+        HoloAreaClearJob.finishAll(server);
+        HoloprogramPlacementJob.finishAll(server);
+        HoloAreaRestoreJob.finishAll(server);
+        HoloAreaJournal.clearAll();
+        HoloprogramSync.clearAll();
+
+        // Let queued holoprogram saves reach disk, and collect chunks deletes left behind
+        HoloprogramManager.flushExports();
+        HoloprogramManager.flushGarbageCollection();
+        HoloprogramManager.awaitPendingIO();
+        HoloprogramManager.closeIndex();
+        HoloprogramCache.clear();
+    }
+
+    // ===== Holo-area journal feeds =====
+
+    /**
+     * Journal blocks placed inside a holo-area (including every part of multi-block placements).
+     * They are already in the world, so the replaced snapshots tell undo what was there.
+     */
+    @SubscribeEvent
+    public static void onBlockPlace(BlockEvent.EntityPlaceEvent event) {
+        if (event instanceof BlockEvent.EntityMultiPlaceEvent multi) {
+            HoloAreaJournal.recordPlaced(event.getLevel(), multi.getReplacedBlockSnapshots());
+        } else {
+            HoloAreaJournal.recordPlaced(event.getLevel(), List.of(event.getBlockSnapshot()));
+        }
+    }
+
+    @SubscribeEvent
+    public static void onBlockBreak(BlockEvent.BreakEvent event) {
+        HoloAreaJournal.recordChange(event.getLevel(), event.getPos());
+    }
+
+    /**
+     * Journal blocks created by fluids (cobblestone, obsidian, ...).
+     */
+    @SubscribeEvent
+    public static void onFluidPlaceBlock(BlockEvent.FluidPlaceBlockEvent event) {
+        HoloAreaJournal.recordWorldChange(event.getLevel(), event.getPos());
+    }
+
+    /**
+     * Journal every block an explosion is about to destroy (or set alight).
+     */
+    @SubscribeEvent
+    public static void onExplosion(ExplosionEvent.Detonate event) {
+        for (BlockPos pos : event.getAffectedBlocks()) {
+            HoloAreaJournal.recordChange(event.getLevel(), pos);
+        }
+    }
+
+    /**
+     * Journal plant growth, which usually changes state without notifying neighbors.
+     */
+    @SubscribeEvent
+    public static void onCropGrow(BlockEvent.CropGrowEvent.Post event) {
+        HoloAreaJournal.recordWorldChange(event.getLevel(), event.getPos());
+    }
+
+    /**
+     * Catch world-driven changes the events above don't report: flowing fluids,
+     * fire spread, trees growing, falling blocks and pistons all notify neighbors.
+     */
+    @SubscribeEvent
+    public static void onNeighborNotify(BlockEvent.NeighborNotifyEvent event) {
+        HoloAreaJournal.recordNotified(event.getLevel(), event.getPos());
+    }
+
+    /**
+     * Advance interior clearing, holoprogram loading and undo jobs in this level.
+     */
+    @SubscribeEvent
+    public static void onLevelTick(LevelTickEvent.Post event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel) {
+            HoloAreaClearJob.tick(serverLevel);
+            HoloprogramPlacementJob.tick(serverLevel);
+            HoloAreaRestoreJob.tick(serverLevel);
+        }
+    }
+
+    /**
+     * Forget the holo-areas of a level that is going away.
+     */
+    @SubscribeEvent
+    public static void onLevelUnload(LevelEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel) {
+            HoloAreaJournal.unloadLevel(serverLevel);
+        }
     }
 
     /**
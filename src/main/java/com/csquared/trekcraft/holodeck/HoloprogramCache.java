@@ -0,0 +1,108 @@
+package com.csquared.trekcraft.holodeck;
+
+import com.csquared.trekcraft.TrekCraftConfig;
+import com.csquared.trekcraft.TrekCraftMod;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memory-bounded LRU cache of parsed holoprograms, so programs that are loaded over and
+ * over skip reading, decompressing and parsing their file.
+ *
+ * Entries are keyed by file name and only served while the file's modification time and
+ * size still match, so a schematic replaced behind our back (e.g. by Create) is re-read.
+ * Saves and deletes invalidate their entry directly. Cached placements are shared and
+ * must be treated as read-only.
+ */
+public class HoloprogramCache {
+
+    public record Stats(long hits, long misses, long evictions, int entries, long bytes, long capacityBytes) {
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+    }
+
+    private record Entry(long modified, long fileSize, HoloprogramPlacement placement) {}
+
+    // Access-ordered: iteration starts at the least recently used entry
+    private static final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private static long bytes = 0;
+    private static long hits = 0;
+    private static long misses = 0;
+    private static long evictions = 0;
+
+    /**
+     * Look up a parsed holoprogram.
+     *
+     * @return The cached placement, or null if absent or the file has changed since it was cached
+     */
+    @Nullable
+    public static synchronized HoloprogramPlacement get(String fileName, long modified, long fileSize) {
+        Entry entry = entries.get(fileName);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.modified() != modified || entry.fileSize() != fileSize) {
+            remove(fileName);
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.placement();
+    }
+
+    public static synchronized void put(String fileName, long modified, long fileSize, HoloprogramPlacement placement) {
+        long capacity = capacityBytes();
+        long size = placement.getEstimatedBytes();
+        remove(fileName);
+        // Programs too big for the whole cache would only flush everything else out
+        if (size > capacity) return;
+
+        entries.put(fileName, new Entry(modified, fileSize, placement));
+        bytes += size;
+        trimTo(capacity);
+    }
+
+    /**
+     * Drop a holoprogram whose file was just written or deleted.
+     */
+    public static synchronized void invalidate(String fileName) {
+        remove(fileName);
+    }
+
+    public static synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public static synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, entries.size(), bytes, capacityBytes());
+    }
+
+    private static void remove(String fileName) {
+        Entry removed = entries.remove(fileName);
+        if (removed != null) {
+            bytes -= removed.placement().getEstimatedBytes();
+        }
+    }
+
+    private static void trimTo(long capacity) {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (bytes > capacity && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            bytes -= eldest.getValue().placement().getEstimatedBytes();
+            it.remove();
+            evictions++;
+            TrekCraftMod.LOGGER.debug("Evicted holoprogram '{}' from cache", eldest.getKey());
+        }
+    }
+
+    private static long capacityBytes() {
+        return TrekCraftConfig.holodeckProgramCacheMegabytes * 1024L * 1024L;
+    }
+}
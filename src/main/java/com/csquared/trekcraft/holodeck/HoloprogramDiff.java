@@ -0,0 +1,338 @@
+package com.csquared.trekcraft.holodeck;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Turns a holo-area into a holoprogram by writing only the cells that differ.
+ *
+ * The interior is compared with the program one chunk section at a time: cells the
+ * program leaves empty are cleared, program blocks already in place are left alone, and
+ * block entities are only replaced when their data differs. Switching between variants
+ * of a scene (same floor and walls) therefore costs about as many block updates as the
+ * variants have differences.
+ *
+ * When the area's HoloAreaJournal is complete it stands in for the last loaded program:
+ * sections with neither journaled changes nor program blocks are known to be empty and
+ * are skipped without reading them.
+ *
+ * The write budget is honoured within a section: a section that needs more writes than
+ * are left is resumed where it stopped on the next tick. Chunks are never loaded on the
+ * spot; an unloaded one is requested through HoloChunkTickets and waited for.
+ */
+class HoloprogramDiff {
+
+    private static final BlockState AIR = Blocks.AIR.defaultBlockState();
+
+    private final BlockPos min;
+    private final BlockPos max;
+    private final Predicate<BlockState> keep;
+    private final HoloAreaJournal journal;
+
+    // Program blocks by section (absolute section key), in placement order
+    private final Long2ObjectMap<List<HoloprogramPlacement.BlockEntry>> targetSections = new Long2ObjectOpenHashMap<>();
+    private final BlockPos origin;
+
+    // Sections with journaled changes, or null if the whole volume must be read
+    @Nullable
+    private final LongOpenHashSet dirtySections;
+    // The journal's positions as handed over, or null along with dirtySections
+    @Nullable
+    private final long[] drained;
+
+    // Section bounds and cursor, in section coordinates
+    private final int minSecX, minSecY, minSecZ;
+    private final int sizeSecX, sizeSecY, sizeSecZ;
+    private final int totalSections;
+    private int nextSection = 0;
+
+    // Section in progress: program blocks by cell, and how far its two passes have got
+    private final HoloprogramPlacement.BlockEntry[] sectionTargets = new HoloprogramPlacement.BlockEntry[16 * 16 * 16];
+    private boolean sectionStarted = false;
+    private int clearCursor = 0;
+    private int placeCursor = 0;
+    private int blocksWritten = 0;
+
+    HoloprogramDiff(ServerLevel level, BlockPos min, BlockPos max, BlockPos origin, HoloprogramPlacement placement,
+                    HoloAreaJournal journal, Predicate<BlockState> keep) {
+        this.min = new BlockPos(min.getX(), Math.max(min.getY(), level.getMinBuildHeight()), min.getZ());
+        this.max = new BlockPos(max.getX(), Math.min(max.getY(), level.getMaxBuildHeight() - 1), max.getZ());
+        this.origin = origin.immutable();
+        this.keep = keep;
+        this.journal = journal;
+
+        if (journal.isComplete()) {
+            drained = journal.drain();
+            dirtySections = new LongOpenHashSet();
+            for (long packed : drained) {
+                dirtySections.add(SectionPos.blockToSection(packed));
+            }
+        } else {
+            // Everything from here on is journaled; reading the whole volume covers what came before
+            journal.reset(true);
+            drained = null;
+            dirtySections = null;
+        }
+
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        for (HoloprogramPlacement.BlockEntry entry : placement.getBlocks()) {
+            pos.setWithOffset(origin, entry.relativePos());
+            if (!contains(pos)) continue;
+            targetSections.computeIfAbsent(SectionPos.asLong(pos), k -> new ArrayList<>()).add(entry);
+        }
+
+        this.minSecX = SectionPos.blockToSectionCoord(this.min.getX());
+        this.minSecY = SectionPos.blockToSectionCoord(this.min.getY());
+        this.minSecZ = SectionPos.blockToSectionCoord(this.min.getZ());
+        this.sizeSecX = SectionPos.blockToSectionCoord(this.max.getX()) - minSecX + 1;
+        this.sizeSecY = Math.max(0, SectionPos.blockToSectionCoord(this.max.getY()) - minSecY + 1);
+        this.sizeSecZ = SectionPos.blockToSectionCoord(this.max.getZ()) - minSecZ + 1;
+        this.totalSections = sizeSecX * sizeSecY * sizeSecZ;
+    }
+
+    /**
+     * Give the journal back what it handed over for sections not finished yet (the load is
+     * being abandoned). Sections already finished only hold program blocks, which are
+     * journaled as they're written, and air. Without a journal to give back, the volume
+     * beyond the visited sections is unknown and the journal is marked incomplete.
+     */
+    void abandon() {
+        if (drained == null) {
+            journal.markIncomplete();
+            return;
+        }
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        for (long packed : drained) {
+            pos.set(packed);
+            if (sectionIndex(pos) >= nextSection) {
+                journal.record(pos);
+            }
+        }
+    }
+
+    private int sectionIndex(BlockPos pos) {
+        int dx = SectionPos.blockToSectionCoord(pos.getX()) - minSecX;
+        int dy = SectionPos.blockToSectionCoord(pos.getY()) - minSecY;
+        int dz = SectionPos.blockToSectionCoord(pos.getZ()) - minSecZ;
+        return dx + sizeSecX * (dz + sizeSecZ * dy);
+    }
+
+    int getProgressPercent() {
+        return totalSections == 0 ? 100 : nextSection * 100 / totalSections;
+    }
+
+    int getBlocksWritten() {
+        return blocksWritten;
+    }
+
+    /**
+     * Bring sections up to date until either budget is spent, or an unloaded chunk is reached.
+     *
+     * @param readBudget  Cells that may be compared this tick
+     * @param writeBudget Blocks that may be written this tick
+     * @param load        Whether unloaded chunks may be loaded synchronously (server stopping)
+     * @return true when the whole volume matches the program
+     */
+    boolean step(ServerLevel level, int readBudget, int writeBudget, boolean load) {
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        LongArrayList edges = new LongArrayList();
+        int read = 0;
+        long writeLimit = (long) blocksWritten + writeBudget;
+
+        while (nextSection < totalSections && read < readBudget && blocksWritten < writeLimit) {
+            int index = nextSection;
+            int secX = minSecX + index % sizeSecX;
+            int secZ = minSecZ + (index / sizeSecX) % sizeSecZ;
+            int secY = minSecY + index / (sizeSecX * sizeSecZ);
+            long sectionKey = SectionPos.asLong(secX, secY, secZ);
+
+            List<HoloprogramPlacement.BlockEntry> targets = targetSections.get(sectionKey);
+            if (!sectionStarted && targets == null && dirtySections != null && !dirtySections.contains(sectionKey)) {
+                // Untouched since the area was last clean, and the program leaves it empty
+                nextSection++;
+                read++;
+                continue;
+            }
+
+            LevelChunk chunk = load ? level.getChunk(secX, secZ) : HoloChunkTickets.getOrRequest(level, secX, secZ);
+            if (chunk == null) {
+                break; // Resume here once the chunk has loaded
+            }
+            LevelChunkSection section = chunk.getSection(level.getSectionIndexFromSectionY(secY));
+            if (!sectionStarted) {
+                if (targets == null && section.hasOnlyAir()) {
+                    nextSection++;
+                    read++;
+                    continue;
+                }
+                startSection(targets);
+            }
+
+            read += diffSection(level, section, secX, secY, secZ, targets, pos, edges, writeLimit);
+            if (!sectionStarted) {
+                nextSection++;
+            }
+
+            // Only blocks outside the volume can care about removals from it
+            for (int i = 0; i < edges.size(); i++) {
+                pos.set(edges.getLong(i));
+                HoloAreaJournal.updateNeighborsAt(level, pos);
+            }
+            edges.clear();
+        }
+
+        return nextSection >= totalSections;
+    }
+
+    private void startSection(@Nullable List<HoloprogramPlacement.BlockEntry> targets) {
+        if (targets != null) {
+            BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+            for (HoloprogramPlacement.BlockEntry entry : targets) {
+                pos.setWithOffset(origin, entry.relativePos());
+                sectionTargets[cellIndex(pos.getX(), pos.getY(), pos.getZ())] = entry;
+            }
+        }
+        sectionStarted = true;
+        clearCursor = 0;
+        placeCursor = 0;
+    }
+
+    /**
+     * Continue the section in progress until it is done or the write limit is reached.
+     * Clears sectionStarted when the section is done.
+     *
+     * @return Cells visited
+     */
+    private int diffSection(ServerLevel level, LevelChunkSection section, int secX, int secY, int secZ,
+                            @Nullable List<HoloprogramPlacement.BlockEntry> targets,
+                            BlockPos.MutableBlockPos pos, LongArrayList edges, long writeLimit) {
+        int x0 = Math.max(min.getX(), SectionPos.sectionToBlockCoord(secX));
+        int y0 = Math.max(min.getY(), SectionPos.sectionToBlockCoord(secY));
+        int z0 = Math.max(min.getZ(), SectionPos.sectionToBlockCoord(secZ));
+        int sizeX = Math.min(max.getX(), SectionPos.sectionToBlockCoord(secX, 15)) - x0 + 1;
+        int sizeY = Math.min(max.getY(), SectionPos.sectionToBlockCoord(secY, 15)) - y0 + 1;
+        int sizeZ = Math.min(max.getZ(), SectionPos.sectionToBlockCoord(secZ, 15)) - z0 + 1;
+        int cells = sizeX * sizeY * sizeZ;
+        int visited = 0;
+
+        // Clear what the program leaves empty first, so program blocks go into a settled section
+        if (section.hasOnlyAir()) {
+            clearCursor = cells;
+        }
+        for (; clearCursor < cells; clearCursor++) {
+            if (blocksWritten >= writeLimit) return visited;
+            visited++;
+
+            int x = x0 + clearCursor % sizeX;
+            int z = z0 + (clearCursor / sizeX) % sizeZ;
+            int y = y0 + clearCursor / (sizeX * sizeZ);
+            if (sectionTargets[cellIndex(x, y, z)] != null) continue;
+            BlockState state = section.getBlockState(x & 15, y & 15, z & 15);
+            if (state.isAir() || keep.test(state)) continue;
+
+            pos.set(x, y, z);
+            // Clients only; edge cells notify their neighbors at the end of the step
+            level.setBlock(pos, AIR, Block.UPDATE_CLIENTS);
+            blocksWritten++;
+            if (isEdge(x, y, z)) {
+                edges.add(pos.asLong());
+            }
+        }
+
+        // Then program blocks, in placement order, where they differ
+        if (targets != null) {
+            for (; placeCursor < targets.size(); placeCursor++) {
+                if (blocksWritten >= writeLimit) return visited;
+                visited++;
+
+                HoloprogramPlacement.BlockEntry entry = targets.get(placeCursor);
+                pos.setWithOffset(origin, entry.relativePos());
+                sectionTargets[cellIndex(pos.getX(), pos.getY(), pos.getZ())] = null;
+                BlockState current = section.getBlockState(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+                if (keep.test(current)) continue;
+
+                journal.recordWritten(pos);
+                if (current != entry.state()) {
+                    level.setBlock(pos, entry.state(), Block.UPDATE_CLIENTS);
+                    blocksWritten++;
+                    if (entry.blockEntityData() != null) {
+                        loadBlockEntity(level, pos, entry.blockEntityData());
+                    }
+                } else if (entry.blockEntityData() != null
+                        && replaceBlockEntityIfChanged(level, pos, entry.state(), entry.blockEntityData())) {
+                    blocksWritten++;
+                }
+            }
+        }
+
+        sectionStarted = false;
+        return visited;
+    }
+
+    /**
+     * @return true if the block entity was replaced
+     */
+    static boolean replaceBlockEntityIfChanged(ServerLevel level, BlockPos pos, BlockState state, CompoundTag data) {
+        BlockEntity existing = level.getBlockEntity(pos);
+        if (existing != null) {
+            CompoundTag current = existing.saveWithId(level.registryAccess());
+            current.remove("x");
+            current.remove("y");
+            current.remove("z");
+            if (current.equals(data)) return false;
+        }
+
+        // Start from a fresh block entity rather than layering the program's data over live state
+        BlockPos immutablePos = pos.immutable();
+        BlockEntity replacement = BlockEntity.loadStatic(immutablePos, state, data.copy(), level.registryAccess());
+        if (replacement == null) {
+            level.removeBlockEntity(immutablePos);
+            return false;
+        }
+        level.setBlockEntity(replacement);
+        level.sendBlockUpdated(immutablePos, state, state, Block.UPDATE_CLIENTS);
+        return true;
+    }
+
+    static void loadBlockEntity(ServerLevel level, BlockPos pos, CompoundTag data) {
+        BlockEntity blockEntity = level.getBlockEntity(pos);
+        if (blockEntity != null) {
+            // Copy: the placement may be cached and reused
+            blockEntity.loadWithComponents(data.copy(), level.registryAccess());
+            blockEntity.setChanged();
+        }
+    }
+
+    private boolean contains(BlockPos pos) {
+        return pos.getX() >= min.getX() && pos.getX() <= max.getX()
+                && pos.getY() >= min.getY() && pos.getY() <= max.getY()
+                && pos.getZ() >= min.getZ() && pos.getZ() <= max.getZ();
+    }
+
+    private boolean isEdge(int x, int y, int z) {
+        return x == min.getX() || x == max.getX()
+                || y == min.getY() || y == max.getY()
+                || z == min.getZ() || z == max.getZ();
+    }
+
+    private static int cellIndex(int x, int y, int z) {
+        return ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+    }
+}
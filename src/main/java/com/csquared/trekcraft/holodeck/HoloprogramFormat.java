@@ -0,0 +1,588 @@
+package com.csquared.trekcraft.holodeck;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.core.HolderGetter;
+import net.minecraft.core.Vec3i;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.IntTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.nbt.Tag;
+import net.minecraft.util.Mth;
+import net.minecraft.util.SimpleBitStorage;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * TrekCraft's native holoprogram format, in which programs are saved and loaded. The
+ * Create-compatible .nbt is only produced from it on export and for syncing to clients;
+ * .nbt files from elsewhere are imported into it. Programs live in a HoloprogramStore as
+ * a manifest plus one chunk per non-empty 16x16x16 section.
+ *
+ * Manifest (everything after the header is Deflate-compressed):
+ * <pre>
+ * header     magic, version, and where the contents came from (see Header)
+ * size       structure dimensions
+ * extras     top-level .nbt fields not covered below (e.g. DataVersion)
+ * sections   per section of the structure: 0 if it has no blocks, else 1 and a chunk hash
+ * entities   entity entries, as in the .nbt
+ * </pre>
+ *
+ * Chunk (self-contained, so identical sections of different programs share a chunk):
+ * <pre>
+ * palette    block states as NBT, or "no block" (structure void)
+ * indices    bit-packed palette indices, unless the section is uniform
+ * blocks     block entity table: cell index and data of every block with a block entity
+ * </pre>
+ *
+ * The format is streamed in both directions and converts losslessly to and from the
+ * .nbt layout (palette and block order within the .nbt may differ). Templates with
+ * several palettes are left in .nbt only.
+ */
+public class HoloprogramFormat {
+
+    private static final int MAGIC = 0x54484C4F; // "THLO"
+    private static final int VERSION = 2;
+    private static final int SECTION_CELLS = 16 * 16 * 16;
+    private static final int BUFFER_SIZE = 65536;
+
+    // Header source size of a program saved from a holo-area rather than imported from a .nbt
+    private static final long SAVED_NATIVELY = -1;
+
+    /**
+     * Where a manifest's contents came from: the modification time and size of the .nbt it
+     * was imported from, or the time it was saved from a holo-area. Versions record the
+     * header of the manifest they were written with (see HoloprogramVersions).
+     */
+    public record Header(long sourceModified, long sourceSize) {
+        public static Header saved(long time) {
+            return new Header(time, SAVED_NATIVELY);
+        }
+    }
+
+    /**
+     * A program as its manifest lists it: chunk hashes by section, null where a section
+     * has no blocks. Sections are ordered x fastest, then z, then y.
+     */
+    public record SectionTable(Vec3i size, CompoundTag extras, @Nullable byte[][] sections, ListTag entities) {
+        public static int sectionIndex(Vec3i size, int sx, int sy, int sz) {
+            return (sy * sectionCount(size.getZ()) + sz) * sectionCount(size.getX()) + sx;
+        }
+    }
+
+    /**
+     * Receives the contents of a native program as it is streamed in.
+     */
+    private interface Visitor {
+        void size(Vec3i size);
+
+        void extras(CompoundTag extras);
+
+        void block(int x, int y, int z, CompoundTag state, @Nullable CompoundTag blockEntityData);
+
+        void entity(CompoundTag entity);
+    }
+
+    // ===== Writing =====
+
+    /**
+     * Split structure NBT into section chunks and store them.
+     *
+     * @return null if the template can't be represented
+     */
+    @Nullable
+    static SectionTable toSections(CompoundTag nbt, HoloprogramStore store) throws IOException {
+        ListTag paletteTag;
+        if (nbt.contains("palettes", Tag.TAG_LIST)) {
+            ListTag palettes = nbt.getList("palettes", Tag.TAG_LIST);
+            if (palettes.size() != 1) return null;
+            paletteTag = palettes.getList(0);
+        } else {
+            paletteTag = nbt.getList("palette", Tag.TAG_COMPOUND);
+        }
+        Vec3i size = HoloprogramIndex.sizeOf(nbt);
+        if (size == null) return null;
+
+        int secX = sectionCount(size.getX());
+        int secY = sectionCount(size.getY());
+        int secZ = sectionCount(size.getZ());
+
+        // Cells hold palette index + 1, so 0 means no block
+        Int2ObjectMap<int[]> sections = new Int2ObjectOpenHashMap<>();
+        Int2ObjectMap<Int2ObjectMap<CompoundTag>> blockEntities = new Int2ObjectOpenHashMap<>();
+        ListTag blocksTag = nbt.getList("blocks", Tag.TAG_COMPOUND);
+        for (int i = 0; i < blocksTag.size(); i++) {
+            CompoundTag blockTag = blocksTag.getCompound(i);
+            ListTag posTag = blockTag.getList("pos", Tag.TAG_INT);
+            int state = blockTag.getInt("state");
+            int x = posTag.getInt(0), y = posTag.getInt(1), z = posTag.getInt(2);
+            if (posTag.size() != 3 || state < 0 || state >= paletteTag.size()
+                    || x < 0 || y < 0 || z < 0 || x >= size.getX() || y >= size.getY() || z >= size.getZ()) {
+                return null;
+            }
+
+            int section = SectionTable.sectionIndex(size, x >> 4, y >> 4, z >> 4);
+            sections.computeIfAbsent(section, k -> new int[SECTION_CELLS])[cellIndex(x, y, z)] = state + 1;
+            if (blockTag.contains("nbt", Tag.TAG_COMPOUND)) {
+                blockEntities.computeIfAbsent(section, k -> new Int2ObjectOpenHashMap<>())
+                        .put(cellIndex(x, y, z), blockTag.getCompound("nbt"));
+            }
+        }
+
+        CompoundTag extras = nbt.copy();
+        extras.remove("size");
+        extras.remove("palette");
+        extras.remove("palettes");
+        extras.remove("blocks");
+        extras.remove("entities");
+
+        byte[][] hashes = new byte[secX * secY * secZ][];
+        for (Int2ObjectMap.Entry<int[]> entry : sections.int2ObjectEntrySet()) {
+            int section = entry.getIntKey();
+            hashes[section] = store.put(encodeSection(entry.getValue(), paletteTag, blockEntities.get(section)));
+        }
+        return new SectionTable(size, extras, hashes, nbt.getList("entities", Tag.TAG_COMPOUND));
+    }
+
+    /**
+     * Replace a manifest atomically.
+     */
+    static void writeManifest(Path manifest, Header source, SectionTable table) throws IOException {
+        Path tmp = manifest.resolveSibling(manifest.getFileName() + ".tmp");
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try (OutputStream file = Files.newOutputStream(tmp)) {
+            DataOutputStream header = new DataOutputStream(file);
+            header.writeInt(MAGIC);
+            header.writeByte(VERSION);
+            header.writeLong(source.sourceModified());
+            header.writeLong(source.sourceSize());
+            header.flush();
+
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(
+                    new DeflaterOutputStream(file, deflater, BUFFER_SIZE), BUFFER_SIZE));
+            writeSizeAndExtras(data, table);
+            for (byte[] hash : table.sections()) {
+                writeSectionRef(data, hash);
+            }
+            writeEntities(data, table);
+            data.close();
+        } finally {
+            deflater.end();
+        }
+
+        HoloprogramStore.move(tmp, manifest);
+    }
+
+    static void writeSizeAndExtras(DataOutput data, SectionTable table) throws IOException {
+        writeVarInt(data, table.size().getX());
+        writeVarInt(data, table.size().getY());
+        writeVarInt(data, table.size().getZ());
+        NbtIo.write(table.extras(), data);
+    }
+
+    static void writeSectionRef(DataOutput data, @Nullable byte[] hash) throws IOException {
+        if (hash == null) {
+            data.writeByte(0);
+        } else {
+            data.writeByte(1);
+            data.write(hash);
+        }
+    }
+
+    static void writeEntities(DataOutput data, SectionTable table) throws IOException {
+        writeVarInt(data, table.entities().size());
+        for (int i = 0; i < table.entities().size(); i++) {
+            NbtIo.write(table.entities().getCompound(i), data);
+        }
+    }
+
+    /**
+     * Encode one section as a chunk.
+     *
+     * @param cells Palette index + 1 per cell, 0 for no block
+     */
+    static byte[] encodeSection(int[] cells, ListTag paletteTag,
+                                        @Nullable Int2ObjectMap<CompoundTag> blockEntities) throws IOException {
+        Int2IntOpenHashMap toLocal = new Int2IntOpenHashMap();
+        IntArrayList localPalette = new IntArrayList();
+        for (int cell : cells) {
+            if (!toLocal.containsKey(cell)) {
+                toLocal.put(cell, localPalette.size());
+                localPalette.add(cell);
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeVarInt(out, localPalette.size());
+        for (int i = 0; i < localPalette.size(); i++) {
+            int cell = localPalette.getInt(i);
+            if (cell == 0) {
+                out.writeByte(0);
+            } else {
+                out.writeByte(1);
+                NbtIo.write(paletteTag.getCompound(cell - 1), out);
+            }
+        }
+
+        if (localPalette.size() > 1) {
+            SimpleBitStorage storage = new SimpleBitStorage(Mth.ceillog2(localPalette.size()), SECTION_CELLS);
+            for (int i = 0; i < SECTION_CELLS; i++) {
+                storage.set(i, toLocal.get(cells[i]));
+            }
+            for (long word : storage.getRaw()) {
+                out.writeLong(word);
+            }
+        }
+
+        if (blockEntities == null) {
+            writeVarInt(out, 0);
+        } else {
+            // Sorted, so the same section always encodes to the same bytes
+            int[] cellIndexes = blockEntities.keySet().toIntArray();
+            Arrays.sort(cellIndexes);
+            writeVarInt(out, cellIndexes.length);
+            for (int cellIndex : cellIndexes) {
+                out.writeShort(cellIndex);
+                NbtIo.write(blockEntities.get(cellIndex), out);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    // ===== Reading =====
+
+    @Nullable
+    public static Header readHeader(Path manifest) {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(manifest))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) return null;
+            return new Header(in.readLong(), in.readLong());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Read a native program straight into placement order, without building structure NBT.
+     */
+    public static HoloprogramPlacement readPlacement(String name, HoloprogramStore store,
+                                                     HolderGetter<Block> blockLookup) throws IOException {
+        PlacementVisitor visitor = new PlacementVisitor(blockLookup);
+        visit(readTable(store.manifestPath(name)), store, visitor);
+        return visitor.builder.build();
+    }
+
+    /**
+     * Convert a native program back to Create-compatible structure NBT.
+     */
+    public static CompoundTag readNbt(String name, HoloprogramStore store) throws IOException {
+        return toNbt(readTable(store.manifestPath(name)), store);
+    }
+
+    static CompoundTag toNbt(SectionTable table, HoloprogramStore store) throws IOException {
+        NbtVisitor visitor = new NbtVisitor();
+        visit(table, store, visitor);
+        return visitor.finish();
+    }
+
+    /**
+     * Hashes of the chunks a manifest refers to, for garbage collection.
+     */
+    static List<byte[]> readChunkRefs(Path manifest) throws IOException {
+        List<byte[]> refs = new ArrayList<>();
+        for (byte[] hash : readTable(manifest).sections()) {
+            if (hash != null) {
+                refs.add(hash);
+            }
+        }
+        return refs;
+    }
+
+    /**
+     * Read a manifest's section table, without touching its chunks.
+     */
+    static SectionTable readTable(Path manifest) throws IOException {
+        Inflater inflater = new Inflater();
+        try (InputStream stream = Files.newInputStream(manifest)) {
+            DataInputStream data = openBody(manifest, stream, inflater, BUFFER_SIZE);
+            Vec3i size = readSize(data);
+            CompoundTag extras = NbtIo.read(data, NbtAccounter.unlimitedHeap());
+            byte[][] sections = new byte[sectionTotal(size)][];
+            for (int i = 0; i < sections.length; i++) {
+                sections[i] = readSectionRef(data);
+            }
+            return new SectionTable(size, extras, sections, readEntities(data));
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Read only the structure dimensions of a manifest (see HoloprogramIndex).
+     */
+    static Vec3i readSize(Path manifest) throws IOException {
+        Inflater inflater = new Inflater();
+        try (InputStream stream = Files.newInputStream(manifest)) {
+            return readSize(openBody(manifest, stream, inflater, 512));
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Check a manifest's header and return a stream over its compressed body.
+     */
+    private static DataInputStream openBody(Path manifest, InputStream stream, Inflater inflater, int bufferSize)
+            throws IOException {
+        DataInputStream header = new DataInputStream(stream);
+        if (header.readInt() != MAGIC || header.readUnsignedByte() != VERSION) {
+            throw new IOException("Not a holoprogram manifest: " + manifest);
+        }
+        header.readLong();
+        header.readLong();
+        return new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(stream, inflater, bufferSize), bufferSize));
+    }
+
+    static Vec3i readSize(DataInput data) throws IOException {
+        return new Vec3i(readVarInt(data), readVarInt(data), readVarInt(data));
+    }
+
+    @Nullable
+    static byte[] readSectionRef(DataInput data) throws IOException {
+        if (data.readByte() == 0) return null;
+        byte[] hash = new byte[HoloprogramStore.HASH_BYTES];
+        data.readFully(hash);
+        return hash;
+    }
+
+    static ListTag readEntities(DataInput data) throws IOException {
+        ListTag entities = new ListTag();
+        int entityCount = readVarInt(data);
+        for (int i = 0; i < entityCount; i++) {
+            entities.add(NbtIo.read(data, NbtAccounter.unlimitedHeap()));
+        }
+        return entities;
+    }
+
+    private static void visit(SectionTable table, HoloprogramStore store, Visitor visitor) throws IOException {
+        Vec3i size = table.size();
+        visitor.size(size);
+        visitor.extras(table.extras().copy());
+
+        int secX = sectionCount(size.getX());
+        int secY = sectionCount(size.getY());
+        int secZ = sectionCount(size.getZ());
+        for (int sy = 0; sy < secY; sy++) {
+            for (int sz = 0; sz < secZ; sz++) {
+                for (int sx = 0; sx < secX; sx++) {
+                    byte[] hash = table.sections()[SectionTable.sectionIndex(size, sx, sy, sz)];
+                    if (hash != null) {
+                        decodeSection(store.get(hash), visitor, size, sx, sy, sz);
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < table.entities().size(); i++) {
+            visitor.entity(table.entities().getCompound(i).copy());
+        }
+    }
+
+    private static void decodeSection(byte[] chunk, Visitor visitor, Vec3i size, int sx, int sy, int sz)
+            throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(chunk));
+
+        int localSize = readVarInt(in);
+        CompoundTag[] localPalette = new CompoundTag[localSize];
+        for (int i = 0; i < localSize; i++) {
+            if (in.readByte() != 0) {
+                localPalette[i] = NbtIo.read(in, NbtAccounter.unlimitedHeap());
+            }
+        }
+
+        SimpleBitStorage storage = null;
+        if (localSize > 1) {
+            int bits = Mth.ceillog2(localSize);
+            int valuesPerLong = 64 / bits;
+            long[] raw = new long[(SECTION_CELLS + valuesPerLong - 1) / valuesPerLong];
+            for (int i = 0; i < raw.length; i++) {
+                raw[i] = in.readLong();
+            }
+            storage = new SimpleBitStorage(bits, SECTION_CELLS, raw);
+        }
+
+        Int2ObjectMap<CompoundTag> blockEntities = new Int2ObjectOpenHashMap<>();
+        int blockEntityCount = readVarInt(in);
+        for (int i = 0; i < blockEntityCount; i++) {
+            int cellIndex = in.readUnsignedShort();
+            blockEntities.put(cellIndex, NbtIo.read(in, NbtAccounter.unlimitedHeap()));
+        }
+
+        int x0 = sx << 4, y0 = sy << 4, z0 = sz << 4;
+        int x1 = Math.min(size.getX(), x0 + 16);
+        int y1 = Math.min(size.getY(), y0 + 16);
+        int z1 = Math.min(size.getZ(), z0 + 16);
+        for (int y = y0; y < y1; y++) {
+            for (int z = z0; z < z1; z++) {
+                for (int x = x0; x < x1; x++) {
+                    int cellIndex = cellIndex(x, y, z);
+                    CompoundTag state = localSize == 0 ? null
+                            : localPalette[storage != null ? storage.get(cellIndex) : 0];
+                    if (state != null) {
+                        visitor.block(x, y, z, state, blockEntities.get(cellIndex));
+                    }
+                }
+            }
+        }
+    }
+
+    private static class PlacementVisitor implements Visitor {
+        private final HolderGetter<Block> blockLookup;
+        // Sections repeat the same states; parse each once
+        private final Map<CompoundTag, BlockState> states = new HashMap<>();
+        private HoloprogramPlacement.Builder builder;
+
+        PlacementVisitor(HolderGetter<Block> blockLookup) {
+            this.blockLookup = blockLookup;
+        }
+
+        @Override
+        public void size(Vec3i size) {
+            builder = new HoloprogramPlacement.Builder(size);
+        }
+
+        @Override
+        public void extras(CompoundTag extras) {
+        }
+
+        @Override
+        public void block(int x, int y, int z, CompoundTag state, @Nullable CompoundTag blockEntityData) {
+            BlockState blockState = states.computeIfAbsent(state, tag -> NbtUtils.readBlockState(blockLookup, tag));
+            builder.addBlock(x, y, z, blockState, blockEntityData);
+        }
+
+        @Override
+        public void entity(CompoundTag entity) {
+            builder.addEntity(entity);
+        }
+    }
+
+    private static class NbtVisitor implements Visitor {
+        private final CompoundTag nbt = new CompoundTag();
+        private final Map<CompoundTag, Integer> palette = new LinkedHashMap<>();
+        private final ListTag blocks = new ListTag();
+        private final ListTag entities = new ListTag();
+
+        @Override
+        public void size(Vec3i size) {
+            nbt.put("size", intList(size.getX(), size.getY(), size.getZ()));
+        }
+
+        @Override
+        public void extras(CompoundTag extras) {
+            for (String key : extras.getAllKeys()) {
+                nbt.put(key, extras.get(key));
+            }
+        }
+
+        @Override
+        public void block(int x, int y, int z, CompoundTag state, @Nullable CompoundTag blockEntityData) {
+            CompoundTag blockTag = new CompoundTag();
+            blockTag.put("pos", intList(x, y, z));
+            blockTag.putInt("state", palette.computeIfAbsent(state, tag -> palette.size()));
+            if (blockEntityData != null) {
+                blockTag.put("nbt", blockEntityData);
+            }
+            blocks.add(blockTag);
+        }
+
+        @Override
+        public void entity(CompoundTag entity) {
+            entities.add(entity);
+        }
+
+        CompoundTag finish() {
+            ListTag paletteTag = new ListTag();
+            paletteTag.addAll(palette.keySet());
+            nbt.put("palette", paletteTag);
+            nbt.put("blocks", blocks);
+            nbt.put("entities", entities);
+            return nbt;
+        }
+
+        private static ListTag intList(int x, int y, int z) {
+            ListTag list = new ListTag();
+            list.add(IntTag.valueOf(x));
+            list.add(IntTag.valueOf(y));
+            list.add(IntTag.valueOf(z));
+            return list;
+        }
+    }
+
+    // ===== Helpers =====
+
+    static int sectionCount(int blocks) {
+        return (blocks + 15) >> 4;
+    }
+
+    static int sectionTotal(Vec3i size) {
+        return sectionCount(size.getX()) * sectionCount(size.getY()) * sectionCount(size.getZ());
+    }
+
+    static int cellIndex(int x, int y, int z) {
+        return ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift >= 35) throw new IOException("VarInt too long");
+            b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
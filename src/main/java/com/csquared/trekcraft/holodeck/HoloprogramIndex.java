@@ -0,0 +1,358 @@
+package com.csquared.trekcraft.holodeck;
+
+import com.csquared.trekcraft.TrekCraftMod;
+import net.minecraft.core.Vec3i;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.Tag;
+import net.minecraft.nbt.visitors.CollectFields;
+import net.minecraft.nbt.visitors.FieldSelector;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory index of a folder of holoprogram files: every file with the index's extension,
+ * with its size, modification time and, once known, its structure dimensions. One index
+ * covers the .nbt files in the schematics folder, another the native manifests in the
+ * HoloprogramStore.
+ *
+ * A WatchService thread keeps the index in step with the folder (including schematics
+ * dropped in by Create or by hand), so listing and existence checks don't touch the disk
+ * and loads can reject programs that won't fit before reading them. A name the index
+ * doesn't know is checked on disk once and then remembered as missing until the watcher
+ * reports the file. Dimensions are read lazily, from the file's size field alone.
+ *
+ * If the folder can't be watched, the index rescans it whenever it is listed and checks
+ * the disk on every lookup of an unknown name.
+ */
+public class HoloprogramIndex {
+
+    /**
+     * Reads just the structure dimensions from a file of the indexed kind.
+     */
+    @FunctionalInterface
+    interface SizeReader {
+        @Nullable
+        Vec3i read(Path file) throws IOException;
+    }
+
+    // Case-insensitive, with exact order breaking ties so listings from several indexes merge cleanly
+    static final Comparator<String> NAME_ORDER =
+            String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+    /**
+     * Reads the "size" field of a GZIP structure .nbt, skipping everything else while parsing.
+     */
+    static final SizeReader NBT_SIZE = file -> {
+        CollectFields collector = new CollectFields(new FieldSelector(ListTag.TYPE, "size"));
+        NbtIo.parseCompressed(file, collector, NbtAccounter.unlimitedHeap());
+        return collector.getResult() instanceof CompoundTag tag ? sizeOf(tag) : null;
+    };
+
+    public record ProgramInfo(String name, long fileSize, long modified, @Nullable Vec3i dimensions) {
+        ProgramInfo withDimensions(Vec3i dimensions) {
+            return new ProgramInfo(name, fileSize, modified, dimensions);
+        }
+    }
+
+    // Bound on remembered missing names, which come from requests and may be arbitrary
+    private static final int MAX_MISSING = 1024;
+
+    // Names sorted while the name set was at the given version
+    private record SortedNames(int version, List<String> names) {}
+
+    private final Path dir;
+    private final String extension;
+    private final SizeReader sizeReader;
+    private final Map<String, ProgramInfo> programs = new ConcurrentHashMap<>();
+    // Names looked up and not found on disk, while the watcher hasn't reported them since
+    private final Set<String> missing = ConcurrentHashMap.newKeySet();
+
+    // Bumped whenever a program appears or disappears; a sorted list is only served at its own version
+    private final AtomicInteger namesVersion = new AtomicInteger();
+    @Nullable
+    private volatile SortedNames sortedNames;
+    private volatile boolean watching = false;
+
+    @Nullable
+    private WatchService watchService;
+    @Nullable
+    private Thread watchThread;
+
+    HoloprogramIndex(Path dir, String extension, SizeReader sizeReader) {
+        this.dir = dir;
+        this.extension = extension;
+        this.sizeReader = sizeReader;
+    }
+
+    /**
+     * Scan the folder and start watching it.
+     */
+    void start() {
+        try {
+            WatchService service = dir.getFileSystem().newWatchService();
+            // Register before scanning so nothing written in between is missed
+            dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchService = service;
+            watching = true;
+
+            watchThread = new Thread(() -> watch(service), "TrekCraft Holoprogram Index (" + dir.getFileName() + ")");
+            watchThread.setDaemon(true);
+            watchThread.start();
+        } catch (IOException | UnsupportedOperationException e) {
+            TrekCraftMod.LOGGER.warn("Cannot watch {}; holoprograms will be rescanned on every list", dir, e);
+        }
+        scan();
+    }
+
+    /**
+     * Stop watching the folder and end the watch thread (server stopping).
+     */
+    void close() {
+        watching = false;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                TrekCraftMod.LOGGER.warn("Failed to close watch service for {}", dir, e);
+            }
+            watchService = null;
+        }
+        if (watchThread != null) {
+            watchThread.interrupt();
+            watchThread = null;
+        }
+    }
+
+    private void watch(WatchService watchService) {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                watching = false;
+                return;
+            }
+
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    scan();
+                    continue;
+                }
+                Path file = dir.resolve((Path) event.context());
+                if (nameOf(file) == null) continue;
+
+                if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                    remove(nameOf(file));
+                } else {
+                    refresh(file);
+                }
+            }
+
+            if (!key.reset()) {
+                // The folder itself went away
+                TrekCraftMod.LOGGER.warn("Stopped watching {}; holoprograms will be rescanned on every list", dir);
+                watching = false;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Rebuild the index from the folder contents.
+     */
+    private void scan() {
+        Map<String, ProgramInfo> found = new ConcurrentHashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + extension)) {
+            for (Path file : stream) {
+                ProgramInfo info = stat(file);
+                if (info != null) {
+                    // Keep dimensions already read from an unchanged file
+                    ProgramInfo known = programs.get(info.name());
+                    found.put(info.name(), carryDimensions(known, info));
+                }
+            }
+        } catch (IOException e) {
+            TrekCraftMod.LOGGER.error("Failed to list holoprograms", e);
+            return;
+        }
+
+        programs.keySet().retainAll(found.keySet());
+        programs.putAll(found);
+        missing.clear();
+        namesVersion.incrementAndGet();
+    }
+
+    /**
+     * Re-read a file's size and modification time (e.g. after it was written).
+     */
+    void refresh(Path file) {
+        String name = nameOf(file);
+        if (name == null) return;
+
+        ProgramInfo info = stat(file);
+        if (info == null) {
+            remove(name);
+            return;
+        }
+        missing.remove(name);
+        ProgramInfo previous = programs.put(name, carryDimensions(programs.get(name), info));
+        if (previous == null) {
+            namesVersion.incrementAndGet();
+        }
+    }
+
+    /**
+     * Record a file we just wrote, whose dimensions we already know.
+     */
+    void refresh(Path file, Vec3i dimensions) {
+        refresh(file);
+        String name = nameOf(file);
+        ProgramInfo info = name != null ? programs.get(name) : null;
+        if (info != null) {
+            programs.replace(name, info, info.withDimensions(dimensions));
+        }
+    }
+
+    void remove(String name) {
+        if (programs.remove(name) != null) {
+            namesVersion.incrementAndGet();
+        }
+    }
+
+    /**
+     * Names of all holoprograms (without extension), in NAME_ORDER.
+     */
+    public List<String> listNames() {
+        if (!watching) {
+            scan();
+        }
+        // Read the version before the names: if the set changes while sorting, the list
+        // is published under the old version and the next call sorts again
+        int version = namesVersion.get();
+        SortedNames cached = sortedNames;
+        if (cached != null && cached.version() == version) {
+            return cached.names();
+        }
+        List<String> sorted = new ArrayList<>(programs.keySet());
+        sorted.sort(NAME_ORDER);
+        List<String> names = List.copyOf(sorted);
+        sortedNames = new SortedNames(version, names);
+        return names;
+    }
+
+    /**
+     * Look up a holoprogram by (sanitized) name. A name the index hasn't seen is checked on
+     * disk once, in case it was written moments ago, and is then answered from memory until
+     * the watcher reports a change. Without a watcher every such lookup goes to disk, so
+     * callers on the server thread should go through the I/O executor.
+     */
+    @Nullable
+    public ProgramInfo get(String name) {
+        ProgramInfo info = programs.get(name);
+        if (info != null && watching) {
+            return info;
+        }
+        if (info == null && watching && missing.contains(name)) {
+            return null;
+        }
+
+        // Mark it missing before looking, so a watcher event for a file created meanwhile clears the mark
+        if (watching) {
+            if (missing.size() >= MAX_MISSING) {
+                missing.clear();
+            }
+            missing.add(name);
+        }
+        refresh(dir.resolve(name + extension));
+        return programs.get(name);
+    }
+
+    public boolean exists(String name) {
+        return get(name) != null;
+    }
+
+    /**
+     * Structure dimensions of a holoprogram, read from its "size" field on first use.
+     *
+     * @return The dimensions, or null if the program is unknown or unreadable
+     */
+    @Nullable
+    public Vec3i dimensionsOf(String name) {
+        ProgramInfo info = get(name);
+        if (info == null) return null;
+        if (info.dimensions() != null) return info.dimensions();
+
+        try {
+            Vec3i dimensions = sizeReader.read(dir.resolve(name + extension));
+            if (dimensions != null) {
+                programs.replace(name, info, info.withDimensions(dimensions));
+            }
+            return dimensions;
+        } catch (IOException e) {
+            TrekCraftMod.LOGGER.warn("Failed to read size of holoprogram '{}'", name, e);
+            return null;
+        }
+    }
+
+    /**
+     * Read the "size" field of structure NBT.
+     */
+    @Nullable
+    static Vec3i sizeOf(CompoundTag nbt) {
+        ListTag sizeTag = nbt.getList("size", Tag.TAG_INT);
+        return sizeTag.size() == 3 ? new Vec3i(sizeTag.getInt(0), sizeTag.getInt(1), sizeTag.getInt(2)) : null;
+    }
+
+    @Nullable
+    private ProgramInfo stat(Path file) {
+        String name = nameOf(file);
+        if (name == null) return null;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) return null;
+            return new ProgramInfo(name, attributes.size(), attributes.lastModifiedTime().toMillis(), null);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            TrekCraftMod.LOGGER.warn("Failed to read attributes of {}", file, e);
+            return null;
+        }
+    }
+
+    private static ProgramInfo carryDimensions(@Nullable ProgramInfo known, ProgramInfo fresh) {
+        if (known != null && known.dimensions() != null
+                && known.modified() == fresh.modified() && known.fileSize() == fresh.fileSize()) {
+            return fresh.withDimensions(known.dimensions());
+        }
+        return fresh;
+    }
+
+    @Nullable
+    private String nameOf(Path file) {
+        String fileName = file.getFileName().toString();
+        if (!fileName.endsWith(extension) || fileName.length() == extension.length()) return null;
+        return fileName.substring(0, fileName.length() - extension.length());
+    }
+}
@@ -1,7 +1,16 @@
 package com.csquared.trekcraft.holodeck;
 
+import com.csquared.trekcraft.TrekCraftConfig;
 import com.csquared.trekcraft.TrekCraftMod;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntCollection;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
 import net.minecraft.core.Vec3i;
 import org.jetbrains.annotations.Nullable;
 import net.minecraft.core.registries.BuiltInRegistries;
@@ -9,38 +18,93 @@ import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.ListTag;
 import net.minecraft.nbt.NbtAccounter;
 import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtUtils;
 import net.minecraft.nbt.Tag;
 import net.minecraft.server.level.ServerLevel;
-import net.minecraft.util.RandomSource;
 import net.minecraft.world.level.block.Blocks;
-import net.minecraft.world.level.block.Mirror;
-import net.minecraft.world.level.block.Rotation;
-import net.minecraft.world.level.levelgen.structure.templatesystem.StructurePlaceSettings;
+import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplate;
 import net.neoforged.fml.loading.FMLPaths;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.OpenOption;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Manager for saving and loading holoprograms using Minecraft's StructureTemplate.
- * Uses Create-compatible NBT format for bidirectional compatibility.
+ * Manager for saving and loading holoprograms.
  *
- * File format:
- * - Extension: .nbt
- * - Compression: GZIP
- * - Storage: .minecraft/schematics/ (game directory, not world-specific)
+ * Programs are kept in TrekCraft's native format (see HoloprogramFormat) in a
+ * deduplicating HoloprogramStore under schematics/.holostore (game directory, not
+ * world-specific), which is what saves write. Create-compatible GZIP .nbt files are
+ * produced from it: into the schematics folder a few seconds after a save (so bursts of
+ * saves share one export; see TrekCraftConfig.holodeckExportNbtOnSave), by export(),
+ * and for syncing a save to the player's local copy. An export takes its manifest's
+ * modification time. A .nbt in the schematics folder that is newer than the program's
+ * manifest (dropped in from Create or by hand) is imported on its next load,
+ * so schematics still work in both directions. Without a store, programs are saved
+ * and loaded as .nbt only.
  *
- * This allows holoprograms to appear in Create's schematic list and vice versa.
+ * Saves from a holo-area are also recorded as versions (see HoloprogramVersions). When the
+ * area still matches the version it was loaded or saved as, only the sections changed
+ * since are captured and stored, so frequent checkpoint saves stay cheap; older versions
+ * can be listed and rolled back to, up to TrekCraftConfig.holodeckProgramVersions of them.
+ *
+ * Disk access, compression and NBT parsing run on a single background I/O thread
+ * (so operations on the same file stay in order). Only capturing blocks from the
+ * world happens on the calling thread; results come back as futures.
  */
 public class HoloprogramManager {
 
     private static final String SCHEMATICS_DIR = "schematics";
+    private static final String STORE_DIR = ".holostore";
     private static final String HOLOPROGRAM_PREFIX = "holoprogram_";
+    private static final String PART_EXTENSION = ".part";
+    private static final String NBT_EXTENSION = ".nbt";
+    // Deletes and pruned versions within this long of each other share one chunk collection
+    private static final long GARBAGE_COLLECTION_DELAY_SECONDS = 300;
+    // Saves of a program within this long of each other share one .nbt export
+    private static final long EXPORT_DELAY_SECONDS = 5;
+
+    private static final ScheduledExecutorService IO_EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "TrekCraft Holoprogram IO");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Nullable
+    private static Path schematicsDir;
+    @Nullable
+    private static HoloprogramIndex index;
+    @Nullable
+    private static HoloprogramIndex manifestIndex;
+    @Nullable
+    private static HoloprogramStore nativeStore;
+    private static boolean storeUnavailable = false;
+    // Only touched on the I/O thread
+    private static boolean garbageCollectionPending = false;
+    private static final Set<String> pendingExports = new HashSet<>();
+
+    // Last merged program list, and the index lists it was merged from
+    private static List<String> mergedNames = List.of();
+    @Nullable
+    private static List<String> mergedFiles;
+    @Nullable
+    private static List<String> mergedNatives;
 
     /**
      * Result codes for holoprogram load operations.
@@ -49,91 +113,264 @@ public class HoloprogramManager {
         SUCCESS,
         NOT_FOUND,
         TOO_LARGE,
-        READ_ERROR
+        READ_ERROR,
+        BUSY
     }
 
     /**
      * Detailed result of a holoprogram load operation.
+     * On success, carries the program ready to be placed by a HoloprogramPlacementJob,
+     * and the saved version it is (0 if the program isn't versioned).
      */
     public record LoadResultDetails(
             LoadResult result,
             @Nullable Vec3i schematicSize,
-            @Nullable Vec3i interiorSize
+            @Nullable Vec3i interiorSize,
+            @Nullable HoloprogramPlacement placement,
+            int version
     ) {
-        public static LoadResultDetails success() {
-            return new LoadResultDetails(LoadResult.SUCCESS, null, null);
+        public static LoadResultDetails success(HoloprogramPlacement placement, int version) {
+            return new LoadResultDetails(LoadResult.SUCCESS, null, null, placement, version);
         }
 
         public static LoadResultDetails notFound() {
-            return new LoadResultDetails(LoadResult.NOT_FOUND, null, null);
+            return new LoadResultDetails(LoadResult.NOT_FOUND, null, null, null, 0);
         }
 
         public static LoadResultDetails tooLarge(Vec3i schematicSize, Vec3i interiorSize) {
-            return new LoadResultDetails(LoadResult.TOO_LARGE, schematicSize, interiorSize);
+            return new LoadResultDetails(LoadResult.TOO_LARGE, schematicSize, interiorSize, null, 0);
         }
 
         public static LoadResultDetails readError() {
-            return new LoadResultDetails(LoadResult.READ_ERROR, null, null);
+            return new LoadResultDetails(LoadResult.READ_ERROR, null, null, null, 0);
+        }
+
+        public static LoadResultDetails busy() {
+            return new LoadResultDetails(LoadResult.BUSY, null, null, null, 0);
         }
     }
 
     /**
-     * Get the schematics directory path.
+     * Get the schematics directory path, creating it on first use.
      */
-    private static Path getSchematicsDir() {
-        Path gameDir = FMLPaths.GAMEDIR.get();
-        Path dir = gameDir.resolve(SCHEMATICS_DIR);
-        TrekCraftMod.LOGGER.info("GAMEDIR: {}", gameDir.toAbsolutePath());
-        TrekCraftMod.LOGGER.info("Schematics dir: {}", dir.toAbsolutePath());
-        if (!Files.exists(dir)) {
+    private static synchronized Path getSchematicsDir() {
+        if (schematicsDir == null) {
+            Path dir = FMLPaths.GAMEDIR.get().resolve(SCHEMATICS_DIR);
             try {
                 Files.createDirectories(dir);
-                TrekCraftMod.LOGGER.info("Created schematics directory: {}", dir.toAbsolutePath());
             } catch (IOException e) {
                 TrekCraftMod.LOGGER.error("Failed to create schematics directory", e);
             }
+            TrekCraftMod.LOGGER.debug("Schematics dir: {}", dir.toAbsolutePath());
+            schematicsDir = dir;
+        }
+        return schematicsDir;
+    }
+
+    /**
+     * Get the store holding native copies, or null if it can't be created (loads then use .nbt).
+     */
+    @Nullable
+    private static synchronized HoloprogramStore getStore() {
+        if (nativeStore == null && !storeUnavailable) {
+            try {
+                nativeStore = new HoloprogramStore(getSchematicsDir().resolve(STORE_DIR));
+            } catch (IOException e) {
+                TrekCraftMod.LOGGER.error("Failed to create holoprogram store", e);
+                storeUnavailable = true;
+            }
+        }
+        return nativeStore;
+    }
+
+    /**
+     * Get the index of .nbt files in the schematics directory, starting it on first use.
+     */
+    private static synchronized HoloprogramIndex getIndex() {
+        if (index == null) {
+            index = new HoloprogramIndex(getSchematicsDir(), NBT_EXTENSION, HoloprogramIndex.NBT_SIZE);
+            index.start();
+        }
+        return index;
+    }
+
+    /**
+     * Get the index of native manifests, starting it on first use, or null without a store.
+     */
+    @Nullable
+    private static synchronized HoloprogramIndex getManifestIndex() {
+        HoloprogramStore store = getStore();
+        if (manifestIndex == null && store != null) {
+            manifestIndex = new HoloprogramIndex(store.manifestDir(), HoloprogramStore.MANIFEST_EXTENSION,
+                    HoloprogramFormat::readSize);
+            manifestIndex.start();
+        }
+        return manifestIndex;
+    }
+
+    /**
+     * Stop the directory indexes' watchers (server stopping). The next use starts fresh indexes.
+     */
+    public static synchronized void closeIndex() {
+        if (index != null) {
+            index.close();
+            index = null;
+        }
+        if (manifestIndex != null) {
+            manifestIndex.close();
+            manifestIndex = null;
+        }
+    }
+
+    /**
+     * Where a program currently lives: its native manifest, or a .nbt that is newer
+     * (not imported yet). An exported .nbt is stamped with its manifest's time, so it
+     * doesn't count as newer.
+     */
+    private record Source(String sanitized, @Nullable HoloprogramIndex.ProgramInfo manifest,
+                          @Nullable HoloprogramIndex.ProgramInfo nbt) {
+        boolean isNative() {
+            return manifest != null && (nbt == null || nbt.modified() <= manifest.modified());
         }
-        return dir;
+    }
+
+    @Nullable
+    private static Source locate(String sanitized) {
+        HoloprogramIndex manifests = getManifestIndex();
+        HoloprogramIndex.ProgramInfo manifest = manifests != null ? manifests.get(sanitized) : null;
+        HoloprogramIndex.ProgramInfo nbt = getIndex().get(sanitized);
+        return manifest == null && nbt == null ? null : new Source(sanitized, manifest, nbt);
     }
 
     /**
-     * Result of a save operation, containing success status and NBT data for syncing.
+     * Result of a save operation: success status and the version recorded (0 if the
+     * program couldn't be versioned).
      */
-    public record SaveResult(boolean success, @Nullable CompoundTag nbtData) {
+    public record SaveResult(boolean success, int version) {
         public static SaveResult failure() {
-            return new SaveResult(false, null);
+            return new SaveResult(false, 0);
         }
 
-        public static SaveResult success(CompoundTag nbt) {
-            return new SaveResult(true, nbt);
+        public static SaveResult success(int version) {
+            return new SaveResult(true, version);
         }
     }
 
     /**
-     * Save the contents of a holodeck interior as a holoprogram.
+     * A program as a Create-compatible .nbt file, for syncing to a client.
+     */
+    public record NbtFile(byte[] data, byte[] hash) {}
+
+    /**
+     * A program section read from the world for a delta save, laid out for
+     * HoloprogramFormat.encodeSection (cells hold palette index + 1, 0 for no block).
+     */
+    private record CapturedSection(int[] cells, ListTag palette, @Nullable Int2ObjectMap<CompoundTag> blockEntities) {
+        boolean isEmpty() {
+            return palette.isEmpty();
+        }
+    }
+
+    /**
+     * Save the contents of a holodeck interior as a new version of a holoprogram.
+     *
+     * If the interior matched a saved version of this program (it was loaded or saved since
+     * it was last cleared), only the sections changed since are captured and the version
+     * is recorded as a delta; otherwise the whole interior is captured. Changed sections are
+     * those the journal recorded, those holding block entities, and those whose block-state
+     * checksum no longer matches the baseline's, since some changes (doors, crop growth)
+     * raise no event to journal. The interior is copied on the server thread a chunk section
+     * at a time (see HoloAreaSnapshot); comparing, serializing and writing happen on the
+     * I/O thread.
      *
-     * @param level The server level
+     * @param level The server level (must be called on the server thread)
      * @param name The holoprogram name
      * @param min The minimum corner of the interior
      * @param max The maximum corner of the interior
-     * @return SaveResult with success status and NBT data for client sync
+     * @param journal The area's journal, which tracks changes since the last save or load
+     * @return Future SaveResult with success status and version, completed on the server thread
      */
-    public static SaveResult save(ServerLevel level, String name, BlockPos min, BlockPos max) {
+    public static CompletableFuture<SaveResult> save(ServerLevel level, String name, BlockPos min, BlockPos max,
+                                                     HoloAreaJournal journal) {
+        String sanitized = sanitizeFileName(name);
+        Vec3i size = new Vec3i(
+            max.getX() - min.getX() + 1,
+            max.getY() - min.getY() + 1,
+            max.getZ() - min.getZ() + 1
+        );
+
+        HoloAreaBaseline baseline = journal.getBaseline();
+        int baseVersion = baseline.getVersion(sanitized);
+        if (baseVersion == 0) {
+            return saveFull(level, name, min, size, journal);
+        }
+
+        HoloAreaSnapshot snapshot;
         try {
-            // Calculate size
-            Vec3i size = new Vec3i(
-                max.getX() - min.getX() + 1,
-                max.getY() - min.getY() + 1,
-                max.getZ() - min.getZ() + 1
-            );
+            snapshot = HoloAreaSnapshot.take(level, min, size, true);
+        } catch (Exception e) {
+            TrekCraftMod.LOGGER.error("Failed to capture holoprogram '{}'", name, e);
+            return CompletableFuture.completedFuture(SaveResult.failure());
+        }
+        LongSet changed = new LongOpenHashSet(baseline.getChangedSections());
+        long[] baseChecksums = baseline.getChecksums();
+        int ticket = baseline.beginSave(sanitized);
+
+        CompletableFuture<long[]> checksums = checksumSections(snapshot);
+        return checksums
+                .thenApplyAsync(current -> writeDelta(name, baseVersion, size,
+                        captureSections(snapshot, sectionsToCapture(snapshot, changed, baseChecksums, current))), IO_EXECUTOR)
+                .thenComposeAsync(result -> {
+                    if (result == null) {
+                        // The baseline version is gone or unreadable; capture everything instead
+                        return saveFull(level, name, min, size, journal);
+                    }
+                    baseline.finishSave(ticket, result.version(), checksums.join());
+                    return CompletableFuture.completedFuture(result);
+                }, level.getServer())
+                .exceptionallyAsync(error -> {
+                    TrekCraftMod.LOGGER.error("Failed to save holoprogram '{}'", name, error);
+                    baseline.finishSave(ticket, 0, null);
+                    return SaveResult.failure();
+                }, level.getServer());
+    }
+
+    private static CompletableFuture<SaveResult> saveFull(ServerLevel level, String name, BlockPos min, Vec3i size,
+                                                          HoloAreaJournal journal) {
+        StructureTemplate template;
+        HoloAreaSnapshot snapshot;
+        try {
+            // Block states only, to checksum against; the template has the block entities
+            snapshot = HoloAreaSnapshot.take(level, min, size, false);
 
             // Create structure template
-            StructureTemplate template = new StructureTemplate();
+            template = new StructureTemplate();
 
             // Fill template from world
             // Use AIR instead of STRUCTURE_VOID for Create compatibility
             template.fillFromWorld(level, min, size, false, Blocks.AIR);
+        } catch (Exception e) {
+            TrekCraftMod.LOGGER.error("Failed to capture holoprogram '{}'", name, e);
+            return CompletableFuture.completedFuture(SaveResult.failure());
+        }
+        int ticket = journal.getBaseline().beginSave(sanitizeFileName(name));
+
+        // Without checksums the next save compares every section, which is still correct
+        CompletableFuture<long[]> checksums = checksumSections(snapshot).exceptionally(error -> null);
+        // The template is a detached snapshot now, safe to serialize off-thread
+        return CompletableFuture.supplyAsync(() -> write(template, name), IO_EXECUTOR)
+                .exceptionally(error -> {
+                    TrekCraftMod.LOGGER.error("Failed to save holoprogram '{}'", name, error);
+                    return SaveResult.failure();
+                })
+                .thenCombineAsync(checksums, (result, current) -> {
+                    journal.getBaseline().finishSave(ticket, result.version(), current);
+                    return result;
+                }, level.getServer());
+    }
 
+    private static SaveResult write(StructureTemplate template, String name) {
+        try {
             // Save to NBT
             CompoundTag nbt = template.save(new CompoundTag());
 
@@ -141,14 +378,16 @@ public class HoloprogramManager {
             // Replace any structure_void in palette with air
             replaceStructureVoidWithAir(nbt);
 
-            // Write to file
-            String fileName = sanitizeFileName(name) + ".nbt";
-            Path filePath = getSchematicsDir().resolve(fileName);
-
-            NbtIo.writeCompressed(nbt, filePath);
-
-            TrekCraftMod.LOGGER.info("Saved holoprogram '{}' to {}", name, filePath);
-            return SaveResult.success(nbt);
+            HoloprogramStore store = getStore();
+            HoloprogramFormat.SectionTable table = store != null ? HoloprogramFormat.toSections(nbt, store) : null;
+            if (table == null) {
+                // No native store to save into: the .nbt is all there is
+                Path filePath = getSchematicsDir().resolve(sanitizeFileName(name) + NBT_EXTENSION);
+                writeNbtFile(nbt, filePath, template.getSize(), null);
+                TrekCraftMod.LOGGER.info("Saved holoprogram '{}' to {}", name, filePath);
+                return SaveResult.success(0);
+            }
+            return writeProgram(name, store, table, null, null);
 
         } catch (Exception e) {
             TrekCraftMod.LOGGER.error("Failed to save holoprogram '{}'", name, e);
@@ -157,19 +396,399 @@ public class HoloprogramManager {
     }
 
     /**
-     * Save schematic data locally (client-side).
-     * Used to sync holoprograms from server to client's local schematics folder.
+     * Checksum a snapshot's sections on the I/O thread (see HoloAreaSnapshot.checksumSections).
+     */
+    static CompletableFuture<long[]> checksumSections(HoloAreaSnapshot snapshot) {
+        return CompletableFuture.supplyAsync(snapshot::checksumSections, IO_EXECUTOR);
+    }
+
+    /**
+     * Sections journaled as changed since the baseline or holding block entities, plus
+     * those whose checksum differs from the baseline's (every section, if the baseline
+     * has no checksums).
+     */
+    private static LongSet sectionsToCapture(HoloAreaSnapshot snapshot, LongSet changed, @Nullable long[] baseline,
+                                             long[] checksums) {
+        Vec3i size = snapshot.getSize();
+        LongOpenHashSet sections = new LongOpenHashSet(changed);
+        boolean compare = baseline != null && baseline.length == checksums.length;
+        int[] withBlockEntities = snapshot.getBlockEntitySections();
+        Arrays.sort(withBlockEntities);
+        for (int sy = 0; sy < HoloprogramFormat.sectionCount(size.getY()); sy++) {
+            for (int sz = 0; sz < HoloprogramFormat.sectionCount(size.getZ()); sz++) {
+                for (int sx = 0; sx < HoloprogramFormat.sectionCount(size.getX()); sx++) {
+                    int index = HoloprogramFormat.SectionTable.sectionIndex(size, sx, sy, sz);
+                    if (!compare || baseline[index] != checksums[index]
+                            || Arrays.binarySearch(withBlockEntities, index) >= 0) {
+                        sections.add(SectionPos.asLong(sx, sy, sz));
+                    }
+                }
+            }
+        }
+        return sections;
+    }
+
+    /**
+     * Read the program sections that may differ from the area's baseline version.
+     */
+    private static Int2ObjectMap<CapturedSection> captureSections(HoloAreaSnapshot snapshot, LongSet sections) {
+        Vec3i size = snapshot.getSize();
+        Int2ObjectMap<CapturedSection> captured = new Int2ObjectOpenHashMap<>();
+        for (long key : sections) {
+            int sx = SectionPos.x(key), sy = SectionPos.y(key), sz = SectionPos.z(key);
+            if (sx < 0 || sy < 0 || sz < 0 || sx << 4 >= size.getX() || sy << 4 >= size.getY() || sz << 4 >= size.getZ()) {
+                continue;
+            }
+            captured.put(HoloprogramFormat.SectionTable.sectionIndex(size, sx, sy, sz),
+                    captureSection(snapshot, sx, sy, sz));
+        }
+        return captured;
+    }
+
+    /**
+     * Read one program section the way StructureTemplate.fillFromWorld would: air is left
+     * out and structure voids become air, so unchanged sections encode to the same chunks.
+     */
+    private static CapturedSection captureSection(HoloAreaSnapshot snapshot, int sx, int sy, int sz) {
+        Vec3i size = snapshot.getSize();
+        Int2ObjectMap<CompoundTag> sectionBlockEntities =
+                snapshot.getBlockEntities(HoloprogramFormat.SectionTable.sectionIndex(size, sx, sy, sz));
+        int[] cells = new int[16 * 16 * 16];
+        ListTag palette = new ListTag();
+        // Palette index + 1 by state; 0 (the map's default) means not in the palette yet
+        Reference2IntOpenHashMap<BlockState> paletteIndex = new Reference2IntOpenHashMap<>();
+        Int2ObjectMap<CompoundTag> blockEntities = null;
+
+        int x1 = Math.min(size.getX(), (sx + 1) << 4);
+        int y1 = Math.min(size.getY(), (sy + 1) << 4);
+        int z1 = Math.min(size.getZ(), (sz + 1) << 4);
+        for (int y = sy << 4; y < y1; y++) {
+            for (int z = sz << 4; z < z1; z++) {
+                for (int x = sx << 4; x < x1; x++) {
+                    BlockState state = snapshot.getBlockState(x, y, z);
+                    if (state.is(Blocks.AIR)) continue;
+                    if (state.is(Blocks.STRUCTURE_VOID)) {
+                        state = Blocks.AIR.defaultBlockState();
+                    }
+
+                    int index = paletteIndex.getInt(state);
+                    if (index == 0) {
+                        palette.add(NbtUtils.writeBlockState(state));
+                        index = palette.size();
+                        paletteIndex.put(state, index);
+                    }
+                    int cellIndex = HoloprogramFormat.cellIndex(x, y, z);
+                    cells[cellIndex] = index;
+
+                    CompoundTag blockEntity = sectionBlockEntities != null ? sectionBlockEntities.get(cellIndex) : null;
+                    if (blockEntity != null) {
+                        if (blockEntities == null) {
+                            blockEntities = new Int2ObjectOpenHashMap<>();
+                        }
+                        blockEntities.put(cellIndex, blockEntity);
+                    }
+                }
+            }
+        }
+        return new CapturedSection(cells, palette, blockEntities);
+    }
+
+    /**
+     * Record a save as a delta against the area's baseline version.
      *
-     * @param name The holoprogram name
-     * @param nbt The schematic NBT data
-     * @return true if save was successful
+     * @return null if the baseline can't be used, so the caller saves in full
+     */
+    @Nullable
+    private static SaveResult writeDelta(String name, int baseVersion, Vec3i size,
+                                         Int2ObjectMap<CapturedSection> captured) {
+        String sanitized = sanitizeFileName(name);
+        HoloprogramStore store = getStore();
+        if (store == null) return null;
+        try {
+            HoloprogramVersions.VersionInfo base = HoloprogramVersions.get(store, sanitized, baseVersion);
+            if (base == null) return null;
+            HoloprogramFormat.SectionTable previous = HoloprogramVersions.resolve(store, sanitized, baseVersion);
+            if (!previous.size().equals(size)) return null;
+
+            // Only sections whose chunk actually changed go into the delta
+            byte[][] sections = previous.sections().clone();
+            IntArrayList changed = new IntArrayList();
+            int[] indexes = captured.keySet().toIntArray();
+            Arrays.sort(indexes);
+            for (int index : indexes) {
+                CapturedSection section = captured.get(index);
+                byte[] hash = section.isEmpty() ? null
+                        : store.put(HoloprogramFormat.encodeSection(section.cells(), section.palette(), section.blockEntities()));
+                if (!Arrays.equals(hash, sections[index])) {
+                    sections[index] = hash;
+                    changed.add(index);
+                }
+            }
+
+            CompoundTag extras = NbtUtils.addCurrentDataVersion(previous.extras().copy());
+            HoloprogramFormat.SectionTable table = new HoloprogramFormat.SectionTable(size, extras, sections,
+                    previous.entities());
+            return writeProgram(name, store, table, base, changed);
+        } catch (Exception e) {
+            TrekCraftMod.LOGGER.warn("Failed to save holoprogram '{}' as a delta, saving it in full", name, e);
+            return null;
+        }
+    }
+
+    /**
+     * Write a program from its section table (all chunks already stored): the native
+     * manifest and a new version, with its .nbt refreshed shortly after. The chunks the
+     * previous manifest used stay referenced by earlier versions, so nothing needs collecting.
      */
-    public static boolean saveLocal(String name, CompoundTag nbt) {
+    private static SaveResult writeProgram(String name, HoloprogramStore store, HoloprogramFormat.SectionTable table,
+                                           @Nullable HoloprogramVersions.VersionInfo parent,
+                                           @Nullable IntCollection changed) throws IOException {
+        String sanitized = sanitizeFileName(name);
+        HoloprogramFormat.Header source = HoloprogramFormat.Header.saved(System.currentTimeMillis());
+        writeManifest(store, sanitized, source, table);
+        HoloprogramVersions.VersionInfo version = appendVersion(store, sanitized, table, parent, changed, source);
+        scheduleExport(sanitized);
+
+        TrekCraftMod.LOGGER.info("Saved holoprogram '{}' (version {}, {})", name, version.version(),
+                version.isSnapshot() ? "snapshot" : version.sectionsListed() + " sections changed");
+        return SaveResult.success(version.version());
+    }
+
+    /**
+     * Record a new version, pruning the oldest beyond the configured limit.
+     */
+    private static HoloprogramVersions.VersionInfo appendVersion(HoloprogramStore store, String sanitized,
+                                                                 HoloprogramFormat.SectionTable table,
+                                                                 @Nullable HoloprogramVersions.VersionInfo parent,
+                                                                 @Nullable IntCollection changed,
+                                                                 HoloprogramFormat.Header source) throws IOException {
+        HoloprogramVersions.VersionInfo version = HoloprogramVersions.append(store, sanitized, table, parent, changed, source);
+        try {
+            if (HoloprogramVersions.prune(store, sanitized, TrekCraftConfig.holodeckProgramVersions) > 0) {
+                scheduleGarbageCollection();
+            }
+        } catch (IOException e) {
+            TrekCraftMod.LOGGER.warn("Failed to prune old versions of holoprogram '{}'", sanitized, e);
+        }
+        return version;
+    }
+
+    /**
+     * Replace a program's manifest and bring the cache and index up to date.
+     */
+    private static void writeManifest(HoloprogramStore store, String sanitized, HoloprogramFormat.Header source,
+                                      HoloprogramFormat.SectionTable table) throws IOException {
+        Path manifest = store.manifestPath(sanitized);
+        HoloprogramFormat.writeManifest(manifest, source, table);
+        HoloprogramCache.invalidate(manifest.getFileName().toString());
+        HoloprogramIndex manifests = getManifestIndex();
+        if (manifests != null) {
+            manifests.refresh(manifest, table.size());
+        }
+    }
+
+    /**
+     * Write a program's .nbt file and bring the cache and index up to date.
+     *
+     * @param modified Modification time to give the file (an export takes its manifest's), or null for now
+     */
+    private static void writeNbtFile(CompoundTag nbt, Path filePath, Vec3i size, @Nullable FileTime modified)
+            throws IOException {
+        Files.write(filePath, compress(nbt));
+        if (modified != null) {
+            Files.setLastModifiedTime(filePath, modified);
+        }
+        HoloprogramCache.invalidate(filePath.getFileName().toString());
+        getIndex().refresh(filePath, size);
+    }
+
+    private static byte[] compress(CompoundTag nbt) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        NbtIo.writeCompressed(nbt, buffer);
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Write a holoprogram's Create-compatible .nbt into the schematics folder, on the I/O thread.
+     * The file is stamped with its manifest's modification time, so it isn't mistaken for a
+     * newer program to import.
+     *
+     * @return Future completing with the file, or null if there is no such program
+     */
+    public static CompletableFuture<Path> export(String name) {
+        return CompletableFuture.supplyAsync(() -> {
+            pendingExports.remove(sanitizeFileName(name));
+            return writeExport(name);
+        }, IO_EXECUTOR);
+    }
+
+    @Nullable
+    private static Path writeExport(String name) {
+        String sanitized = sanitizeFileName(name);
+        Path filePath = getSchematicsDir().resolve(sanitized + NBT_EXTENSION);
+        Source source = locate(sanitized);
+        if (source == null) return null;
+        // A .nbt newer than the manifest is already the program as it stands
+        if (!source.isNative()) return filePath;
+
         try {
-            String fileName = sanitizeFileName(name) + ".nbt";
-            Path filePath = getSchematicsDir().resolve(fileName);
+            HoloprogramStore store = getStore();
+            CompoundTag nbt = HoloprogramFormat.readNbt(sanitized, store);
+            writeNbtFile(nbt, filePath, HoloprogramIndex.sizeOf(nbt),
+                    Files.getLastModifiedTime(store.manifestPath(sanitized)));
+            TrekCraftMod.LOGGER.info("Exported holoprogram '{}' to {}", name, filePath);
+            return filePath;
+        } catch (Exception e) {
+            TrekCraftMod.LOGGER.error("Failed to export holoprogram '{}'", name, e);
+            return null;
+        }
+    }
+
+    /**
+     * Refresh a program's .nbt a little after it was saved, so Create and other tools see
+     * the save. Called on the I/O thread.
+     */
+    private static void scheduleExport(String sanitized) {
+        if (TrekCraftConfig.holodeckExportNbtOnSave && pendingExports.add(sanitized)) {
+            IO_EXECUTOR.schedule(() -> runExport(sanitized), EXPORT_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void runExport(String sanitized) {
+        if (pendingExports.remove(sanitized)) {
+            writeExport(sanitized);
+        }
+    }
+
+    /**
+     * Run pending exports now rather than on their timers (server stopping).
+     */
+    public static void flushExports() {
+        IO_EXECUTOR.execute(() -> {
+            for (String sanitized : List.copyOf(pendingExports)) {
+                runExport(sanitized);
+            }
+        });
+    }
+
+    /**
+     * A holoprogram as a Create-compatible .nbt file, built in memory from its native copy
+     * (or read as is, if the program only exists as .nbt), on the I/O thread.
+     *
+     * @return Future completing with the file, or null if there is no such program
+     */
+    public static CompletableFuture<NbtFile> nbtFile(String name) {
+        return CompletableFuture.supplyAsync(() -> {
+            String sanitized = sanitizeFileName(name);
+            Source source = locate(sanitized);
+            if (source == null) return null;
+            try {
+                byte[] data = source.isNative()
+                        ? compress(HoloprogramFormat.readNbt(sanitized, getStore()))
+                        : Files.readAllBytes(getSchematicsDir().resolve(sanitized + NBT_EXTENSION));
+                return new NbtFile(data, HoloprogramStore.hash(data));
+            } catch (Exception e) {
+                TrekCraftMod.LOGGER.error("Failed to encode holoprogram '{}' as .nbt", name, e);
+                return null;
+            }
+        }, IO_EXECUTOR);
+    }
+
+    /**
+     * List the saved versions of a holoprogram, on the I/O thread.
+     *
+     * @return Future completing with the versions, oldest first (empty if there are none)
+     */
+    public static CompletableFuture<List<HoloprogramVersions.VersionInfo>> listVersions(String name) {
+        return CompletableFuture.supplyAsync(() -> {
+            HoloprogramStore store = getStore();
+            return store != null ? HoloprogramVersions.list(store, sanitizeFileName(name))
+                    : List.<HoloprogramVersions.VersionInfo>of();
+        }, IO_EXECUTOR);
+    }
+
+    /**
+     * Roll a holoprogram back to an earlier version, on the I/O thread. The old contents
+     * become a new version, so the versions in between are kept.
+     *
+     * @return Future completing with the new version number, or 0 if the version doesn't
+     *         exist or couldn't be restored
+     */
+    public static CompletableFuture<Integer> rollback(String name, int version) {
+        return CompletableFuture.supplyAsync(() -> {
+            String sanitized = sanitizeFileName(name);
+            HoloprogramStore store = getStore();
+            if (store == null || HoloprogramVersions.get(store, sanitized, version) == null) {
+                TrekCraftMod.LOGGER.warn("Holoprogram '{}' has no version {}", name, version);
+                return 0;
+            }
+            try {
+                HoloprogramFormat.SectionTable table = HoloprogramVersions.resolve(store, sanitized, version);
+                int restored = writeProgram(name, store, table, null, null).version();
+                TrekCraftMod.LOGGER.info("Rolled holoprogram '{}' back to version {} (now version {})",
+                        name, version, restored);
+                return restored;
+            } catch (Exception e) {
+                TrekCraftMod.LOGGER.error("Failed to roll holoprogram '{}' back to version {}", name, version, e);
+                return 0;
+            }
+        }, IO_EXECUTOR);
+    }
 
-            NbtIo.writeCompressed(nbt, filePath);
+    /**
+     * Write part of a synced holoprogram locally (client-side), on the I/O thread.
+     * Parts go to a .part file beside the schematic until finishLocal() checks and installs it.
+     *
+     * @param name The holoprogram name
+     * @param offset Where the data goes in the file; 0 starts the file over
+     * @param data Part of the compressed .nbt file
+     * @return Future completing with true if the write was successful
+     */
+    public static CompletableFuture<Boolean> saveLocal(String name, int offset, byte[] data) {
+        return CompletableFuture.supplyAsync(() -> writeLocal(name, offset, data), IO_EXECUTOR);
+    }
+
+    private static boolean writeLocal(String name, int offset, byte[] data) {
+        Path partPath = getSchematicsDir().resolve(sanitizeFileName(name) + NBT_EXTENSION + PART_EXTENSION);
+        OpenOption[] options = offset == 0
+                ? new OpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING}
+                : new OpenOption[]{StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(partPath, options)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            return true;
+        } catch (Exception e) {
+            TrekCraftMod.LOGGER.error("Failed to write holoprogram '{}' locally", name, e);
+            return false;
+        }
+    }
+
+    /**
+     * Install a holoprogram written with saveLocal() if its contents match the expected hash.
+     *
+     * @param name The holoprogram name
+     * @param expectedHash SHA-256 of the complete file
+     * @return Future completing with true if the file was installed
+     */
+    public static CompletableFuture<Boolean> finishLocal(String name, byte[] expectedHash) {
+        return CompletableFuture.supplyAsync(() -> installLocal(name, expectedHash), IO_EXECUTOR);
+    }
+
+    private static boolean installLocal(String name, byte[] expectedHash) {
+        String fileName = sanitizeFileName(name) + NBT_EXTENSION;
+        Path filePath = getSchematicsDir().resolve(fileName);
+        Path partPath = filePath.resolveSibling(fileName + PART_EXTENSION);
+        try {
+            if (!Arrays.equals(HoloprogramStore.hash(Files.readAllBytes(partPath)), expectedHash)) {
+                TrekCraftMod.LOGGER.error("Synced holoprogram '{}' does not match the server's copy", name);
+                Files.deleteIfExists(partPath);
+                return false;
+            }
+            HoloprogramStore.move(partPath, filePath);
+            HoloprogramCache.invalidate(fileName);
 
             TrekCraftMod.LOGGER.info("Saved holoprogram locally '{}' to {}", name, filePath);
             return true;
@@ -181,55 +800,72 @@ public class HoloprogramManager {
     }
 
     /**
-     * Load a holoprogram into a holodeck interior.
+     * SHA-256 of a holoprogram's file, on the I/O thread.
+     *
+     * @return Future completing with the hash, or null if there is no such file
+     */
+    public static CompletableFuture<byte[]> localHash(String name) {
+        return CompletableFuture.supplyAsync(() -> {
+            Path filePath = getSchematicsDir().resolve(sanitizeFileName(name) + NBT_EXTENSION);
+            try {
+                return Files.isRegularFile(filePath) ? HoloprogramStore.hash(Files.readAllBytes(filePath)) : null;
+            } catch (IOException e) {
+                TrekCraftMod.LOGGER.warn("Failed to read holoprogram '{}'", name, e);
+                return null;
+            }
+        }, IO_EXECUTOR);
+    }
+
+    /**
+     * Read a holoprogram and check it fits a holodeck interior, on the I/O thread.
+     * Nothing is placed; the returned placement is handed to a HoloprogramPlacementJob.
      *
-     * @param level The server level
      * @param name The holoprogram name
-     * @param origin The position to place the structure (interior min corner)
      * @param interiorSize The size of the holodeck interior for validation
-     * @return LoadResultDetails with status and size information
+     * @return Future LoadResultDetails with status, size information and the placement on success,
+     *         completed on the I/O thread
      */
-    public static LoadResultDetails load(ServerLevel level, String name, BlockPos origin, Vec3i interiorSize) {
-        try {
-            String fileName = sanitizeFileName(name) + ".nbt";
-            Path filePath = getSchematicsDir().resolve(fileName);
+    public static CompletableFuture<LoadResultDetails> prepare(String name, Vec3i interiorSize) {
+        return CompletableFuture.supplyAsync(() -> read(name, interiorSize), IO_EXECUTOR);
+    }
 
-            if (!Files.exists(filePath)) {
-                TrekCraftMod.LOGGER.warn("Holoprogram '{}' not found at {}", name, filePath);
+    private static LoadResultDetails read(String name, Vec3i interiorSize) {
+        try {
+            String sanitized = sanitizeFileName(name);
+            Source source = locate(sanitized);
+            if (source == null) {
+                TrekCraftMod.LOGGER.warn("Holoprogram '{}' not found", name);
                 return LoadResultDetails.notFound();
             }
+            boolean isNative = source.isNative();
+            HoloprogramIndex.ProgramInfo info = isNative ? source.manifest() : source.nbt();
+            HoloprogramIndex sourceIndex = isNative ? getManifestIndex() : getIndex();
+            String fileName = isNative ? sanitized + HoloprogramStore.MANIFEST_EXTENSION : sanitized + NBT_EXTENSION;
 
-            // Read NBT
-            CompoundTag nbt = NbtIo.readCompressed(filePath, NbtAccounter.unlimitedHeap());
+            // Reject programs that can't fit before reading them in full
+            Vec3i indexedSize = sourceIndex.dimensionsOf(sanitized);
+            if (indexedSize != null && !fits(indexedSize, interiorSize)) {
+                return tooLarge(name, indexedSize, interiorSize);
+            }
 
-            // Create structure template and load
-            StructureTemplate template = new StructureTemplate();
-            template.load(BuiltInRegistries.BLOCK.asLookup(), nbt);
+            // Serve recently loaded programs from memory while the file is unchanged
+            HoloprogramPlacement placement = HoloprogramCache.get(fileName, info.modified(), info.fileSize());
 
-            // Get schematic size and validate against interior
-            Vec3i schematicSize = template.getSize();
-            if (schematicSize.getX() > interiorSize.getX() ||
-                schematicSize.getY() > interiorSize.getY() ||
-                schematicSize.getZ() > interiorSize.getZ()) {
-                TrekCraftMod.LOGGER.warn("Holoprogram '{}' too large ({}x{}x{}) for holodeck ({}x{}x{})",
-                        name,
-                        schematicSize.getX(), schematicSize.getY(), schematicSize.getZ(),
-                        interiorSize.getX(), interiorSize.getY(), interiorSize.getZ());
-                return LoadResultDetails.tooLarge(schematicSize, interiorSize);
+            if (placement == null) {
+                placement = isNative ? readNative(source) : null;
+                if (placement == null) {
+                    placement = importNbt(sanitized, source.nbt());
+                }
+                HoloprogramCache.put(fileName, info.modified(), info.fileSize(), placement);
             }
 
-            // Create placement settings
-            StructurePlaceSettings settings = new StructurePlaceSettings()
-                .setRotation(Rotation.NONE)
-                .setMirror(Mirror.NONE)
-                .setIgnoreEntities(false);
-
-            // Place in world
-            // The 2 flag means UPDATE_CLIENTS
-            template.placeInWorld(level, origin, origin, settings, RandomSource.create(), 2);
+            // Get schematic size and validate against interior
+            Vec3i schematicSize = placement.getSize();
+            if (!fits(schematicSize, interiorSize)) {
+                return tooLarge(name, schematicSize, interiorSize);
+            }
 
-            TrekCraftMod.LOGGER.info("Loaded holoprogram '{}' at {}", name, origin);
-            return LoadResultDetails.success();
+            return LoadResultDetails.success(placement, currentVersion(sanitized));
 
         } catch (Exception e) {
             TrekCraftMod.LOGGER.error("Failed to load holoprogram '{}'", name, e);
@@ -238,50 +874,202 @@ public class HoloprogramManager {
     }
 
     /**
-     * List all available holoprograms.
-     *
-     * @return List of holoprogram names (without .nbt extension)
+     * The saved version a program's manifest was written with, or 0 if it has none (e.g.
+     * the program hasn't been imported into the store, or recording the version failed).
      */
-    public static List<String> listHoloprograms() {
-        List<String> holoprograms = new ArrayList<>();
-        Path dir = getSchematicsDir();
+    private static int currentVersion(String sanitized) {
+        HoloprogramStore store = getStore();
+        if (store == null) return 0;
+        HoloprogramVersions.VersionInfo latest = HoloprogramVersions.latest(store, sanitized);
+        return latest != null && latest.source().equals(HoloprogramFormat.readHeader(store.manifestPath(sanitized)))
+                ? latest.version() : 0;
+    }
 
-        if (!Files.exists(dir)) {
-            return holoprograms;
+    /**
+     * Read a program from its manifest. If that fails and there is a .nbt, the caller
+     * imports that instead.
+     */
+    @Nullable
+    private static HoloprogramPlacement readNative(Source source) throws IOException {
+        try {
+            return HoloprogramFormat.readPlacement(source.sanitized(), getStore(), BuiltInRegistries.BLOCK.asLookup());
+        } catch (IOException | RuntimeException e) {
+            if (source.nbt() == null) throw e;
+            TrekCraftMod.LOGGER.warn("Failed to read native copy of '{}', falling back to .nbt", source.sanitized(), e);
+            return null;
         }
+    }
 
-        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.nbt")) {
-            for (Path file : stream) {
-                String fileName = file.getFileName().toString();
-                // Remove .nbt extension
-                String name = fileName.substring(0, fileName.length() - 4);
-                holoprograms.add(name);
+    /**
+     * Read a program's .nbt (new, or changed outside TrekCraft since its manifest was
+     * written) and make it the program's native copy, as a new version.
+     */
+    private static HoloprogramPlacement importNbt(String sanitized, HoloprogramIndex.ProgramInfo info) throws IOException {
+        Path filePath = getSchematicsDir().resolve(sanitized + NBT_EXTENSION);
+        CompoundTag nbt = NbtIo.readCompressed(filePath, NbtAccounter.unlimitedHeap());
+
+        // Sort into placement layers
+        HoloprogramPlacement placement = HoloprogramPlacement.fromNbt(BuiltInRegistries.BLOCK.asLookup(), nbt);
+
+        writeNative(nbt, sanitized, new HoloprogramFormat.Header(info.modified(), info.fileSize()));
+        return placement;
+    }
+
+    /**
+     * Import structure NBT as a program's native copy. Failures here only mean the .nbt
+     * is read again next time.
+     */
+    private static void writeNative(CompoundTag nbt, String sanitized, HoloprogramFormat.Header source) {
+        HoloprogramStore store = getStore();
+        if (store == null) return;
+        try {
+            Path manifest = store.manifestPath(sanitized);
+            HoloprogramFormat.SectionTable table = HoloprogramFormat.toSections(nbt, store);
+            if (table == null) {
+                // Can't be represented natively; the .nbt stays the program
+                store.removeManifest(sanitized);
+                HoloprogramIndex manifests = getManifestIndex();
+                if (manifests != null) {
+                    manifests.remove(sanitized);
+                }
+                scheduleGarbageCollection();
+            } else if (Files.exists(manifest) && sameContents(HoloprogramFormat.readTable(manifest), table)) {
+                // Nothing new (e.g. a synced copy written back into this folder): the manifest stays current
+                Files.setLastModifiedTime(manifest, FileTime.fromMillis(System.currentTimeMillis()));
+                HoloprogramIndex manifests = getManifestIndex();
+                if (manifests != null) {
+                    manifests.refresh(manifest, table.size());
+                }
+            } else {
+                writeManifest(store, sanitized, source, table);
+                appendVersion(store, sanitized, table, null, null, source);
             }
-        } catch (IOException e) {
-            TrekCraftMod.LOGGER.error("Failed to list holoprograms", e);
+        } catch (Exception e) {
+            TrekCraftMod.LOGGER.warn("Failed to import holoprogram '{}' into the native store", sanitized, e);
+        }
+    }
+
+    private static boolean sameContents(HoloprogramFormat.SectionTable a, HoloprogramFormat.SectionTable b) {
+        return a.size().equals(b.size()) && a.extras().equals(b.extras()) && a.entities().equals(b.entities())
+                && Arrays.deepEquals(a.sections(), b.sections());
+    }
+
+    /**
+     * Collect unreferenced chunks a while after the first delete or pruned version that
+     * may have left some, so bursts share one pass over the store.
+     */
+    private static void scheduleGarbageCollection() {
+        if (!garbageCollectionPending) {
+            garbageCollectionPending = true;
+            IO_EXECUTOR.schedule(HoloprogramManager::collectGarbage, GARBAGE_COLLECTION_DELAY_SECONDS, TimeUnit.SECONDS);
         }
+    }
 
-        holoprograms.sort(String::compareToIgnoreCase);
-        return holoprograms;
+    /**
+     * Run a pending chunk collection now rather than on its timer (server stopping).
+     */
+    public static void flushGarbageCollection() {
+        IO_EXECUTOR.execute(HoloprogramManager::collectGarbage);
+    }
+
+    private static void collectGarbage() {
+        if (!garbageCollectionPending) return;
+        garbageCollectionPending = false;
+        HoloprogramStore store = getStore();
+        if (store != null) {
+            store.collectGarbage();
+        }
+    }
+
+    private static boolean fits(Vec3i schematicSize, Vec3i interiorSize) {
+        return schematicSize.getX() <= interiorSize.getX()
+                && schematicSize.getY() <= interiorSize.getY()
+                && schematicSize.getZ() <= interiorSize.getZ();
+    }
+
+    private static LoadResultDetails tooLarge(String name, Vec3i schematicSize, Vec3i interiorSize) {
+        TrekCraftMod.LOGGER.warn("Holoprogram '{}' too large ({}x{}x{}) for holodeck ({}x{}x{})",
+                name,
+                schematicSize.getX(), schematicSize.getY(), schematicSize.getZ(),
+                interiorSize.getX(), interiorSize.getY(), interiorSize.getZ());
+        return LoadResultDetails.tooLarge(schematicSize, interiorSize);
     }
 
     /**
-     * Delete a holoprogram.
+     * List all available holoprograms, native or .nbt, from the directory indexes.
+     *
+     * @return Unmodifiable list of holoprogram names (without extension)
+     */
+    public static synchronized List<String> listHoloprograms() {
+        List<String> files = getIndex().listNames();
+        HoloprogramIndex manifests = getManifestIndex();
+        List<String> natives = manifests != null ? manifests.listNames() : List.of();
+        if (natives.isEmpty()) return files;
+        if (files.isEmpty()) return natives;
+
+        // The indexes hand out the same lists until they change, so the merge is cached against them
+        if (files != mergedFiles || natives != mergedNatives) {
+            List<String> merged = new ArrayList<>(files.size() + natives.size());
+            int i = 0, j = 0;
+            while (i < files.size() || j < natives.size()) {
+                int order = i >= files.size() ? 1 : j >= natives.size() ? -1 : HoloprogramIndex.NAME_ORDER.compare(files.get(i), natives.get(j));
+                if (order <= 0) {
+                    merged.add(files.get(i++));
+                    if (order == 0) j++;
+                } else {
+                    merged.add(natives.get(j++));
+                }
+            }
+            mergedNames = List.copyOf(merged);
+            mergedFiles = files;
+            mergedNatives = natives;
+        }
+        return mergedNames;
+    }
+
+    /**
+     * Delete a holoprogram, on the I/O thread.
      *
      * @param name The holoprogram name
-     * @return true if deletion was successful
+     * @return Future completing with true if deletion was successful
+     */
+    public static CompletableFuture<Boolean> delete(String name) {
+        return CompletableFuture.supplyAsync(() -> deleteFile(name), IO_EXECUTOR);
+    }
+
+    /**
+     * Wait (briefly) for queued writes and deletes to reach disk, e.g. when the server stops.
      */
-    public static boolean delete(String name) {
+    public static void awaitPendingIO() {
         try {
-            String fileName = sanitizeFileName(name) + ".nbt";
-            Path filePath = getSchematicsDir().resolve(fileName);
+            CompletableFuture.runAsync(() -> {}, IO_EXECUTOR).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            TrekCraftMod.LOGGER.warn("Holoprogram I/O did not finish in time", e);
+        }
+    }
 
-            if (!Files.exists(filePath)) {
+    private static boolean deleteFile(String name) {
+        try {
+            String sanitized = sanitizeFileName(name);
+            if (locate(sanitized) == null) {
                 TrekCraftMod.LOGGER.warn("Holoprogram '{}' not found for deletion", name);
                 return false;
             }
 
-            Files.delete(filePath);
+            Files.deleteIfExists(getSchematicsDir().resolve(sanitized + NBT_EXTENSION));
+            HoloprogramCache.invalidate(sanitized + NBT_EXTENSION);
+            getIndex().remove(sanitized);
+            HoloprogramStore store = getStore();
+            if (store != null) {
+                store.removeManifest(sanitized);
+                store.removeVersions(sanitized);
+                HoloprogramCache.invalidate(sanitized + HoloprogramStore.MANIFEST_EXTENSION);
+                HoloprogramIndex manifests = getManifestIndex();
+                if (manifests != null) {
+                    manifests.remove(sanitized);
+                }
+                scheduleGarbageCollection();
+            }
             TrekCraftMod.LOGGER.info("Deleted holoprogram '{}'", name);
             return true;
 
@@ -292,15 +1080,14 @@ public class HoloprogramManager {
     }
 
     /**
-     * Check if a holoprogram exists.
+     * Check if a holoprogram exists. Answered from the indexes, which only touch the disk
+     * for names they haven't checked before (or always, if a folder can't be watched).
      *
      * @param name The holoprogram name
      * @return true if the holoprogram exists
      */
     public static boolean exists(String name) {
-        String fileName = sanitizeFileName(name) + ".nbt";
-        Path filePath = getSchematicsDir().resolve(fileName);
-        return Files.exists(filePath);
+        return locate(sanitizeFileName(name)) != null;
     }
 
     /**
@@ -326,7 +1113,7 @@ public class HoloprogramManager {
     /**
      * Sanitize a file name to prevent path traversal and invalid characters.
      */
-    private static String sanitizeFileName(String name) {
+    static String sanitizeFileName(String name) {
         // Remove path separators and other dangerous characters
         String sanitized = name.replaceAll("[/\\\\:*?\"<>|]", "_");
         // Limit length
@@ -0,0 +1,184 @@
+package com.csquared.trekcraft.holodeck;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.HolderGetter;
+import net.minecraft.core.Vec3i;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.nbt.Tag;
+import net.minecraft.world.level.EmptyBlockGetter;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A holoprogram read from structure NBT (or HoloprogramFormat) and sorted into placement layers:
+ * full solid blocks first, then blocks that need support (torches, doors, plants,
+ * fluids...), then blocks with block entities. Entities are spawned last.
+ *
+ * Placing in this order means attached blocks always find their support, so the
+ * program can be placed a slice at a time without anything popping off.
+ */
+public class HoloprogramPlacement {
+
+    public record BlockEntry(BlockPos relativePos, BlockState state, @Nullable CompoundTag blockEntityData) {}
+
+    public record EntityEntry(double x, double y, double z, CompoundTag data) {}
+
+    // Rough heap cost of an entry (record, position, list slot); tags are counted separately
+    private static final int ENTRY_BYTES = 64;
+
+    private final Vec3i size;
+    private final List<BlockEntry> blocks;
+    private final List<EntityEntry> entities;
+    private final long estimatedBytes;
+
+    private HoloprogramPlacement(Vec3i size, List<BlockEntry> blocks, List<EntityEntry> entities) {
+        this.size = size;
+        // Placements may be cached and shared between loads
+        this.blocks = Collections.unmodifiableList(blocks);
+        this.entities = Collections.unmodifiableList(entities);
+
+        long estimate = (long) (blocks.size() + entities.size()) * ENTRY_BYTES;
+        for (BlockEntry entry : blocks) {
+            if (entry.blockEntityData() != null) {
+                estimate += entry.blockEntityData().sizeInBytes();
+            }
+        }
+        for (EntityEntry entry : entities) {
+            estimate += entry.data().sizeInBytes();
+        }
+        this.estimatedBytes = estimate;
+    }
+
+    /**
+     * Read a structure template (Create-compatible .nbt layout) into placement order.
+     * Only the first palette is used, as with StructureTemplate's default placement.
+     */
+    public static HoloprogramPlacement fromNbt(HolderGetter<Block> blockLookup, CompoundTag nbt) {
+        ListTag sizeTag = nbt.getList("size", Tag.TAG_INT);
+        Vec3i size = sizeTag.size() == 3
+                ? new Vec3i(sizeTag.getInt(0), sizeTag.getInt(1), sizeTag.getInt(2))
+                : Vec3i.ZERO;
+
+        ListTag paletteTag = nbt.contains("palettes", Tag.TAG_LIST)
+                ? nbt.getList("palettes", Tag.TAG_LIST).getList(0)
+                : nbt.getList("palette", Tag.TAG_COMPOUND);
+        BlockState[] palette = new BlockState[paletteTag.size()];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = NbtUtils.readBlockState(blockLookup, paletteTag.getCompound(i));
+        }
+
+        Builder builder = new Builder(size);
+        ListTag blocksTag = nbt.getList("blocks", Tag.TAG_COMPOUND);
+        for (int i = 0; i < blocksTag.size(); i++) {
+            CompoundTag blockTag = blocksTag.getCompound(i);
+            int stateIndex = blockTag.getInt("state");
+            if (stateIndex < 0 || stateIndex >= palette.length) continue;
+
+            ListTag posTag = blockTag.getList("pos", Tag.TAG_INT);
+            builder.addBlock(posTag.getInt(0), posTag.getInt(1), posTag.getInt(2), palette[stateIndex],
+                    blockTag.contains("nbt", Tag.TAG_COMPOUND) ? blockTag.getCompound("nbt") : null);
+        }
+
+        ListTag entitiesTag = nbt.getList("entities", Tag.TAG_COMPOUND);
+        for (int i = 0; i < entitiesTag.size(); i++) {
+            builder.addEntity(entitiesTag.getCompound(i));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Collects blocks and entities in any order and sorts them into placement layers.
+     */
+    static class Builder {
+        private final Vec3i size;
+        private final List<BlockEntry> solid = new ArrayList<>();
+        private final List<BlockEntry> attached = new ArrayList<>();
+        private final List<BlockEntry> withBlockEntities = new ArrayList<>();
+        private final List<EntityEntry> entities = new ArrayList<>();
+
+        Builder(Vec3i size) {
+            this.size = size;
+        }
+
+        void addBlock(int x, int y, int z, BlockState state, @Nullable CompoundTag blockEntityData) {
+            if (state.isAir()) return;
+
+            if (blockEntityData != null) {
+                // Position comes from where the block is placed, so compare and load without it
+                blockEntityData = blockEntityData.copy();
+                blockEntityData.remove("x");
+                blockEntityData.remove("y");
+                blockEntityData.remove("z");
+            }
+
+            BlockEntry entry = new BlockEntry(new BlockPos(x, y, z), state, blockEntityData);
+            if (blockEntityData != null || state.hasBlockEntity()) {
+                withBlockEntities.add(entry);
+            } else if (isSelfSupporting(state)) {
+                solid.add(entry);
+            } else {
+                attached.add(entry);
+            }
+        }
+
+        /**
+         * Add an entity in structure template layout ("pos" and "nbt").
+         */
+        void addEntity(CompoundTag entityTag) {
+            ListTag posTag = entityTag.getList("pos", Tag.TAG_DOUBLE);
+            if (posTag.size() != 3 || !entityTag.contains("nbt", Tag.TAG_COMPOUND)) return;
+            entities.add(new EntityEntry(posTag.getDouble(0), posTag.getDouble(1), posTag.getDouble(2),
+                    entityTag.getCompound("nbt")));
+        }
+
+        HoloprogramPlacement build() {
+            // Within a layer, bottom-up so stacked attachments (e.g. sugar cane) are placed in order
+            solid.sort((a, b) -> Integer.compare(a.relativePos().getY(), b.relativePos().getY()));
+            attached.sort((a, b) -> Integer.compare(a.relativePos().getY(), b.relativePos().getY()));
+
+            List<BlockEntry> ordered = new ArrayList<>(solid.size() + attached.size() + withBlockEntities.size());
+            ordered.addAll(solid);
+            ordered.addAll(attached);
+            ordered.addAll(withBlockEntities);
+            return new HoloprogramPlacement(size, ordered, new ArrayList<>(entities));
+        }
+    }
+
+    /**
+     * Full, solid blocks stand on their own; anything else may need a neighbor to survive.
+     */
+    private static boolean isSelfSupporting(BlockState state) {
+        return state.getFluidState().isEmpty()
+                && state.isCollisionShapeFullBlock(EmptyBlockGetter.INSTANCE, BlockPos.ZERO);
+    }
+
+    public Vec3i getSize() {
+        return size;
+    }
+
+    /**
+     * Blocks in placement order.
+     */
+    public List<BlockEntry> getBlocks() {
+        return blocks;
+    }
+
+    public List<EntityEntry> getEntities() {
+        return entities;
+    }
+
+    /**
+     * Approximate memory held by this placement, for HoloprogramCache accounting.
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+}
@@ -0,0 +1,262 @@
+package com.csquared.trekcraft.holodeck;
+
+import com.csquared.trekcraft.TrekCraftConfig;
+import com.csquared.trekcraft.TrekCraftMod;
+import com.csquared.trekcraft.network.HolodeckStatusPayload;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Vec3i;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.DoubleTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.phys.Vec3;
+import net.neoforged.neoforge.network.PacketDistributor;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Loads a holoprogram into a holo-area over several ticks: the interior is brought in
+ * line with the program section by section, writing only the cells that differ (see
+ * HoloprogramDiff) within per-tick budgets, then the program's entities are spawned.
+ *
+ * From the players' side the load is atomic: nobody can enter while it runs, and
+ * anyone already inside is held in place until the program is complete.
+ */
+public class HoloprogramPlacementJob {
+
+    private static final int STATUS_INTERVAL_TICKS = 10;
+    private static final double STATUS_RADIUS = 16.0;
+
+    // dimension -> owner (controller or primary emitter) -> running load
+    private static final Map<ResourceKey<Level>, Map<BlockPos, HoloprogramPlacementJob>> jobs = new HashMap<>();
+
+    private final BlockPos owner;
+    private final BlockPos origin;
+    private final String programName;
+    @Nullable
+    private final UUID requestedBy;
+    private final HoloprogramPlacement placement;
+    // Saved version being loaded (0 if unknown), and whether it covers the whole area
+    private final int version;
+    private final boolean fillsArea;
+    private final HoloAreaJournal journal;
+    // Ticket of the baseline set when the load started, or 0 if it sets none
+    private int baselineTicket = 0;
+
+    private final HoloprogramDiff diff;
+    private int ticks = 0;
+
+    // Occupants held in place while the program materializes
+    private final Map<UUID, Vec3> heldPositions = new HashMap<>();
+
+    private HoloprogramPlacementJob(BlockPos owner, BlockPos origin, String programName, @Nullable UUID requestedBy,
+                                    HoloprogramPlacement placement, int version, boolean fillsArea,
+                                    HoloAreaJournal journal, HoloprogramDiff diff) {
+        this.owner = owner.immutable();
+        this.origin = origin.immutable();
+        this.programName = programName;
+        this.requestedBy = requestedBy;
+        this.placement = placement;
+        this.version = version;
+        this.fillsArea = fillsArea;
+        this.journal = journal;
+        this.diff = diff;
+    }
+
+    /**
+     * Start loading a program into an area, replacing whatever is there now.
+     *
+     * @param version The saved version the placement was read from, or 0 if unknown
+     * @return false if the area is already busy clearing or loading
+     */
+    public static boolean start(ServerLevel level, BlockPos owner, BlockPos interiorMin, BlockPos interiorMax,
+                                HoloAreaJournal journal, Predicate<BlockState> keep,
+                                HoloprogramPlacement placement, String programName, int version,
+                                @Nullable UUID requestedBy) {
+        if (isBusy(level, owner)) {
+            return false;
+        }
+
+        // Drains or resets the journal, which also drops the area's previous baseline
+        HoloprogramDiff diff = new HoloprogramDiff(level, interiorMin, interiorMax, interiorMin, placement, journal, keep);
+        boolean fillsArea = placement.getSize().equals(new Vec3i(interiorMax.getX() - interiorMin.getX() + 1,
+                interiorMax.getY() - interiorMin.getY() + 1, interiorMax.getZ() - interiorMin.getZ() + 1));
+        HoloprogramPlacementJob job = new HoloprogramPlacementJob(owner, interiorMin, programName, requestedBy,
+                placement, version, fillsArea, journal, diff);
+        // The loaded version is the baseline from the start, so changes made while it loads still count
+        if (version > 0 && fillsArea) {
+            job.baselineTicket = journal.getBaseline().set(HoloprogramManager.sanitizeFileName(programName), version);
+        }
+        jobs.computeIfAbsent(level.dimension(), k -> new HashMap<>()).put(job.owner, job);
+
+        TrekCraftMod.LOGGER.debug("Started loading holoprogram '{}' at {} ({} blocks)",
+                programName, owner, placement.getBlocks().size());
+        return true;
+    }
+
+    /**
+     * Abandon a load in progress (the area is being cleared or taken down).
+     * The journal gets back the positions the load took over but hasn't reached, so the
+     * clear that follows still finds them along with every block the load wrote.
+     */
+    public static void cancel(Level level, BlockPos owner) {
+        Map<BlockPos, HoloprogramPlacementJob> levelJobs = jobs.get(level.dimension());
+        HoloprogramPlacementJob job = levelJobs != null ? levelJobs.remove(owner) : null;
+        if (job != null) {
+            job.diff.abandon();
+            job.journal.getBaseline().clear();
+            TrekCraftMod.LOGGER.debug("Cancelled holoprogram load at {}", owner);
+            if (levelJobs.isEmpty()) {
+                jobs.remove(level.dimension());
+            }
+        }
+    }
+
+    @Nullable
+    public static HoloprogramPlacementJob get(Level level, BlockPos owner) {
+        Map<BlockPos, HoloprogramPlacementJob> levelJobs = jobs.get(level.dimension());
+        return levelJobs != null ? levelJobs.get(owner) : null;
+    }
+
+    /**
+     * Whether an area is clearing, loading or restoring an undo step. Players can't enter
+     * while it clears or loads.
+     */
+    public static boolean isBusy(Level level, BlockPos owner) {
+        return get(level, owner) != null || HoloAreaClearJob.isClearing(level, owner)
+                || HoloAreaRestoreJob.isRestoring(level, owner);
+    }
+
+    /**
+     * Advance every load in this level by one tick's budget.
+     */
+    public static void tick(ServerLevel level) {
+        if (jobs.isEmpty()) return;
+
+        Map<BlockPos, HoloprogramPlacementJob> levelJobs = jobs.get(level.dimension());
+        if (levelJobs == null) return;
+
+        int placeBudget = Math.max(1, TrekCraftConfig.holodeckPlaceBlocksPerTick / levelJobs.size());
+        int clearBudget = Math.max(1, TrekCraftConfig.holodeckClearBlocksPerTick / levelJobs.size());
+        Iterator<HoloprogramPlacementJob> it = levelJobs.values().iterator();
+        while (it.hasNext()) {
+            HoloprogramPlacementJob job = it.next();
+            boolean done = job.diff.step(level, clearBudget, placeBudget, false);
+            job.ticks++;
+            if (done) {
+                it.remove();
+                job.finish(level);
+            } else if (job.ticks % STATUS_INTERVAL_TICKS == 0) {
+                job.sendStatus(level, "LOADING", job.getProgressPercent());
+            }
+        }
+        if (levelJobs.isEmpty()) {
+            jobs.remove(level.dimension());
+        }
+    }
+
+    /**
+     * Complete every outstanding load (server stopping) so no program is left half-placed.
+     */
+    public static void finishAll(MinecraftServer server) {
+        for (ServerLevel level : server.getAllLevels()) {
+            Map<BlockPos, HoloprogramPlacementJob> levelJobs = jobs.get(level.dimension());
+            if (levelJobs == null) continue;
+            for (HoloprogramPlacementJob job : levelJobs.values()) {
+                job.diff.step(level, Integer.MAX_VALUE, Integer.MAX_VALUE, true);
+                // Baselines aren't kept past shutdown, so there's nothing to settle
+                job.placeEntities(level);
+            }
+        }
+        jobs.clear();
+    }
+
+    /**
+     * Keep an occupant where they were when the load started.
+     */
+    public void holdInPlace(ServerPlayer player) {
+        Vec3 held = heldPositions.computeIfAbsent(player.getUUID(), id -> player.position());
+        if (player.position().distanceToSqr(held) > 0.25) {
+            player.teleportTo(held.x, held.y, held.z);
+        }
+        player.resetFallDistance();
+    }
+
+    public int getProgressPercent() {
+        return diff.getProgressPercent();
+    }
+
+    private void placeEntities(ServerLevel level) {
+        for (HoloprogramPlacement.EntityEntry entry : placement.getEntities()) {
+            double x = origin.getX() + entry.x();
+            double y = origin.getY() + entry.y();
+            double z = origin.getZ() + entry.z();
+
+            CompoundTag data = entry.data().copy();
+            ListTag pos = new ListTag();
+            pos.add(DoubleTag.valueOf(x));
+            pos.add(DoubleTag.valueOf(y));
+            pos.add(DoubleTag.valueOf(z));
+            data.put("Pos", pos);
+            data.remove("UUID");
+
+            EntityType.create(data, level).ifPresent(entity -> {
+                entity.moveTo(x, y, z, entity.getYRot(), entity.getXRot());
+                level.addFreshEntityWithPassengers(entity);
+            });
+        }
+    }
+
+    /**
+     * The area now matches the loaded version: take its section checksums, so the next save
+     * of the program can be a delta. The area is copied now and checksummed on the I/O thread.
+     */
+    private void settleBaseline(ServerLevel level) {
+        if (baselineTicket == 0) return;
+
+        HoloAreaBaseline baseline = journal.getBaseline();
+        int ticket = baselineTicket;
+        HoloprogramManager.checksumSections(HoloAreaSnapshot.take(level, origin, placement.getSize(), false))
+                .whenCompleteAsync((checksums, error) -> {
+                    if (error != null) {
+                        // The next save compares every section instead
+                        TrekCraftMod.LOGGER.warn("Failed to checksum holoprogram '{}' at {}", programName, origin, error);
+                    } else {
+                        baseline.setChecksums(ticket, checksums);
+                    }
+                }, level.getServer());
+    }
+
+    private void finish(ServerLevel level) {
+        placeEntities(level);
+        settleBaseline(level);
+        sendStatus(level, "", 100);
+
+        if (requestedBy != null) {
+            ServerPlayer player = level.getServer().getPlayerList().getPlayer(requestedBy);
+            if (player != null) {
+                player.displayClientMessage(Component.literal("Holoprogram loaded: " + programName), true);
+            }
+        }
+        TrekCraftMod.LOGGER.info("Loaded holoprogram '{}' at {} in {} ticks ({} of {} blocks written)",
+                programName, origin, ticks, diff.getBlocksWritten(), placement.getBlocks().size());
+    }
+
+    private void sendStatus(ServerLevel level, String status, int progressPercent) {
+        PacketDistributor.sendToPlayersNear(level, null,
+                owner.getX() + 0.5, owner.getY() + 0.5, owner.getZ() + 0.5, STATUS_RADIUS,
+                new HolodeckStatusPayload(owner, status, progressPercent));
+    }
+}
@@ -0,0 +1,210 @@
+package com.csquared.trekcraft.holodeck;
+
+import com.csquared.trekcraft.TrekCraftMod;
+import net.minecraft.Util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Content-addressed storage behind the native holoprogram format.
+ *
+ * A program is a manifest (one per name) referencing chunks by the SHA-256 of their
+ * contents; each chunk holds one self-contained 16x16x16 section (see HoloprogramFormat).
+ * Programs that share sections, such as successive revisions of a build or variants of a
+ * scene, share chunk files, and saving only writes the chunks that are new.
+ *
+ * Chunks neither a manifest nor a version (see HoloprogramVersions) refers to are removed
+ * by collectGarbage(). All access happens on the holoprogram I/O thread.
+ *
+ * Layout: {@code <root>/manifests/<name>.holo}, {@code <root>/versions/<name>/<n>.holo}
+ * and {@code <root>/chunks/<ab>/<hash>.chunk}.
+ */
+public class HoloprogramStore {
+
+    public static final int HASH_BYTES = 32;
+
+    static final String MANIFEST_EXTENSION = ".holo";
+    private static final String CHUNK_EXTENSION = ".chunk";
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final Path manifestDir;
+    private final Path chunkDir;
+    private final Path versionsDir;
+
+    // Counters since startup, for logging
+    private long chunksWritten = 0;
+    private long chunksReused = 0;
+
+    HoloprogramStore(Path root) throws IOException {
+        this.manifestDir = root.resolve("manifests");
+        this.chunkDir = root.resolve("chunks");
+        this.versionsDir = root.resolve("versions");
+        Files.createDirectories(manifestDir);
+        Files.createDirectories(chunkDir);
+    }
+
+    /**
+     * Folder holding every program's current manifest.
+     */
+    public Path manifestDir() {
+        return manifestDir;
+    }
+
+    public Path manifestPath(String name) {
+        return manifestDir.resolve(name + MANIFEST_EXTENSION);
+    }
+
+    /**
+     * Folder holding a program's versions (see HoloprogramVersions).
+     */
+    public Path versionDir(String name) {
+        return versionsDir.resolve(name);
+    }
+
+    /**
+     * Store a chunk unless an identical one is already stored.
+     *
+     * @return The chunk's hash
+     */
+    public byte[] put(byte[] content) throws IOException {
+        byte[] hash = hash(content);
+        Path path = chunkPath(hash);
+        if (Files.exists(path)) {
+            chunksReused++;
+            return hash;
+        }
+
+        Files.createDirectories(path.getParent());
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try (OutputStream out = new DeflaterOutputStream(Files.newOutputStream(tmp), deflater)) {
+            out.write(content);
+        } finally {
+            deflater.end();
+        }
+        move(tmp, path);
+        chunksWritten++;
+        return hash;
+    }
+
+    public byte[] get(byte[] hash) throws IOException {
+        Inflater inflater = new Inflater();
+        try (InputStream in = new InflaterInputStream(Files.newInputStream(chunkPath(hash)), inflater)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+            in.transferTo(out);
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Remove the manifest of a deleted program. Its chunks go at the next collection.
+     */
+    public void removeManifest(String name) throws IOException {
+        Files.deleteIfExists(manifestPath(name));
+    }
+
+    /**
+     * Remove every version of a deleted program. Their chunks go at the next collection.
+     */
+    public void removeVersions(String name) throws IOException {
+        Path dir = versionDir(name);
+        if (!Files.isDirectory(dir)) return;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    /**
+     * Delete every chunk no manifest or version refers to.
+     *
+     * @return Number of chunks deleted
+     */
+    public int collectGarbage() {
+        long start = Util.getMillis();
+        Set<String> live = new HashSet<>();
+        try (DirectoryStream<Path> manifests = Files.newDirectoryStream(manifestDir, "*" + MANIFEST_EXTENSION)) {
+            for (Path manifest : manifests) {
+                for (byte[] hash : HoloprogramFormat.readChunkRefs(manifest)) {
+                    live.add(HEX.formatHex(hash));
+                }
+            }
+            if (Files.isDirectory(versionsDir)) {
+                try (Stream<Path> versions = Files.walk(versionsDir)) {
+                    for (Path version : (Iterable<Path>) versions::iterator) {
+                        if (!version.getFileName().toString().endsWith(MANIFEST_EXTENSION)) continue;
+                        for (byte[] hash : HoloprogramVersions.readChunkRefs(version)) {
+                            live.add(HEX.formatHex(hash));
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // Never sweep on a partial view of what is referenced
+            TrekCraftMod.LOGGER.warn("Skipping holoprogram chunk collection", e);
+            return 0;
+        }
+
+        int deleted = 0;
+        try (Stream<Path> files = Files.walk(chunkDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String fileName = file.getFileName().toString();
+                if (!fileName.endsWith(CHUNK_EXTENSION)) continue;
+                String hex = fileName.substring(0, fileName.length() - CHUNK_EXTENSION.length());
+                if (!live.contains(hex)) {
+                    Files.deleteIfExists(file);
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            TrekCraftMod.LOGGER.warn("Holoprogram chunk collection stopped early", e);
+        }
+
+        TrekCraftMod.LOGGER.debug("Collected {} unreferenced holoprogram chunks ({} live) in {} ms; {} written, {} reused since start",
+                deleted, live.size(), Util.getMillis() - start, chunksWritten, chunksReused);
+        return deleted;
+    }
+
+    private Path chunkPath(byte[] hash) {
+        String hex = HEX.formatHex(hash);
+        return chunkDir.resolve(hex.substring(0, 2)).resolve(hex + CHUNK_EXTENSION);
+    }
+
+    static byte[] hash(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.csquared.trekcraft.holodeck;
+
+import com.csquared.trekcraft.TrekCraftMod;
+import com.csquared.trekcraft.network.HoloprogramChunkAckPayload;
+import com.csquared.trekcraft.network.HoloprogramChunkPayload;
+import com.csquared.trekcraft.network.HoloprogramOfferPayload;
+import com.csquared.trekcraft.network.HoloprogramOfferReplyPayload;
+import net.minecraft.server.level.ServerPlayer;
+import net.neoforged.neoforge.network.PacketDistributor;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+/**
+ * Copies saved holoprograms into the saving player's local schematics folder.
+ *
+ * The server offers each file by name and SHA-256; the client declines if it already has
+ * an identical file. Accepted files are sent as fixed-size slices of the compressed .nbt,
+ * with at most WINDOW slices unacknowledged, and the client acknowledges each slice once
+ * it is on disk. Large programs therefore never exceed the packet limit, and a slow disk
+ * or connection holds the transfer back instead of queueing the whole file in the network
+ * buffer.
+ *
+ * Each player has one transfer active at a time; later saves queue behind it. A file is
+ * only encoded (from the program's native copy) when its transfer starts, so a burst of
+ * saves of the same program is encoded once, as it last stood.
+ */
+public class HoloprogramSync {
+
+    public static final int CHUNK_SIZE = 32 * 1024;
+    private static final int WINDOW = 4;
+
+    // Server side: queued transfers per player, head is active
+    private static final Map<UUID, Deque<Transfer>> transfers = new HashMap<>();
+    private static int nextTransferId = 1;
+
+    // Client side: the transfer being received, if any
+    @Nullable
+    private static Incoming receiving;
+
+    private static class Transfer {
+        final int id;
+        final String name;
+        // Set once the file is encoded, before the offer goes out
+        @Nullable
+        byte[] data;
+        @Nullable
+        byte[] hash;
+        boolean accepted = false;
+        int sent = 0;
+        int acknowledged = 0;
+
+        Transfer(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    private record Incoming(int id, String name, byte[] hash, int totalBytes) {}
+
+    // ===== Server side =====
+
+    /**
+     * Queue a saved holoprogram for the player's local copy. Must be called on the server thread.
+     */
+    public static void offer(ServerPlayer player, String name) {
+        Deque<Transfer> queue = transfers.computeIfAbsent(player.getUUID(), k -> new ArrayDeque<>());
+        // An older save of the same program that hasn't started is superseded
+        Transfer active = queue.peekFirst();
+        queue.removeIf(transfer -> transfer != active && transfer.name.equals(name));
+        queue.addLast(new Transfer(nextTransferId++, name));
+        if (queue.size() == 1) {
+            sendOffer(player, queue.peekFirst());
+        }
+    }
+
+    public static void onReply(ServerPlayer player, HoloprogramOfferReplyPayload payload) {
+        Transfer transfer = active(player, payload.transferId());
+        if (transfer == null || transfer.data == null) return;
+
+        if (!payload.accept()) {
+            if (transfer.accepted) {
+                TrekCraftMod.LOGGER.warn("Player {} cancelled holoprogram transfer '{}' at {}/{} bytes",
+                        player.getName().getString(), transfer.name, transfer.acknowledged, transfer.data.length);
+            }
+            advance(player);
+            return;
+        }
+        if (!transfer.accepted) {
+            transfer.accepted = true;
+            pump(player, transfer);
+        }
+    }
+
+    public static void onAck(ServerPlayer player, HoloprogramChunkAckPayload payload) {
+        Transfer transfer = active(player, payload.transferId());
+        if (transfer == null || !transfer.accepted) return;
+
+        // Acks only move forward, and never past what was sent
+        transfer.acknowledged = Math.max(transfer.acknowledged, Math.min(payload.bytesWritten(), transfer.sent));
+        if (transfer.acknowledged >= transfer.data.length) {
+            TrekCraftMod.LOGGER.debug("Sent holoprogram '{}' ({} bytes) to {}",
+                    transfer.name, transfer.data.length, player.getName().getString());
+            advance(player);
+        } else {
+            pump(player, transfer);
+        }
+    }
+
+    public static void onLogout(ServerPlayer player) {
+        transfers.remove(player.getUUID());
+    }
+
+    public static void clearAll() {
+        transfers.clear();
+    }
+
+    @Nullable
+    private static Transfer active(ServerPlayer player, int transferId) {
+        Deque<Transfer> queue = transfers.get(player.getUUID());
+        Transfer transfer = queue != null ? queue.peekFirst() : null;
+        return transfer != null && transfer.id == transferId ? transfer : null;
+    }
+
+    /**
+     * Drop the active transfer and offer the next one.
+     */
+    private static void advance(ServerPlayer player) {
+        Deque<Transfer> queue = transfers.get(player.getUUID());
+        if (queue == null) return;
+        queue.pollFirst();
+        if (queue.isEmpty()) {
+            transfers.remove(player.getUUID());
+        } else {
+            sendOffer(player, queue.peekFirst());
+        }
+    }
+
+    private static void sendOffer(ServerPlayer player, Transfer transfer) {
+        HoloprogramManager.nbtFile(transfer.name).thenAcceptAsync(file -> {
+            // The player left or the transfer was dropped while encoding
+            if (active(player, transfer.id) != transfer) return;
+
+            if (file == null) {
+                advance(player);
+                return;
+            }
+            transfer.data = file.data();
+            transfer.hash = file.hash();
+            PacketDistributor.sendToPlayer(player,
+                    new HoloprogramOfferPayload(transfer.id, transfer.name, transfer.hash, transfer.data.length));
+        }, player.server).exceptionallyAsync(error -> {
+            // Move on rather than leave the queue waiting on an offer that was never sent
+            TrekCraftMod.LOGGER.error("Failed to offer holoprogram '{}'", transfer.name, error);
+            if (active(player, transfer.id) == transfer) {
+                advance(player);
+            }
+            return null;
+        }, player.server);
+    }
+
+    /**
+     * Send slices until the window is full or the file is out.
+     */
+    private static void pump(ServerPlayer player, Transfer transfer) {
+        while (transfer.sent < transfer.data.length
+                && transfer.sent - transfer.acknowledged < WINDOW * CHUNK_SIZE) {
+            int length = Math.min(CHUNK_SIZE, transfer.data.length - transfer.sent);
+            byte[] slice = Arrays.copyOfRange(transfer.data, transfer.sent, transfer.sent + length);
+            PacketDistributor.sendToPlayer(player, new HoloprogramChunkPayload(transfer.id, transfer.sent, slice));
+            transfer.sent += length;
+        }
+    }
+
+    // ===== Client side =====
+
+    /**
+     * Accept an offer unless an identical file is already present.
+     *
+     * @param mainThread Executor for the client thread, where replies are sent from
+     */
+    public static void onOfferOnClient(HoloprogramOfferPayload payload, Executor mainThread) {
+        // The server only offers after the previous transfer ended, so anything still here was abandoned
+        receiving = null;
+
+        HoloprogramManager.localHash(payload.programName()).thenAcceptAsync(localHash -> {
+            boolean accept = localHash == null || !Arrays.equals(localHash, payload.hash());
+            if (accept) {
+                receiving = new Incoming(payload.transferId(), payload.programName(), payload.hash(), payload.totalBytes());
+            } else {
+                TrekCraftMod.LOGGER.info("Local copy of holoprogram '{}' is up to date", payload.programName());
+            }
+            PacketDistributor.sendToServer(new HoloprogramOfferReplyPayload(payload.transferId(), accept));
+        }, mainThread).exceptionallyAsync(error -> {
+            TrekCraftMod.LOGGER.error("Failed to check local copy of holoprogram '{}'", payload.programName(), error);
+            PacketDistributor.sendToServer(new HoloprogramOfferReplyPayload(payload.transferId(), false));
+            return null;
+        }, mainThread);
+    }
+
+    /**
+     * Write a slice to disk, then acknowledge it; the last slice completes the file.
+     */
+    public static void onChunkOnClient(HoloprogramChunkPayload payload, Executor mainThread) {
+        Incoming incoming = receiving;
+        if (incoming == null || incoming.id() != payload.transferId()) return;
+
+        int end = payload.offset() + payload.data().length;
+        HoloprogramManager.saveLocal(incoming.name(), payload.offset(), payload.data()).thenAcceptAsync(success -> {
+            if (receiving != incoming) return;
+
+            if (!success) {
+                receiving = null;
+                PacketDistributor.sendToServer(new HoloprogramOfferReplyPayload(incoming.id(), false));
+                return;
+            }
+            PacketDistributor.sendToServer(new HoloprogramChunkAckPayload(incoming.id(), end));
+
+            if (end >= incoming.totalBytes()) {
+                receiving = null;
+                HoloprogramManager.finishLocal(incoming.name(), incoming.hash()).thenAccept(finished -> {
+                    if (finished) {
+                        TrekCraftMod.LOGGER.info("Synced holoprogram '{}' to local schematics folder", incoming.name());
+                    } else {
+                        TrekCraftMod.LOGGER.warn("Failed to sync holoprogram '{}' to local schematics folder", incoming.name());
+                    }
+                });
+            }
+        }, mainThread).exceptionallyAsync(error -> {
+            TrekCraftMod.LOGGER.error("Failed to write holoprogram '{}' locally", incoming.name(), error);
+            if (receiving == incoming) {
+                receiving = null;
+                PacketDistributor.sendToServer(new HoloprogramOfferReplyPayload(incoming.id(), false));
+            }
+            return null;
+        }, mainThread);
+    }
+}
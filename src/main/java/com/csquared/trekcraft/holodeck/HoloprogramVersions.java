@@ -0,0 +1,361 @@
+package com.csquared.trekcraft.holodeck;
+
+import com.csquared.trekcraft.TrekCraftMod;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntCollection;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import net.minecraft.core.Vec3i;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Version history of holoprograms, kept in the HoloprogramStore beside the native copies.
+ *
+ * Every save adds a version. A version is either a snapshot, listing the chunk of every
+ * section, or a delta listing only the sections that changed since its parent version;
+ * reading a delta replays the chain back to the nearest snapshot. Every COMPACT_INTERVAL
+ * versions the chain is cut with a fresh snapshot so reads stay bounded. Chunks are shared
+ * with the native copy and between versions, so a snapshot costs only its section table
+ * and a delta only the sections it lists.
+ *
+ * Versions are never modified; rolling back adds a new version with an old one's contents.
+ * Beyond TrekCraftConfig.holodeckProgramVersions versions, the oldest are pruned (see
+ * prune()), except where a kept delta still builds on them.
+ *
+ * Version file (everything after the header is Deflate-compressed):
+ * <pre>
+ * header     magic, format, version, parent (0 for a snapshot), depth below the snapshot,
+ *            creation time, sections listed, modification time and size of the .nbt written
+ * size       structure dimensions
+ * extras     top-level .nbt fields, as in the manifest
+ * sections   snapshot: 0 or 1 and a chunk hash per section
+ *            delta: count, then section index, 0 or 1 and a chunk hash per changed section
+ * entities   entity entries, as in the .nbt
+ * </pre>
+ *
+ * Layout: {@code <root>/versions/<name>/<version>.holo}. All access happens on the
+ * holoprogram I/O thread.
+ */
+public class HoloprogramVersions {
+
+    public static final int COMPACT_INTERVAL = 8;
+
+    private static final int MAGIC = 0x54484C56; // "THLV"
+    private static final int FORMAT = 1;
+    private static final String EXTENSION = ".holo";
+    private static final int BUFFER_SIZE = 65536;
+
+    /**
+     * @param parent          Version this one is a delta against, or 0 for a snapshot
+     * @param depth           Deltas between this version and its snapshot
+     * @param sectionsListed  Sections recorded in this version (all of them for a snapshot)
+     * @param source          Header of the manifest written along with this version
+     */
+    public record VersionInfo(int version, int parent, int depth, long created, int sectionsListed,
+                              HoloprogramFormat.Header source) {
+        public boolean isSnapshot() {
+            return parent == 0;
+        }
+    }
+
+    // ===== Listing =====
+
+    /**
+     * Every readable version of a program, oldest first.
+     */
+    public static List<VersionInfo> list(HoloprogramStore store, String name) {
+        List<VersionInfo> versions = new ArrayList<>();
+        Path dir = store.versionDir(name);
+        if (!Files.isDirectory(dir)) return versions;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + EXTENSION)) {
+            for (Path file : files) {
+                VersionInfo info = readInfo(file);
+                if (info != null) {
+                    versions.add(info);
+                }
+            }
+        } catch (IOException e) {
+            TrekCraftMod.LOGGER.warn("Failed to list versions of holoprogram '{}'", name, e);
+        }
+        versions.sort(Comparator.comparingInt(VersionInfo::version));
+        return versions;
+    }
+
+    @Nullable
+    public static VersionInfo get(HoloprogramStore store, String name, int version) {
+        return version > 0 ? readInfo(path(store, name, version)) : null;
+    }
+
+    /**
+     * The newest version of a program, found by file name so only its header is read.
+     */
+    @Nullable
+    public static VersionInfo latest(HoloprogramStore store, String name) {
+        Path dir = store.versionDir(name);
+        if (!Files.isDirectory(dir)) return null;
+
+        int newest = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + EXTENSION)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                try {
+                    newest = Math.max(newest, Integer.parseInt(fileName.substring(0, fileName.length() - EXTENSION.length())));
+                } catch (NumberFormatException e) {
+                    // Not a version file
+                }
+            }
+        } catch (IOException e) {
+            TrekCraftMod.LOGGER.warn("Failed to list versions of holoprogram '{}'", name, e);
+        }
+        return get(store, name, newest);
+    }
+
+    // ===== Writing =====
+
+    /**
+     * Record a new version of a program.
+     *
+     * @param table   The program's full section table; its chunks must already be stored
+     * @param parent  Version the program was changed from, or null if unknown
+     * @param changed Sections that may differ from the parent, or null if unknown
+     * @return The new version
+     */
+    public static VersionInfo append(HoloprogramStore store, String name, HoloprogramFormat.SectionTable table,
+                                     @Nullable VersionInfo parent, @Nullable IntCollection changed,
+                                     HoloprogramFormat.Header source) throws IOException {
+        VersionInfo latest = latest(store, name);
+        int version = latest != null ? latest.version() + 1 : 1;
+        boolean snapshot = parent == null || changed == null || parent.depth() + 1 >= COMPACT_INTERVAL;
+
+        VersionInfo info = snapshot
+                ? new VersionInfo(version, 0, 0, System.currentTimeMillis(), table.sections().length, source)
+                : new VersionInfo(version, parent.version(), parent.depth() + 1, System.currentTimeMillis(),
+                        changed.size(), source);
+
+        Path file = path(store, name, version);
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            DataOutputStream header = new DataOutputStream(out);
+            header.writeInt(MAGIC);
+            header.writeByte(FORMAT);
+            header.writeInt(info.version());
+            header.writeInt(info.parent());
+            header.writeInt(info.depth());
+            header.writeLong(info.created());
+            header.writeInt(info.sectionsListed());
+            header.writeLong(source.sourceModified());
+            header.writeLong(source.sourceSize());
+            header.flush();
+
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(
+                    new DeflaterOutputStream(out, deflater, BUFFER_SIZE), BUFFER_SIZE));
+            HoloprogramFormat.writeSizeAndExtras(data, table);
+            if (snapshot) {
+                for (byte[] hash : table.sections()) {
+                    HoloprogramFormat.writeSectionRef(data, hash);
+                }
+            } else {
+                HoloprogramFormat.writeVarInt(data, changed.size());
+                for (IntIterator it = changed.iterator(); it.hasNext(); ) {
+                    int section = it.nextInt();
+                    HoloprogramFormat.writeVarInt(data, section);
+                    HoloprogramFormat.writeSectionRef(data, table.sections()[section]);
+                }
+            }
+            HoloprogramFormat.writeEntities(data, table);
+            data.close();
+        } finally {
+            deflater.end();
+        }
+        HoloprogramStore.move(tmp, file);
+
+        TrekCraftMod.LOGGER.debug("Wrote holoprogram '{}' version {} ({}, {} sections)", name, version,
+                snapshot ? "snapshot" : "delta against " + info.parent(), info.sectionsListed());
+        return info;
+    }
+
+    /**
+     * Delete the oldest versions beyond a limit. A version that a kept delta's chain runs
+     * through is kept too, so every remaining version stays readable; the chain goes once
+     * a newer snapshot replaces it.
+     *
+     * @param keep Versions to keep, or 0 to keep all
+     * @return Number of versions deleted (their chunks may now be unreferenced)
+     */
+    public static int prune(HoloprogramStore store, String name, int keep) throws IOException {
+        if (keep <= 0) return 0;
+        VersionInfo latest = latest(store, name);
+        // Version numbers only grow, so there can't be more versions than the newest number
+        if (latest == null || latest.version() <= keep) return 0;
+
+        List<VersionInfo> versions = list(store, name);
+        int excess = versions.size() - keep;
+        if (excess <= 0) return 0;
+
+        Int2ObjectMap<VersionInfo> byVersion = new Int2ObjectOpenHashMap<>(versions.size());
+        for (VersionInfo info : versions) {
+            byVersion.put(info.version(), info);
+        }
+        IntOpenHashSet needed = new IntOpenHashSet();
+        for (VersionInfo info : versions.subList(excess, versions.size())) {
+            for (VersionInfo link = info; link != null && !link.isSnapshot() && needed.add(link.parent()); ) {
+                link = byVersion.get(link.parent());
+            }
+        }
+
+        int deleted = 0;
+        for (VersionInfo info : versions.subList(0, excess)) {
+            if (needed.contains(info.version())) continue;
+            Files.deleteIfExists(path(store, name, info.version()));
+            deleted++;
+        }
+        if (deleted > 0) {
+            TrekCraftMod.LOGGER.debug("Pruned {} old versions of holoprogram '{}'", deleted, name);
+        }
+        return deleted;
+    }
+
+    // ===== Reading =====
+
+    /**
+     * Rebuild a version's full section table, replaying deltas from its snapshot.
+     */
+    public static HoloprogramFormat.SectionTable resolve(HoloprogramStore store, String name, int version)
+            throws IOException {
+        // Walk back to the snapshot, then apply the deltas oldest first
+        Deque<Path> chain = new ArrayDeque<>();
+        int next = version;
+        while (true) {
+            Path file = path(store, name, next);
+            VersionInfo info = readInfo(file);
+            if (info == null) {
+                throw new NoSuchFileException(file.toString());
+            }
+            chain.push(file);
+            if (info.isSnapshot()) break;
+            if (chain.size() > COMPACT_INTERVAL) {
+                throw new IOException("Version chain of '" + name + "' does not end in a snapshot");
+            }
+            next = info.parent();
+        }
+
+        HoloprogramFormat.SectionTable table = null;
+        while (!chain.isEmpty()) {
+            table = readBody(chain.pop(), table);
+        }
+        return table;
+    }
+
+    /**
+     * Hashes of the chunks a version file refers to, for garbage collection.
+     */
+    static List<byte[]> readChunkRefs(Path file) throws IOException {
+        List<byte[]> refs = new ArrayList<>();
+        readBody(file, null, refs);
+        return refs;
+    }
+
+    @Nullable
+    private static VersionInfo readInfo(Path file) {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return readHeader(in);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static VersionInfo readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readUnsignedByte() != FORMAT) return null;
+        int version = in.readInt();
+        int parent = in.readInt();
+        int depth = in.readInt();
+        long created = in.readLong();
+        int sectionsListed = in.readInt();
+        HoloprogramFormat.Header source = new HoloprogramFormat.Header(in.readLong(), in.readLong());
+        return new VersionInfo(version, parent, depth, created, sectionsListed, source);
+    }
+
+    private static HoloprogramFormat.SectionTable readBody(Path file, @Nullable HoloprogramFormat.SectionTable base)
+            throws IOException {
+        return readBody(file, base, null);
+    }
+
+    /**
+     * Read a version file on top of its parent's table (null for a snapshot), optionally
+     * collecting the chunk hashes it lists.
+     */
+    private static HoloprogramFormat.SectionTable readBody(Path file, @Nullable HoloprogramFormat.SectionTable base,
+                                                          @Nullable List<byte[]> refs) throws IOException {
+        Inflater inflater = new Inflater();
+        try (InputStream stream = Files.newInputStream(file)) {
+            VersionInfo info = readHeader(new DataInputStream(stream));
+            if (info == null) {
+                throw new IOException("Not a holoprogram version: " + file);
+            }
+
+            DataInputStream data = new DataInputStream(new BufferedInputStream(
+                    new InflaterInputStream(stream, inflater, BUFFER_SIZE), BUFFER_SIZE));
+            Vec3i size = HoloprogramFormat.readSize(data);
+            CompoundTag extras = NbtIo.read(data, NbtAccounter.unlimitedHeap());
+
+            byte[][] sections;
+            if (info.isSnapshot()) {
+                sections = new byte[HoloprogramFormat.sectionTotal(size)][];
+                for (int i = 0; i < sections.length; i++) {
+                    sections[i] = HoloprogramFormat.readSectionRef(data);
+                    if (refs != null && sections[i] != null) refs.add(sections[i]);
+                }
+            } else {
+                if (refs == null && (base == null || !base.size().equals(size))) {
+                    throw new IOException("Holoprogram version " + file + " does not match its parent");
+                }
+                sections = base != null ? base.sections().clone() : new byte[HoloprogramFormat.sectionTotal(size)][];
+                int count = HoloprogramFormat.readVarInt(data);
+                for (int i = 0; i < count; i++) {
+                    int section = HoloprogramFormat.readVarInt(data);
+                    if (section < 0 || section >= sections.length) {
+                        throw new IOException("Section " + section + " out of range in " + file);
+                    }
+                    sections[section] = HoloprogramFormat.readSectionRef(data);
+                    if (refs != null && sections[section] != null) refs.add(sections[section]);
+                }
+            }
+            return new HoloprogramFormat.SectionTable(size, extras, sections, HoloprogramFormat.readEntities(data));
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static Path path(HoloprogramStore store, String name, int version) {
+        return store.versionDir(name).resolve(version + EXTENSION);
+    }
+}
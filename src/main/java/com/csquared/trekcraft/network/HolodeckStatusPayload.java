@@ -0,0 +1,36 @@
+package com.csquared.trekcraft.network;
+
+import com.csquared.trekcraft.TrekCraftMod;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * Server->Client payload reporting progress of a long-running holodeck operation.
+ * An empty status means the holodeck is idle again.
+ */
+public record HolodeckStatusPayload(
+        BlockPos controllerPos,
+        String status,
+        int progressPercent
+) implements CustomPacketPayload {
+
+    public static final Type<HolodeckStatusPayload> TYPE = new Type<>(
+            ResourceLocation.fromNamespaceAndPath(TrekCraftMod.MODID, "holodeck_status")
+    );
+
+    public static final StreamCodec<RegistryFriendlyByteBuf, HolodeckStatusPayload> STREAM_CODEC = StreamCodec.composite(
+            BlockPos.STREAM_CODEC, HolodeckStatusPayload::controllerPos,
+            ByteBufCodecs.STRING_UTF8, HolodeckStatusPayload::status,
+            ByteBufCodecs.VAR_INT, HolodeckStatusPayload::progressPercent,
+            HolodeckStatusPayload::new
+    );
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+}
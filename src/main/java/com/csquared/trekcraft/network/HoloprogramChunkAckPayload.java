@@ -0,0 +1,33 @@
+package com.csquared.trekcraft.network;
+
+import com.csquared.trekcraft.TrekCraftMod;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * Client->Server payload acknowledging that a holoprogram transfer has been written
+ * up to the given number of bytes. Opens the sender's window for more chunks.
+ */
+public record HoloprogramChunkAckPayload(
+        int transferId,
+        int bytesWritten
+) implements CustomPacketPayload {
+
+    public static final Type<HoloprogramChunkAckPayload> TYPE = new Type<>(
+            ResourceLocation.fromNamespaceAndPath(TrekCraftMod.MODID, "holoprogram_chunk_ack")
+    );
+
+    public static final StreamCodec<RegistryFriendlyByteBuf, HoloprogramChunkAckPayload> STREAM_CODEC = StreamCodec.composite(
+            ByteBufCodecs.VAR_INT, HoloprogramChunkAckPayload::transferId,
+            ByteBufCodecs.VAR_INT, HoloprogramChunkAckPayload::bytesWritten,
+            HoloprogramChunkAckPayload::new
+    );
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+}
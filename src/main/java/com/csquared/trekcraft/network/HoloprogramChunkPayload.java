@@ -0,0 +1,35 @@
+package com.csquared.trekcraft.network;
+
+import com.csquared.trekcraft.TrekCraftMod;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * Server->Client payload carrying one slice of an accepted holoprogram transfer.
+ * The data is a slice of the compressed .nbt file, written by the client at the given offset.
+ */
+public record HoloprogramChunkPayload(
+        int transferId,
+        int offset,
+        byte[] data
+) implements CustomPacketPayload {
+
+    public static final Type<HoloprogramChunkPayload> TYPE = new Type<>(
+            ResourceLocation.fromNamespaceAndPath(TrekCraftMod.MODID, "holoprogram_chunk")
+    );
+
+    public static final StreamCodec<RegistryFriendlyByteBuf, HoloprogramChunkPayload> STREAM_CODEC = StreamCodec.composite(
+            ByteBufCodecs.VAR_INT, HoloprogramChunkPayload::transferId,
+            ByteBufCodecs.VAR_INT, HoloprogramChunkPayload::offset,
+            ByteBufCodecs.BYTE_ARRAY, HoloprogramChunkPayload::data,
+            HoloprogramChunkPayload::new
+    );
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+}
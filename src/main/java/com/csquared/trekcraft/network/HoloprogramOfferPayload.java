@@ -0,0 +1,38 @@
+package com.csquared.trekcraft.network;
+
+import com.csquared.trekcraft.TrekCraftMod;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * Server->Client payload offering a saved holoprogram for the client's local schematics folder.
+ * The client answers with a HoloprogramOfferReplyPayload, declining if it already has a file
+ * with the same SHA-256.
+ */
+public record HoloprogramOfferPayload(
+        int transferId,
+        String programName,
+        byte[] hash,
+        int totalBytes
+) implements CustomPacketPayload {
+
+    public static final Type<HoloprogramOfferPayload> TYPE = new Type<>(
+            ResourceLocation.fromNamespaceAndPath(TrekCraftMod.MODID, "holoprogram_offer")
+    );
+
+    public static final StreamCodec<RegistryFriendlyByteBuf, HoloprogramOfferPayload> STREAM_CODEC = StreamCodec.composite(
+            ByteBufCodecs.VAR_INT, HoloprogramOfferPayload::transferId,
+            ByteBufCodecs.STRING_UTF8, HoloprogramOfferPayload::programName,
+            ByteBufCodecs.BYTE_ARRAY, HoloprogramOfferPayload::hash,
+            ByteBufCodecs.VAR_INT, HoloprogramOfferPayload::totalBytes,
+            HoloprogramOfferPayload::new
+    );
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+}
@@ -0,0 +1,33 @@
+package com.csquared.trekcraft.network;
+
+import com.csquared.trekcraft.TrekCraftMod;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * Client->Server payload accepting or declining a holoprogram offer.
+ * Declining a transfer that is already under way cancels it.
+ */
+public record HoloprogramOfferReplyPayload(
+        int transferId,
+        boolean accept
+) implements CustomPacketPayload {
+
+    public static final Type<HoloprogramOfferReplyPayload> TYPE = new Type<>(
+            ResourceLocation.fromNamespaceAndPath(TrekCraftMod.MODID, "holoprogram_offer_reply")
+    );
+
+    public static final StreamCodec<RegistryFriendlyByteBuf, HoloprogramOfferReplyPayload> STREAM_CODEC = StreamCodec.composite(
+            ByteBufCodecs.VAR_INT, HoloprogramOfferReplyPayload::transferId,
+            ByteBufCodecs.BOOL, HoloprogramOfferReplyPayload::accept,
+            HoloprogramOfferReplyPayload::new
+    );
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+}
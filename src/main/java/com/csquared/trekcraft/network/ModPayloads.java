@@ -3,13 +3,15 @@ package com.csquared.trekcraft.network;
 import com.csquared.trekcraft.TrekCraftMod;
 import com.csquared.trekcraft.content.blockentity.HolodeckControllerBlockEntity;
 import com.csquared.trekcraft.content.blockentity.TransporterPadBlockEntity;
-import com.csquared.trekcraft.holodeck.HoloprogramManager;
+import com.csquared.trekcraft.holodeck.HoloprogramSync;
 import com.csquared.trekcraft.data.TransporterNetworkSavedData;
 import com.csquared.trekcraft.data.TricorderData;
+import com.csquared.trekcraft.data.WormholeRecord;
 import com.csquared.trekcraft.network.mission.*;
 import com.csquared.trekcraft.registry.ModDataComponents;
 import com.csquared.trekcraft.registry.ModItems;
 import com.csquared.trekcraft.service.MissionService;
+import com.csquared.trekcraft.service.WormholeDirectory;
 import com.csquared.trekcraft.service.WormholeService;
 import net.minecraft.core.component.DataComponents;
 import net.minecraft.network.chat.Component;
@@ -28,6 +30,9 @@ import net.neoforged.neoforge.network.registration.PayloadRegistrar;
 @EventBusSubscriber(modid = TrekCraftMod.MODID, bus = EventBusSubscriber.Bus.MOD)
 public class ModPayloads {
 
+    // Link directory pages are only served to players near the source portal
+    private static final double DIRECTORY_MAX_DISTANCE_SQR = 64 * 64;
+
     @SubscribeEvent
     public static void registerPayloads(RegisterPayloadHandlersEvent event) {
         PayloadRegistrar registrar = event.registrar(TrekCraftMod.MODID);
@@ -102,6 +107,25 @@ public class ModPayloads {
                 }
         );
 
+        registrar.playToServer(
+                RequestWormholeDirectoryPayload.TYPE,
+                RequestWormholeDirectoryPayload.STREAM_CODEC,
+                (payload, context) -> {
+                    ServerPlayer player = (ServerPlayer) context.player();
+                    handleRequestWormholeDirectory(player, payload);
+                }
+        );
+
+        registrar.playToClient(
+                WormholeDirectoryPagePayload.TYPE,
+                WormholeDirectoryPagePayload.STREAM_CODEC,
+                (payload, context) -> {
+                    if (FMLEnvironment.dist == Dist.CLIENT) {
+                        handleWormholeDirectoryPageOnClient(payload);
+                    }
+                }
+        );
+
         registrar.playToServer(
                 LinkWormholesPayload.TYPE,
                 LinkWormholesPayload.STREAM_CODEC,
@@ -168,13 +192,52 @@ public class ModPayloads {
                 }
         );
 
-        // Server->Client: Sync holoprogram to client's local schematics folder
+        // Sync saved holoprograms to the client's local schematics folder
+        registrar.playToClient(
+                HoloprogramOfferPayload.TYPE,
+                HoloprogramOfferPayload.STREAM_CODEC,
+                (payload, context) -> {
+                    if (FMLEnvironment.dist == Dist.CLIENT) {
+                        HoloprogramSync.onOfferOnClient(payload, context::enqueueWork);
+                    }
+                }
+        );
+
         registrar.playToClient(
-                SyncHoloprogramPayload.TYPE,
-                SyncHoloprogramPayload.STREAM_CODEC,
+                HoloprogramChunkPayload.TYPE,
+                HoloprogramChunkPayload.STREAM_CODEC,
                 (payload, context) -> {
                     if (FMLEnvironment.dist == Dist.CLIENT) {
-                        handleSyncHoloprogramOnClient(payload);
+                        HoloprogramSync.onChunkOnClient(payload, context::enqueueWork);
+                    }
+                }
+        );
+
+        registrar.playToServer(
+                HoloprogramOfferReplyPayload.TYPE,
+                HoloprogramOfferReplyPayload.STREAM_CODEC,
+                (payload, context) -> {
+                    ServerPlayer player = (ServerPlayer) context.player();
+                    HoloprogramSync.onReply(player, payload);
+                }
+        );
+
+        registrar.playToServer(
+                HoloprogramChunkAckPayload.TYPE,
+                HoloprogramChunkAckPayload.STREAM_CODEC,
+                (payload, context) -> {
+                    ServerPlayer player = (ServerPlayer) context.player();
+                    HoloprogramSync.onAck(player, payload);
+                }
+        );
+
+        // Server->Client: Progress of long-running holodeck operations
+        registrar.playToClient(
+                HolodeckStatusPayload.TYPE,
+                HolodeckStatusPayload.STREAM_CODEC,
+                (payload, context) -> {
+                    if (FMLEnvironment.dist == Dist.CLIENT) {
+                        handleHolodeckStatusOnClient(payload);
                     }
                 }
         );
@@ -373,6 +436,32 @@ public class ModPayloads {
         }
     }
 
+    private static void handleRequestWormholeDirectory(ServerPlayer player, RequestWormholeDirectoryPayload payload) {
+        ServerLevel level = player.serverLevel();
+        TransporterNetworkSavedData data = TransporterNetworkSavedData.get(level);
+        WormholeRecord source = data.getWormhole(payload.sourcePortalId()).orElse(null);
+
+        // Only answer for an unlinked portal the player is actually standing near
+        if (source == null || source.isLinked()
+                || !source.dimensionKey().equals(level.dimension().location().toString())
+                || player.distanceToSqr(source.anchorPos().getCenter()) > DIRECTORY_MAX_DISTANCE_SQR) {
+            return;
+        }
+
+        OpenWormholeLinkScreenPayload.DirectoryPage page =
+                WormholeDirectory.query(data, source, payload.filter(), payload.page());
+        PacketDistributor.sendToPlayer(player, new WormholeDirectoryPagePayload(source.portalId(), page));
+    }
+
+    private static void handleWormholeDirectoryPageOnClient(WormholeDirectoryPagePayload payload) {
+        try {
+            Class<?> handlerClass = Class.forName("com.csquared.trekcraft.client.ClientPayloadHandler");
+            handlerClass.getMethod("receiveWormholeDirectoryPage", WormholeDirectoryPagePayload.class).invoke(null, payload);
+        } catch (Exception e) {
+            TrekCraftMod.LOGGER.error("Failed to update wormhole link screen", e);
+        }
+    }
+
     private static void handleSetWormholeName(ServerPlayer player, SetWormholeNamePayload payload) {
         ServerLevel level = player.serverLevel();
         WormholeService.renameWormhole(level, payload.portalId(), payload.name());
@@ -416,13 +505,12 @@ public class ModPayloads {
         }
     }
 
-    private static void handleSyncHoloprogramOnClient(SyncHoloprogramPayload payload) {
-        // Save the schematic data to the client's local schematics folder
-        boolean success = HoloprogramManager.saveLocal(payload.programName(), payload.schematicData());
-        if (success) {
-            TrekCraftMod.LOGGER.info("Synced holoprogram '{}' to local schematics folder", payload.programName());
-        } else {
-            TrekCraftMod.LOGGER.warn("Failed to sync holoprogram '{}' to local schematics folder", payload.programName());
+    private static void handleHolodeckStatusOnClient(HolodeckStatusPayload payload) {
+        try {
+            Class<?> handlerClass = Class.forName("com.csquared.trekcraft.client.ClientPayloadHandler");
+            handlerClass.getMethod("updateHolodeckStatus", HolodeckStatusPayload.class).invoke(null, payload);
+        } catch (Exception e) {
+            TrekCraftMod.LOGGER.error("Failed to update holodeck status", e);
         }
     }
 
@@ -438,20 +526,21 @@ public class ModPayloads {
 
         BlockEntity be = level.getBlockEntity(payload.controllerPos());
         if (be instanceof HolodeckControllerBlockEntity controller) {
-            HoloprogramManager.SaveResult result = controller.saveHoloprogram(payload.programName());
-            if (result.success()) {
-                player.displayClientMessage(
-                        Component.literal("Holoprogram saved: " + payload.programName()), true);
-
-                // Send schematic data to client for local saving
-                if (result.nbtData() != null) {
-                    PacketDistributor.sendToPlayer(player,
-                            new SyncHoloprogramPayload(payload.programName(), result.nbtData()));
-                }
-            } else {
-                player.displayClientMessage(
-                        Component.literal("Failed to save holoprogram"), true);
-            }
+            controller.saveHoloprogram(payload.programName()).thenAcceptAsync(result -> {
+                if (result.success()) {
+                    player.displayClientMessage(
+                            Component.literal("Holoprogram saved: " + payload.programName()
+                                    + (result.version() > 0 ? " (v" + result.version() + ")" : "")), true);
+
+                    // Offer the file to the client for local saving
+                    if (!player.hasDisconnected()) {
+                        HoloprogramSync.offer(player, payload.programName());
+                    }
+                } else {
+                    player.displayClientMessage(
+                            Component.literal("Failed to save holoprogram"), true);
+                }
+            }, level.getServer()).exceptionally(error -> logHoloprogramFailure("save", payload.programName(), error));
         }
     }
 
@@ -466,22 +555,25 @@ public class ModPayloads {
 
         BlockEntity be = level.getBlockEntity(payload.controllerPos());
         if (be instanceof HolodeckControllerBlockEntity controller) {
-            HoloprogramManager.LoadResultDetails result = controller.loadHoloprogram(payload.programName());
-            if (result == null) {
-                player.displayClientMessage(
-                        Component.literal("Holodeck not active"), true);
-                return;
-            }
+            // Completes on the server thread
+            controller.loadHoloprogram(payload.programName(), player.getUUID()).thenAccept(result -> {
+                if (result == null) {
+                    player.displayClientMessage(
+                            Component.literal("Holodeck not active"), true);
+                    return;
+                }
 
-            String message = switch (result.result()) {
-                case SUCCESS -> "Holoprogram loaded: " + payload.programName();
-                case NOT_FOUND -> "Holoprogram not found: " + payload.programName();
-                case TOO_LARGE -> String.format("Schematic too large (%dx%dx%d) for holodeck (%dx%dx%d)",
-                        result.schematicSize().getX(), result.schematicSize().getY(), result.schematicSize().getZ(),
-                        result.interiorSize().getX(), result.interiorSize().getY(), result.interiorSize().getZ());
-                case READ_ERROR -> "Failed to load holoprogram";
-            };
-            player.displayClientMessage(Component.literal(message), true);
+                String message = switch (result.result()) {
+                    case SUCCESS -> "Loading holoprogram: " + payload.programName();
+                    case NOT_FOUND -> "Holoprogram not found: " + payload.programName();
+                    case BUSY -> "Holodeck is busy";
+                    case TOO_LARGE -> String.format("Schematic too large (%dx%dx%d) for holodeck (%dx%dx%d)",
+                            result.schematicSize().getX(), result.schematicSize().getY(), result.schematicSize().getZ(),
+                            result.interiorSize().getX(), result.interiorSize().getY(), result.interiorSize().getZ());
+                    case READ_ERROR -> "Failed to load holoprogram";
+                };
+                player.displayClientMessage(Component.literal(message), true);
+            }).exceptionally(error -> logHoloprogramFailure("load", payload.programName(), error));
         }
     }
 
@@ -496,17 +588,26 @@ public class ModPayloads {
 
         BlockEntity be = level.getBlockEntity(payload.controllerPos());
         if (be instanceof HolodeckControllerBlockEntity controller) {
-            boolean success = controller.deleteHoloprogram(payload.programName());
-            if (success) {
-                player.displayClientMessage(
-                        Component.literal("Holoprogram deleted: " + payload.programName()), true);
-            } else {
-                player.displayClientMessage(
-                        Component.literal("Failed to delete holoprogram"), true);
-            }
+            controller.deleteHoloprogram(payload.programName()).thenAcceptAsync(success -> {
+                if (success) {
+                    player.displayClientMessage(
+                            Component.literal("Holoprogram deleted: " + payload.programName()), true);
+                } else {
+                    player.displayClientMessage(
+                            Component.literal("Failed to delete holoprogram"), true);
+                }
+            }, level.getServer()).exceptionally(error -> logHoloprogramFailure("delete", payload.programName(), error));
         }
     }
 
+    /**
+     * Terminal stage for holoprogram callbacks, so a failure is logged instead of being dropped.
+     */
+    private static Void logHoloprogramFailure(String action, String programName, Throwable error) {
+        TrekCraftMod.LOGGER.error("Holoprogram {} of '{}' failed", action, programName, error);
+        return null;
+    }
+
     private static void handleClearHolodeck(ServerPlayer player, ClearHolodeckPayload payload) {
         ServerLevel level = player.serverLevel();
 
@@ -520,7 +621,7 @@ public class ModPayloads {
         if (be instanceof HolodeckControllerBlockEntity controller) {
             controller.manualClear();
             player.displayClientMessage(
-                    Component.literal("Holodeck cleared"), true);
+                    Component.literal("Clearing holodeck"), true);
         }
     }
 
@@ -18,6 +18,8 @@ public record OpenContributionScreenPayload(
         long totalWithdrawn,
         int freeTransportsUsed,
         String highestRankName,
+        int rankPosition,           // 1-based leaderboard position, 0 if not on the board
+        int totalContributors,
         List<LeaderboardEntry> leaderboard
 ) implements CustomPacketPayload {
 
@@ -52,6 +54,8 @@ public record OpenContributionScreenPayload(
         buf.writeLong(payload.totalWithdrawn);
         buf.writeInt(payload.freeTransportsUsed);
         buf.writeUtf(payload.highestRankName);
+        buf.writeVarInt(payload.rankPosition);
+        buf.writeVarInt(payload.totalContributors);
 
         buf.writeInt(payload.leaderboard.size());
         for (LeaderboardEntry entry : payload.leaderboard) {
@@ -66,6 +70,8 @@ public record OpenContributionScreenPayload(
         long totalWithdrawn = buf.readLong();
         int freeTransportsUsed = buf.readInt();
         String highestRankName = buf.readUtf();
+        int rankPosition = buf.readVarInt();
+        int totalContributors = buf.readVarInt();
 
         int leaderboardSize = buf.readInt();
         List<LeaderboardEntry> leaderboard = new ArrayList<>();
@@ -76,7 +82,8 @@ public record OpenContributionScreenPayload(
             leaderboard.add(new LeaderboardEntry(playerName, netContribution, rankName));
         }
 
-        return new OpenContributionScreenPayload(totalDeposited, totalWithdrawn, freeTransportsUsed, highestRankName, leaderboard);
+        return new OpenContributionScreenPayload(totalDeposited, totalWithdrawn, freeTransportsUsed, highestRankName,
+                rankPosition, totalContributors, leaderboard);
     }
 
     @Override
@@ -1,8 +1,8 @@
 package com.csquared.trekcraft.network;
 
 import com.csquared.trekcraft.TrekCraftMod;
-import net.minecraft.network.RegistryFriendlyByteBuf;
-import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.network.codec.StreamCodec;
 import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
 import net.minecraft.resources.ResourceLocation;
@@ -12,62 +12,108 @@ import java.util.List;
 import java.util.UUID;
 
 /**
- * Server-to-client payload to open the wormhole linking screen.
+ * Server-to-client payload to open the wormhole linking screen with the first
+ * directory page. Further pages arrive as WormholeDirectoryPagePayload.
  */
 public record OpenWormholeLinkScreenPayload(
-        String sourcePortalId,
+        UUID sourcePortalId,
         String sourcePortalName,
-        List<PortalEntry> availablePortals
+        DirectoryPage page
 ) implements CustomPacketPayload {
 
     public static final Type<OpenWormholeLinkScreenPayload> TYPE = new Type<>(
             ResourceLocation.fromNamespaceAndPath(TrekCraftMod.MODID, "open_wormhole_link_screen")
     );
 
-    public static final StreamCodec<RegistryFriendlyByteBuf, OpenWormholeLinkScreenPayload> STREAM_CODEC = StreamCodec.composite(
-            ByteBufCodecs.STRING_UTF8, OpenWormholeLinkScreenPayload::sourcePortalId,
-            ByteBufCodecs.STRING_UTF8, OpenWormholeLinkScreenPayload::sourcePortalName,
-            PortalEntry.LIST_STREAM_CODEC, OpenWormholeLinkScreenPayload::availablePortals,
-            OpenWormholeLinkScreenPayload::new
-    );
+    public static final StreamCodec<FriendlyByteBuf, OpenWormholeLinkScreenPayload> STREAM_CODEC =
+            StreamCodec.of(OpenWormholeLinkScreenPayload::encode, OpenWormholeLinkScreenPayload::decode);
 
     @Override
     public Type<? extends CustomPacketPayload> type() {
         return TYPE;
     }
 
-    public UUID getSourcePortalId() {
-        return UUID.fromString(sourcePortalId);
+    private static void encode(FriendlyByteBuf buf, OpenWormholeLinkScreenPayload payload) {
+        buf.writeUUID(payload.sourcePortalId);
+        buf.writeUtf(payload.sourcePortalName);
+        payload.page.write(buf);
+    }
+
+    private static OpenWormholeLinkScreenPayload decode(FriendlyByteBuf buf) {
+        return new OpenWormholeLinkScreenPayload(buf.readUUID(), buf.readUtf(), DirectoryPage.read(buf));
+    }
+
+    /**
+     * One page of the link directory.
+     * Dimension keys are written once per page and referenced by index from each entry;
+     * ids and positions are sent as raw longs.
+     */
+    public record DirectoryPage(String filter, int pageIndex, int totalCount, List<PortalEntry> entries) {
+
+        public void write(FriendlyByteBuf buf) {
+            buf.writeUtf(filter);
+            buf.writeVarInt(pageIndex);
+            buf.writeVarInt(totalCount);
+
+            List<String> dimensions = new ArrayList<>();
+            for (PortalEntry entry : entries) {
+                if (!dimensions.contains(entry.dimensionKey())) {
+                    dimensions.add(entry.dimensionKey());
+                }
+            }
+            buf.writeVarInt(dimensions.size());
+            for (String dimension : dimensions) {
+                buf.writeUtf(dimension);
+            }
+
+            buf.writeVarInt(entries.size());
+            for (PortalEntry entry : entries) {
+                buf.writeUUID(entry.portalId());
+                buf.writeUtf(entry.name());
+                buf.writeLong(entry.pos().asLong());
+                buf.writeVarInt(dimensions.indexOf(entry.dimensionKey()));
+                buf.writeVarInt(entry.distance() + 1); // -1 (other dimension) becomes 0
+            }
+        }
+
+        public static DirectoryPage read(FriendlyByteBuf buf) {
+            String filter = buf.readUtf();
+            int pageIndex = buf.readVarInt();
+            int totalCount = buf.readVarInt();
+
+            int dimensionCount = buf.readVarInt();
+            List<String> dimensions = new ArrayList<>(dimensionCount);
+            for (int i = 0; i < dimensionCount; i++) {
+                dimensions.add(buf.readUtf());
+            }
+
+            int entryCount = buf.readVarInt();
+            List<PortalEntry> entries = new ArrayList<>(entryCount);
+            for (int i = 0; i < entryCount; i++) {
+                UUID portalId = buf.readUUID();
+                String name = buf.readUtf();
+                BlockPos pos = BlockPos.of(buf.readLong());
+                String dimensionKey = dimensions.get(buf.readVarInt());
+                int distance = buf.readVarInt() - 1;
+                entries.add(new PortalEntry(portalId, name, pos, dimensionKey, distance));
+            }
+            return new DirectoryPage(filter, pageIndex, totalCount, entries);
+        }
     }
 
     /**
      * Represents a portal entry in the link screen.
+     * Distance is in blocks from the source portal, or -1 for another dimension.
      */
     public record PortalEntry(
-            String portalId,
+            UUID portalId,
             String name,
-            int x, int y, int z,
-            String dimensionKey
+            BlockPos pos,
+            String dimensionKey,
+            int distance
     ) {
-        public static final StreamCodec<RegistryFriendlyByteBuf, PortalEntry> STREAM_CODEC = StreamCodec.composite(
-                ByteBufCodecs.STRING_UTF8, PortalEntry::portalId,
-                ByteBufCodecs.STRING_UTF8, PortalEntry::name,
-                ByteBufCodecs.VAR_INT, PortalEntry::x,
-                ByteBufCodecs.VAR_INT, PortalEntry::y,
-                ByteBufCodecs.VAR_INT, PortalEntry::z,
-                ByteBufCodecs.STRING_UTF8, PortalEntry::dimensionKey,
-                PortalEntry::new
-        );
-
-        public static final StreamCodec<RegistryFriendlyByteBuf, List<PortalEntry>> LIST_STREAM_CODEC =
-                STREAM_CODEC.apply(ByteBufCodecs.list());
-
-        public UUID getPortalId() {
-            return UUID.fromString(portalId);
-        }
-
         public String getPositionString() {
-            return x + ", " + y + ", " + z;
+            return pos.getX() + ", " + pos.getY() + ", " + pos.getZ();
         }
 
         /**
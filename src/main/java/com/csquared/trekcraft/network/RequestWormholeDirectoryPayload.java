@@ -0,0 +1,46 @@
+package com.csquared.trekcraft.network;
+
+import com.csquared.trekcraft.TrekCraftMod;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.UUID;
+
+/**
+ * Client-to-server payload asking for a page of the wormhole link directory.
+ * Holds the paging limits shared by the server-side directory and the link screen.
+ */
+public record RequestWormholeDirectoryPayload(
+        UUID sourcePortalId,
+        String filter,
+        int page
+) implements CustomPacketPayload {
+
+    public static final int PAGE_SIZE = 6;
+    public static final int MAX_FILTER_LENGTH = 32;
+
+    public static final Type<RequestWormholeDirectoryPayload> TYPE = new Type<>(
+            ResourceLocation.fromNamespaceAndPath(TrekCraftMod.MODID, "request_wormhole_directory")
+    );
+
+    public static final StreamCodec<FriendlyByteBuf, RequestWormholeDirectoryPayload> STREAM_CODEC =
+            StreamCodec.of(RequestWormholeDirectoryPayload::encode, RequestWormholeDirectoryPayload::decode);
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+
+    private static void encode(FriendlyByteBuf buf, RequestWormholeDirectoryPayload payload) {
+        buf.writeUUID(payload.sourcePortalId);
+        buf.writeUtf(payload.filter, MAX_FILTER_LENGTH);
+        buf.writeVarInt(payload.page);
+    }
+
+    private static RequestWormholeDirectoryPayload decode(FriendlyByteBuf buf) {
+        return new RequestWormholeDirectoryPayload(
+                buf.readUUID(), buf.readUtf(MAX_FILTER_LENGTH), buf.readVarInt());
+    }
+}
@@ -0,0 +1,40 @@
+package com.csquared.trekcraft.network;
+
+import com.csquared.trekcraft.TrekCraftMod;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.UUID;
+
+/**
+ * Server-to-client payload carrying one page of the wormhole link directory,
+ * in answer to a RequestWormholeDirectoryPayload.
+ */
+public record WormholeDirectoryPagePayload(
+        UUID sourcePortalId,
+        OpenWormholeLinkScreenPayload.DirectoryPage page
+) implements CustomPacketPayload {
+
+    public static final Type<WormholeDirectoryPagePayload> TYPE = new Type<>(
+            ResourceLocation.fromNamespaceAndPath(TrekCraftMod.MODID, "wormhole_directory_page")
+    );
+
+    public static final StreamCodec<FriendlyByteBuf, WormholeDirectoryPagePayload> STREAM_CODEC =
+            StreamCodec.of(WormholeDirectoryPagePayload::encode, WormholeDirectoryPagePayload::decode);
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+
+    private static void encode(FriendlyByteBuf buf, WormholeDirectoryPagePayload payload) {
+        buf.writeUUID(payload.sourcePortalId);
+        payload.page.write(buf);
+    }
+
+    private static WormholeDirectoryPagePayload decode(FriendlyByteBuf buf) {
+        return new WormholeDirectoryPagePayload(buf.readUUID(), OpenWormholeLinkScreenPayload.DirectoryPage.read(buf));
+    }
+}
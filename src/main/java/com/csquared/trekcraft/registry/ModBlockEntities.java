@@ -5,7 +5,6 @@ import com.csquared.trekcraft.content.blockentity.HolodeckControllerBlockEntity;
 import com.csquared.trekcraft.content.blockentity.MobileEmitterBlockEntity;
 import com.csquared.trekcraft.content.blockentity.TransporterPadBlockEntity;
 import com.csquared.trekcraft.content.blockentity.TransporterRoomBlockEntity;
-import com.csquared.trekcraft.content.blockentity.WormholePortalBlockEntity;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.world.level.block.entity.BlockEntityType;
 import net.neoforged.bus.api.IEventBus;
@@ -33,14 +32,6 @@ public class ModBlockEntities {
                     ).build(null)
             );
 
-    public static final Supplier<BlockEntityType<WormholePortalBlockEntity>> WORMHOLE_PORTAL =
-            BLOCK_ENTITIES.register("wormhole_portal",
-                    () -> BlockEntityType.Builder.of(
-                            WormholePortalBlockEntity::new,
-                            ModBlocks.WORMHOLE_PORTAL.get()
-                    ).build(null)
-            );
-
     public static final Supplier<BlockEntityType<HolodeckControllerBlockEntity>> HOLODECK_CONTROLLER =
             BLOCK_ENTITIES.register("holodeck_controller",
                     () -> BlockEntityType.Builder.of(
@@ -0,0 +1,157 @@
+package com.csquared.trekcraft.service;
+
+import com.csquared.trekcraft.TrekCraftConfig;
+import com.csquared.trekcraft.TrekCraftMod;
+import com.csquared.trekcraft.data.SignalExpiryTracker;
+import com.csquared.trekcraft.data.TransporterNetworkSavedData;
+import com.csquared.trekcraft.data.TransporterNetworkSavedData.SignalRecord;
+import com.csquared.trekcraft.data.TransporterNetworkSavedData.SignalType;
+import com.csquared.trekcraft.data.TricorderData;
+import com.csquared.trekcraft.registry.ModDataComponents;
+import com.csquared.trekcraft.registry.ModItems;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.item.ItemEntity;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.phys.AABB;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Ages tricorder signals out of the network once they can no longer be confirmed.
+ * Signals come due on a timing wheel and are verified in small batches per tick:
+ * - HELD signals are kept while their holder is online, pruned otherwise
+ * - DROPPED signals are kept if the item entity is still near its last known position,
+ *   parked until their chunk loads if it isn't loaded, and pruned otherwise
+ * Pruning is safe: a surviving tricorder item re-registers itself when its entity joins a level.
+ */
+public class SignalExpiryService {
+
+    // Search radius around the last known position when verifying a dropped tricorder
+    private static final double DROPPED_SEARCH_RADIUS = 16.0;
+
+    // Delay before verifying signals released by a chunk load, so its entities can load first
+    private static final long CHUNK_LOAD_VERIFY_DELAY = 100;
+
+    /**
+     * Advance the expiry wheel and verify a batch of due signals.
+     * Called once per server tick.
+     */
+    public static void tick(MinecraftServer server) {
+        ServerLevel overworld = server.getLevel(Level.OVERWORLD);
+        if (overworld == null) return;
+
+        TransporterNetworkSavedData data = TransporterNetworkSavedData.get(overworld);
+        SignalExpiryTracker expiry = data.getSignalExpiry();
+        long gameTime = overworld.getGameTime();
+
+        expiry.advance(gameTime);
+
+        for (int i = 0; i < TrekCraftConfig.signalPruneBatchSize; i++) {
+            UUID tricorderId = expiry.pollPending();
+            if (tricorderId == null) break;
+            verifySignal(server, data, tricorderId, gameTime);
+        }
+    }
+
+    /**
+     * Release dropped signals that were waiting for this chunk to load.
+     */
+    public static void onChunkLoad(ServerLevel level, ChunkPos chunkPos) {
+        TransporterNetworkSavedData data = TransporterNetworkSavedData.get(level);
+        SignalExpiryTracker expiry = data.getSignalExpiry();
+        if (!expiry.hasParked()) return;
+
+        String dimensionKey = level.dimension().location().toString();
+        Set<UUID> released = expiry.releaseChunk(dimensionKey, chunkPos.toLong());
+        long verifyAt = level.getGameTime() + CHUNK_LOAD_VERIFY_DELAY;
+        for (UUID tricorderId : released) {
+            expiry.reschedule(tricorderId, verifyAt);
+        }
+    }
+
+    private static void verifySignal(MinecraftServer server, TransporterNetworkSavedData data,
+                                     UUID tricorderId, long gameTime) {
+        SignalRecord signal = data.getSignal(tricorderId).orElse(null);
+        if (signal == null) return;
+
+        SignalExpiryTracker expiry = data.getSignalExpiry();
+
+        // Seen again since it was scheduled - just push the deadline out
+        long deadline = TransporterNetworkSavedData.getSignalDeadline(signal.lastSeenGameTime());
+        if (deadline > gameTime) {
+            expiry.reschedule(tricorderId, deadline);
+            return;
+        }
+
+        if (signal.type() == SignalType.HELD) {
+            boolean holderOnline = signal.holderId() != null
+                    && server.getPlayerList().getPlayer(signal.holderId()) != null;
+            if (holderOnline && TrekCraftConfig.trackHeldTricorders) {
+                expiry.reschedule(tricorderId, TransporterNetworkSavedData.getSignalDeadline(gameTime));
+            } else {
+                prune(data, signal, "holder offline");
+            }
+            return;
+        }
+
+        ServerLevel level = getLevel(server, signal.dimensionKey());
+        if (level == null) {
+            prune(data, signal, "dimension unavailable");
+            return;
+        }
+
+        BlockPos pos = signal.lastKnownPos();
+        ChunkPos chunkPos = new ChunkPos(pos);
+        if (!level.hasChunk(chunkPos.x, chunkPos.z)) {
+            // Can't confirm either way until the chunk is loaded again
+            expiry.park(tricorderId, signal.dimensionKey(), chunkPos.toLong());
+            return;
+        }
+        if (!level.areEntitiesLoaded(chunkPos.toLong())) {
+            expiry.reschedule(tricorderId, gameTime + CHUNK_LOAD_VERIFY_DELAY);
+            return;
+        }
+
+        List<ItemEntity> items = level.getEntitiesOfClass(ItemEntity.class,
+                new AABB(pos).inflate(DROPPED_SEARCH_RADIUS),
+                item -> isTricorder(item, tricorderId));
+        if (!items.isEmpty()) {
+            // Refreshing the record also schedules the next check
+            ItemEntity item = items.get(0);
+            data.registerDroppedSignal(tricorderId, signal.displayName(), item.blockPosition(),
+                    gameTime, signal.dimensionKey());
+        } else {
+            prune(data, signal, "item no longer present");
+        }
+    }
+
+    private static boolean isTricorder(ItemEntity item, UUID tricorderId) {
+        if (!item.isAlive() || !item.getItem().is(ModItems.TRICORDER.get())) {
+            return false;
+        }
+        TricorderData tricorderData = item.getItem().get(ModDataComponents.TRICORDER_DATA.get());
+        return tricorderData != null && tricorderData.tricorderId().equals(tricorderId);
+    }
+
+    private static void prune(TransporterNetworkSavedData data, SignalRecord signal, String reason) {
+        data.unregisterSignal(signal.tricorderId());
+        TrekCraftMod.LOGGER.debug("Pruned stale tricorder signal {} ({}): {}",
+                signal.displayName(), signal.tricorderId(), reason);
+    }
+
+    private static ServerLevel getLevel(MinecraftServer server, String dimensionKey) {
+        ResourceLocation location = ResourceLocation.tryParse(dimensionKey);
+        if (location == null) {
+            return null;
+        }
+        return server.getLevel(ResourceKey.create(Registries.DIMENSION, location));
+    }
+}
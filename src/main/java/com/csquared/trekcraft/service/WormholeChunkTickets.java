@@ -0,0 +1,177 @@
+package com.csquared.trekcraft.service;
+
+import com.csquared.trekcraft.TrekCraftConfig;
+import com.csquared.trekcraft.TrekCraftMod;
+import com.csquared.trekcraft.data.TransporterNetworkSavedData;
+import com.csquared.trekcraft.data.WormholeRecord;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.server.level.TicketType;
+import net.minecraft.world.level.ChunkPos;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps the far end of busy wormholes loaded so travel doesn't stall on a synchronous
+ * chunk load. A destination is ticketed when its link is created, when traffic goes
+ * through its partner, or when a player comes near the partner (warm-up), and released
+ * after a configurable idle time.
+ * Idle portals hold no tickets. Tickets are transient and never saved.
+ */
+public class WormholeChunkTickets {
+
+    public static final TicketType<ChunkPos> WORMHOLE_TICKET =
+            TicketType.create(TrekCraftMod.MODID + ":wormhole", Comparator.comparingLong(ChunkPos::toLong));
+
+    // Radius 2 keeps the destination chunk entity-ticking, so arrivals move and can travel back
+    private static final int TICKET_RADIUS = 2;
+    private static final int SCAN_INTERVAL = 20;
+
+    // destination portal -> held ticket
+    private static final Map<UUID, HeldTicket> held = new HashMap<>();
+
+    /**
+     * Record traffic heading to a destination, ticketing its chunk if needed.
+     */
+    public static void onTraffic(MinecraftServer server, WormholeService.Destination destination) {
+        hold(destination.level(), destination.wormhole(), server.getTickCount());
+    }
+
+    /**
+     * Ticket both ends of a new link, so the first trip through it doesn't wait on a
+     * cold chunk. The tickets expire like any other if the link goes unused.
+     */
+    public static void onLinked(MinecraftServer server, WormholeRecord first, WormholeRecord second) {
+        int now = server.getTickCount();
+        for (WormholeRecord wormhole : new WormholeRecord[] { first, second }) {
+            ServerLevel level = findLevel(server, wormhole.dimensionKey());
+            if (level != null) {
+                hold(level, wormhole, now);
+            }
+        }
+    }
+
+    /**
+     * Warm up destinations near players and release idle tickets.
+     * Called every server tick; does work once per second.
+     */
+    public static void tick(MinecraftServer server) {
+        int now = server.getTickCount();
+        if (now % SCAN_INTERVAL != 0) return;
+
+        if (TrekCraftConfig.wormholeTicketIdleTicks <= 0) {
+            releaseAll(server);
+            return;
+        }
+
+        ServerLevel overworld = server.overworld();
+        TransporterNetworkSavedData data = TransporterNetworkSavedData.get(overworld);
+
+        if (TrekCraftConfig.wormholeWarmupRadius > 0) {
+            warmUpNearPlayers(server, data, now);
+        }
+
+        Iterator<Map.Entry<UUID, HeldTicket>> it = held.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<UUID, HeldTicket> entry = it.next();
+            HeldTicket ticket = entry.getValue();
+            WormholeRecord wormhole = data.getWormhole(entry.getKey()).orElse(null);
+
+            // Release when idle, or when the portal moved, unlinked or was destroyed
+            boolean stale = wormhole == null || !wormhole.isLinked()
+                    || !new ChunkPos(wormhole.anchorPos()).equals(ticket.chunk());
+            if (stale || now - ticket.lastActivity() > TrekCraftConfig.wormholeTicketIdleTicks) {
+                release(server, ticket);
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Drop every ticket, e.g. when the feature is disabled.
+     */
+    public static void releaseAll(MinecraftServer server) {
+        for (HeldTicket ticket : held.values()) {
+            release(server, ticket);
+        }
+        held.clear();
+    }
+
+    /**
+     * Forget all state without touching chunk maps (tickets don't survive a restart).
+     */
+    public static void clear() {
+        held.clear();
+    }
+
+    private static void warmUpNearPlayers(MinecraftServer server, TransporterNetworkSavedData data, int now) {
+        int radius = TrekCraftConfig.wormholeWarmupRadius;
+        double radiusSqr = (double) radius * radius;
+
+        for (ServerPlayer player : server.getPlayerList().getPlayers()) {
+            if (player.isSpectator()) continue;
+            String dimensionKey = player.serverLevel().dimension().location().toString();
+
+            // Only portals anchored in chunks around the player are candidates
+            for (WormholeRecord wormhole : data.getWormholesNear(dimensionKey, player.blockPosition(), radius)) {
+                if (!wormhole.isLinked()) {
+                    continue;
+                }
+                BlockPos anchor = wormhole.anchorPos();
+                if (player.distanceToSqr(anchor.getX() + 0.5, anchor.getY() + 0.5, anchor.getZ() + 0.5) > radiusSqr) {
+                    continue;
+                }
+                WormholeService.Destination destination = WormholeService.resolveDestination(player.serverLevel(), wormhole);
+                if (destination != null) {
+                    hold(destination.level(), destination.wormhole(), now);
+                }
+            }
+        }
+    }
+
+    private static void hold(ServerLevel level, WormholeRecord wormhole, int now) {
+        if (TrekCraftConfig.wormholeTicketIdleTicks <= 0) return;
+
+        HeldTicket existing = held.get(wormhole.portalId());
+        if (existing != null) {
+            held.put(wormhole.portalId(), existing.touch(now));
+            return;
+        }
+
+        ChunkPos chunk = new ChunkPos(wormhole.anchorPos());
+        level.getChunkSource().addRegionTicket(WORMHOLE_TICKET, chunk, TICKET_RADIUS, chunk);
+        held.put(wormhole.portalId(), new HeldTicket(level.dimension().location().toString(), chunk, now));
+        TrekCraftMod.LOGGER.debug("Ticketed wormhole destination {} at {}", wormhole.name(), chunk);
+    }
+
+    private static void release(MinecraftServer server, HeldTicket ticket) {
+        ServerLevel level = findLevel(server, ticket.dimensionKey());
+        if (level != null) {
+            level.getChunkSource().removeRegionTicket(WORMHOLE_TICKET, ticket.chunk(), TICKET_RADIUS, ticket.chunk());
+            TrekCraftMod.LOGGER.debug("Released wormhole destination ticket at {}", ticket.chunk());
+        }
+    }
+
+    @Nullable
+    private static ServerLevel findLevel(MinecraftServer server, String dimensionKey) {
+        for (ServerLevel level : server.getAllLevels()) {
+            if (level.dimension().location().toString().equals(dimensionKey)) {
+                return level;
+            }
+        }
+        return null;
+    }
+
+    private record HeldTicket(String dimensionKey, ChunkPos chunk, int lastActivity) {
+        HeldTicket touch(int now) {
+            return new HeldTicket(dimensionKey, chunk, now);
+        }
+    }
+}
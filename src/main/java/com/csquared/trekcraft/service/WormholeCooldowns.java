@@ -0,0 +1,59 @@
+package com.csquared.trekcraft.service;
+
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.world.entity.Entity;
+
+/**
+ * Transient per-entity wormhole cooldowns, keyed by entity id.
+ * Nothing is written to entity NBT; entries are dropped when an entity leaves the
+ * world (other than by changing dimension) and the whole map is cleared on server start.
+ */
+public class WormholeCooldowns {
+
+    // Persistent-data key older versions stored the last travel time under
+    private static final String LEGACY_COOLDOWN_KEY = "trekcraft_wormhole_cooldown";
+
+    // entity id -> game time at which the entity may travel again
+    private static final Int2LongOpenHashMap expiries = new Int2LongOpenHashMap();
+
+    /**
+     * Check whether an entity is still cooling down. Expired entries are removed.
+     */
+    public static boolean isOnCooldown(Entity entity, long gameTime) {
+        long expiry = expiries.get(entity.getId());
+        if (expiry == 0) {
+            return false;
+        }
+        if (gameTime < expiry) {
+            return true;
+        }
+        expiries.remove(entity.getId());
+        return false;
+    }
+
+    public static void start(Entity entity, long gameTime, int ticks) {
+        if (ticks > 0) {
+            expiries.put(entity.getId(), gameTime + ticks);
+        }
+    }
+
+    public static void forget(Entity entity) {
+        expiries.remove(entity.getId());
+    }
+
+    /**
+     * Remove the cooldown tag older versions left in an entity's persistent data.
+     * Called when an entity joins a level, so saved worlds shed it as they load.
+     */
+    public static void dropLegacyTag(Entity entity) {
+        CompoundTag persistentData = entity.getPersistentData();
+        if (persistentData.contains(LEGACY_COOLDOWN_KEY)) {
+            persistentData.remove(LEGACY_COOLDOWN_KEY);
+        }
+    }
+
+    public static void clear() {
+        expiries.clear();
+    }
+}
@@ -0,0 +1,127 @@
+package com.csquared.trekcraft.service;
+
+import com.csquared.trekcraft.data.TransporterNetworkSavedData;
+import com.csquared.trekcraft.data.UnlinkedWormholeIndex;
+import com.csquared.trekcraft.data.WormholeRecord;
+import com.csquared.trekcraft.network.OpenWormholeLinkScreenPayload.DirectoryPage;
+import com.csquared.trekcraft.network.OpenWormholeLinkScreenPayload.PortalEntry;
+import com.csquared.trekcraft.network.RequestWormholeDirectoryPayload;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+
+/**
+ * Paged, searchable directory of wormholes a portal can link to.
+ * Candidates come from the unlinked-portal index, are filtered by name and ordered
+ * nearest first: portals in the source's dimension by distance, then other
+ * dimensions by dimension and name. Only one page is ever sent to the client.
+ *
+ * The index already keeps other dimensions in display order, so only matches in the
+ * source's own dimension are ranked per query, and only as many of those as the
+ * requested page reaches.
+ */
+public class WormholeDirectory {
+
+    private static final int PAGE_SIZE = RequestWormholeDirectoryPayload.PAGE_SIZE;
+
+    /**
+     * Build one page of link candidates for a source portal.
+     */
+    public static DirectoryPage query(TransporterNetworkSavedData data, WormholeRecord source, String filter, int page) {
+        String needle = filter.trim().toLowerCase(Locale.ROOT);
+        UnlinkedWormholeIndex index = data.getUnlinkedIndex();
+        NavigableSet<UnlinkedWormholeIndex.Entry> local = index.inDimension(source.dimensionKey());
+
+        // Count first, so an out-of-range page can be clamped before anything is ranked
+        int localCount = 0;
+        for (UnlinkedWormholeIndex.Entry entry : local) {
+            if (matches(entry, source, needle)) localCount++;
+        }
+        int otherCount = 0;
+        for (var dimension : index.byDimension().entrySet()) {
+            if (dimension.getKey().equals(source.dimensionKey())) continue;
+            for (UnlinkedWormholeIndex.Entry entry : dimension.getValue()) {
+                if (matches(entry, source, needle)) otherCount++;
+            }
+        }
+
+        int total = localCount + otherCount;
+        int pageCount = Math.max(1, (total + PAGE_SIZE - 1) / PAGE_SIZE);
+        int pageIndex = Math.max(0, Math.min(page, pageCount - 1));
+        int from = pageIndex * PAGE_SIZE;
+        int to = Math.min(total, from + PAGE_SIZE);
+
+        List<PortalEntry> entries = new ArrayList<>(to - from);
+        if (from < localCount) {
+            addNearest(entries, local, source, needle, from, Math.min(to, localCount));
+        }
+        if (to > localCount) {
+            addOtherDimensions(entries, index, source, needle, Math.max(0, from - localCount), to - localCount);
+        }
+        return new DirectoryPage(needle, pageIndex, total, entries);
+    }
+
+    private static boolean matches(UnlinkedWormholeIndex.Entry entry, WormholeRecord source, String needle) {
+        return !entry.wormhole().portalId().equals(source.portalId())
+                && (needle.isEmpty() || entry.searchName().contains(needle));
+    }
+
+    /**
+     * Add matches [from, to) of the source's dimension, nearest first. Keeps only the
+     * nearest {@code to} in a bounded heap rather than sorting every match.
+     */
+    private static void addNearest(List<PortalEntry> out, NavigableSet<UnlinkedWormholeIndex.Entry> local,
+                                   WormholeRecord source, String needle, int from, int to) {
+        PriorityQueue<Candidate> nearest = new PriorityQueue<>(to, NEAREST_FIRST.reversed());
+        for (UnlinkedWormholeIndex.Entry entry : local) {
+            if (!matches(entry, source, needle)) continue;
+            Candidate candidate = new Candidate(entry.wormhole(), (long) entry.wormhole().anchorPos().distSqr(source.anchorPos()));
+            if (nearest.size() < to) {
+                nearest.add(candidate);
+            } else if (NEAREST_FIRST.compare(candidate, nearest.peek()) < 0) {
+                nearest.poll();
+                nearest.add(candidate);
+            }
+        }
+
+        Candidate[] ranked = nearest.toArray(new Candidate[0]);
+        Arrays.sort(ranked, NEAREST_FIRST);
+        for (int i = from; i < ranked.length; i++) {
+            WormholeRecord w = ranked[i].wormhole();
+            int distance = (int) Math.min(Integer.MAX_VALUE, Math.sqrt(ranked[i].distanceSqr()));
+            out.add(new PortalEntry(w.portalId(), w.name(), w.anchorPos(), w.dimensionKey(), distance));
+        }
+    }
+
+    /**
+     * Add matches [from, to) outside the source's dimension, in index order.
+     */
+    private static void addOtherDimensions(List<PortalEntry> out, UnlinkedWormholeIndex index,
+                                           WormholeRecord source, String needle, int from, int to) {
+        int seen = 0;
+        for (var dimension : index.byDimension().entrySet()) {
+            if (dimension.getKey().equals(source.dimensionKey())) continue;
+            for (UnlinkedWormholeIndex.Entry entry : dimension.getValue()) {
+                if (!matches(entry, source, needle)) continue;
+                if (seen++ < from) continue;
+                WormholeRecord w = entry.wormhole();
+                // -1 marks another dimension, where distance has no meaning
+                out.add(new PortalEntry(w.portalId(), w.name(), w.anchorPos(), w.dimensionKey(), -1));
+                if (seen >= to) return;
+            }
+        }
+    }
+
+    private record Candidate(WormholeRecord wormhole, long distanceSqr) {}
+
+    // Nearest first, ties by name
+    private static final Comparator<Candidate> NEAREST_FIRST = Comparator
+            .comparingLong(Candidate::distanceSqr)
+            .thenComparing(c -> c.wormhole().name(), String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(c -> c.wormhole().portalId());
+}
@@ -0,0 +1,79 @@
+package com.csquared.trekcraft.service;
+
+import com.csquared.trekcraft.TrekCraftMod;
+import com.csquared.trekcraft.data.TransporterNetworkSavedData;
+import com.csquared.trekcraft.data.WormholeRecord;
+import com.csquared.trekcraft.util.WormholeFrameDetector;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Collects frame changes reported by portal neighbor updates and validates each
+ * affected portal once per tick. Only the frame blocks that actually changed are
+ * checked, so an explosion next to a large portal costs a handful of block lookups
+ * instead of hundreds of full-frame validations.
+ */
+public class WormholeFrameRevalidator {
+
+    // dimension -> portal -> packed positions of changed frame blocks
+    private static final Map<String, Map<UUID, LongOpenHashSet>> pending = new HashMap<>();
+
+    /**
+     * Record that a neighbor of a portal block changed. Positions that aren't part of
+     * any wormhole frame (e.g. other interior blocks) are ignored.
+     */
+    public static void onNeighborChanged(ServerLevel level, BlockPos neighborPos) {
+        TransporterNetworkSavedData data = TransporterNetworkSavedData.get(level);
+        String dimensionKey = level.dimension().location().toString();
+
+        for (WormholeRecord wormhole : data.getWormholesByFramePosition(dimensionKey, neighborPos)) {
+            pending.computeIfAbsent(dimensionKey, k -> new HashMap<>())
+                    .computeIfAbsent(wormhole.portalId(), k -> new LongOpenHashSet())
+                    .add(neighborPos.asLong());
+        }
+    }
+
+    /**
+     * Validate every portal with reported changes in this level, once each.
+     * Called at the end of each level tick on the server.
+     */
+    public static void tick(ServerLevel level) {
+        if (pending.isEmpty()) return;
+
+        Map<UUID, LongOpenHashSet> changes = pending.remove(level.dimension().location().toString());
+        if (changes == null) return;
+
+        TransporterNetworkSavedData data = TransporterNetworkSavedData.get(level);
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+
+        for (Map.Entry<UUID, LongOpenHashSet> entry : changes.entrySet()) {
+            UUID portalId = entry.getKey();
+            if (data.getWormhole(portalId).isEmpty()) {
+                continue; // Already destroyed
+            }
+
+            LongIterator it = entry.getValue().iterator();
+            while (it.hasNext()) {
+                pos.set(it.nextLong());
+                if (!WormholeFrameDetector.isFrameBlock(level, pos)) {
+                    TrekCraftMod.LOGGER.debug("Wormhole {} frame broken at {}", portalId, pos);
+                    WormholeService.destroyPortal(level, portalId);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop all reported changes. Called when the server starts and stops.
+     */
+    public static void clear() {
+        pending.clear();
+    }
+}
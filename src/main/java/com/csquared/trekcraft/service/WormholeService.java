@@ -1,28 +1,34 @@
 package com.csquared.trekcraft.service;
 
+import com.csquared.trekcraft.TrekCraftConfig;
 import com.csquared.trekcraft.TrekCraftMod;
 import com.csquared.trekcraft.content.block.WormholePortalBlock;
-import com.csquared.trekcraft.content.blockentity.WormholePortalBlockEntity;
 import com.csquared.trekcraft.data.TransporterNetworkSavedData;
 import com.csquared.trekcraft.data.WormholeRecord;
+import com.csquared.trekcraft.data.WormholeSpatialIndex;
 import com.csquared.trekcraft.registry.ModBlocks;
 import com.csquared.trekcraft.util.WormholeFrameDetector;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
+import net.minecraft.core.particles.ParticleTypes;
 import net.minecraft.core.registries.Registries;
-import net.minecraft.nbt.CompoundTag;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.item.ItemEntity;
 import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.Level;
-import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.portal.DimensionTransition;
 import net.minecraft.world.phys.Vec3;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -35,7 +41,7 @@ public class WormholeService {
      */
     public enum ActivationResult {
         SUCCESS,
-        NOT_COBBLESTONE,
+        NOT_FRAME_BLOCK,
         INVALID_FRAME,
         PORTAL_EXISTS_HERE
     }
@@ -44,7 +50,7 @@ public class WormholeService {
      * Try to activate a wormhole portal at the clicked position.
      *
      * @param player The player activating the portal
-     * @param clickedPos The position that was clicked (should be cobblestone)
+     * @param clickedPos The position that was clicked (should be a frame block)
      * @return The result of the activation attempt, and if successful, the portal ID
      */
     public static ActivationAttempt tryActivate(Player player, BlockPos clickedPos) {
@@ -57,21 +63,21 @@ public class WormholeService {
 
         if (!frameResult.isValid()) {
             TrekCraftMod.LOGGER.debug("Frame detection failed: {}", frameResult.errorMessage());
-            if (frameResult.errorMessage().equals("Must click on cobblestone")) {
-                return new ActivationAttempt(ActivationResult.NOT_COBBLESTONE, null);
+            if (frameResult.errorMessage().equals(WormholeFrameDetector.NOT_FRAME_BLOCK)) {
+                return new ActivationAttempt(ActivationResult.NOT_FRAME_BLOCK, null);
             }
             return new ActivationAttempt(ActivationResult.INVALID_FRAME, null);
         }
 
         // Check if a portal already exists at this anchor position
         TransporterNetworkSavedData data = TransporterNetworkSavedData.get(serverLevel);
-        if (data.getWormholeByAnchor(frameResult.anchorPos()).isPresent()) {
+        String dimensionKey = serverLevel.dimension().location().toString();
+        if (data.getWormholeByAnchor(dimensionKey, frameResult.anchorPos()).isPresent()) {
             return new ActivationAttempt(ActivationResult.PORTAL_EXISTS_HERE, null);
         }
 
         // Create the portal
         UUID portalId = UUID.randomUUID();
-        String dimensionKey = serverLevel.dimension().location().toString();
 
         // Create and register the wormhole record
         WormholeRecord wormhole = WormholeRecord.create(
@@ -85,17 +91,15 @@ public class WormholeService {
         );
         data.registerWormhole(wormhole);
 
-        // Place portal blocks in the interior
+        // Fill the interior in one pass. Portal identity lives in the wormhole index, so
+        // the blocks carry no data; skip neighbor and shape updates since the frame has
+        // just been validated, and let the chunk map batch the client updates per section
         BlockState portalState = ModBlocks.WORMHOLE_PORTAL.get().defaultBlockState()
                 .setValue(WormholePortalBlock.AXIS, frameResult.axis());
-
-        for (BlockPos interiorPos : frameResult.interiorBlocks()) {
-            serverLevel.setBlock(interiorPos, portalState, 3);
-            BlockEntity be = serverLevel.getBlockEntity(interiorPos);
-            if (be instanceof WormholePortalBlockEntity portalBE) {
-                portalBE.setPortalId(portalId);
-            }
-        }
+        BlockPos.MutableBlockPos interiorPos = new BlockPos.MutableBlockPos();
+        WormholeSpatialIndex.forEachInteriorPosition(wormhole, packedPos ->
+                serverLevel.setBlock(interiorPos.set(packedPos), portalState,
+                        Block.UPDATE_CLIENTS | Block.UPDATE_KNOWN_SHAPE));
 
         TrekCraftMod.LOGGER.info("Wormhole portal created at {} with ID {}", frameResult.anchorPos(), portalId);
         return new ActivationAttempt(ActivationResult.SUCCESS, portalId);
@@ -111,37 +115,25 @@ public class WormholeService {
     }
 
     /**
-     * Teleport an entity through a wormhole portal.
-     * Supports cross-dimensional teleportation.
+     * Where a linked wormhole sends things, resolved once per use.
      */
-    public static void teleportThrough(ServerLevel level, Entity entity, UUID portalId) {
-        // Check cooldown
-        CompoundTag persistentData = entity.getPersistentData();
-        long lastTeleportTime = persistentData.getLong(WormholePortalBlock.WORMHOLE_COOLDOWN_KEY);
-        long currentTime = level.getGameTime();
-
-        if (currentTime - lastTeleportTime < WormholePortalBlock.COOLDOWN_TICKS) {
-            TrekCraftMod.LOGGER.debug("Teleport blocked by cooldown: {} ticks remaining",
-                    WormholePortalBlock.COOLDOWN_TICKS - (currentTime - lastTeleportTime));
-            return; // Still on cooldown
-        }
-
-        TransporterNetworkSavedData data = TransporterNetworkSavedData.get(level);
-        WormholeRecord sourceWormhole = data.getWormhole(portalId).orElse(null);
-
-        if (sourceWormhole == null) {
-            TrekCraftMod.LOGGER.warn("Teleport failed: source wormhole {} not found in saved data", portalId);
-            return;
-        }
+    public record Destination(WormholeRecord wormhole, ServerLevel level, boolean crossDimensional, Vec3 center) {}
 
+    /**
+     * Resolve the destination of a wormhole, or null if it isn't linked or the
+     * far end (or its dimension) is unavailable.
+     */
+    @Nullable
+    public static Destination resolveDestination(ServerLevel level, WormholeRecord sourceWormhole) {
         if (!sourceWormhole.isLinked()) {
-            TrekCraftMod.LOGGER.debug("Teleport blocked: wormhole {} is not linked", portalId);
-            return; // Portal isn't linked
+            TrekCraftMod.LOGGER.debug("Teleport blocked: wormhole {} is not linked", sourceWormhole.portalId());
+            return null; // Portal isn't linked
         }
 
+        TransporterNetworkSavedData data = TransporterNetworkSavedData.get(level);
         WormholeRecord destWormhole = data.getWormhole(sourceWormhole.linkedPortalId()).orElse(null);
         if (destWormhole == null) {
-            return; // Destination portal doesn't exist
+            return null; // Destination portal doesn't exist
         }
 
         // Get destination level (may be different dimension)
@@ -155,7 +147,7 @@ public class WormholeService {
             destLevel = level.getServer().getLevel(destDimKey);
             if (destLevel == null) {
                 TrekCraftMod.LOGGER.warn("Destination dimension {} unavailable", destWormhole.dimensionKey());
-                return;
+                return null;
             }
         }
 
@@ -170,8 +162,121 @@ public class WormholeService {
         double centerY = destAnchor.getY(); // Bottom of portal to ensure they're not in ceiling
         double centerZ = destAnchor.getZ() + (axis == Direction.Axis.Z ? width / 2.0 : 0.5);
 
-        // Set cooldown before teleporting
-        persistentData.putLong(WormholePortalBlock.WORMHOLE_COOLDOWN_KEY, currentTime);
+        return new Destination(destWormhole, destLevel, crossDimensional, new Vec3(centerX, centerY, centerZ));
+    }
+
+    /**
+     * Teleport an entity through a wormhole portal to an already-resolved destination.
+     * Supports cross-dimensional teleportation. Called from WormholeTeleportQueue.
+     */
+    public static void teleportThrough(ServerLevel level, Entity entity, Destination destination) {
+        // Check cooldown
+        long currentTime = level.getGameTime();
+        if (WormholeCooldowns.isOnCooldown(entity, currentTime)) {
+            return; // Still on cooldown
+        }
+
+        moveEntity(entity, destination, currentTime);
+
+        // Play effects in both dimensions
+        playTransitSound(level, entity.blockPosition());
+        if (destination.crossDimensional()) {
+            playTransitSound(destination.level(), destination.wormhole().anchorPos());
+        }
+
+        TrekCraftMod.LOGGER.debug("Entity {} teleported through wormhole to {} (dimension: {})",
+                entity.getName().getString(), destination.wormhole().anchorPos(),
+                destination.wormhole().dimensionKey());
+    }
+
+    /**
+     * Move a batch of item entities through a wormhole as one transfer.
+     * Stacks that can combine are merged into a single carrier entity before moving,
+     * throughput is capped per portal per tick, and each end gets one sound and one
+     * particle burst regardless of how many items went through.
+     *
+     * @return the number of items (not entities) transferred
+     */
+    public static int transferItems(ServerLevel level, WormholeRecord sourceWormhole, Destination destination,
+                                    List<ItemEntity> items) {
+        long currentTime = level.getGameTime();
+
+        // Merge into carriers: the first entity of each group travels, the rest are absorbed
+        List<ItemEntity> carriers = new ArrayList<>();
+        List<ItemStack> merged = new ArrayList<>();
+        int budget = TrekCraftConfig.wormholeMaxItemsPerTick;
+        int transferred = 0;
+
+        for (ItemEntity item : items) {
+            if (!item.isAlive() || item.level() != level || WormholeCooldowns.isOnCooldown(item, currentTime)) {
+                continue;
+            }
+            ItemStack stack = item.getItem();
+            if (stack.isEmpty()) {
+                continue;
+            }
+            // Always let at least one entity through, even if it alone exceeds the cap
+            if (transferred > 0 && transferred + stack.getCount() > budget) {
+                break;
+            }
+            transferred += stack.getCount();
+
+            boolean absorbed = false;
+            for (int i = 0; i < merged.size(); i++) {
+                ItemStack target = merged.get(i);
+                if (ItemStack.isSameItemSameComponents(target, stack)
+                        && target.getCount() + stack.getCount() <= target.getMaxStackSize()) {
+                    target.grow(stack.getCount());
+                    item.discard();
+                    absorbed = true;
+                    break;
+                }
+            }
+            if (!absorbed) {
+                carriers.add(item);
+                merged.add(stack.copy());
+            }
+        }
+
+        if (carriers.isEmpty()) {
+            return 0;
+        }
+
+        for (int i = 0; i < carriers.size(); i++) {
+            ItemEntity carrier = carriers.get(i);
+            carrier.setItem(merged.get(i));
+            moveEntity(carrier, destination, currentTime);
+        }
+
+        // One coalesced effect at each end
+        BlockPos sourceAnchor = sourceWormhole.anchorPos();
+        BlockPos destAnchor = destination.wormhole().anchorPos();
+        playTransitSound(level, sourceAnchor);
+        playTransitSound(destination.level(), destAnchor);
+        int particles = Math.min(32, 4 + carriers.size() * 2);
+        level.sendParticles(ParticleTypes.PORTAL, sourceAnchor.getX() + 0.5, sourceAnchor.getY() + 0.5,
+                sourceAnchor.getZ() + 0.5, particles, 0.5, 0.5, 0.5, 0.1);
+        Vec3 center = destination.center();
+        destination.level().sendParticles(ParticleTypes.PORTAL, center.x, center.y + 0.5, center.z,
+                particles, 0.5, 0.5, 0.5, 0.1);
+
+        TrekCraftMod.LOGGER.debug("Transferred {} items in {} stacks through wormhole {}",
+                transferred, carriers.size(), sourceWormhole.portalId());
+        return transferred;
+    }
+
+    /**
+     * Move a single entity to a resolved destination and start its cooldown.
+     */
+    private static void moveEntity(Entity entity, Destination destination, long currentTime) {
+        ServerLevel destLevel = destination.level();
+        double centerX = destination.center().x;
+        double centerY = destination.center().y;
+        double centerZ = destination.center().z;
+
+        // Cooldown is governed by the portal the entity arrives at
+        int cooldownTicks = destination.wormhole().getEffectiveCooldownTicks();
+        WormholeCooldowns.start(entity, currentTime, cooldownTicks);
 
         // Teleport the entity - handle cross-dimensional teleportation
         if (entity instanceof ServerPlayer serverPlayer) {
@@ -181,11 +286,10 @@ public class WormholeService {
             serverPlayer.setDeltaMovement(Vec3.ZERO);
         } else {
             // For non-player entities
-            if (crossDimensional) {
-                Vec3 destPos = new Vec3(centerX, centerY, centerZ);
+            if (destination.crossDimensional()) {
                 DimensionTransition transition = new DimensionTransition(
                         destLevel,
-                        destPos,
+                        destination.center(),
                         Vec3.ZERO,
                         entity.getYRot(),
                         entity.getXRot(),
@@ -193,6 +297,9 @@ public class WormholeService {
                 );
                 Entity newEntity = entity.changeDimension(transition);
                 if (newEntity != null) {
+                    // Non-player entities are recreated with a new id in the destination
+                    WormholeCooldowns.forget(entity);
+                    WormholeCooldowns.start(newEntity, currentTime, cooldownTicks);
                     newEntity.teleportTo(centerX, centerY, centerZ);
                     newEntity.setDeltaMovement(Vec3.ZERO);
                     newEntity.resetFallDistance();
@@ -205,19 +312,12 @@ public class WormholeService {
 
         // Reset fall distance to prevent fall damage after teleporting
         entity.resetFallDistance();
+    }
 
-        // Play effects in both dimensions
-        level.playSound(null, entity.blockPosition(),
+    private static void playTransitSound(ServerLevel level, BlockPos pos) {
+        level.playSound(null, pos,
                 net.minecraft.sounds.SoundEvents.ENDERMAN_TELEPORT,
                 net.minecraft.sounds.SoundSource.PLAYERS, 1.0f, 1.0f);
-        if (crossDimensional) {
-            destLevel.playSound(null, destAnchor,
-                    net.minecraft.sounds.SoundEvents.ENDERMAN_TELEPORT,
-                    net.minecraft.sounds.SoundSource.PLAYERS, 1.0f, 1.0f);
-        }
-
-        TrekCraftMod.LOGGER.debug("Entity {} teleported through wormhole {} to {} (dimension: {})",
-                entity.getName().getString(), portalId, destAnchor, destWormhole.dimensionKey());
     }
 
     /**
@@ -243,6 +343,9 @@ public class WormholeService {
         data.updateWormhole(portal1.withLink(portal2Id));
         data.updateWormhole(portal2.withLink(portal1Id));
 
+        // Load both ends now rather than on the first trip through
+        WormholeChunkTickets.onLinked(level.getServer(), portal1, portal2);
+
         TrekCraftMod.LOGGER.info("Linked wormholes {} ({}) in {} and {} ({}) in {}",
                 portal1.name(), portal1Id, portal1.dimensionKey(),
                 portal2.name(), portal2Id, portal2.dimensionKey());
@@ -289,15 +392,12 @@ public class WormholeService {
         }
 
         // Remove all portal blocks
-        Direction horizontal = wormhole.axis() == Direction.Axis.X ? Direction.EAST : Direction.SOUTH;
-        for (int y = 0; y < wormhole.height(); y++) {
-            for (int x = 0; x < wormhole.width(); x++) {
-                BlockPos pos = wormhole.anchorPos().above(y).relative(horizontal, x);
-                if (level.getBlockState(pos).is(ModBlocks.WORMHOLE_PORTAL.get())) {
-                    level.removeBlock(pos, false);
-                }
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        WormholeSpatialIndex.forEachInteriorPosition(wormhole, packedPos -> {
+            if (level.getBlockState(pos.set(packedPos)).is(ModBlocks.WORMHOLE_PORTAL.get())) {
+                level.removeBlock(pos, false);
             }
-        }
+        });
 
         // Unregister from saved data
         data.unregisterWormhole(portalId);
@@ -305,6 +405,18 @@ public class WormholeService {
         TrekCraftMod.LOGGER.info("Destroyed wormhole portal {} at {}", portalId, wormhole.anchorPos());
     }
 
+    /**
+     * Set a wormhole's arrival cooldown (WormholeRecord.DEFAULT_COOLDOWN to use the config value).
+     */
+    public static void setCooldown(ServerLevel level, UUID portalId, int cooldownTicks) {
+        TransporterNetworkSavedData data = TransporterNetworkSavedData.get(level);
+        WormholeRecord wormhole = data.getWormhole(portalId).orElse(null);
+        if (wormhole != null) {
+            data.updateWormhole(wormhole.withCooldown(cooldownTicks));
+            TrekCraftMod.LOGGER.debug("Set wormhole {} cooldown to {}", portalId, cooldownTicks);
+        }
+    }
+
     /**
      * Rename a wormhole portal.
      */
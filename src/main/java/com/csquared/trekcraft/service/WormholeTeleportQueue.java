@@ -0,0 +1,99 @@
+package com.csquared.trekcraft.service;
+
+import com.csquared.trekcraft.TrekCraftMod;
+import com.csquared.trekcraft.data.TransporterNetworkSavedData;
+import com.csquared.trekcraft.data.WormholeRecord;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.item.ItemEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Collects wormhole travel requests during level ticks and runs them together at the
+ * end of the server tick. No entity list is modified while a level is iterating it,
+ * cross-dimension moves happen after every level has ticked, and each portal's
+ * destination is resolved once per batch. Batches run grouped by destination level.
+ */
+public class WormholeTeleportQueue {
+
+    private static final List<PortalBatch> pending = new ArrayList<>();
+
+    /**
+     * Queue everything found inside a portal this tick.
+     */
+    public static void enqueue(ServerLevel level, UUID portalId, List<Entity> entities, List<ItemEntity> items) {
+        if (entities.isEmpty() && items.isEmpty()) {
+            return;
+        }
+        pending.add(new PortalBatch(level, portalId, entities, items));
+    }
+
+    /**
+     * Run every queued request. Called once at the end of each server tick.
+     */
+    public static void flush(MinecraftServer server) {
+        if (pending.isEmpty()) return;
+
+        long start = System.nanoTime();
+        List<PortalBatch> batches = new ArrayList<>(pending);
+        pending.clear();
+
+        // Resolve each portal once and group by destination dimension
+        Map<String, List<ResolvedBatch>> byDestination = new TreeMap<>();
+        for (PortalBatch batch : batches) {
+            TransporterNetworkSavedData data = TransporterNetworkSavedData.get(batch.level());
+            WormholeRecord source = data.getWormhole(batch.portalId()).orElse(null);
+            if (source == null) {
+                continue; // Destroyed since it was queued
+            }
+            WormholeService.Destination destination = WormholeService.resolveDestination(batch.level(), source);
+            if (destination == null) {
+                continue;
+            }
+            // Keep the far end loaded while this portal is busy
+            WormholeChunkTickets.onTraffic(server, destination);
+            byDestination.computeIfAbsent(destination.wormhole().dimensionKey(), k -> new ArrayList<>())
+                    .add(new ResolvedBatch(batch, source, destination));
+        }
+
+        int entityCount = 0;
+        for (List<ResolvedBatch> group : byDestination.values()) {
+            for (ResolvedBatch resolved : group) {
+                ServerLevel level = resolved.batch().level();
+                for (Entity entity : resolved.batch().entities()) {
+                    // Skip anything that died or already left this level during the tick
+                    if (!entity.isAlive() || entity.level() != level) {
+                        continue;
+                    }
+                    WormholeService.teleportThrough(level, entity, resolved.destination());
+                    entityCount++;
+                }
+                if (!resolved.batch().items().isEmpty()) {
+                    WormholeService.transferItems(level, resolved.source(), resolved.destination(),
+                            resolved.batch().items());
+                }
+            }
+        }
+
+        TrekCraftMod.LOGGER.debug("Processed {} wormhole batches ({} entities) in {} us",
+                batches.size(), entityCount, (System.nanoTime() - start) / 1000);
+    }
+
+    /**
+     * Drop queued travel without running it, releasing the level and entity references.
+     * Called when the server stops.
+     */
+    public static void clear() {
+        pending.clear();
+    }
+
+    private record PortalBatch(ServerLevel level, UUID portalId, List<Entity> entities, List<ItemEntity> items) {}
+
+    private record ResolvedBatch(PortalBatch batch, WormholeRecord source, WormholeService.Destination destination) {}
+}
@@ -0,0 +1,126 @@
+package com.csquared.trekcraft.service;
+
+import com.csquared.trekcraft.TrekCraftConfig;
+import com.csquared.trekcraft.data.TransporterNetworkSavedData;
+import com.csquared.trekcraft.data.WormholeRecord;
+import com.csquared.trekcraft.registry.ModBlocks;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.item.ItemEntity;
+import net.minecraft.world.phys.AABB;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Detects entities entering wormholes, one query per portal per tick, and hands them
+ * to WormholeTeleportQueue.
+ * Replaces per-block ticking: the whole interior is checked with a single AABB,
+ * so the cost of a portal no longer depends on its area. Only portals an entity has
+ * touched are checked, so idle wormholes cost nothing per tick.
+ */
+public class WormholeTrafficController {
+
+    // dimension -> portals with entities inside them
+    private static final Map<String, Set<UUID>> active = new HashMap<>();
+
+    /**
+     * Mark the portal owning this interior block as having traffic.
+     * Called from WormholePortalBlock.entityInside() on the server.
+     */
+    public static void onEntityInside(ServerLevel level, BlockPos interiorPos) {
+        String dimensionKey = level.dimension().location().toString();
+        TransporterNetworkSavedData.get(level).getWormholeByInteriorPosition(dimensionKey, interiorPos)
+                .filter(WormholeRecord::isLinked)
+                .ifPresent(wormhole -> active.computeIfAbsent(dimensionKey, k -> new HashSet<>())
+                        .add(wormhole.portalId()));
+    }
+
+    /**
+     * Check every portal with traffic in this level for entities inside it. A portal
+     * stays tracked until its interior is empty, so entities waiting out a cooldown
+     * are picked up as soon as it expires.
+     * Called once per level tick on the server.
+     */
+    public static void tick(ServerLevel level) {
+        if (active.isEmpty()) return;
+
+        Set<UUID> portals = active.get(level.dimension().location().toString());
+        if (portals == null) return;
+
+        TransporterNetworkSavedData data = TransporterNetworkSavedData.get(level);
+        Iterator<UUID> it = portals.iterator();
+        while (it.hasNext()) {
+            // Unlinked or destroyed portals can't send anything anywhere
+            Optional<WormholeRecord> record = data.getWormhole(it.next());
+            if (record.isEmpty() || !record.get().isLinked()) {
+                it.remove();
+                continue;
+            }
+            WormholeRecord wormhole = record.get();
+
+            // Match block entity ticking: only portals in entity-ticking chunks are active
+            BlockPos anchor = wormhole.anchorPos();
+            if (!level.isPositionEntityTicking(anchor)
+                    || !level.getBlockState(anchor).is(ModBlocks.WORMHOLE_PORTAL.get())) {
+                it.remove();
+                continue;
+            }
+
+            List<Entity> entities = level.getEntities((Entity) null, getInteriorBox(wormhole));
+            if (entities.isEmpty()) {
+                it.remove();
+                continue;
+            }
+
+            // Items go through together as one merged, rate-limited transfer
+            List<Entity> travellers = new ArrayList<>();
+            List<ItemEntity> items = new ArrayList<>();
+            long gameTime = level.getGameTime();
+            for (Entity entity : entities) {
+                if (WormholeCooldowns.isOnCooldown(entity, gameTime)) {
+                    continue; // Just arrived - don't queue it every tick
+                }
+                if (TrekCraftConfig.wormholeBatchItems && entity instanceof ItemEntity item) {
+                    items.add(item);
+                } else {
+                    travellers.add(entity);
+                }
+            }
+
+            // Travel happens at end of server tick, once every level has ticked
+            WormholeTeleportQueue.enqueue(level, wormhole.portalId(), travellers, items);
+        }
+        if (portals.isEmpty()) {
+            active.remove(level.dimension().location().toString());
+        }
+    }
+
+    /**
+     * Forget all tracked traffic. Called when the server stops.
+     */
+    public static void clear() {
+        active.clear();
+    }
+
+    /**
+     * Bounding box of a wormhole's interior, slightly expanded for reliable detection.
+     */
+    public static AABB getInteriorBox(WormholeRecord wormhole) {
+        BlockPos anchor = wormhole.anchorPos();
+        Direction horizontal = wormhole.axis() == Direction.Axis.X ? Direction.EAST : Direction.SOUTH;
+        BlockPos farCorner = anchor
+                .relative(horizontal, wormhole.width() - 1)
+                .above(wormhole.height() - 1);
+        return AABB.encapsulatingFullBlocks(anchor, farCorner).inflate(0.1);
+    }
+}
@@ -0,0 +1,201 @@
+package com.csquared.trekcraft.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Sorted collection with O(log n) insert, remove, rank and select.
+ * Implemented as a treap where every node tracks the size of its subtree.
+ * The comparator must be consistent with equals - two elements that compare
+ * as 0 are treated as the same element.
+ */
+public class OrderStatisticTree<T> {
+    private final Comparator<? super T> comparator;
+    private final Random random = new Random(0x7EC4C4AFL);
+    private Node<T> root;
+
+    public OrderStatisticTree(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public void clear() {
+        root = null;
+    }
+
+    /**
+     * Insert an element, replacing an equal one if present.
+     */
+    public void add(T value) {
+        root = insert(root, value);
+    }
+
+    /**
+     * Remove an element.
+     * @return true if it was present
+     */
+    public boolean remove(T value) {
+        int before = size(root);
+        root = delete(root, value);
+        return size(root) != before;
+    }
+
+    /**
+     * Zero-based position of an element in sort order, or -1 if absent.
+     */
+    public int rankOf(T value) {
+        Node<T> node = root;
+        int rank = 0;
+        while (node != null) {
+            int cmp = comparator.compare(value, node.value);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                rank += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return rank + size(node.left);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Element at a zero-based position in sort order.
+     */
+    public T get(int index) {
+        if (index < 0 || index >= size(root)) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size(root));
+        }
+        Node<T> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+    }
+
+    /**
+     * The first {@code limit} elements in sort order.
+     */
+    public List<T> head(int limit) {
+        List<T> result = new ArrayList<>(Math.max(0, Math.min(limit, size(root))));
+        collect(root, result, limit);
+        return result;
+    }
+
+    private void collect(Node<T> node, List<T> out, int limit) {
+        if (node == null || out.size() >= limit) return;
+        collect(node.left, out, limit);
+        if (out.size() >= limit) return;
+        out.add(node.value);
+        collect(node.right, out, limit);
+    }
+
+    private Node<T> insert(Node<T> node, T value) {
+        if (node == null) {
+            return new Node<>(value, random.nextInt());
+        }
+        int cmp = comparator.compare(value, node.value);
+        if (cmp == 0) {
+            node.value = value;
+            return node;
+        }
+        if (cmp < 0) {
+            node.left = insert(node.left, value);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, value);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<T> delete(Node<T> node, T value) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = comparator.compare(value, node.value);
+        if (cmp < 0) {
+            node.left = delete(node.left, value);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, value);
+        } else {
+            return merge(node.left, node.right);
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static <T> int size(Node<T> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static <T> void update(Node<T> node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static final class Node<T> {
+        T value;
+        final int priority;
+        int size = 1;
+        Node<T> left;
+        Node<T> right;
+
+        Node(T value, int priority) {
+            this.value = value;
+            this.priority = priority;
+        }
+    }
+}
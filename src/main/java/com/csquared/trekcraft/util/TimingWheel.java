@@ -0,0 +1,171 @@
+package com.csquared.trekcraft.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for keyed deadlines measured in game ticks.
+ * Each level has 64 slots; one slot on level n spans 64^n slots of level 0.
+ * Entries are cascaded down a level when their slot comes due, so scheduling,
+ * cancelling and expiring are O(1) amortized no matter how many keys are pending.
+ * A key is scheduled at most once - scheduling it again replaces its deadline.
+ */
+public class TimingWheel<K> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long SPAN = 1L << (SLOT_BITS * LEVELS);
+
+    private final int resolutionTicks;
+    private final List<List<Entry<K>>> slots = new ArrayList<>(LEVELS * SLOTS);
+    private final Map<K, Entry<K>> entries = new HashMap<>();
+    private final List<Entry<K>> due = new ArrayList<>();
+
+    // Current wheel time in slot units; only valid once started
+    private long current;
+    private boolean started;
+
+    /**
+     * @param resolutionTicks Game ticks covered by one level-0 slot
+     */
+    public TimingWheel(int resolutionTicks) {
+        this.resolutionTicks = Math.max(1, resolutionTicks);
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Schedule a key to expire at the given game time, replacing any previous deadline.
+     */
+    public void schedule(K key, long deadlineTicks) {
+        Entry<K> entry = new Entry<>(key, Math.floorDiv(deadlineTicks + resolutionTicks - 1, resolutionTicks));
+        entries.put(key, entry);
+        if (started) {
+            place(entry);
+        } else {
+            due.add(entry);
+        }
+    }
+
+    /**
+     * Remove a key from the wheel. Its slot entry is dropped lazily when reached.
+     */
+    public void cancel(K key) {
+        entries.remove(key);
+    }
+
+    public boolean contains(K key) {
+        return entries.containsKey(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Advance the wheel to the given game time, passing every key whose deadline has been reached to the consumer.
+     */
+    public void advance(long nowTicks, Consumer<K> onExpire) {
+        long target = Math.floorDiv(nowTicks, resolutionTicks);
+
+        if (!started) {
+            current = target;
+            started = true;
+            rehome();
+        } else if (target - current >= SPAN) {
+            // Time jumped further than the wheel can represent - re-place everything from scratch
+            current = target;
+            rehome();
+        }
+
+        while (current < target) {
+            current++;
+            cascade();
+            List<Entry<K>> slot = slots.get((int) (current & SLOT_MASK));
+            if (!slot.isEmpty()) {
+                List<Entry<K>> fired = new ArrayList<>(slot);
+                slot.clear();
+                for (Entry<K> entry : fired) {
+                    if (isLive(entry)) {
+                        place(entry);
+                    }
+                }
+            }
+        }
+
+        if (!due.isEmpty()) {
+            List<Entry<K>> fired = new ArrayList<>(due);
+            due.clear();
+            for (Entry<K> entry : fired) {
+                if (isLive(entry)) {
+                    entries.remove(entry.key);
+                    onExpire.accept(entry.key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Move the entries of every higher-level slot that came due at the current time down the wheel.
+     */
+    private void cascade() {
+        int topLevel = 0;
+        while (topLevel < LEVELS - 1 && (current & ((1L << (SLOT_BITS * (topLevel + 1))) - 1)) == 0) {
+            topLevel++;
+        }
+        for (int level = topLevel; level >= 1; level--) {
+            int index = (int) ((current >> (SLOT_BITS * level)) & SLOT_MASK);
+            List<Entry<K>> slot = slots.get(level * SLOTS + index);
+            if (slot.isEmpty()) {
+                continue;
+            }
+            List<Entry<K>> moved = new ArrayList<>(slot);
+            slot.clear();
+            for (Entry<K> entry : moved) {
+                if (isLive(entry)) {
+                    place(entry);
+                }
+            }
+        }
+    }
+
+    private void place(Entry<K> entry) {
+        long delta = entry.deadline - current;
+        if (delta <= 0) {
+            due.add(entry);
+            return;
+        }
+
+        // Anything beyond the top level parks in its last slot and is re-placed when cascaded
+        long unit = delta >= SPAN ? current + SPAN - 1 : entry.deadline;
+        delta = unit - current;
+
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int index = (int) ((unit >> (SLOT_BITS * level)) & SLOT_MASK);
+        slots.get(level * SLOTS + index).add(entry);
+    }
+
+    private void rehome() {
+        for (List<Entry<K>> slot : slots) {
+            slot.clear();
+        }
+        due.clear();
+        for (Entry<K> entry : entries.values()) {
+            place(entry);
+        }
+    }
+
+    private boolean isLive(Entry<K> entry) {
+        return entries.get(entry.key) == entry;
+    }
+
+    private record Entry<K>(K key, long deadline) {}
+}
@@ -1,77 +1,87 @@
 package com.csquared.trekcraft.util;
 
+import com.csquared.trekcraft.TrekCraftMod;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
-import net.minecraft.world.level.Level;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.state.BlockState;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
-
 /**
  * Utility class for detecting and validating wormhole portal frames.
- * The frame must be made of cobblestone and form a rectangular shape
- * with an air interior, similar to a nether portal.
+ * The frame must be made of blocks in the {@code trekcraft:wormhole_frame} tag
+ * (cobblestone by default) and form a rectangular shape with an air interior,
+ * similar to a nether portal.
+ *
+ * Detection walks a single MutableBlockPos and reports the frame as packed
+ * geometry (anchor, axis, size), so a failed or successful scan allocates nothing
+ * per block. Use WormholeSpatialIndex to enumerate frame or interior positions.
  */
 public class WormholeFrameDetector {
 
+    public static final TagKey<Block> FRAME_BLOCKS = TagKey.create(Registries.BLOCK,
+            ResourceLocation.fromNamespaceAndPath(TrekCraftMod.MODID, "wormhole_frame"));
+
+    public static final String NOT_FRAME_BLOCK = "Must click on a wormhole frame block";
+
     public static final int MIN_WIDTH = 2;  // Interior width (matches nether portal)
     public static final int MAX_WIDTH = 21;
     public static final int MIN_HEIGHT = 3; // Interior height (matches nether portal)
     public static final int MAX_HEIGHT = 21;
 
     /**
-     * Result of frame detection containing all relevant data.
+     * Result of frame detection. The anchor is kept packed; anchorPos() unpacks it.
      */
     public record FrameResult(
             boolean isValid,
-            BlockPos anchorPos,      // Bottom-left interior block (for consistent reference)
+            long anchor,             // Bottom-left interior block (for consistent reference)
             Direction.Axis axis,
             int width,               // Interior width
             int height,              // Interior height
-            List<BlockPos> frameBlocks,
-            List<BlockPos> interiorBlocks,
             String errorMessage
     ) {
         public static FrameResult invalid(String reason) {
-            return new FrameResult(false, BlockPos.ZERO, Direction.Axis.X, 0, 0,
-                    List.of(), List.of(), reason);
+            return new FrameResult(false, 0L, Direction.Axis.X, 0, 0, reason);
         }
 
-        public static FrameResult valid(BlockPos anchorPos, Direction.Axis axis, int width, int height,
-                                        List<BlockPos> frameBlocks, List<BlockPos> interiorBlocks) {
-            return new FrameResult(true, anchorPos, axis, width, height,
-                    frameBlocks, interiorBlocks, null);
+        public static FrameResult valid(long anchor, Direction.Axis axis, int width, int height) {
+            return new FrameResult(true, anchor, axis, width, height, null);
+        }
+
+        public BlockPos anchorPos() {
+            return BlockPos.of(anchor);
         }
     }
 
     /**
      * Detect a valid portal frame from a clicked position.
-     * The clicked position should be on a cobblestone block that's part of the frame.
+     * The clicked position should be on a frame block.
      */
-    public static FrameResult detectFrame(Level level, BlockPos clickedPos) {
-        BlockState clickedState = level.getBlockState(clickedPos);
-
-        // Must click on cobblestone
-        if (!clickedState.is(Blocks.COBBLESTONE)) {
-            return FrameResult.invalid("Must click on cobblestone");
+    public static FrameResult detectFrame(BlockGetter level, BlockPos clickedPos) {
+        // Must click on a frame block
+        if (!level.getBlockState(clickedPos).is(FRAME_BLOCKS)) {
+            return FrameResult.invalid(NOT_FRAME_BLOCK);
         }
 
+        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+
         // Try both axes (X-aligned portal or Z-aligned portal)
-        FrameResult xResult = tryDetectFrame(level, clickedPos, Direction.Axis.X);
+        FrameResult xResult = tryDetectFrame(level, clickedPos, Direction.Axis.X, cursor);
         if (xResult.isValid()) {
             return xResult;
         }
 
-        FrameResult zResult = tryDetectFrame(level, clickedPos, Direction.Axis.Z);
+        FrameResult zResult = tryDetectFrame(level, clickedPos, Direction.Axis.Z, cursor);
         if (zResult.isValid()) {
             return zResult;
         }
 
         // Return the more informative error
-        if (xResult.errorMessage() != null && !xResult.errorMessage().equals("Must click on cobblestone")) {
+        if (xResult.errorMessage() != null && !xResult.errorMessage().equals(NOT_FRAME_BLOCK)) {
             return xResult;
         }
         return zResult.errorMessage() != null ? zResult : FrameResult.invalid("No valid portal frame found");
@@ -80,35 +90,35 @@ public class WormholeFrameDetector {
     /**
      * Try to detect a frame with the given axis orientation.
      */
-    private static FrameResult tryDetectFrame(Level level, BlockPos clickedPos, Direction.Axis axis) {
-        // Determine horizontal direction based on axis
-        Direction horizontal = axis == Direction.Axis.X ? Direction.EAST : Direction.SOUTH;
-        Direction vertical = Direction.UP;
+    private static FrameResult tryDetectFrame(BlockGetter level, BlockPos clickedPos, Direction.Axis axis,
+                                              BlockPos.MutableBlockPos cursor) {
+        // Determine horizontal step based on axis
+        int stepX = axis == Direction.Axis.X ? 1 : 0;
+        int stepZ = axis == Direction.Axis.Z ? 1 : 0;
 
         // First, find the bottom-left corner of the frame
         // Start from clicked position and search down and in the negative horizontal direction
-        BlockPos searchPos = clickedPos;
+        int x = clickedPos.getX();
+        int y = clickedPos.getY();
+        int z = clickedPos.getZ();
 
         // Search down to find the bottom of the frame
-        while (isCobblestone(level, searchPos.below())) {
-            searchPos = searchPos.below();
+        while (isFrameBlock(level, cursor.set(x, y - 1, z))) {
+            y--;
         }
 
         // Search in negative horizontal direction to find left side
-        Direction negHorizontal = horizontal.getOpposite();
-        while (isCobblestone(level, searchPos.relative(negHorizontal))) {
-            searchPos = searchPos.relative(negHorizontal);
+        while (isFrameBlock(level, cursor.set(x - stepX, y, z - stepZ))) {
+            x -= stepX;
+            z -= stepZ;
         }
 
-        // Now searchPos should be at the bottom-left corner of the frame
-        BlockPos bottomLeftCorner = searchPos;
+        // Now (x, y, z) should be the bottom-left corner of the frame
 
         // Find the width by scanning right along the bottom
         int bottomWidth = 0;
-        BlockPos scanPos = bottomLeftCorner;
-        while (isCobblestone(level, scanPos)) {
+        while (isFrameBlock(level, cursor.set(x + stepX * bottomWidth, y, z + stepZ * bottomWidth))) {
             bottomWidth++;
-            scanPos = scanPos.relative(horizontal);
             if (bottomWidth > MAX_WIDTH + 2) {
                 return FrameResult.invalid("Frame too wide");
             }
@@ -125,10 +135,8 @@ public class WormholeFrameDetector {
 
         // Find the height by scanning up along the left side
         int leftHeight = 0;
-        scanPos = bottomLeftCorner;
-        while (isCobblestone(level, scanPos)) {
+        while (isFrameBlock(level, cursor.set(x, y + leftHeight, z))) {
             leftHeight++;
-            scanPos = scanPos.above();
             if (leftHeight > MAX_HEIGHT + 2) {
                 return FrameResult.invalid("Frame too tall");
             }
@@ -143,109 +151,59 @@ public class WormholeFrameDetector {
             return FrameResult.invalid("Frame too tall (max " + MAX_HEIGHT + " interior height)");
         }
 
-        // Now validate the complete frame and collect block positions
-        List<BlockPos> frameBlocks = new ArrayList<>();
-        List<BlockPos> interiorBlocks = new ArrayList<>();
-
-        // Validate and collect bottom row (including corners)
+        // Validate the bottom row (the left side and bottom were already walked while sizing)
         for (int i = 0; i < bottomWidth; i++) {
-            BlockPos pos = bottomLeftCorner.relative(horizontal, i);
-            if (!isCobblestone(level, pos)) {
+            if (!isFrameBlock(level, cursor.set(x + stepX * i, y, z + stepZ * i))) {
                 return FrameResult.invalid("Incomplete bottom row");
             }
-            frameBlocks.add(pos);
         }
 
-        // Validate and collect top row
+        // Validate the top row
+        int topY = y + leftHeight - 1;
         for (int i = 0; i < bottomWidth; i++) {
-            BlockPos pos = bottomLeftCorner.above(leftHeight - 1).relative(horizontal, i);
-            if (!isCobblestone(level, pos)) {
+            if (!isFrameBlock(level, cursor.set(x + stepX * i, topY, z + stepZ * i))) {
                 return FrameResult.invalid("Incomplete top row");
             }
-            frameBlocks.add(pos);
         }
 
-        // Validate and collect left side (excluding corners already added)
+        // Validate the left side (excluding corners)
         for (int i = 1; i < leftHeight - 1; i++) {
-            BlockPos pos = bottomLeftCorner.above(i);
-            if (!isCobblestone(level, pos)) {
+            if (!isFrameBlock(level, cursor.set(x, y + i, z))) {
                 return FrameResult.invalid("Incomplete left side");
             }
-            frameBlocks.add(pos);
         }
 
-        // Validate and collect right side (excluding corners)
-        BlockPos bottomRightCorner = bottomLeftCorner.relative(horizontal, bottomWidth - 1);
+        // Validate the right side (excluding corners)
+        int rightX = x + stepX * (bottomWidth - 1);
+        int rightZ = z + stepZ * (bottomWidth - 1);
         for (int i = 1; i < leftHeight - 1; i++) {
-            BlockPos pos = bottomRightCorner.above(i);
-            if (!isCobblestone(level, pos)) {
+            if (!isFrameBlock(level, cursor.set(rightX, y + i, rightZ))) {
                 return FrameResult.invalid("Incomplete right side");
             }
-            frameBlocks.add(pos);
         }
 
-        // Validate interior is all air and collect positions
+        // Validate interior is all air
         // Anchor is the bottom-left interior block (one up and one right from bottom-left corner)
-        BlockPos anchorPos = bottomLeftCorner.above(1).relative(horizontal, 1);
+        int anchorX = x + stepX;
+        int anchorY = y + 1;
+        int anchorZ = z + stepZ;
 
-        for (int y = 0; y < interiorHeight; y++) {
-            for (int x = 0; x < interiorWidth; x++) {
-                BlockPos interiorPos = anchorPos.above(y).relative(horizontal, x);
-                BlockState state = level.getBlockState(interiorPos);
+        for (int dy = 0; dy < interiorHeight; dy++) {
+            for (int i = 0; i < interiorWidth; i++) {
+                BlockState state = level.getBlockState(cursor.set(anchorX + stepX * i, anchorY + dy, anchorZ + stepZ * i));
                 if (!state.isAir() && !state.is(Blocks.FIRE)) {
                     return FrameResult.invalid("Interior must be empty");
                 }
-                interiorBlocks.add(interiorPos);
             }
         }
 
-        return FrameResult.valid(anchorPos, axis, interiorWidth, interiorHeight, frameBlocks, interiorBlocks);
-    }
-
-    /**
-     * Check if a position contains cobblestone.
-     */
-    private static boolean isCobblestone(Level level, BlockPos pos) {
-        return level.getBlockState(pos).is(Blocks.COBBLESTONE);
+        return FrameResult.valid(BlockPos.asLong(anchorX, anchorY, anchorZ), axis, interiorWidth, interiorHeight);
     }
 
     /**
-     * Check if an existing portal frame is still valid (for destruction detection).
+     * Check if a position contains a valid frame block.
      */
-    public static boolean isFrameStillValid(Level level, BlockPos anchorPos, Direction.Axis axis, int width, int height) {
-        Direction horizontal = axis == Direction.Axis.X ? Direction.EAST : Direction.SOUTH;
-
-        // Check bottom row (one below anchor, from one left of anchor to width + 1 right)
-        BlockPos bottomLeft = anchorPos.below().relative(horizontal.getOpposite());
-        for (int i = 0; i < width + 2; i++) {
-            if (!isCobblestone(level, bottomLeft.relative(horizontal, i))) {
-                return false;
-            }
-        }
-
-        // Check top row
-        BlockPos topLeft = bottomLeft.above(height + 1);
-        for (int i = 0; i < width + 2; i++) {
-            if (!isCobblestone(level, topLeft.relative(horizontal, i))) {
-                return false;
-            }
-        }
-
-        // Check left side
-        for (int i = 1; i <= height; i++) {
-            if (!isCobblestone(level, bottomLeft.above(i))) {
-                return false;
-            }
-        }
-
-        // Check right side
-        BlockPos bottomRight = bottomLeft.relative(horizontal, width + 1);
-        for (int i = 1; i <= height; i++) {
-            if (!isCobblestone(level, bottomRight.above(i))) {
-                return false;
-            }
-        }
-
-        return true;
+    public static boolean isFrameBlock(BlockGetter level, BlockPos pos) {
+        return level.getBlockState(pos).is(FRAME_BLOCKS);
     }
 }